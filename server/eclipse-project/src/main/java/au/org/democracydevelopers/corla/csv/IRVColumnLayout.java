@@ -0,0 +1,120 @@
+/*
+Democracy Developers IRV extensions to colorado-rla.
+
+@copyright 2024 Colorado Department of State
+
+These IRV extensions are designed to connect to a running instance of the raire 
+service (https://github.com/DemocracyDevelopers/raire-service), in order to 
+generate assertions that can be audited using colorado-rla.
+
+The colorado-rla IRV extensions are free software: you can redistribute it and/or modify it under the terms
+of the GNU Affero General Public License as published by the Free Software Foundation, either
+version 3 of the License, or (at your option) any later version.
+
+The colorado-rla IRV extensions are distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+See the GNU Affero General Public License for more details.
+
+You should have received a copy of the GNU Affero General Public License along with
+raire-service. If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package au.org.democracydevelopers.corla.csv;
+
+import au.org.democracydevelopers.corla.model.vote.IRVChoices;
+import au.org.democracydevelopers.corla.model.vote.IRVPreference;
+import us.freeandfair.corla.model.Choice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The layout of one IRV contest's columns in a Dominion CVR export, as validated by
+ * IRVHeadersParser.validateIRVPreferenceHeaders. The columns for a contest with n choices and
+ * maxRank ranks are Alice(1), Bob(1), Chuan(1), Alice(2), Bob(2), Chuan(2), ..., so the column at
+ * offset i (from the start of the contest) holds choice (i mod n) at rank (i / n) + 1.
+ * A layout is built once per contest when the headers are read, and maps each column offset to
+ * its IRVPreference and its raw "name(rank)" string. Parsing a CVR line then only needs to record
+ * the offsets of the marked columns in an int[] and look them up here, rather than generating and
+ * regex-parsing the "name(rank)" strings for every contest on every line.
+ * Layouts are immutable, so they can be shared by threads parsing different lines.
+ */
+public class IRVColumnLayout {
+
+  /**
+   * The preference recorded by a mark in each column, or null if the column is for a fictitious
+   * choice (such as "Write-in"), whose marks are ignored.
+   */
+  private final IRVPreference[] preferences;
+
+  /**
+   * The "name(rank)" string for each column, as stored in an IRVBallotInterpretation.
+   */
+  private final String[] rawChoices;
+
+  /**
+   * Constructs the layout for an IRV contest.
+   * @param choices the contest's choices (plain candidate names, without ranks), in header order.
+   * @param maxRank the number of ranks allowed.
+   */
+  public IRVColumnLayout(final List<Choice> choices, final int maxRank) {
+    final int numChoices = choices.size();
+    preferences = new IRVPreference[numChoices * maxRank];
+    rawChoices = new String[numChoices * maxRank];
+
+    for (int rank = 1; rank <= maxRank; rank++) {
+      for (int c = 0; c < numChoices; c++) {
+        final Choice choice = choices.get(c);
+        final int offset = (rank - 1) * numChoices + c;
+        final IRVPreference preference = new IRVPreference(rank, choice.name());
+        preferences[offset] = choice.fictitious() ? null : preference;
+        rawChoices[offset] = preference.toString();
+      }
+    }
+  }
+
+  /**
+   * @return the number of columns the contest occupies (choices times ranks).
+   */
+  public int columnCount() {
+    return preferences.length;
+  }
+
+  /**
+   * @param offset the column offset from the start of the contest.
+   * @return true if a mark in this column is a vote, false if it is for a fictitious choice.
+   */
+  public boolean counts(final int offset) {
+    return preferences[offset] != null;
+  }
+
+  /**
+   * Builds the IRVChoices for a vote, given the offsets of its marked (counted) columns.
+   * @param marked the offsets of the marked columns, in increasing order, in its first count
+   *               elements.
+   * @param count  the number of marked columns.
+   * @return the vote, equal to the IRVChoices built from rawChoices(marked, count).
+   */
+  public IRVChoices choices(final int[] marked, final int count) {
+    final List<IRVPreference> vote = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      vote.add(preferences[marked[i]]);
+    }
+    return IRVChoices.fromPreferences(vote);
+  }
+
+  /**
+   * Lists the raw "name(rank)" strings for a vote, given the offsets of its marked columns.
+   * @param marked the offsets of the marked columns, in increasing order, in its first count
+   *               elements.
+   * @param count  the number of marked columns.
+   * @return the raw choices, in column order.
+   */
+  public List<String> rawChoices(final int[] marked, final int count) {
+    final List<String> raw = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      raw.add(rawChoices[marked[i]]);
+    }
+    return raw;
+  }
+}
@@ -69,6 +69,16 @@ public abstract class AbstractAllIrvEndpoint extends AbstractDoSDashboardEndpoin
      */
     protected static final String RAIRE_URL = "raire_url";
 
+    /**
+     * Property for the most contests for which requests to raire are outstanding at once.
+     */
+    public static final String PARALLELISM_PROPERTY = "raire_parallelism";
+
+    /**
+     * Default for PARALLELISM_PROPERTY.
+     */
+    protected static final int DEFAULT_PARALLELISM = 4;
+
     /**
      * The httpClient used for making requests to the raire-service.
      */
@@ -100,6 +110,25 @@ public abstract class AbstractAllIrvEndpoint extends AbstractDoSDashboardEndpoin
         my_event.set(null);
     }
 
+    /**
+     * Reads an integer property.
+     *
+     * @param name         The property name.
+     * @param defaultValue The value if the property is absent or invalid.
+     * @param minimum      The smallest valid value.
+     * @return the value.
+     */
+    protected static int intProperty(final String name, final int defaultValue, final int minimum) {
+        try {
+            final int value = Integer.parseInt(
+                Main.properties().getProperty(name, String.valueOf(defaultValue)).trim());
+            return value >= minimum ? value : defaultValue;
+        } catch (final NumberFormatException e) {
+            LOGGER.error(String.format("[intProperty] invalid %s, using %d.", name, defaultValue));
+            return defaultValue;
+        }
+    }
+
     /**
      * Get (or make) all the ContestResults whose contests are consistently IRV.
      * Used for assertion generation and retrieval.
@@ -37,11 +37,18 @@ import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.query.ComparisonAuditQueries;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.*;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static us.freeandfair.corla.asm.ASMState.DoSDashboardState.PARTIAL_AUDIT_INFO_SET;
 
@@ -94,6 +101,72 @@ public class GenerateAssertions extends AbstractAllIrvEndpoint {
    */
   public static final String UNKNOWN_WINNER = "Unknown";
 
+  /**
+   * Property for the time, in seconds, allowed for each request to raire beyond the time limit
+   * for assertion generation, to cover raire reading the votes and the round trip.
+   */
+  public static final String TIMEOUT_MARGIN_PROPERTY = "raire_timeout_margin_seconds";
+
+  /**
+   * Property for the number of times a request to raire that times out, fails in transit, or
+   * gets a server error is retried.
+   */
+  public static final String RETRIES_PROPERTY = "raire_retries";
+
+  /**
+   * Default for TIMEOUT_MARGIN_PROPERTY.
+   */
+  private static final int DEFAULT_TIMEOUT_MARGIN = 60;
+
+  /**
+   * Default for RETRIES_PROPERTY.
+   */
+  private static final int DEFAULT_RETRIES = 2;
+
+  /**
+   * The delay before the first retry of a request; it doubles for each further retry.
+   */
+  private static final long RETRY_DELAY_MILLIS = 500;
+
+  /**
+   * The most contests whose assertions are generated at once.
+   */
+  private final int my_parallelism;
+
+  /**
+   * The time allowed for each request beyond the time limit for assertion generation.
+   */
+  private final Duration my_timeout_margin;
+
+  /**
+   * The number of retries of each request.
+   */
+  private final int my_retries;
+
+  /**
+   * Constructs a new GenerateAssertions endpoint, configured from the system properties.
+   */
+  public GenerateAssertions() {
+    this(intProperty(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM, 1),
+        Duration.ofSeconds(intProperty(TIMEOUT_MARGIN_PROPERTY, DEFAULT_TIMEOUT_MARGIN, 0)),
+        intProperty(RETRIES_PROPERTY, DEFAULT_RETRIES, 0));
+  }
+
+  /**
+   * Constructs a new GenerateAssertions endpoint.
+   *
+   * @param parallelism   The most contests whose assertions are generated at once.
+   * @param timeoutMargin The time allowed for each request beyond the time limit.
+   * @param retries       The number of retries of each request.
+   */
+  protected GenerateAssertions(final int parallelism, final Duration timeoutMargin,
+                               final int retries) {
+    super();
+    my_parallelism = parallelism;
+    my_timeout_margin = timeoutMargin;
+    my_retries = retries;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -102,6 +175,15 @@ public class GenerateAssertions extends AbstractAllIrvEndpoint {
     return EndpointType.GET;
   }
 
+  /**
+   * Although this is a GET, it stores the assertion generation summaries that
+   * the DoS dashboard shows.
+   */
+  @Override
+  protected boolean changesDashboards() {
+    return true;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -184,7 +266,13 @@ public class GenerateAssertions extends AbstractAllIrvEndpoint {
    * Do the actual work of getting the assertions.
    * - Gather all the IRVContestResults
    * - For each IRV contest, make a request to the raire-service get-assertions endpoint of the right format type
-   * - Collate all the results into a list.
+   * - Collate all the results into a list, in the order of the contests.
+   * Up to my_parallelism requests are outstanding at once, and each response is logged as it
+   * arrives. A contest whose request times out, fails in transit or gets a server error (after
+   * retrying those that cannot have started any work in raire) is recorded as failed, with
+   * retry recommended, and the other contests carry on; any other
+   * error (a bad url, a Bad Request or an uninterpretable response) is thrown once all the
+   * outstanding requests have finished.
    *
    * @param IRVContestResults the collection of all IRV ContestResults.
    * @param timeLimitSeconds  the time limit for raire assertion generation, per contest.
@@ -193,12 +281,56 @@ public class GenerateAssertions extends AbstractAllIrvEndpoint {
   protected List<GenerateAssertionsResponse> generateAllAssertions(final List<ContestResult> IRVContestResults,
                                                                final double timeLimitSeconds, final String raireUrl) {
     final String prefix = "[generateAllAssertions]";
-    LOGGER.debug(String.format("%s %s.", prefix, "Generating assertions for all IRV contests"));
+    LOGGER.debug(String.format("%s %s (%d at a time).", prefix,
+        "Generating assertions for all IRV contests", my_parallelism));
 
-    // Iterate through all IRV Contests, sending a request to the raire-service for each one's assertions
-    final List<GenerateAssertionsResponse> responseData = IRVContestResults.stream().map(
-        r -> generateAssertionsUpdateWinners(IRVContestResults, r.getContestName(), timeLimitSeconds, raireUrl)
-        ).toList();
+    // Send a request to the raire-service for each IRV contest's assertions, waiting for a free
+    // slot before each one.
+    final Semaphore slots = new Semaphore(my_parallelism);
+    final List<CompletableFuture<GenerateAssertionsResponse>> requests = new ArrayList<>();
+    try {
+      for (final ContestResult cr : IRVContestResults) {
+        slots.acquire();
+        final CompletableFuture<GenerateAssertionsResponse> request;
+        try {
+          request = requestAssertions(IRVContestResults, cr.getContestName(), timeLimitSeconds,
+              raireUrl);
+        } catch (final RuntimeException e) {
+          slots.release();
+          throw e;
+        }
+        requests.add(request.whenComplete((response, error) -> {
+          slots.release();
+          LOGGER.debug(String.format("%s %s %s %s.", prefix,
+              error == null ? "Received response" : "Failed", "for contest", cr.getContestName()));
+        }));
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final String msg = "Connection to RAIRE interrupted while generating assertions";
+      LOGGER.error(String.format("%s %s.", prefix, msg));
+      throw new RuntimeException(msg);
+    }
+
+    // Collate the responses.
+    final List<GenerateAssertionsResponse> responseData = new ArrayList<>();
+    RuntimeException failure = null;
+    for (int i = 0; i < requests.size(); i++) {
+      try {
+        responseData.add(requests.get(i).join());
+      } catch (final CompletionException e) {
+        final RuntimeException cause = unwrap(e);
+        if (cause instanceof RaireUnavailableException) {
+          responseData.add(new GenerateAssertionsResponse(
+              IRVContestResults.get(i).getContestName(), false, true));
+        } else if (failure == null) {
+          failure = cause;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
 
     LOGGER.debug(String.format("%s %s.", prefix, "Completed assertion generation for all IRV contests"));
     return responseData;
@@ -225,7 +357,28 @@ public class GenerateAssertions extends AbstractAllIrvEndpoint {
    */
   protected GenerateAssertionsResponse generateAssertionsUpdateWinners(final List<ContestResult> IRVContestResults,
                    final String contestName, final double timeLimitSeconds, final String raireUrl) {
-    final String prefix = "[generateAssertionsUpdateWinners]";
+    try {
+      return requestAssertions(IRVContestResults, contestName, timeLimitSeconds, raireUrl).join();
+    } catch (final CompletionException e) {
+      throw unwrap(e);
+    }
+  }
+
+  /**
+   * Starts the request for a single contest's assertions. Errors in making the request are thrown
+   * straight away; errors in sending it, or in raire's response, complete the returned future
+   * exceptionally.
+   *
+   * @param IRVContestResults The list of all ContestResults for IRV contests.
+   * @param contestName       The name of the contest.
+   * @param timeLimitSeconds  The time limit allowed for raire to compute the assertions.
+   * @param raireUrl          The url of the raire service.
+   * @return the response, when it arrives.
+   */
+  private CompletableFuture<GenerateAssertionsResponse> requestAssertions(
+      final List<ContestResult> IRVContestResults, final String contestName,
+      final double timeLimitSeconds, final String raireUrl) {
+    final String prefix = "[requestAssertions]";
     LOGGER.debug(String.format("%s %s %s.", prefix, "Generating assertions for contest ", contestName));
 
     try {
@@ -244,40 +397,17 @@ public class GenerateAssertions extends AbstractAllIrvEndpoint {
           candidates
       );
 
-      // Send it to the RAIRE service.
       // Throws URISyntaxException or MalformedURLException if the raireUrl is invalid.
-      final HttpResponse<String> raireResponse = httpClient.send(HttpRequest.newBuilder()
-              .uri(new URL(raireUrl).toURI())
-              .header("content-type", "application/json")
-              .POST(HttpRequest.BodyPublishers.ofString(Main.GSON.toJson(generateAssertionsRequest)))
-              .build(),
-          HttpResponse.BodyHandlers.ofString()
-      );
-      LOGGER.debug(String.format("%s %s %s.", prefix,
-          "Sent Assertion Request to Raire service for contest", contestName));
+      final HttpRequest request = HttpRequest.newBuilder()
+          .uri(new URL(raireUrl).toURI())
+          .timeout(Duration.ofMillis((long) (timeLimitSeconds * 1000)).plus(my_timeout_margin))
+          .header("content-type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(Main.GSON.toJson(generateAssertionsRequest)))
+          .build();
 
-      // Interpret the response.
-      final int statusCode = raireResponse.statusCode();
-
-      if (statusCode == HttpURLConnection.HTTP_OK && raireResponse.body() != null) {
-
-        // OK response, which may indicate either that assertion generation succeeded, or that it
-        // failed and raire generated a useful error. Return raire's response.
-        final GenerateAssertionsResponse responseFromRaire
-            = gson.fromJson(raireResponse.body(), GenerateAssertionsResponse.class);
-
-        LOGGER.debug(String.format("%s %s %s %s.", prefix,
-            responseFromRaire.succeeded ? "Success" : "Failure",
-            "response for raire assertion generation for contest", contestName));
-        return responseFromRaire;
+      // Send it to the RAIRE service.
+      return send(request, contestName, my_retries, RETRY_DELAY_MILLIS);
 
-      } else {
-        // Something went wrong with the connection, e.g. 404 or a Bad Request. Cannot continue.
-        final String msg = "Connection failure with Raire service. Http code "
-            + statusCode + ". Check the configuration of Raire service url.";
-        LOGGER.error(String.format("%s %s", prefix, msg));
-        throw new RuntimeException(msg);
-      }
     } catch (final URISyntaxException | MalformedURLException e) {
       // The raire service url is malformed, probably a config error.
       final String msg = "Bad configuration of Raire service url: " + raireUrl + ". Check your config file.";
@@ -288,39 +418,149 @@ public class GenerateAssertions extends AbstractAllIrvEndpoint {
       // does not actually contain any contests (the latter should never happen).
       LOGGER.error(String.format("%s %s %s.", prefix, e.getMessage(), contestName));
       throw new IllegalArgumentException(e.getMessage() + " " + contestName);
-    } catch (JsonSyntaxException e) {
-      // This happens if the raire service returns something that isn't interpretable as json,
-      // so gson throws a syntax exception when trying to parse raireResponse.
-      final String msg = "Error interpreting Raire response for contest ";
-      final String errorMsg = String.format("%s %s %s.%s", prefix, msg, contestName, e.getMessage()==null?"":" "+e.getMessage());
-      LOGGER.error(errorMsg);
-      throw new RuntimeException(errorMsg);
-    } catch (final UnsupportedEncodingException e) {
-      // This really shouldn't happen, but would happen if the effort to make the
-      // generateAssertionsRequest as json failed.
-      final String msg = "Error generating request to Raire for contest ";
-      final String errorMsg = String.format("%s %s %s.%s", prefix, msg, contestName, e.getMessage()==null?"":" "+e.getMessage());
-      LOGGER.error(errorMsg);
-      throw new RuntimeException(errorMsg);
     } catch (final NullPointerException e) {
-      // This also shouldn't happen - it would indicate an unexpected problem such as the httpClient
-      // returning a null response.
+      // This also shouldn't happen - it would indicate an unexpected problem such as a contest
+      // result without a ballot count.
       final String msg = "Error requesting or receiving assertions for contest";
       final String errorMsg = String.format("%s %s %s.%s", prefix, msg, contestName, e.getMessage()==null?"":" "+e.getMessage());
       LOGGER.error(errorMsg);
       throw new RuntimeException(errorMsg);
-    } catch (final IOException e) {
-      // Generic error that can be thrown by the httpClient if the connection attempt fails.
-      final String msg = "I/O error during generate assertions attempt for contest";
-      final String errorMsg = String.format("%s %s %s.%s", prefix, msg, contestName, e.getMessage()==null?"":" "+e.getMessage());
-      LOGGER.error(errorMsg);
-      throw new RuntimeException(errorMsg);
-    } catch (final InterruptedException e) {
-      // The http connection to RAIRE was interrupted.
-      final String msg = "Connection to RAIRE interrupted for contest";
-      final String errorMsg = String.format("%s %s %s.%s", prefix, msg, contestName, e.getMessage()==null?"":" "+e.getMessage());
-      LOGGER.error(errorMsg);
-      throw new RuntimeException(errorMsg);
+    }
+  }
+
+  /**
+   * Sends a request to raire and interprets the response, retrying, after a delay that doubles
+   * each time, if the connection cannot be made or raire answers 502, 503 or 504. The request
+   * is not idempotent, so it is not resent after it may have reached raire: a request that
+   * times out, fails once connected, or gets any other server error fails for its contest,
+   * with retry recommended.
+   *
+   * @param request     The request.
+   * @param contestName The name of the contest.
+   * @param retries     The number of retries left.
+   * @param delayMillis The delay before the next retry.
+   * @return the response, when it arrives.
+   */
+  private CompletableFuture<GenerateAssertionsResponse> send(final HttpRequest request,
+      final String contestName, final int retries, final long delayMillis) {
+    final String prefix = "[send]";
+
+    return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        .handle((raireResponse, error) -> {
+          LOGGER.debug(String.format("%s %s %s.", prefix,
+              "Sent Assertion Request to Raire service for contest", contestName));
+
+          final String unavailable;
+          final boolean resend;
+          if (error != null) {
+            final Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            if (!(cause instanceof IOException)) {
+              // This shouldn't happen - it would indicate an unexpected problem in the httpClient.
+              final String msg = "Error requesting or receiving assertions for contest";
+              final String errorMsg = String.format("%s %s %s.%s", prefix, msg, contestName, cause.getMessage()==null?"":" "+cause.getMessage());
+              LOGGER.error(errorMsg);
+              return CompletableFuture.<GenerateAssertionsResponse>failedFuture(new RuntimeException(errorMsg));
+            }
+            // Only a failure to connect means raire never saw the request; after a timeout or
+            // any other I/O error it may still be generating assertions for this contest.
+            resend = cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException;
+            final String msg = cause instanceof HttpTimeoutException && !resend
+                ? "Timed out waiting for assertions for contest"
+                : "I/O error during generate assertions attempt for contest";
+            unavailable = String.format("%s %s %s.%s", prefix, msg, contestName, cause.getMessage()==null?"":" "+cause.getMessage());
+          } else if (raireResponse.statusCode() >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+            // A gateway or availability error means raire did not take the request on.
+            final int statusCode = raireResponse.statusCode();
+            resend = statusCode == HttpURLConnection.HTTP_BAD_GATEWAY
+                || statusCode == HttpURLConnection.HTTP_UNAVAILABLE
+                || statusCode == HttpURLConnection.HTTP_GATEWAY_TIMEOUT;
+            unavailable = String.format("%s %s %s. Http code %d.", prefix,
+                "Raire service unavailable for contest", contestName, statusCode);
+          } else {
+            return interpret(raireResponse, contestName);
+          }
+
+          if (resend && retries > 0) {
+            LOGGER.warn(String.format("%s Retrying in %d ms.", unavailable, delayMillis));
+            return CompletableFuture.runAsync(() -> { },
+                    CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> send(request, contestName, retries - 1, 2 * delayMillis));
+          }
+          LOGGER.error(unavailable);
+          return CompletableFuture.<GenerateAssertionsResponse>failedFuture(
+              new RaireUnavailableException(unavailable));
+        })
+        .thenCompose(Function.identity());
+  }
+
+  /**
+   * Interprets raire's response to a request for a single contest's assertions.
+   *
+   * @param raireResponse The response.
+   * @param contestName   The name of the contest.
+   * @return the interpreted response, or a future that failed if it could not be interpreted.
+   */
+  private CompletableFuture<GenerateAssertionsResponse> interpret(
+      final HttpResponse<String> raireResponse, final String contestName) {
+    final String prefix = "[interpret]";
+
+    // Interpret the response.
+    final int statusCode = raireResponse.statusCode();
+
+    if (statusCode == HttpURLConnection.HTTP_OK && raireResponse.body() != null) {
+      try {
+        // OK response, which may indicate either that assertion generation succeeded, or that it
+        // failed and raire generated a useful error. Return raire's response.
+        final GenerateAssertionsResponse responseFromRaire
+            = gson.fromJson(raireResponse.body(), GenerateAssertionsResponse.class);
+
+        LOGGER.debug(String.format("%s %s %s %s.", prefix,
+            responseFromRaire.succeeded ? "Success" : "Failure",
+            "response for raire assertion generation for contest", contestName));
+        return CompletableFuture.completedFuture(responseFromRaire);
+
+      } catch (final JsonSyntaxException e) {
+        // This happens if the raire service returns something that isn't interpretable as json,
+        // so gson throws a syntax exception when trying to parse raireResponse.
+        final String msg = "Error interpreting Raire response for contest ";
+        final String errorMsg = String.format("%s %s %s.%s", prefix, msg, contestName, e.getMessage()==null?"":" "+e.getMessage());
+        LOGGER.error(errorMsg);
+        return CompletableFuture.failedFuture(new RuntimeException(errorMsg));
+      }
+    } else {
+      // Something went wrong with the connection, e.g. 404 or a Bad Request. Cannot continue.
+      final String msg = "Connection failure with Raire service. Http code "
+          + statusCode + ". Check the configuration of Raire service url.";
+      LOGGER.error(String.format("%s %s", prefix, msg));
+      return CompletableFuture.failedFuture(new RuntimeException(msg));
+    }
+  }
+
+  /**
+   * @param e An exception from waiting for a request.
+   * @return the exception with which the request failed.
+   */
+  private static RuntimeException unwrap(final CompletionException e) {
+    final Throwable cause = e.getCause();
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    return e;
+  }
+
+  /**
+   * The failure of a request that timed out, failed in transit, or got a server error, after
+   * any retries. This affects only its own contest when generating for all contests.
+   */
+  private static class RaireUnavailableException extends RuntimeException {
+    /**
+     * Constructs a new RaireUnavailableException.
+     *
+     * @param msg The message.
+     */
+    RaireUnavailableException(final String msg) {
+      super(msg);
     }
   }
 
@@ -21,13 +21,26 @@ raire-service. If not, see <https://www.gnu.org/licenses/>.
 
 package au.org.democracydevelopers.corla.endpoint;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.net.*;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -82,6 +95,17 @@ public class GetAssertions extends AbstractAllIrvEndpoint {
      */
     public static final String FORMAT_PARAM = "format";
 
+    /**
+     * The most bytes of a response held in memory while it waits its turn to be written into the
+     * zip; any more go to a temporary file.
+     */
+    protected static final int BUFFER_LIMIT = 1 << 20;
+
+    /**
+     * The number of threads that have been started to fetch assertions.
+     */
+    private static final AtomicInteger FETCHER_COUNT = new AtomicInteger();
+
     /**
      * {@inheritDoc}
      */
@@ -153,14 +177,13 @@ public class GetAssertions extends AbstractAllIrvEndpoint {
      * - Gather all the IRVContestResults
      * - For each IRV contest, make a request to the raire-service get-assertions endpoint of the right format type
      * - Collate all the results into a zip
-     * Needs to be synchronized just in case someone is foolish enough to call it twice in parallel
-     * with the same ZipOutputStream.
+     * All the state is local to the call, so concurrent calls (with different streams) do not
+     * interfere.
      * @param zos    an output stream (to become a zip file)
      * @param suffix requested file type: "csv" or "json"
      */
-    public synchronized static void getAssertions(final ZipOutputStream zos, final String directory, final String suffix)
+    public static void getAssertions(final ZipOutputStream zos, final String directory, final String suffix)
         throws IOException, InterruptedException {
-        final String prefix = "[getAssertions]";
 
         final String raireUrl
             = Main.properties().getProperty(RAIRE_URL, "") + RAIRE_ENDPOINT;
@@ -170,77 +193,264 @@ public class GetAssertions extends AbstractAllIrvEndpoint {
         BigDecimal riskLimit = Persistence.getByID(DoSDashboard.ID, DoSDashboard.class).auditInfo().riskLimit();
         riskLimit = riskLimit == null ? BigDecimal.ZERO : riskLimit;
 
-        // Iterate through all IRV Contests, sending a request to the raire-service for each one's assertions and
-        // collating the responses.
-        final List<ContestResult> IRVContestResults = getIRVContestResults();
-        for (final ContestResult cr : IRVContestResults) {
-
-            // Find the candidates and contest name.
-            final List<String> candidates = cr.getContests().stream().findAny().orElseThrow().choices().stream()
-                .map(Choice::name).toList();
-
-            // Remove non-word characters for saving into .zip file; set up the zip next entry.
-            final String sanitizedContestName = cr.getContestName().replaceAll("[\\W]", "");
-            // If we have a nonempty directory, add "/" to it (apparently this is platform independent).
-            final String dirString = directory.isBlank() ? "" : directory + "/";
-            zos.putNextEntry(new ZipEntry(dirString + sanitizedContestName + "_assertions." + suffix));
-
-            // Make the request.
-            final GetAssertionsRequest getAssertionsRequest = new GetAssertionsRequest(
-                cr.getContestName(),
-                cr.getBallotCount().intValue(),
-                candidates,
-                riskLimit
-            );
+        writeAssertions(zos, directory, suffix, getIRVContestResults(), riskLimit, raireUrl,
+            intProperty(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM, 1));
+    }
+
+    /**
+     * Fetches the assertions for each of the given contests from raire and writes them into the
+     * zip, one entry per contest, in the order of the contests. Up to parallelism responses are
+     * fetched at once, each into its own buffer, which holds up to BUFFER_LIMIT bytes in memory
+     * and the rest in a temporary file; the responses are copied into the zip in turn.
+     * @param zos               an output stream (to become a zip file)
+     * @param directory         the directory in the zip for the entries, or blank for none.
+     * @param suffix            requested file type: "csv" or "json"
+     * @param IRVContestResults the IRV contests.
+     * @param riskLimit         the risk limit.
+     * @param raireUrl          the url of the raire get-assertions endpoint, without the suffix.
+     * @param parallelism       the most responses fetched at once.
+     */
+    protected static void writeAssertions(final ZipOutputStream zos, final String directory,
+                                          final String suffix,
+                                          final List<ContestResult> IRVContestResults,
+                                          final BigDecimal riskLimit, final String raireUrl,
+                                          final int parallelism)
+        throws IOException, InterruptedException {
+        final String prefix = "[writeAssertions]";
+
+        // If we have a nonempty directory, add "/" to it (apparently this is platform independent).
+        final String dirString = directory.isBlank() ? "" : directory + "/";
+
+        final ExecutorService fetchers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "raire-assertions-" + FETCHER_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final List<ResponseBuffer> buffers = new ArrayList<>();
+        final List<Future<?>> fetches = new ArrayList<>();
+        try {
+            for (int i = 0; i < IRVContestResults.size(); i++) {
+
+                // Keep the next parallelism responses on their way.
+                while (fetches.size() < Math.min(IRVContestResults.size(), i + parallelism)) {
+                    final ContestResult next = IRVContestResults.get(fetches.size());
+                    final HttpRequest request = assertionsRequest(next, riskLimit, raireUrl, suffix);
+                    final ResponseBuffer buffer = new ResponseBuffer();
+                    buffers.add(buffer);
+                    fetches.add(fetchers.submit(() -> fetch(request, next.getContestName(), buffer)));
+                }
 
-            try {
-                // Make the request and send it to RAIRE.
-                // Throws URISyntaxException if the raireUrl is invalid.
-                final HttpResponse<String> raireResponse = httpClient.send(HttpRequest.newBuilder()
-                    .uri(new URL(raireUrl + "-" + suffix).toURI())
-                    .header("content-type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(getAssertionsRequest)))
-                    .build(),
-                    HttpResponse.BodyHandlers.ofString()
-                );
-                LOGGER.debug(String.format("%s %s.", prefix, "Sent Assertion Request to Raire service for "
-                    + getAssertionsRequest.contestName));
-
-                final int statusCode = raireResponse.statusCode();
-                if (statusCode == HttpURLConnection.HTTP_OK) {
-                    // OK response. Put the file name and data into the .zip.
-
-                    LOGGER.debug(String.format("%s %s.", prefix, "OK response received from RAIRE for "
-                        + getAssertionsRequest.contestName));
-                    zos.write(raireResponse.body().getBytes(StandardCharsets.UTF_8));
-
-                } else if (raireResponse.headers().firstValue(RaireServiceErrors.ERROR_CODE_KEY).isPresent()) {
-                    // Error response about a specific contest, e.g. "NO_ASSERTIONS_PRESENT".
-                    // Write the error into the zip file and continue.
-
-                    final String code
-                        = raireResponse.headers().firstValue(RaireServiceErrors.ERROR_CODE_KEY).get();
-                    LOGGER.debug(String.format("%s %s %s.", prefix, "Error response " + code,
-                        "received from RAIRE for " + getAssertionsRequest.contestName));
-                    zos.write(code.getBytes(StandardCharsets.UTF_8));
-
-                } else {
-                    // Something went wrong with the connection. Cannot continue.
-
-                    final String msg = "Bad response from Raire service for contest " + getAssertionsRequest.contestName
-                        + ":" + statusCode + " " + raireResponse.statusCode();
-                    LOGGER.error(String.format("%s %s", prefix, msg));
-                    throw new RuntimeException(msg);
+                // Wait for this contest's response, then copy it into the zip.
+                try {
+                    fetches.get(i).get();
+                } catch (final ExecutionException e) {
+                    throw rethrow(e.getCause());
                 }
 
+                // Remove non-word characters for saving into .zip file; set up the zip next entry.
+                final String sanitizedContestName
+                    = IRVContestResults.get(i).getContestName().replaceAll("[\\W]", "");
+                zos.putNextEntry(new ZipEntry(dirString + sanitizedContestName + "_assertions." + suffix));
+                buffers.get(i).writeTo(zos);
                 zos.closeEntry();
-            } catch (URISyntaxException | IllegalArgumentException e) {
-                final String msg = "Bad configuration of raire-service url. Fix the config file.";
-                LOGGER.error(String.format("%s %s %s", prefix, msg, e.getMessage()));
+                buffers.get(i).close();
+            }
+        } finally {
+            fetchers.shutdownNow();
+            if (!fetchers.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.warn(String.format("%s %s", prefix, "Timed out waiting for raire requests to stop."));
+            }
+            for (final ResponseBuffer buffer : buffers) {
+                buffer.close();
+            }
+        }
+    }
+
+    /**
+     * Makes the request to raire for a contest's assertions.
+     * @param cr        the contest.
+     * @param riskLimit the risk limit.
+     * @param raireUrl  the url of the raire get-assertions endpoint, without the suffix.
+     * @param suffix    requested file type: "csv" or "json"
+     * @return the request.
+     * @throws MalformedURLException if the raireUrl is invalid.
+     */
+    private static HttpRequest assertionsRequest(final ContestResult cr, final BigDecimal riskLimit,
+                                                 final String raireUrl, final String suffix)
+        throws MalformedURLException {
+        final String prefix = "[assertionsRequest]";
+
+        // Find the candidates and contest name.
+        final List<String> candidates = cr.getContests().stream().findAny().orElseThrow().choices().stream()
+            .map(Choice::name).toList();
+
+        // Make the request.
+        final GetAssertionsRequest getAssertionsRequest = new GetAssertionsRequest(
+            cr.getContestName(),
+            cr.getBallotCount().intValue(),
+            candidates,
+            riskLimit
+        );
+
+        try {
+            // Throws URISyntaxException if the raireUrl is invalid.
+            return HttpRequest.newBuilder()
+                .uri(new URL(raireUrl + "-" + suffix).toURI())
+                .header("content-type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(getAssertionsRequest)))
+                .build();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            final String msg = "Bad configuration of raire-service url. Fix the config file.";
+            LOGGER.error(String.format("%s %s %s", prefix, msg, e.getMessage()));
+            throw new RuntimeException(msg);
+        }
+    }
+
+    /**
+     * Sends a request to raire for a contest's assertions, and streams the response into a buffer.
+     * @param request     the request.
+     * @param contestName the name of the contest.
+     * @param buffer      the buffer.
+     * @return null.
+     */
+    private static Void fetch(final HttpRequest request, final String contestName,
+                              final ResponseBuffer buffer)
+        throws IOException, InterruptedException {
+        final String prefix = "[fetch]";
+
+        final HttpResponse<InputStream> raireResponse
+            = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        LOGGER.debug(String.format("%s %s.", prefix, "Sent Assertion Request to Raire service for "
+            + contestName));
+
+        try (InputStream body = raireResponse.body()) {
+            final int statusCode = raireResponse.statusCode();
+            if (statusCode == HttpURLConnection.HTTP_OK) {
+                // OK response. Keep the data for the .zip.
+
+                LOGGER.debug(String.format("%s %s.", prefix, "OK response received from RAIRE for "
+                    + contestName));
+                body.transferTo(buffer);
+
+            } else if (raireResponse.headers().firstValue(RaireServiceErrors.ERROR_CODE_KEY).isPresent()) {
+                // Error response about a specific contest, e.g. "NO_ASSERTIONS_PRESENT".
+                // Keep the error for the zip file and continue.
+
+                final String code
+                    = raireResponse.headers().firstValue(RaireServiceErrors.ERROR_CODE_KEY).get();
+                LOGGER.debug(String.format("%s %s %s.", prefix, "Error response " + code,
+                    "received from RAIRE for " + contestName));
+                buffer.write(code.getBytes(StandardCharsets.UTF_8));
+
+            } else {
+                // Something went wrong with the connection. Cannot continue.
+
+                final String msg = "Bad response from Raire service for contest " + contestName
+                    + ":" + statusCode + " " + raireResponse.statusCode();
+                LOGGER.error(String.format("%s %s", prefix, msg));
                 throw new RuntimeException(msg);
             }
         }
+        return null;
+    }
+
+    /**
+     * @param cause the reason a fetch failed.
+     * @return the exception to throw, if cause is not itself thrown.
+     */
+    private static RuntimeException rethrow(final Throwable cause)
+        throws IOException, InterruptedException {
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        } else if (cause instanceof InterruptedException) {
+            throw (InterruptedException) cause;
+        } else if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new RuntimeException(cause);
     }
 
+    /**
+     * A buffer for a response that is waiting its turn to be written into the zip. It holds up
+     * to BUFFER_LIMIT bytes in memory, and moves everything to a temporary file beyond that.
+     */
+    private static class ResponseBuffer extends OutputStream {
+
+        /**
+         * The bytes in memory, or null once they have moved to the file.
+         */
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+
+        /**
+         * The temporary file, or null if there is none.
+         */
+        private Path file;
+
+        /**
+         * The stream to the temporary file, or null if there is none or it is closed.
+         */
+        private OutputStream fileStream;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void write(final byte[] bytes, final int offset, final int length)
+            throws IOException {
+            if (memory != null && memory.size() + length > BUFFER_LIMIT) {
+                file = Files.createTempFile("corla-assertions", ".tmp");
+                fileStream = new BufferedOutputStream(Files.newOutputStream(file));
+                memory.writeTo(fileStream);
+                memory = null;
+            }
+            if (memory == null) {
+                fileStream.write(bytes, offset, length);
+            } else {
+                memory.write(bytes, offset, length);
+            }
+        }
+
+        /**
+         * Copies the buffered bytes to a stream.
+         * @param os the stream.
+         */
+        synchronized void writeTo(final OutputStream os) throws IOException {
+            if (memory == null) {
+                fileStream.close();
+                fileStream = null;
+                Files.copy(file, os);
+            } else {
+                memory.writeTo(os);
+            }
+        }
+
+        /**
+         * Discards the buffered bytes, deleting the temporary file if there is one.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            memory = null;
+            try {
+                if (fileStream != null) {
+                    fileStream.close();
+                    fileStream = null;
+                }
+            } finally {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                    file = null;
+                }
+            }
+        }
+    }
 }
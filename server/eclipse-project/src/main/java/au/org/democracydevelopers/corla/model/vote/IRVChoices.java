@@ -143,6 +143,22 @@ public class IRVChoices {
     choices = Collections.unmodifiableList(irvChoices);
   }
 
+  /**
+   * Factory - takes a list of already-parsed IRVPreferences representing a vote, sorts a copy of
+   * it by rank (most to least preferred), then stores it in an unmodifiable list. This gives
+   * exactly the same IRVChoices as the List<String> constructor would for the corresponding
+   * "name(rank)" strings, but without parsing them. It is used when importing CVRs, where the
+   * preference for each column is known from the header (see IRVColumnLayout).
+   * @param preferences a list of IRVPreferences, which need not be a valid IRV vote - repeats or
+   *                    skipped preferences are allowed.
+   * @return the IRVChoices for the given preferences.
+   */
+  public static IRVChoices fromPreferences(List<IRVPreference> preferences) {
+    List<IRVPreference> irvChoices = new ArrayList<>(preferences);
+    irvChoices.sort(IRVPreference::compareTo);
+    return new IRVChoices(irvChoices, irvChoices.size());
+  }
+
   /**
    * Check whether the vote is a valid list of preferences without repeats of candidate names
    * or ranks and without skipped or invalid preferences.
@@ -0,0 +1,104 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.ComparisonAudit;
+
+/**
+ * The comparison audits of a county dashboard, so that auditing a ballot
+ * need only update and save the audits it can affect rather than every
+ * audit in the county.
+ *
+ * A CVR/ACVR pair can affect an audit only if the audit's contest appears on
+ * the CVR or the ACVR, if the CVR was selected for the audit, or if either
+ * record is a phantom (which is a discrepancy in every contest). For every
+ * other audit the CVR's multiplicity is 0, there is no discrepancy and no
+ * disagreement, so auditing or unauditing the pair leaves it unchanged.
+ *
+ * Whether the CVR was selected is read from each audit's own multiplicity
+ * counts, so building the index does not copy the audits' selections, and
+ * selections added after it was built are seen.
+ */
+final class AuditIndex {
+  /**
+   * The audits, in the dashboard's iteration order.
+   */
+  private final List<ComparisonAudit> my_audits;
+
+  /**
+   * Constructs a new AuditIndex.
+   *
+   * @param the_audits The audits, in the order in which they are to be
+   * visited.
+   */
+  AuditIndex(final Collection<ComparisonAudit> the_audits) {
+    my_audits = Collections.unmodifiableList(new ArrayList<>(the_audits));
+  }
+
+  /**
+   * @return all the audits, in order.
+   */
+  List<ComparisonAudit> all() {
+    return my_audits;
+  }
+
+  /**
+   * Finds the audits that a CVR/ACVR pair can affect.
+   *
+   * @param the_cvr The CVR.
+   * @param the_acvr The ACVR, or null if there is none.
+   * @return the audits, in order.
+   */
+  List<ComparisonAudit> auditsFor(final CastVoteRecord the_cvr,
+                                  final CastVoteRecord the_acvr) {
+    if (the_cvr.recordType() == RecordType.PHANTOM_RECORD
+        || the_acvr != null && the_acvr.recordType() == RecordType.PHANTOM_BALLOT) {
+      return my_audits;
+    }
+
+    final Set<String> contests = new HashSet<>();
+    addContests(contests, the_cvr);
+    if (the_acvr != null) {
+      addContests(contests, the_acvr);
+    }
+
+    final List<ComparisonAudit> result = new ArrayList<>();
+    for (final ComparisonAudit ca : my_audits) {
+      if (contests.contains(ca.contestResult().getContestName())
+          || ca.multiplicity(the_cvr.id()) > 0) {
+        result.add(ca);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Adds the names of the contests on a record.
+   *
+   * @param the_contests The contest names found so far.
+   * @param the_record The record.
+   */
+  private void addContests(final Set<String> the_contests,
+                           final CastVoteRecord the_record) {
+    for (final CVRContestInfo ci : the_record.contestInfo()) {
+      the_contests.add(ci.contest().name());
+    }
+  }
+}
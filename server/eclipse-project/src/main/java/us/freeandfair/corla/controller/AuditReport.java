@@ -22,6 +22,7 @@ import org.apache.log4j.Logger;
 
 import us.freeandfair.corla.report.WorkbookWriter;
 import us.freeandfair.corla.report.ReportRows;
+import us.freeandfair.corla.report.ReportSnapshot;
 import us.freeandfair.corla.report.StateReport;
 import us.freeandfair.corla.model.DoSDashboard;
 import us.freeandfair.corla.persistence.Persistence;
@@ -63,9 +64,11 @@ public final class AuditReport {
    * duplicates(multiplicity), the Activity Report does not
    *
    * contestName is optional if reportType is *-all
+   *
+   * The workbook is streamed to the OutputStream, which is left open.
    **/
-  public static byte[] generate(final String contentType, final String reportType,
-                                final String contestName)
+  public static void generate(final OutputStream os, final String contentType,
+                              final String reportType, final String contestName)
       throws IOException {
     // xlsx
     final WorkbookWriter writer = new WorkbookWriter();
@@ -91,7 +94,7 @@ public final class AuditReport {
         break;
       case "results-all":
         writer.addSheet("Contests to Sheets", getMappingSheet(contestMap));
-        writer.addSheet("Summary", ReportRows.genSumResultsReport());
+        writer.addSheet("Summary", ReportSnapshot.current().summaryRows());
         for (final Entry<String, String> entry : contestMap.entrySet()) {
           writer.addSheet(entry.getValue(), ReportRows.getResultsReport(entry.getKey()));
         }
@@ -102,7 +105,7 @@ public final class AuditReport {
 
     }
 
-    return writer.write();
+    writer.write(os);
   }
   
   public static List<List<String>> getMappingSheet(Map<String,String> contestMap) {
@@ -201,20 +204,20 @@ public final class AuditReport {
 
         if ("ActivityReport".equalsIgnoreCase(reportName)) {
           zos.putNextEntry(new ZipEntry("ActivityReport.xlsx"));
-          zos.write(generate("xlsx", "activity-all", null));
+          generate(zos, "xlsx", "activity-all", null);
           zos.closeEntry();
         }
 
         if ("ResultReport".equalsIgnoreCase(reportName)) {
           zos.putNextEntry(new ZipEntry("ResultsReport.xlsx"));
-          zos.write(generate("xlsx", "results-all", null));
+          generate(zos, "xlsx", "results-all", null);
           zos.closeEntry();
         }
 
         if ("StateReport".equalsIgnoreCase(reportName)) {
           final StateReport sr = new StateReport();
           zos.putNextEntry(new ZipEntry(sr.filenameExcel()));
-          zos.write(sr.generateExcel());
+          sr.generateExcel(zos);
           zos.closeEntry();
         }
 
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -27,8 +28,10 @@ import us.freeandfair.corla.model.CVRAuditInfo;
 import us.freeandfair.corla.model.Tribute;
 import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.query.BallotManifestInfoQueries;
+import us.freeandfair.corla.query.CVRAuditInfoQueries;
 import us.freeandfair.corla.query.CastVoteRecordQueries;
 import us.freeandfair.corla.util.BallotSequencer;
+import us.freeandfair.corla.util.ManifestIndex;
 import us.freeandfair.corla.util.PhantomBallots;
 
 // TODO remove suppression and refactor
@@ -245,6 +248,58 @@ public final class BallotSelection {
     }
   }
 
+  /**
+   * One contest's part of a round's random selection, with what drawing it
+   * needs from the database once it has been gathered
+   **/
+  public static class Draw {
+    /**
+     * The contest result to select for
+     */
+    public final ContestResult contestResult;
+
+    /**
+     * the first index of the random sequence to draw
+     */
+    public final Integer minIndex;
+
+    /**
+     * the last index of the random sequence to draw
+     */
+    public final Integer maxIndex;
+
+    /**
+     * what's the contest called?
+     */
+    public String contestName;
+
+    /**
+     * the counties the contest is in
+     */
+    public Set<Long> countyIds;
+
+    /**
+     * How large is our collection of ballots?
+     */
+    public Integer domainSize;
+
+    /**
+     * the counties' manifests, a copy used only by this draw
+     */
+    public Set<BallotManifestInfo> bmis;
+
+    /**
+     * a draw that has yet to be gathered
+     */
+    public Draw(final ContestResult contestResult,
+                final Integer minIndex,
+                final Integer maxIndex) {
+      this.contestResult = contestResult;
+      this.minIndex = minIndex;
+      this.maxIndex = maxIndex;
+    }
+  }
+
   /**
    * create a random list of numbers and divide them into the appropriate
    * counties
@@ -254,38 +309,105 @@ public final class BallotSelection {
                                           final String seed,
                                           final Integer minIndex,
                                            final Integer maxIndex) {
+    return randomSelections(List.of(new Draw(contestResult, minIndex, maxIndex)), seed)
+      .get(0);
+  }
+
+  /**
+   * make the random selections for several contests, in the order given
+   *
+   * The contests share only the seed, so once their manifests are gathered
+   * in this thread the random numbers and the tributes are drawn in
+   * parallel. The CVRs are then resolved in this thread, in order, so the
+   * selections are the same as making them one at a time.
+   **/
+  public static List<Selection> randomSelections(final List<Draw> draws,
+                                                 final String seed) {
+    gather(draws);
+    final List<Selection> selections = drawSelections(draws, seed);
+    // get the CVRs from the theoretical
+    selections.forEach(BallotSelection::resolveSelection);
+    return selections;
+  }
 
-    if (minIndex > maxIndex) {
+  /**
+   * read what each draw needs from the database; contests in the same
+   * counties share the queries but each gets its own copy of the manifests,
+   * because projecting a sequence writes to them
+   **/
+  public static void gather(final List<Draw> draws) {
+    final Map<Set<Long>, Integer> domainSizes = new HashMap<>();
+    final Map<Set<Long>, Set<BallotManifestInfo>> manifests = new HashMap<>();
+    for (final Draw draw : draws) {
+      if (draw.minIndex > draw.maxIndex) {
+        continue;
+      }
+      draw.contestName = draw.contestResult.getContestName();
+      draw.countyIds = draw.contestResult.countyIDs();
+      draw.domainSize =
+        domainSizes.computeIfAbsent(draw.countyIds, ids -> ballotsCast(ids).intValue());
+      draw.bmis = copyManifests(
+          manifests.computeIfAbsent(draw.countyIds, BallotManifestInfoQueries::getMatching));
+    }
+  }
+
+  /**
+   * draw gathered selections in parallel, keeping their order
+   **/
+  public static List<Selection> drawSelections(final List<Draw> draws,
+                                               final String seed) {
+    return draws.parallelStream()
+      .map(draw -> drawSelection(draw, seed))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * draw the random numbers of a gathered selection and divide them into
+   * the appropriate counties, without touching the database
+   **/
+  public static Selection drawSelection(final Draw draw, final String seed) {
+    if (draw.minIndex > draw.maxIndex) {
       // you are done, silly
       final Selection selection = new Selection();
-      selection.contestResult = contestResult;
+      selection.contestResult = draw.contestResult;
       return selection;
     }
 
-    final int domainSize = ballotsCast(contestResult.countyIDs()).intValue();
     final PseudoRandomNumberGenerator gen =
-      new PseudoRandomNumberGenerator(seed, true, 1, domainSize);
+      new PseudoRandomNumberGenerator(seed, true, 1, draw.domainSize);
 
-    final List<Integer> generatedNumbers = gen.getRandomNumbers(minIndex, maxIndex);
+    final List<Integer> generatedNumbers = gen.getRandomNumbers(draw.minIndex, draw.maxIndex);
 
     final Selection selection = new Selection();
-    selection.contestResult = contestResult;
-    selection.contestName = contestResult.getContestName();//posterity
-    selection.domainSize = domainSize; //posterity
+    selection.contestResult = draw.contestResult;
+    selection.contestName = draw.contestName;//posterity
+    selection.domainSize = draw.domainSize; //posterity
     selection.generatedNumbers = generatedNumbers; //posterity
 
     // make the theoretical selections (avoiding cvrs)
-    selectTributes(selection, contestResult.countyIDs());
+    selectTributes(selection, draw.countyIds, draw.bmis);
 
     LOGGER.info(String.format("[randomSelection] selected %s samples for %s ",
                               selection.generatedNumbers.size(),
-                              contestResult.getContestName()));
+                              draw.contestName));
     LOGGER.debug("randomSelection: selection= " + selection);
-    // get the CVRs from the theoretical
-    resolveSelection(selection);
     return selection;
   }
 
+  /**
+   * copy manifest entries, in the same order, so that projecting a sequence
+   * onto the copies leaves the originals alone
+   **/
+  public static Set<BallotManifestInfo> copyManifests(final Set<BallotManifestInfo> bmis) {
+    final Set<BallotManifestInfo> result = new TreeSet<>(new BallotManifestInfo.Sort());
+    for (final BallotManifestInfo bmi : bmis) {
+      result.add(new BallotManifestInfo(bmi.countyID(), bmi.scannerID(), bmi.batchID(),
+                                        bmi.batchSize(), bmi.storageLocation(),
+                                        bmi.sequenceStart(), bmi.sequenceEnd()));
+    }
+    return result;
+  }
+
   /**
    * Divide a list of random numbers into segments by county
    **/
@@ -313,9 +435,11 @@ public final class BallotSelection {
                                     final Set<Long> countyIds,
                                     final Set<BallotManifestInfo> contestBmis) {
     countyIds.forEach(id -> selection.initCounty(id));
+    // project the sequence once, rather than once per random number
+    final ManifestIndex index = ManifestIndex.ofUltimateSequence(contestBmis);
     int i = 0;
     for (final Integer rand: selection.generatedNumbers) {
-      final BallotManifestInfo bmi = selectCountyId(Long.valueOf(rand), contestBmis);
+      final BallotManifestInfo bmi = selectCountyId(Long.valueOf(rand), index);
       selection.addBallotPosition(bmi,
                                   // translate rand from Contest scope to bmi/batch scope
                                   bmi.translateRand(rand),
@@ -403,9 +527,10 @@ public final class BallotSelection {
     if (cvrIds.isEmpty()) { return 0; }
 
     final Map <Long, Boolean> isAuditedById = new HashMap<>();
+    final Map<Long, CVRAuditInfo> infos = CVRAuditInfoQueries.byIds(cvrIds);
 
     for (final Long cvrId: cvrIds) {
-      final CVRAuditInfo cvrai = Persistence.getByID(cvrId, CVRAuditInfo.class);
+      final CVRAuditInfo cvrai = infos.get(cvrId);
       // has an acvr
       final boolean isAudited = cvrai != null && cvrai.acvr() != null;
       isAuditedById.put(cvrId, isAudited);
@@ -439,6 +564,21 @@ public final class BallotSelection {
     }
   }
 
+  /**
+   * Find the manifest entry holding a random selection, using an index of
+   * the ultimate sequence
+   */
+  public static BallotManifestInfo selectCountyId(final Long rand,
+                                                  final ManifestIndex index) {
+    final Optional<BallotManifestInfo> holding = index.holding(rand);
+    if (holding.isPresent()) {
+      return holding.get();
+    } else {
+      final String msg = "Could not find BallotManifestInfo holding random number: " + rand;
+      throw new MissingBallotManifestException(msg);
+    }
+  }
+
   /**
    * The total number of ballots across a set of counties
    * @param countyIds a set of counties to count
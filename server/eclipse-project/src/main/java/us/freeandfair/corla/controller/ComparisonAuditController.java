@@ -30,6 +30,7 @@ import us.freeandfair.corla.math.Audit;
 import us.freeandfair.corla.model.*;
 import us.freeandfair.corla.model.CVRContestInfo.ConsensusValue;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.CVRAuditInfoQueries;
 import us.freeandfair.corla.query.CastVoteRecordQueries;
 
 /**
@@ -71,11 +72,13 @@ public final class ComparisonAuditController {
     final Round round = the_cdb.rounds().get(the_round_number - 1);
     final Set<Long> id_set = new HashSet<>();
     final List<CVRAuditInfo> result = new ArrayList<>();
+    final Map<Long, CVRAuditInfo> infos =
+        CVRAuditInfoQueries.byIds(round.auditSubsequence());
 
     for (final Long cvr_id : round.auditSubsequence()) {
       if (!id_set.contains(cvr_id)) {
         id_set.add(cvr_id);
-        result.add(Persistence.getByID(cvr_id, CVRAuditInfo.class));
+        result.add(infos.get(cvr_id));
       }
     }
 
@@ -137,25 +140,41 @@ public final class ComparisonAuditController {
     // Get all ballot cards for the target round
     final List<CastVoteRecord> cvrs = CastVoteRecordQueries.get(round.ballotSequence());
 
-    // Fetch the CVRs from previous rounds in order to set a flag determining
-    // whether they had been audited previously.
-    final Set<CastVoteRecord> previousCvrs = new HashSet<CastVoteRecord>();
-    for (int i = 1; i < roundNumber; i++) {
-      // i is 1-based
-      final Round r = rounds.get(i - 1);
-      previousCvrs.addAll(CastVoteRecordQueries.get(r.ballotSequence()));
-    }
+    // The IDs of the ballot cards in previous rounds, to set a flag
+    // determining whether they had been audited previously.
+    final Set<Long> previousIds = previousBallotIDs(rounds, roundNumber);
 
-    // PERF TODO: We may be able to replace calls to `audited` with a query that
-    // determines the audit status of all the CVRs when they are fetched.
+    // determine the audit status of all the CVRs at once
+    final Map<Long, CVRAuditInfo> infos =
+        CVRAuditInfoQueries.byIds(round.ballotSequence());
     for (final CastVoteRecord cvr : cvrs) {
-      cvr.setAuditFlag(audited(countyDashboard, cvr));
-      cvr.setPreviouslyAudited(previousCvrs.contains(cvr));
+      cvr.setAuditFlag(audited(infos.get(cvr.id())));
+      cvr.setPreviouslyAudited(previousIds.contains(cvr.id()));
     }
 
     return cvrs;
   }
 
+  /**
+   * Collects the IDs of the ballot cards in the rounds before a particular
+   * round. The rounds already hold their ballot sequences, so the CVRs of
+   * the previous rounds need not be fetched.
+   *
+   * @param rounds the county's rounds
+   * @param roundNumber 1-based round number
+   *
+   * @return the set of CVR IDs in rounds 1 to roundNumber - 1.
+   */
+  static Set<Long> previousBallotIDs(final List<Round> rounds,
+                                     final int roundNumber) {
+    final Set<Long> result = new HashSet<>();
+    for (int i = 1; i < roundNumber; i++) {
+      // i is 1-based
+      result.addAll(rounds.get(i - 1).ballotSequence());
+    }
+    return result;
+  }
+
   /**
    * Creates a ComparisonAudit (of the appropriate type - either IRV or plurality) for the given contest and risk limit.
    * No data is persisted. Used both for auditing and sample size estimation.
@@ -241,7 +260,8 @@ public final class ComparisonAuditController {
     }
     final CastVoteRecord oldAcvr = cai.acvr();
 
-    final Integer former_count = unaudit(cdb, cai);
+    final AuditIndex index = new AuditIndex(cdb.comparisonAudits());
+    final Integer former_count = unaudit(cdb, cai, index);
     LOGGER.debug("[reaudit] former_count: " + former_count.toString());
 
 
@@ -263,7 +283,7 @@ public final class ComparisonAuditController {
     Persistence.save(newAcvr);
     Persistence.save(cai);
 
-    final Integer new_count = audit(cdb, cai, true);
+    final Integer new_count = audit(cdb, cai, true, index);
     LOGGER.debug("[reaudit] new_count: " + new_count.toString());
     cdb.updateAuditStatus();
 
@@ -293,6 +313,7 @@ public final class ComparisonAuditController {
 
     final CVRAuditInfo info =
         Persistence.getByID(the_cvr_under_audit.id(), CVRAuditInfo.class);
+    final AuditIndex index = new AuditIndex(cdb.comparisonAudits());
 
     if (info == null) {
       LOGGER.warn("attempt to submit ACVR for county " +
@@ -309,7 +330,7 @@ public final class ComparisonAuditController {
         // final and valid
         LOGGER.trace("[submitAuditCVR: ACVR is null, creating]");
         info.setACVR(the_audit_cvr);
-        final int new_count = audit(cdb, info, true);
+        final int new_count = audit(cdb, info, true, index);
         cdb.addAuditedBallot();
         // there could be a problem here, maybe the cdb counts for all contests
         // and that is good enough??
@@ -317,9 +338,9 @@ public final class ComparisonAuditController {
       } else {
         // the record has been audited before, so we need to "unaudit" it
         LOGGER.trace("[submitAuditCVR: ACVR is seen, un/reauditing]");
-        final int former_count = unaudit(cdb, info);
+        final int former_count = unaudit(cdb, info, index);
         info.setACVR(the_audit_cvr);
-        final int new_count = audit(cdb, info, true);
+        final int new_count = audit(cdb, info, true, index);
         cdb.setAuditedSampleCount(cdb.auditedSampleCount() - former_count + new_count);
       }
       result = true;
@@ -334,7 +355,7 @@ public final class ComparisonAuditController {
                               cdb.auditedSampleCount(),
                               cdb.estimatedSamplesToAudit(),
                               cdb.optimisticSamplesToAudit()));
-    updateCVRUnderAudit(cdb);
+    updateCVRUnderAudit(cdb, index);
     LOGGER.trace(String.format("[After recalc: auditedSampleCount=%d, estimatedSamples=%d, optimisticSamples=%d",
                               cdb.auditedSampleCount(),
                               cdb.estimatedSamplesToAudit(),
@@ -380,7 +401,16 @@ public final class ComparisonAuditController {
    */
   public static boolean audited(final CountyDashboard the_cdb,
                                 final CastVoteRecord the_cvr) {
-    final CVRAuditInfo info = Persistence.getByID(the_cvr.id(), CVRAuditInfo.class);
+    return audited(Persistence.getByID(the_cvr.id(), CVRAuditInfo.class));
+  }
+
+  /**
+   * Checks to see if a CVR has been audited, given its audit information.
+   *
+   * @param info The CVR's audit information, or null if it has none.
+   * @return true if the CVR has been audited, false otherwise.
+   */
+  private static boolean audited(final CVRAuditInfo info) {
     final boolean result;
     if (info == null || info.acvr() == null) {
       result = false;
@@ -402,20 +432,24 @@ public final class ComparisonAuditController {
    */
   private static void updateRound(final CountyDashboard cdb,
                                   final Round round) {
+    final Map<Long, CVRAuditInfo> infos =
+        CVRAuditInfoQueries.byIds(round.auditSubsequence());
+    final AuditIndex index = new AuditIndex(cdb.comparisonAudits());
     for (final Long cvrID : new HashSet<>(round.auditSubsequence())) {
       final Map<String, AuditReason> auditReasons = new HashMap<>();
       final Set<AuditReason> discrepancies = new HashSet<>();
       final Set<AuditReason> disagreements = new HashSet<>();
 
-      CVRAuditInfo cvrai = Persistence.getByID(cvrID, CVRAuditInfo.class);
+      CVRAuditInfo cvrai = infos.get(cvrID);
       if (cvrai == null) {
         cvrai = new CVRAuditInfo(Persistence.getByID(cvrID, CastVoteRecord.class));
       }
 
       if (cvrai.acvr() != null) {
         // do the thing
-        // update the round statistics as necessary
-        for (final ComparisonAudit ca : cdb.comparisonAudits()) {
+        // update the round statistics as necessary; audits this ballot
+        // cannot affect are skipped
+        for (final ComparisonAudit ca : index.auditsFor(cvrai.cvr(), cvrai.acvr())) {
           final String contestName = ca.contestResult().getContestName();
           AuditReason auditReason = ca.auditReason();
 
@@ -473,13 +507,16 @@ public final class ComparisonAuditController {
    * @param updateCounters true to update the county dashboard
    * counters, false otherwise; false is used when this ballot
    * has already been audited once.
+   * @param index The index of the dashboard's audits; only the audits
+   * the ballot can affect are updated and saved.
    * @return the number of times the record was audited.
    */
   @SuppressWarnings({"PMD.ModifiedCyclomaticComplexity", "PMD.StdCyclomaticComplexity",
       "PMD.NPathComplexity"})
   private static int audit(final CountyDashboard cdb,
                            final CVRAuditInfo auditInfo,
-                           final boolean updateCounters) {
+                           final boolean updateCounters,
+                           final AuditIndex index) {
     final Set<String> contestDisagreements = new HashSet<>();
     final Set<AuditReason> discrepancies = new HashSet<>();
     final Set<AuditReason> disagreements = new HashSet<>();
@@ -488,8 +525,14 @@ public final class ComparisonAuditController {
     final CastVoteRecord auditCvr = auditInfo.acvr();
     int totalCount = 0;
 
+    for (final CVRContestInfo ci : auditCvr.contestInfo()) {
+      if (ci.consensus() == ConsensusValue.NO) {
+        contestDisagreements.add(ci.contest().name());
+      }
+    }
+
     // discrepancies
-    for (final ComparisonAudit ca : cdb.comparisonAudits()) {
+    for (final ComparisonAudit ca : index.auditsFor(cvrUnderAudit, auditCvr)) {
       AuditReason auditReason = ca.auditReason();
       final String contestName = ca.contestResult().getContestName();
 
@@ -527,12 +570,6 @@ public final class ComparisonAuditController {
       }
 
       // disagreements
-      for (final CVRContestInfo ci : auditCvr.contestInfo()) {
-        if (ci.consensus() == ConsensusValue.NO) {
-          contestDisagreements.add(ci.contest().name());
-        }
-      }
-
       // NOTE: this may or may not be correct, we're not sure
       if (contestDisagreements.contains(contestName)) {
         for (int i = 0; i < auditCount; i++) {
@@ -578,9 +615,12 @@ public final class ComparisonAuditController {
    *
    * @param the_cdb The county dashboard.
    * @param the_info The CVRAuditInfo to unaudit.
+   * @param the_index The index of the dashboard's audits; only the audits
+   * the ballot can affect are updated and saved.
    */
   @SuppressWarnings("PMD.NPathComplexity")
-  private static int unaudit(final CountyDashboard the_cdb, final CVRAuditInfo the_info) {
+  private static int unaudit(final CountyDashboard the_cdb, final CVRAuditInfo the_info,
+                             final AuditIndex the_index) {
     final Set<String> contest_disagreements = new HashSet<>();
     final Set<AuditReason> discrepancies = new HashSet<>();
     final Set<AuditReason> disagreements = new HashSet<>();
@@ -595,7 +635,7 @@ public final class ComparisonAuditController {
       }
     }
 
-    for (final ComparisonAudit ca : the_cdb.comparisonAudits()) {
+    for (final ComparisonAudit ca : the_index.auditsFor(cvr_under_audit, audit_cvr)) {
       AuditReason auditReason = ca.auditReason();
       final String contestName = ca.contestResult().getContestName();
 
@@ -670,6 +710,18 @@ public final class ComparisonAuditController {
    * @param cdb The dashboard.
    */
   public static void updateCVRUnderAudit(final CountyDashboard cdb) {
+    updateCVRUnderAudit(cdb, new AuditIndex(cdb.comparisonAudits()));
+  }
+
+  /**
+   * Updates the current CVR to audit index of the specified county
+   * dashboard, as above, using an existing index of its audits.
+   *
+   * @param cdb The dashboard.
+   * @param the_index The index of the dashboard's audits.
+   */
+  private static void updateCVRUnderAudit(final CountyDashboard cdb,
+                                          final AuditIndex the_index) {
     // start from where we are in the current round
     final Round round = cdb.currentRound();
 
@@ -687,7 +739,7 @@ public final class ComparisonAuditController {
           if (cai == null || cai.acvr() == null) {
             break;              // ok, so this hasn't been audited yet.
           } else {
-            final int audit_count = audit(cdb, cai, false);
+            final int audit_count = audit(cdb, cai, false, the_index);
             cdb.setAuditedSampleCount(cdb.auditedSampleCount() + audit_count);
           }
         }
@@ -5,6 +5,7 @@ package us.freeandfair.corla.controller;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.LogManager;
@@ -16,6 +17,8 @@ import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.query.BallotManifestInfoQueries;
 import us.freeandfair.corla.query.CastVoteRecordQueries;
 import us.freeandfair.corla.query.ContestResultQueries;
+import us.freeandfair.corla.query.CountyContestResultQueries;
+import us.freeandfair.corla.query.CountyContestResultQueries.ContestTotals;
 
 public final class ContestCounter {
   /**
@@ -37,16 +40,33 @@ public final class ContestCounter {
    * The actual tallying is valid only for plurality - it is not valid, and not needed, for IRV.
    * However, this function may still be useful for IRV, e.g. for gathering contests together by
    * name and calculating their universes.
+   * The database sums the vote totals and counts the ballots in each county, so the
+   * counting takes a fixed number of queries however many contests and counties there are.
    * @return List<ContestResult> A high level view of contests and their participants.
    */
   public static List<ContestResult> countAllContests(boolean useManifests) {
-    return
-      Persistence.getAll(CountyContestResult.class)
-      .stream()
-      .collect(Collectors.groupingBy(x -> x.contest().name()))
-      .entrySet()
-      .stream()
-      .map((Entry<String, List<CountyContestResult>> countyContestResults) -> countContest(countyContestResults, useManifests))
+    final Map<String, ContestTotals> totals = CountyContestResultQueries.totalsByContest();
+    final Map<String, ContestResult> contestResults =
+      ContestResultQueries.findOrCreate(totals.keySet());
+
+    // count the ballots in every county once, rather than once per contest
+    final Function<ContestResult, Long> ballotCounter;
+    if (useManifests) {
+      final Map<Long, Long> countyBallots = BallotManifestInfoQueries.totalBallotsByCounty();
+      ballotCounter = cr -> cr.countyIDs().stream()
+        .mapToLong(id -> countyBallots.getOrDefault(id, 0L))
+        .sum();
+    } else {
+      final Map<Long, Long> countyCVRs =
+        CastVoteRecordQueries.countByCounty(CastVoteRecord.RecordType.UPLOADED);
+      ballotCounter = cr -> countCVRs(cr, county -> countyCVRs.containsKey(county.id()) ?
+                                      OptionalLong.of(countyCVRs.get(county.id())) :
+                                      OptionalLong.empty());
+    }
+
+    return totals.values().stream()
+      .map(t -> countContest(contestResults.get(t.contestName), t.voteTotals, t.winnersAllowed,
+                             t.contests, t.counties, useManifests, ballotCounter))
       .collect(Collectors.toList());
   }
 
@@ -98,13 +118,51 @@ public final class ContestCounter {
       accumulateVoteTotals(countyContestResults.getValue().stream()
                            .map((cr) -> cr.voteTotals())
                            .collect(Collectors.toList()));
-    contestResult.setVoteTotals(voteTotals);
-
-    int numWinners;
     final Set<Integer> winnersAllowed = countyContestResults.getValue().stream()
       .map(x -> x.winnersAllowed())
       .collect(Collectors.toSet());
 
+    // If we are supposed to use manifests, set the ballotCount to their indicated total, otherwise
+    // count the CVRs.
+    final Function<ContestResult, Long> ballotCounter = useManifests ?
+      cr -> BallotManifestInfoQueries.totalBallots(cr.countyIDs()) :
+      cr -> countCVRs(cr, county ->
+                      CastVoteRecordQueries.countMatching(county.id(), CastVoteRecord.RecordType.UPLOADED));
+
+    return countContest(contestResult, voteTotals, winnersAllowed,
+                        countyContestResults.getValue().stream()
+                        .map(cr -> cr.contest())
+                        .collect(Collectors.toSet()),
+                        countyContestResults.getValue().stream()
+                        .map(cr -> cr.county())
+                        .collect(Collectors.toSet()),
+                        useManifests, ballotCounter);
+  }
+
+  /**
+   * Set voteTotals, winners, losers, margins and the ballot count on a contest result from
+   * the contest's results gathered across counties.
+   * Not valid for IRV.
+   * @param contestResult  the contest result to set.
+   * @param voteTotals     the votes for each choice, summed across counties.
+   * @param winnersAllowed the numbers of winners allowed by the county results.
+   * @param contests       the counties' contests.
+   * @param counties       the counties.
+   * @param useManifests   whether the ballot counter counts manifests or CVRs, for logging.
+   * @param ballotCounter  the number of ballots in the contest result's counties.
+   **/
+  private static ContestResult countContest(final ContestResult contestResult,
+                                            final Map<String,Integer> voteTotals,
+                                            final Set<Integer> winnersAllowed,
+                                            final Set<Contest> contests,
+                                            final Set<County> counties,
+                                            final boolean useManifests,
+                                            final Function<ContestResult, Long> ballotCounter) {
+    final String contestName = contestResult.getContestName();
+    contestResult.setVoteTotals(voteTotals);
+
+    int numWinners;
+
     if (winnersAllowed.isEmpty()) {
       LOGGER.error(String.format("[countContest: %s doesn't have any winners allowed."
                                  + " Assuming 1 allowed! Check the CVRS!", contestName));
@@ -122,17 +180,10 @@ public final class ContestCounter {
     contestResult.setWinners(winners(voteTotals, numWinners));
     contestResult.setLosers(losers(voteTotals, contestResult.getWinners()));
 
-    contestResult.addContests(countyContestResults.getValue().stream()
-                              .map(cr -> cr.contest())
-                              .collect(Collectors.toSet()));
-    contestResult.addCounties(countyContestResults.getValue().stream()
-                              .map(cr -> cr.county())
-                              .collect(Collectors.toSet()));
+    contestResult.addContests(contests);
+    contestResult.addCounties(counties);
 
-    // If we are supposed to use manifests, set the ballotCount to their indicated total, otherwise
-    // count the CVRs.
-    final Long ballotCount = useManifests ?
-      BallotManifestInfoQueries.totalBallots(contestResult.countyIDs()) : countCVRs(contestResult);
+    final Long ballotCount = ballotCounter.apply(contestResult);
     LOGGER.debug(String.format("%s Contest %s counted %s manifests.", "[countContest]", contestName,
         useManifests ? "with" : "without"));
 
@@ -168,17 +219,18 @@ public final class ContestCounter {
    * advance of the audit. During auditing, the sample-size estimate calculation should get this
    * value from the manifests, not the CVRs.
    * @param contestResult the contestResult for this contest.
+   * @param countyCVRs    the number of uploaded CVRs in a county.
    * @return the sum, over all counties that contain the contest, of the total number of CVRs in
    *         that county. This will be 0 if either the contestResult has no counties, or the counties
    *         have uploaded no CVRs.
    */
-  private static Long countCVRs(ContestResult contestResult) {
+  private static Long countCVRs(ContestResult contestResult,
+                                Function<County, OptionalLong> countyCVRs) {
     final String prefix = "[countCVRs]";
 
     long total = 0L;
     for(County county : contestResult.getCounties()) {
-      final OptionalLong countyCount
-          = CastVoteRecordQueries.countMatching(county.id(), CastVoteRecord.RecordType.UPLOADED);
+      final OptionalLong countyCount = countyCVRs.apply(county);
       if(countyCount.isPresent() && countyCount.getAsLong() != 0L)  {
         // Add all the ballots in this county to the total.
         total += countyCount.getAsLong();
@@ -49,6 +49,8 @@ public abstract class DeleteFileController {
     } else {
       throw new DeleteFileFail("Did not recognize fileType: " + fileType);
     }
+    // the deleted records must not outlive the delete in the second-level cache
+    Persistence.evictCaches();
 
     resetDashboards(countyId, fileType);
     return true;
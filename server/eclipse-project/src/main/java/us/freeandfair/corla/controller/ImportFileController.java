@@ -3,8 +3,11 @@ package us.freeandfair.corla.controller;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 
 import javax.persistence.PersistenceException;
 
@@ -24,6 +27,8 @@ import us.freeandfair.corla.persistence.Persistence;
 import us.freeandfair.corla.query.CastVoteRecordQueries;
 import us.freeandfair.corla.query.CountyContestResultQueries;
 import us.freeandfair.corla.query.UploadedFileQueries;
+import us.freeandfair.corla.report.ReportSnapshot;
+import us.freeandfair.corla.util.DashboardCache;
 import us.freeandfair.corla.util.UploadedFileStreamer;
 
 public class ImportFileController implements Runnable {
@@ -35,9 +40,19 @@ public class ImportFileController implements Runnable {
     LogManager.getLogger(ImportFileController.class);
 
 
+  /**
+   * The error message for a cancelled import.
+   */
+  public static final String CANCELLED = "import cancelled";
+
   private UploadedFileDTO uploadedFileDTO;
   private Long countyId;
 
+  /**
+   * The job this import is running as, or null.
+   */
+  private ImportJob job;
+
   /**
    * Constructs a new ImportFileController for the given file info which can be run
    * in a separate, independent, thread.
@@ -48,15 +63,20 @@ public class ImportFileController implements Runnable {
     this.countyId = upF.getCountyId();
   }
 
+  /**
+   * Runs the import as a job of the ImportService, which starts it once the
+   * endpoint transaction that set the cdb state to "importing" has committed.
+   * The job gets the import's progress, and cancelling it makes the import
+   * fail and clean up after itself.
+   */
+  public void run(final ImportJob the_job) {
+    this.job = the_job;
+    run();
+  }
+
   public void run() {
     LOGGER.debug("run()");
     try {
-      // We need the endpoint transaction, which sets the cdb state to
-      // "importing", to finish first. This is an easy way to dodge updates to
-      // the same hibernate object across threads. I have no idea why this
-      // didn't work for the UploadedFile object.
-      Thread.sleep(1000);
-
       // There is lots of transaction management here because we want to be sure
       // that an error gets written to the database and not rolled back. We also
       // want to make sure hibernate does not overwrite any non-hibernate
@@ -75,19 +95,32 @@ public class ImportFileController implements Runnable {
       runOnThread();
       Persistence.flush();
       Persistence.commitTransaction();
-    } catch (final RuntimeException | java.lang.InterruptedException e) {
+    } catch (final RuntimeException e) {
       final Result result = new Result();
       result.success = false;
       result.errorMessage = e.getClass() +" "+ e.getMessage();
       error(result);
       Persistence.flush();
       Persistence.commitTransaction();
+    } finally {
+      // the county's contests, results and status have all changed
+      ReportSnapshot.invalidate();
+      DashboardCache.changed();
     }
   }
 
   public void runOnThread() {
     LOGGER.debug("runOnThread()");
-    Result result = parse();
+    Result result;
+    if (cancelled()) {
+      result = new Result();
+      result.success = false;
+    } else {
+      result = parse();
+    }
+    if (!result.success && cancelled()) {
+      result.errorMessage = CANCELLED;
+    }
     if (result.success) {
       success(result);
     } else {
@@ -115,6 +148,9 @@ public class ImportFileController implements Runnable {
    */
   public void error(final Result result) {
     LOGGER.debug("error("+ result.errorMessage + ")");
+    if (this.job != null) {
+      this.job.fail(result.errorMessage);
+    }
 
     Persistence.rollbackTransaction(); 
     Persistence.beginTransaction();
@@ -180,27 +216,30 @@ public class ImportFileController implements Runnable {
     //against foreign key violations, not sure why
     commit();
     CountyContestResultQueries.deleteForCounty(this.countyId);
+    Persistence.evictCaches();
     commit();
   }
 
   public void commit() {
     Persistence.flush();
     Persistence.commitTransaction();
+    // the import runs in the background, so no endpoint will do this for us
+    DashboardCache.changed();
     Persistence.beginTransaction();
  }
 
   /**
    * Parses an uploaded CVR export and attempts to persist it to the database.
-   * with the default impl UploadedFileStreamer
+   * with the default impl UploadedFileStreamer, which reads the file on this
+   * thread
    *
    */
   public Result parse() {
-    UploadedFileStreamer ufs = new UploadedFileStreamer(this.uploadedFileDTO);
-    try {
-      (new Thread(ufs)).start();
-      return parse(ufs.inputStream());
-    } finally {
-      ufs.stop();
+    try (UploadedFileStreamer ufs = new UploadedFileStreamer(this.uploadedFileDTO)) {
+      if (this.job == null) {
+        return parse(ufs.inputStream());
+      }
+      return parse(new JobInputStream(ufs.inputStream(), this.job));
     }
   }
 
@@ -220,6 +259,9 @@ public class ImportFileController implements Runnable {
                                                         County.class),
                                     Main.properties(),
                                     true);
+      if (this.job != null) {
+        this.job.trackRows(() -> Math.max(0, parser.recordCount()));
+      }
       return parser.parse();
     } catch (final RuntimeException | java.io.IOException e) {
       // we could make parse() catch all possible exceptions because it already
@@ -232,4 +274,71 @@ public class ImportFileController implements Runnable {
       return parseResult;
     }
   }
+
+  /**
+   * @return true if this import's job has been cancelled.
+   */
+  private boolean cancelled() {
+    return this.job != null && this.job.cancelRequested();
+  }
+
+  /**
+   * A stream that reports how much of the file has been read to the job,
+   * and fails once the job has been cancelled.
+   */
+  private static class JobInputStream extends FilterInputStream {
+    /**
+     * The job.
+     */
+    private final ImportJob my_job;
+
+    /**
+     * Constructs a new JobInputStream.
+     *
+     * @param the_stream The file stream.
+     * @param the_job The job.
+     */
+    JobInputStream(final InputStream the_stream, final ImportJob the_job) {
+      super(the_stream);
+      my_job = the_job;
+    }
+
+    /**
+     * Fails if the job has been cancelled.
+     *
+     * @exception InterruptedIOException if it has.
+     */
+    private void checkCancelled() throws InterruptedIOException {
+      if (my_job.cancelRequested()) {
+        throw new InterruptedIOException(CANCELLED);
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+      checkCancelled();
+      final int result = super.read();
+      if (result >= 0) {
+        my_job.addBytesRead(1);
+      }
+      return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(final byte[] the_bytes, final int the_offset, final int the_length)
+        throws IOException {
+      checkCancelled();
+      final int result = super.read(the_bytes, the_offset, the_length);
+      if (result > 0) {
+        my_job.addBytesRead(result);
+      }
+      return result;
+    }
+  }
 }
@@ -0,0 +1,298 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * An import run by the ImportService, and its progress.
+ */
+public final class ImportJob {
+  /**
+   * The states of an import job.
+   */
+  public enum State {
+    /** submitted, but not yet released to run. */
+    PENDING,
+    /** waiting for a thread, or for an earlier import for the same county. */
+    QUEUED,
+    /** running. */
+    RUNNING,
+    /** finished successfully. */
+    SUCCEEDED,
+    /** finished unsuccessfully. */
+    FAILED,
+    /** cancelled before it finished. */
+    CANCELLED;
+
+    /**
+     * @return true if a job in this state has finished.
+     */
+    public boolean isFinished() {
+      return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+  }
+
+  /**
+   * The job ID.
+   */
+  private final long my_id;
+
+  /**
+   * The county ID.
+   */
+  private final Long my_county_id;
+
+  /**
+   * The uploaded file ID.
+   */
+  private final Long my_file_id;
+
+  /**
+   * The size of the file in bytes, or null if it is not known.
+   */
+  private final Long my_file_size;
+
+  /**
+   * The task that does the import.
+   */
+  private final ImportService.ImportTask my_task;
+
+  /**
+   * When the job was submitted.
+   */
+  private final Instant my_submitted;
+
+  /**
+   * The number of bytes of the file read so far.
+   */
+  private final AtomicLong my_bytes_read = new AtomicLong();
+
+  /**
+   * The state.
+   */
+  private volatile State my_state = State.PENDING;
+
+  /**
+   * When the job started running, or null.
+   */
+  private volatile Instant my_started;
+
+  /**
+   * When the job finished, or null.
+   */
+  private volatile Instant my_finished;
+
+  /**
+   * True if cancellation has been requested.
+   */
+  private volatile boolean my_cancel_requested;
+
+  /**
+   * The reason the job failed, or null.
+   */
+  private volatile String my_failure;
+
+  /**
+   * The source of the number of rows processed while the job runs.
+   */
+  private volatile IntSupplier my_rows = () -> 0;
+
+  /**
+   * The number of rows processed, once the job has finished.
+   */
+  private volatile int my_rows_processed;
+
+  /**
+   * Constructs a new job.
+   *
+   * @param the_id The job ID.
+   * @param the_county_id The county ID.
+   * @param the_file_id The uploaded file ID.
+   * @param the_file_size The size of the file in bytes, or null.
+   * @param the_task The task that does the import.
+   */
+  ImportJob(final long the_id, final Long the_county_id, final Long the_file_id,
+            final Long the_file_size, final ImportService.ImportTask the_task) {
+    my_id = the_id;
+    my_county_id = the_county_id;
+    my_file_id = the_file_id;
+    my_file_size = the_file_size;
+    my_task = the_task;
+    my_submitted = Instant.now();
+  }
+
+  /**
+   * @return the job ID.
+   */
+  public long id() {
+    return my_id;
+  }
+
+  /**
+   * @return the county ID.
+   */
+  public Long countyID() {
+    return my_county_id;
+  }
+
+  /**
+   * @return the uploaded file ID.
+   */
+  public Long fileID() {
+    return my_file_id;
+  }
+
+  /**
+   * @return the size of the file in bytes, or null if it is not known.
+   */
+  public Long fileSize() {
+    return my_file_size;
+  }
+
+  /**
+   * @return the state.
+   */
+  public State state() {
+    return my_state;
+  }
+
+  /**
+   * @return when the job was submitted.
+   */
+  public Instant submitted() {
+    return my_submitted;
+  }
+
+  /**
+   * @return when the job started running, or null.
+   */
+  public Instant started() {
+    return my_started;
+  }
+
+  /**
+   * @return when the job finished, or null.
+   */
+  public Instant finished() {
+    return my_finished;
+  }
+
+  /**
+   * @return the reason the job failed, or null.
+   */
+  public String failure() {
+    return my_failure;
+  }
+
+  /**
+   * @return true if cancellation has been requested.
+   */
+  public boolean cancelRequested() {
+    return my_cancel_requested;
+  }
+
+  /**
+   * @return the number of rows processed so far.
+   */
+  public int rowsProcessed() {
+    if (my_state.isFinished()) {
+      return my_rows_processed;
+    }
+    return my_rows.getAsInt();
+  }
+
+  /**
+   * @return the number of bytes of the file read so far.
+   */
+  public long bytesRead() {
+    return my_bytes_read.get();
+  }
+
+  /**
+   * Estimates how long the job will take to finish, from how much of the
+   * file it has read and how long that has taken.
+   *
+   * @return the estimate, or empty if there is none yet.
+   */
+  public Optional<Duration> eta() {
+    final Instant started = my_started;
+    final long read = my_bytes_read.get();
+    if (my_state != State.RUNNING || started == null || my_file_size == null
+        || read <= 0) {
+      return Optional.empty();
+    }
+    final long elapsed = Duration.between(started, Instant.now()).toMillis();
+    final long remaining = Math.max(0L, my_file_size - read);
+    return Optional.of(Duration.ofMillis((long) ((double) elapsed * remaining / read)));
+  }
+
+  /**
+   * Sets the source of the number of rows processed.
+   *
+   * @param the_rows The source.
+   */
+  public void trackRows(final IntSupplier the_rows) {
+    my_rows = the_rows;
+  }
+
+  /**
+   * Records that more of the file has been read.
+   *
+   * @param the_bytes The number of bytes read.
+   */
+  public void addBytesRead(final long the_bytes) {
+    my_bytes_read.addAndGet(the_bytes);
+  }
+
+  /**
+   * Records that the job has failed; the task calls this rather than
+   * throwing.
+   *
+   * @param the_reason The reason.
+   */
+  public void fail(final String the_reason) {
+    my_failure = the_reason;
+  }
+
+  /**
+   * @return the task that does the import.
+   */
+  ImportService.ImportTask task() {
+    return my_task;
+  }
+
+  /**
+   * Requests cancellation. The task sees the request, rolls back what it has
+   * done and fails; a job that has already finished is unaffected.
+   */
+  void requestCancel() {
+    my_cancel_requested = true;
+  }
+
+  /**
+   * Moves the job to the specified state.
+   *
+   * @param the_state The state.
+   */
+  void setState(final State the_state) {
+    if (the_state == State.RUNNING) {
+      my_started = Instant.now();
+    } else if (the_state.isFinished()) {
+      my_rows_processed = my_rows.getAsInt();
+      my_finished = Instant.now();
+    }
+    my_state = the_state;
+  }
+}
@@ -0,0 +1,404 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.controller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Runs imports on a fixed pool of threads. Imports for the same county run
+ * one at a time, in the order they were started; the number of imports
+ * waiting or running is bounded, and submitting beyond that is refused so
+ * that callers can ask clients to try again later. The jobs, with their
+ * progress, are kept (with a bounded history of finished ones) for polling.
+ *
+ * A job is submitted first, which reserves its place, and then started or
+ * discarded; this lets an endpoint refuse a request before changing any
+ * state, and start the import only once its own transaction has committed.
+ */
+public final class ImportService {
+  /**
+   * Class-wide logger
+   */
+  public static final Logger LOGGER = LogManager.getLogger(ImportService.class);
+
+  /**
+   * The property for the number of imports that can run at once.
+   */
+  public static final String THREADS_PROPERTY = "import_threads";
+
+  /**
+   * The property for the number of imports that can be waiting or running.
+   */
+  public static final String CAPACITY_PROPERTY = "import_queue_capacity";
+
+  /**
+   * The default number of imports that can run at once.
+   */
+  public static final int DEFAULT_THREADS = 4;
+
+  /**
+   * The default number of imports that can be waiting or running; enough for
+   * every county to have one import running and one waiting.
+   */
+  public static final int DEFAULT_CAPACITY = 128;
+
+  /**
+   * The number of finished jobs kept for polling.
+   */
+  private static final int FINISHED_JOBS_KEPT = 500;
+
+  /**
+   * The service, once created.
+   */
+  private static ImportService instance;
+
+  /**
+   * The threads that run imports.
+   */
+  private final ExecutorService my_executor;
+
+  /**
+   * The number of imports that can run at once.
+   */
+  private final int my_threads;
+
+  /**
+   * The number of imports that can be waiting or running.
+   */
+  private final int my_capacity;
+
+  /**
+   * The jobs, by ID, in the order they were submitted.
+   */
+  private final Map<Long, ImportJob> my_jobs = new LinkedHashMap<>();
+
+  /**
+   * For each county with imports waiting or running, those imports in order;
+   * the first is the one running (or about to run).
+   */
+  private final Map<Long, Deque<ImportJob>> my_lanes = new HashMap<>();
+
+  /**
+   * The ID of the most recently submitted job.
+   */
+  private long my_last_id;
+
+  /**
+   * The number of jobs that have been submitted and have not finished.
+   */
+  private int my_outstanding;
+
+  /**
+   * Constructs a new import service.
+   *
+   * @param the_threads The number of imports that can run at once.
+   * @param the_capacity The number of imports that can be waiting or running.
+   */
+  ImportService(final int the_threads, final int the_capacity) {
+    my_threads = the_threads;
+    my_capacity = the_capacity;
+    final AtomicInteger thread_count = new AtomicInteger();
+    my_executor = Executors.newFixedThreadPool(the_threads, runnable -> {
+      final Thread thread =
+          new Thread(runnable, "import-" + thread_count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * @return the import service, configured from the system properties.
+   */
+  public static synchronized ImportService instance() {
+    if (instance == null) {
+      final Properties properties = Main.properties();
+      instance = new ImportService(
+          intProperty(properties, THREADS_PROPERTY, DEFAULT_THREADS),
+          intProperty(properties, CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+      LOGGER.info("import service started with " + instance.my_threads +
+                  " threads and capacity " + instance.my_capacity);
+    }
+    return instance;
+  }
+
+  /**
+   * Reads a positive integer property.
+   *
+   * @param the_properties The properties.
+   * @param the_name The property name.
+   * @param the_default The value if the property is absent or invalid.
+   * @return the value.
+   */
+  private static int intProperty(final Properties the_properties, final String the_name,
+                                 final int the_default) {
+    try {
+      final int value = Integer.parseInt(
+          the_properties.getProperty(the_name, String.valueOf(the_default)).trim());
+      return value > 0 ? value : the_default;
+    } catch (final NumberFormatException e) {
+      LOGGER.error("invalid " + the_name + ", using " + the_default);
+      return the_default;
+    }
+  }
+
+  /**
+   * Submits an import, reserving its place; it does not run until it is
+   * started.
+   *
+   * @param the_county_id The county ID.
+   * @param the_file_id The uploaded file ID.
+   * @param the_file_size The size of the file in bytes, or null.
+   * @param the_task The task that does the import.
+   * @return the job.
+   * @exception RejectedExecutionException if too many imports are already
+   * waiting or running.
+   */
+  public synchronized ImportJob submit(final Long the_county_id, final Long the_file_id,
+                                       final Long the_file_size,
+                                       final ImportTask the_task) {
+    if (my_outstanding >= my_capacity) {
+      throw new RejectedExecutionException(my_outstanding + " imports are already waiting");
+    }
+    my_last_id = my_last_id + 1;
+    final ImportJob job =
+        new ImportJob(my_last_id, the_county_id, the_file_id, the_file_size, the_task);
+    my_jobs.put(job.id(), job);
+    my_outstanding = my_outstanding + 1;
+    trimHistory();
+    return job;
+  }
+
+  /**
+   * Starts a submitted import; it runs once a thread is free and any earlier
+   * imports for the same county have finished.
+   *
+   * @param the_job The job.
+   * @exception IllegalStateException if the job has already been started or
+   * discarded.
+   */
+  public synchronized void start(final ImportJob the_job) {
+    if (the_job.state() != ImportJob.State.PENDING) {
+      throw new IllegalStateException("import " + the_job.id() + " is " + the_job.state());
+    }
+    the_job.setState(ImportJob.State.QUEUED);
+    final Deque<ImportJob> lane =
+        my_lanes.computeIfAbsent(the_job.countyID(), county -> new ArrayDeque<>());
+    lane.add(the_job);
+    if (lane.size() == 1) {
+      execute(the_job);
+    }
+  }
+
+  /**
+   * Discards a submitted import that has not been started, giving up its
+   * place; this does nothing to a job that has been started.
+   *
+   * @param the_job The job.
+   */
+  public synchronized void discard(final ImportJob the_job) {
+    if (the_job.state() == ImportJob.State.PENDING) {
+      the_job.setState(ImportJob.State.CANCELLED);
+      my_jobs.remove(the_job.id());
+      my_outstanding = my_outstanding - 1;
+    }
+  }
+
+  /**
+   * Requests cancellation of an import. The import still gets its turn, so
+   * that its task can roll back whatever its submitter has done; the task
+   * sees the request and fails instead of importing (or stops importing).
+   *
+   * @param the_id The job ID.
+   * @return the job, or empty if there is no such job.
+   */
+  public synchronized Optional<ImportJob> cancel(final long the_id) {
+    final ImportJob job = my_jobs.get(the_id);
+    if (job != null && !job.state().isFinished()) {
+      job.requestCancel();
+    }
+    return Optional.ofNullable(job);
+  }
+
+  /**
+   * @param the_id The job ID.
+   * @return the job, or empty if there is no such job.
+   */
+  public synchronized Optional<ImportJob> job(final long the_id) {
+    return Optional.ofNullable(my_jobs.get(the_id));
+  }
+
+  /**
+   * @return all the jobs, in the order they were submitted.
+   */
+  public synchronized List<ImportJob> jobs() {
+    return new ArrayList<>(my_jobs.values());
+  }
+
+  /**
+   * @param the_county_id The county ID.
+   * @return the jobs for the specified county, in the order they were
+   * submitted.
+   */
+  public synchronized List<ImportJob> jobs(final Long the_county_id) {
+    final List<ImportJob> result = new ArrayList<>();
+    for (final ImportJob job : my_jobs.values()) {
+      if (job.countyID().equals(the_county_id)) {
+        result.add(job);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Stops the threads, interrupting any running imports.
+   */
+  void shutdown() {
+    my_executor.shutdownNow();
+  }
+
+  /**
+   * Hands a job to the threads.
+   *
+   * @param the_job The job.
+   */
+  private void execute(final ImportJob the_job) {
+    my_executor.execute(() -> run(the_job));
+  }
+
+  /**
+   * Runs a job, then starts the next one for its county. Whatever the task
+   * throws, including errors, fails the job; any transaction it left open
+   * on the thread is rolled back, and the county's next job is started and
+   * the job's place given up, regardless.
+   *
+   * @param the_job The job.
+   */
+  // the task may throw anything, and the next job must still run
+  @SuppressWarnings({"PMD.AvoidCatchingGenericException", "PMD.AvoidCatchingThrowable"})
+  private void run(final ImportJob the_job) {
+    boolean thrown = true;
+    try {
+      the_job.setState(ImportJob.State.RUNNING);
+      the_job.task().run(the_job);
+      thrown = false;
+    } catch (final Throwable e) {
+      LOGGER.error("import " + the_job.id() + " for county " + the_job.countyID() +
+                   " failed: " + e);
+      the_job.fail(e.toString());
+    } finally {
+      try {
+        rollbackAbandonedTransaction(the_job);
+      } finally {
+        finish(the_job, thrown);
+      }
+    }
+  }
+
+  /**
+   * Rolls back any transaction a job left open on its thread, so that the
+   * next import to run on the thread does not commit the job's changes.
+   *
+   * @param the_job The job.
+   */
+  // a failed rollback must not stop the county's next job
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private void rollbackAbandonedTransaction(final ImportJob the_job) {
+    try {
+      if (Persistence.rollbackAbandonedTransaction()) {
+        LOGGER.error("import " + the_job.id() + " for county " + the_job.countyID() +
+                     " left a transaction open; rolled it back");
+      }
+    } catch (final RuntimeException e) {
+      LOGGER.error("could not roll back the transaction left open by import " +
+                   the_job.id() + ": " + e);
+    }
+  }
+
+  /**
+   * Records a job's final state, gives up its place and starts the next job
+   * for its county.
+   *
+   * @param the_job The job.
+   * @param the_thrown true if the job's task threw.
+   */
+  private void finish(final ImportJob the_job, final boolean the_thrown) {
+    try {
+      if (the_thrown) {
+        the_job.setState(ImportJob.State.FAILED);
+      } else if (the_job.failure() == null) {
+        the_job.setState(ImportJob.State.SUCCEEDED);
+      } else if (the_job.cancelRequested()) {
+        the_job.setState(ImportJob.State.CANCELLED);
+      } else {
+        the_job.setState(ImportJob.State.FAILED);
+      }
+    } finally {
+      synchronized (this) {
+        my_outstanding = my_outstanding - 1;
+        final Deque<ImportJob> lane = my_lanes.get(the_job.countyID());
+        lane.poll();
+        final ImportJob next = lane.peek();
+        if (next == null) {
+          my_lanes.remove(the_job.countyID());
+        } else {
+          execute(next);
+        }
+        trimHistory();
+      }
+    }
+  }
+
+  /**
+   * Forgets the oldest finished jobs, beyond the number kept.
+   */
+  private void trimHistory() {
+    int finished = my_jobs.size() - my_outstanding;
+    final Iterator<ImportJob> jobs = my_jobs.values().iterator();
+    while (finished > FINISHED_JOBS_KEPT && jobs.hasNext()) {
+      if (jobs.next().state().isFinished()) {
+        jobs.remove();
+        finished = finished - 1;
+      }
+    }
+  }
+
+  /**
+   * The work of an import.
+   */
+  @FunctionalInterface
+  public interface ImportTask {
+    /**
+     * Does the import. The task reports failure (including cancellation,
+     * which it should check for) through the_job.fail().
+     *
+     * @param the_job The job, through which the task reports progress.
+     */
+    void run(ImportJob the_job);
+  }
+}
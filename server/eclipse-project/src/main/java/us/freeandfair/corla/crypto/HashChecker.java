@@ -36,6 +36,11 @@ public final class HashChecker {
    * of a file.
    */
   public static final int BUFFER_SIZE = 8192;
+
+  /**
+   * The hash algorithm.
+   */
+  public static final String ALGORITHM = "SHA-256";
   
   /**
    * Private constructor to prevent instantiation.
@@ -67,7 +72,7 @@ public final class HashChecker {
     final byte[] buffer = new byte[BUFFER_SIZE];
 
     try {
-      final MessageDigest md = MessageDigest.getInstance("SHA-256");
+      final MessageDigest md = MessageDigest.getInstance(ALGORITHM);
 
       try (
            final InputStream is = new FileInputStream(a_file);
@@ -77,8 +82,7 @@ public final class HashChecker {
         do {
           bytes = dis.read(buffer);
         } while (bytes != -1);
-        final BigInteger bi = new BigInteger(1, md.digest());
-        result = String.format("%0" + (md.digest().length << 1) + "X", bi);
+        result = toHex(md.digest());
       } catch (final FileNotFoundException e) {
         Main.LOGGER.error("File to hash '" + a_file +
                           "' disappeared before it could be hashed.");
@@ -98,4 +102,13 @@ public final class HashChecker {
 
     return result;
   }
+
+  /**
+   * @param a_digest A digest.
+   * @return the digest, encoded as an uppercase hexadecimal string.
+   */
+  public static String toHex(final byte[] a_digest) {
+    final BigInteger bi = new BigInteger(1, a_digest);
+    return String.format("%0" + (a_digest.length << 1) + "X", bi);
+  }
 }
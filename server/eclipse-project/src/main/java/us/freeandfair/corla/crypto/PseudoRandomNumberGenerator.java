@@ -11,11 +11,12 @@
 
 package us.freeandfair.corla.crypto;
 
-import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -36,6 +37,16 @@ public class PseudoRandomNumberGenerator {
    * @trace corla.randomness.seed
    */
   public static final int MINIMUM_SEED_LENGTH = 20;
+
+  /**
+   * The initial capacity of the buffer of generated numbers.
+   */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * The number of decimal digits in the largest count.
+   */
+  private static final int MAX_COUNT_DIGITS = 10;
   
   /**
    * The message digest we will use for generating hashes.
@@ -43,9 +54,31 @@ public class PseudoRandomNumberGenerator {
   private MessageDigest my_sha256_digest;
 
   /**
-   * The random numbers generated so far.
+   * The random numbers generated so far, in the first my_size elements.
+   */
+  private int[] my_random_numbers;
+
+  /**
+   * The number of random numbers generated so far.
+   */
+  private int my_size;
+
+  /**
+   * The numbers drawn so far, as offsets from my_minimum, when drawing
+   * without replacement; null when drawing with replacement.
+   */
+  private final BitSet my_drawn;
+
+  /**
+   * The UTF-8 encoding of the seed followed by a comma, which starts the hash
+   * input for every count.
+   */
+  private final byte[] my_hash_prefix;
+
+  /**
+   * A buffer for the decimal digits of the count, which end the hash input.
    */
-  private final List<Integer> my_random_numbers;
+  private final byte[] my_count_digits = new byte[MAX_COUNT_DIGITS];
 
   /**
    * The current number to use for generation.
@@ -108,13 +141,19 @@ public class PseudoRandomNumberGenerator {
     } catch (final NoSuchAlgorithmException e) {
       assert false;
     }
-    my_random_numbers = new LinkedList<Integer>();
+    my_random_numbers = new int[INITIAL_CAPACITY];
     my_with_replacement = the_with_replacement;
     my_seed = the_seed;
+    my_hash_prefix = (my_seed + ",").getBytes(StandardCharsets.UTF_8);
     assert the_minimum < the_maximum;
     my_minimum = the_minimum;
     my_maximum = the_maximum;
     my_maximum_index = my_maximum - my_minimum + 1;
+    if (my_with_replacement) {
+      my_drawn = null;
+    } else {
+      my_drawn = new BitSet();
+    }
   }
 
   /**
@@ -123,7 +162,7 @@ public class PseudoRandomNumberGenerator {
    * @param the_from the "index" of the first random number to give
    * @param the_to the "index" of the final random number to give
    * 
-   * @return A list containing the_to - the_from + 1 random numbers
+   * @return A new list containing the_to - the_from + 1 random numbers
    */
   //@ requires the_from <= the_to;
   // @todo kiniry Refine this specification to include public model fields.
@@ -131,11 +170,14 @@ public class PseudoRandomNumberGenerator {
   public List<Integer> getRandomNumbers(final int the_from, final int the_to) {
     assert the_from <= the_to;
     assert my_with_replacement || the_to <= my_maximum_index;
-    if (the_to + 1 > my_random_numbers.size()) {
+    if (the_to + 1 > my_size) {
       extendList(the_to + 1);
     }
-    // subList has an exclusive upper bound, but we have an inclusive one
-    return my_random_numbers.subList(the_from, the_to + 1);
+    final List<Integer> result = new ArrayList<Integer>(the_to - the_from + 1);
+    for (int i = the_from; i <= the_to; i++) {
+      result.add(my_random_numbers[i]);
+    }
+    return result;
   }
 
   /**
@@ -144,9 +186,13 @@ public class PseudoRandomNumberGenerator {
    */
   //@ private behavior
   //@   requires 0 <= the_length;
-  //@   ensures my_random_numbers.size() == the_length;
+  //@   ensures my_size == the_length;
   private void extendList(final int the_length) {
-    while (my_random_numbers.size() < the_length) {
+    if (my_random_numbers.length < the_length) {
+      my_random_numbers = Arrays.copyOf(my_random_numbers,
+                                        Math.max(the_length, 2 * my_random_numbers.length));
+    }
+    while (my_size < the_length) {
       generateNext();
     }
   }
@@ -160,19 +206,53 @@ public class PseudoRandomNumberGenerator {
     my_count++;
     assert my_with_replacement || my_count <= my_maximum_index;
 
-    final String hash_input = my_seed + "," + my_count;
+    // the hash input is the seed, a comma, and the count in decimal
+    int digits_start = MAX_COUNT_DIGITS;
+    int count = my_count;
+    do {
+      digits_start = digits_start - 1;
+      my_count_digits[digits_start] = (byte) ('0' + count % 10);
+      count = count / 10;
+    } while (count > 0);
+    my_sha256_digest.update(my_hash_prefix);
+    my_sha256_digest.update(my_count_digits, digits_start, MAX_COUNT_DIGITS - digits_start);
+    final byte[] hash_output = my_sha256_digest.digest();
 
-    final byte[] hash_output =
-        my_sha256_digest.digest(hash_input.getBytes(StandardCharsets.UTF_8));
-    final BigInteger int_output = new BigInteger(1, hash_output);
+    final int in_range = mod(hash_output, my_maximum - my_minimum + 1);
+    final int pick = my_minimum + in_range;
 
-    final BigInteger in_range =
-        int_output.mod(BigInteger.valueOf(my_maximum - my_minimum + 1));
-    final int pick = my_minimum + in_range.intValueExact();
+    if (my_with_replacement || !my_drawn.get(in_range)) {
+      if (!my_with_replacement) {
+        my_drawn.set(in_range);
+      }
+      if (my_size == my_random_numbers.length) {
+        my_random_numbers = Arrays.copyOf(my_random_numbers, 2 * my_size);
+      }
+      my_random_numbers[my_size] = pick;
+      my_size = my_size + 1;
+    }
+  }
 
-    if (my_with_replacement || !my_random_numbers.contains(pick)) {
-      my_random_numbers.add(pick);
+  /**
+   * Reduces a hash, read as an unsigned big-endian integer, modulo a positive
+   * int. This is the same as reducing the corresponding BigInteger, without
+   * constructing it.
+   *
+   * @param the_hash The hash.
+   * @param the_modulus The modulus.
+   * @return the_hash mod the_modulus.
+   * @exception ArithmeticException if the modulus is not positive.
+   */
+  private static int mod(final byte[] the_hash, final int the_modulus) {
+    if (the_modulus <= 0) {
+      throw new ArithmeticException("modulus not positive: " + the_modulus);
+    }
+    long result = 0;
+    for (final byte b : the_hash) {
+      // result < 2^31, so this fits comfortably in a long
+      result = ((result << 8) | (b & 0xff)) % the_modulus;
     }
+    return (int) result;
   }
   
   /**
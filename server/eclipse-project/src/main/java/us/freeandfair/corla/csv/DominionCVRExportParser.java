@@ -14,9 +14,17 @@ package us.freeandfair.corla.csv;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.persistence.PersistenceException;
 
+import au.org.democracydevelopers.corla.csv.IRVColumnLayout;
 import au.org.democracydevelopers.corla.model.ContestType;
 import au.org.democracydevelopers.corla.model.vote.IRVChoices;
 import au.org.democracydevelopers.corla.model.vote.IRVParsingException;
@@ -38,11 +46,12 @@ import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.CountyContestResult;
 import us.freeandfair.corla.model.CountyDashboard;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.CastVoteRecordCopyQueries;
 import us.freeandfair.corla.query.CountyContestResultQueries;
+import us.freeandfair.corla.util.DashboardCache;
 import us.freeandfair.corla.util.DBExceptionUtil;
 import us.freeandfair.corla.util.ExponentialBackoffHelper;
 
-import static au.org.democracydevelopers.corla.csv.IRVHeadersParser.generateAllIRVPreferences;
 import static au.org.democracydevelopers.corla.csv.IRVHeadersParser.validateIRVPreferenceHeaders;
 
 /**
@@ -82,6 +91,16 @@ public class DominionCVRExportParser {
    */
   public static final String BATCH_SIZE_PROPERTY = "cvr_import_batch_size";
 
+  /**
+   * The name of the property that enables the pipelined (COPY-based) import.
+   */
+  public static final String PIPELINE_PROPERTY = "cvr_import_pipeline";
+
+  /**
+   * The name of the worker thread count property, for the pipelined import.
+   */
+  public static final String WORKER_THREADS_PROPERTY = "cvr_import_worker_threads";
+
   /**
    * The number of times to retry a county dashboard update operation.
    */
@@ -107,6 +126,18 @@ public class DominionCVRExportParser {
    */
   private static final int DEFAULT_TRANSACTION_SIZE = 400;
 
+  /**
+   * The default number of worker threads for the pipelined import.
+   */
+  private static final int DEFAULT_WORKER_THREADS =
+      Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+  /**
+   * The number of converted batches the pipelined import may hold per worker
+   * before the reader blocks.
+   */
+  private static final int PIPELINE_DEPTH_PER_WORKER = 4;
+
   /**
    * The column containing the CVR number in a Dominion export file.
    */
@@ -182,6 +213,12 @@ public class DominionCVRExportParser {
    */
   private static final int STV_NO_VOTES = -1;
 
+  /**
+   * The marker placed on the pipeline queue after the last batch.
+   */
+  private static final Future<ConvertedBatch> END_OF_RECORDS =
+      CompletableFuture.completedFuture(null);
+
   /**
    * The parser to be used.
    */
@@ -202,6 +239,12 @@ public class DominionCVRExportParser {
    */
   private final List<Contest> my_contests = new ArrayList<Contest>();
 
+  /**
+   * The IRV column layouts of the contests in my_contests, in the same order;
+   * null for contests that are not IRV.
+   */
+  private final List<IRVColumnLayout> my_irv_layouts = new ArrayList<IRVColumnLayout>();
+
   /**
    * The list of county contest results we build from the supplied
    * data export.
@@ -215,9 +258,10 @@ public class DominionCVRExportParser {
   private final County my_county;
 
   /**
-   * The number of parsed CVRs.
+   * The number of parsed CVRs; volatile so that import progress can be
+   * polled from other threads.
    */
-  private int my_record_count = -1;
+  private volatile int my_record_count = -1;
 
   /**
    * The set of parsed CVRs that haven't yet been flushed to the database.
@@ -240,6 +284,17 @@ public class DominionCVRExportParser {
    */
   private final boolean my_multi_transaction;
 
+  /**
+   * A flag that indicates whether the CVRs are imported through the pipelined
+   * reader/worker/COPY path rather than one Hibernate save per CVR.
+   */
+  private final boolean my_pipeline;
+
+  /**
+   * The number of worker threads used by the pipelined import.
+   */
+  private final int my_worker_threads;
+
   /**
    * Construct a new Dominion CVR export parser using the specified Reader,
    * for CVRs provided by the specified county.
@@ -265,6 +320,10 @@ public class DominionCVRExportParser {
                                   DEFAULT_BATCH_SIZE);
     my_transaction_size = parseProperty(the_properties, TRANSACTION_SIZE_PROPERTY,
                                         DEFAULT_TRANSACTION_SIZE);
+    my_pipeline = Boolean.parseBoolean(the_properties.getProperty(PIPELINE_PROPERTY,
+                                                                  Persistence.FALSE));
+    my_worker_threads = Math.max(1, parseProperty(the_properties, WORKER_THREADS_PROPERTY,
+                                                  DEFAULT_WORKER_THREADS));
   }
 
   /**
@@ -282,6 +341,8 @@ public class DominionCVRExportParser {
     my_multi_transaction = false;
     my_batch_size = DEFAULT_BATCH_SIZE;
     my_transaction_size = DEFAULT_TRANSACTION_SIZE;
+    my_pipeline = false;
+    my_worker_threads = 1;
   }
 
   /**
@@ -514,6 +575,8 @@ public class DominionCVRExportParser {
             my_results.add(r);
           }
           my_contests.add(c);
+          my_irv_layouts.add(isIRV ? new IRVColumnLayout(choices, votesAllowed.get(contestName))
+                                   : null);
         } catch (PersistenceException pe) {
           result.success = false;
           result.errorMessage = StringUtils.abbreviate(DBExceptionUtil.getConstraintFailureReason(pe), 250);
@@ -555,6 +618,9 @@ public class DominionCVRExportParser {
    */
   private void commitCVRsAndUpdateCountyDashboard() {
     // commit all the CVR records and contest tracking data
+    for (final CountyContestResult r : my_results) {
+      r.materializeVoteTotals();
+    }
     Persistence.commitTransaction();
 
     boolean success = false;
@@ -575,6 +641,8 @@ public class DominionCVRExportParser {
           cdb.setCVRsImported(my_record_count);
           Persistence.saveOrUpdate(cdb);
           Persistence.commitTransaction();
+          // pollers should see the import's progress
+          DashboardCache.changed();
           success = true;
         }
       } catch (final PersistenceException e) {
@@ -610,13 +678,43 @@ public class DominionCVRExportParser {
   }
 
   /**
-   * Extract a CVR from a line of the file.
+   * Extract a CVR from a line of the file, persist it, and add it to all
+   * our results.
    *
    * @param the_line The line representing the CVR.
    * @return the resulting CVR.
    */
-  @SuppressWarnings("PMD.CyclomaticComplexity")
   private CastVoteRecord extractCVR(final CSVRecord the_line) {
+    final List<IRVBallotInterpretation> interpretations = new ArrayList<>();
+    final CastVoteRecord new_cvr = buildCVR(the_line, my_record_count, interpretations);
+    for (final IRVBallotInterpretation interpretation : interpretations) {
+      Persistence.save(interpretation);
+    }
+    Persistence.saveOrUpdate(new_cvr);
+    my_parsed_cvrs.add(new_cvr);
+
+    // add the CVR to all of our results
+    for (final CountyContestResult r : my_results) {
+      r.addCVR(new_cvr);
+    }
+    LOGGER.debug("parsed CVR: " + new_cvr);
+    return new_cvr;
+  }
+
+  /**
+   * Build a CVR from a line of the file, without touching the database. This
+   * only reads state that is fixed once the headers have been processed, so
+   * it may be called concurrently from several threads.
+   *
+   * @param the_line The line representing the CVR.
+   * @param the_sequence_number The sequence number of the CVR in the file.
+   * @param the_interpretations A list to which any interpretations of invalid
+   * IRV votes on this line are added, to be persisted by the caller.
+   * @return the resulting CVR.
+   */
+  @SuppressWarnings("PMD.CyclomaticComplexity")
+  private CastVoteRecord buildCVR(final CSVRecord the_line, final int the_sequence_number,
+                                  final List<IRVBallotInterpretation> the_interpretations) {
     final int cvr_id =
       Integer.parseInt(
                        stripEqualQuotes(the_line.get(my_columns.get(CVR_NUMBER_HEADER))));
@@ -639,77 +737,74 @@ public class DominionCVRExportParser {
     // for each contest, see if choices exist on the CVR; "0" or "1" are
     // votes or absences of votes; "" means that the contest is not in this style
     int index = my_first_contest_column;
-    for (final Contest co : my_contests) {
-      boolean present = false;
-      final List<String> votes = new ArrayList<String>();
-      final boolean isIRV = co.description().equals(ContestType.IRV.toString());
-
-      List<Choice> choices;
-      if(isIRV) {
-        choices = generateAllIRVPreferences(co.choices(), co.votesAllowed());
+    for (int contest_index = 0; contest_index < my_contests.size(); contest_index++) {
+      final Contest co = my_contests.get(contest_index);
+      final IRVColumnLayout layout = my_irv_layouts.get(contest_index);
+      final boolean isIRV = layout != null;
+
+      if (isIRV) {
+        // If it is IRV, record the offsets of the marked columns; the layout knows the
+        // candidate and rank of each, so no name(rank) strings need to be built or parsed.
+        final int[] marked = new int[layout.columnCount()];
+        int marked_count = 0;
+        boolean present = false;
+        for (int offset = 0; offset < marked.length; offset++) {
+          final String mark_string = the_line.get(index);
+          present |= !mark_string.isEmpty();
+          if (layout.counts(offset) && "1".equals(mark_string)) {
+            marked[marked_count] = offset;
+            marked_count = marked_count + 1;
+          }
+          index = index + 1;
+        }
+        // if this contest was on the ballot, convert it into an ordered list of names (without
+        // parentheses), then store.
+        if (present) {
+          final IRVChoices irvVotes = layout.choices(marked, marked_count);
+          final List<String> orderedChoices = irvVotes.getValidIntentAsOrderedList();
+          if (!irvVotes.isValid()) {
+            // IRV preferences were invalid. Store a record of the raw votes for debugging/record-
+            // keeping purposes, but use the valid interpretation as the choices in the audit.
+            final IRVBallotInterpretation irvInterpretation = new IRVBallotInterpretation(co,
+                RecordType.UPLOADED, cvr_id, imprinted_id,
+                layout.rawChoices(marked, marked_count), orderedChoices);
+            the_interpretations.add(irvInterpretation);
+            final String msg = "Interpretation of invalid IRV choices.";
+            LOGGER.warn(String.format("%s %s %s.", prefix, msg,
+                irvInterpretation.logMessage(CVR_NUMBER_HEADER, IMPRINTED_ID_HEADER)));
+          }
+          contest_info.add(new CVRContestInfo(co, null, null, orderedChoices));
+        }
       } else {
-        choices = co.choices();
-      }
-
-      for (final Choice ch : choices) {
-        final String mark_string = the_line.get(index);
-        final boolean p = !mark_string.isEmpty();
-        final boolean mark = "1".equals(mark_string);
-        present |= p;
-        if (!ch.fictitious() && p && mark) {
-          votes.add(ch.name());
+        boolean present = false;
+        final List<String> votes = new ArrayList<String>();
+        for (final Choice ch : co.choices()) {
+          final String mark_string = the_line.get(index);
+          final boolean p = !mark_string.isEmpty();
+          final boolean mark = "1".equals(mark_string);
+          present |= p;
+          if (!ch.fictitious() && p && mark) {
+            votes.add(ch.name());
+          }
+          index = index + 1;
         }
-        index = index + 1;
-      }
-      // if this contest was on the ballot, add it to the votes
-      try {
-      if (present) {
-        if(isIRV) {
-            // If it is IRV, convert it into an ordered list of names (without parentheses), then
-            // store.
-            final IRVChoices irvVotes = new IRVChoices(votes);
-            final List<String> orderedChoices = irvVotes.getValidIntentAsOrderedList();
-            if(!irvVotes.isValid()) {
-              // IRV preferences were invalid. Store a record of the raw votes for debugging/record-
-              // keeping purposes, but use the valid interpretation as the choices in the audit.
-              final IRVBallotInterpretation irvInterpretation = new IRVBallotInterpretation(co,
-                  RecordType.UPLOADED, cvr_id, imprinted_id, votes, orderedChoices);
-              Persistence.save(irvInterpretation);
-              final String msg = "Interpretation of invalid IRV choices.";
-              LOGGER.warn(String.format("%s %s %s.", prefix, msg,
-                  irvInterpretation.logMessage(CVR_NUMBER_HEADER, IMPRINTED_ID_HEADER)));
-            }
-            contest_info.add(new CVRContestInfo(co, null, null, orderedChoices));
-
-        } else if(co.votesAllowed() != STV_NO_VOTES) {
+        // if this contest was on the ballot, add it to the votes
+        if (present && co.votesAllowed() != STV_NO_VOTES) {
           // Don't store an STV contest (indicated by STV_NO_VOTES in votesAllowed).
           // Store plurality vote.
           contest_info.add(new CVRContestInfo(co, null, null, votes));
         }
       }
-      } catch (IRVParsingException e) {
-        throw new RuntimeException(e);
-      }
     }
 
     // we don't need to look for an existing CVR with this data because,
     // by definition, there cannot be one unless the same line appears
     // twice in the CVR export file... and if it does, we need it to
     // appear twice here too.
-    final CastVoteRecord new_cvr =
-      new CastVoteRecord(RecordType.UPLOADED, null, my_county.id(),
-                         cvr_id, my_record_count, tabulator_id,
-                         batch_id, record_id, imprinted_id,
-                         ballot_type, contest_info);
-    Persistence.saveOrUpdate(new_cvr);
-    my_parsed_cvrs.add(new_cvr);
-
-    // add the CVR to all of our results
-    for (final CountyContestResult r : my_results) {
-      r.addCVR(new_cvr);
-    }
-    LOGGER.debug("parsed CVR: " + new_cvr);
-    return new_cvr;
+    return new CastVoteRecord(RecordType.UPLOADED, null, my_county.id(),
+                              cvr_id, the_sequence_number, tabulator_id,
+                              batch_id, record_id, imprinted_id,
+                              ballot_type, contest_info);
   }
 
   /**
@@ -810,6 +905,281 @@ public class DominionCVRExportParser {
     return sb.toString();
   }
 
+  /**
+   * Builds the error result for a CVR line that could not be parsed.
+   *
+   * @param the_line The line.
+   * @param the_exception The exception raised while parsing it.
+   * @return the error result.
+   */
+  private Result lineError(final CSVRecord the_line, final Exception the_exception) {
+    LOGGER.error(the_exception.getClass());
+    LOGGER.error(the_exception.getMessage());
+    final Result result = new Result();
+    result.success = false;
+    // we don't know what went wrong
+    result.errorMessage = the_exception.getClass().toString() + " - " +
+                          the_exception.getMessage();
+    result.errorRowNum = Long.valueOf(the_line.getRecordNumber()).intValue();
+    final List<String> values = new ArrayList<>();
+    the_line.iterator().forEachRemaining(values::add);
+    result.errorRowContent = String.join(",", values);
+    return result;
+  }
+
+  /**
+   * Logs progress, if the number of parsed CVRs has reached the progress interval.
+   */
+  private void logProgress() {
+    if (my_record_count % PROGRESS_INTERVAL == 0) {
+      LOGGER.info("parsed " + my_record_count +
+                  " CVRs for county " + my_county.id());
+    }
+  }
+
+  /**
+   * Parses the CVR lines of the export one at a time, saving each CVR
+   * through Hibernate.
+   *
+   * @param the_records The iterator over the CVR lines.
+   * @return the result; on failure, this describes the line that failed.
+   */
+  private Result parseRecords(final Iterator<CSVRecord> the_records) {
+    final Result result = new Result();
+    while (the_records.hasNext()) {
+      final CSVRecord cvr_line = the_records.next();
+      try {
+        extractCVR(cvr_line);
+      } catch (final Exception e) {
+        return lineError(cvr_line, e);
+      }
+
+      my_record_count = my_record_count + 1;
+      logProgress();
+      checkForFlush();
+    }
+    result.success = true;
+    return result;
+  }
+
+  /**
+   * Parses the CVR lines of the export as a three-stage pipeline. A reader
+   * thread reads batches of lines from the CSV parser, a pool of workers turns
+   * each batch into CVRs, and this thread (which owns the Hibernate session)
+   * takes the converted batches in file order, adds them to our results, and
+   * writes them to the database with COPY. The queue between the reader and
+   * this thread is bounded, so a slow database holds back the reader rather
+   * than filling the heap.
+   *
+   * @param the_records The iterator over the CVR lines.
+   * @return the result; on failure, this describes the line that failed.
+   */
+  private Result parseRecordsPipelined(final Iterator<CSVRecord> the_records) {
+    final Result result = new Result();
+    final ExecutorService workers = Executors.newFixedThreadPool(my_worker_threads);
+    final BlockingQueue<Future<ConvertedBatch>> batches =
+        new ArrayBlockingQueue<>(my_worker_threads * PIPELINE_DEPTH_PER_WORKER);
+    final Thread reader = new Thread(new BatchReader(the_records, workers, batches),
+                                     "cvr-reader-county-" + my_county.id());
+    reader.setDaemon(true);
+    reader.start();
+
+    final List<CastVoteRecord> pending = new ArrayList<>(my_transaction_size);
+    try {
+      Future<ConvertedBatch> next = batches.take();
+      while (next != END_OF_RECORDS) {
+        final ConvertedBatch batch = convertedBatch(next);
+        saveInterpretations(batch.interpretations);
+        for (final CastVoteRecord cvr : batch.cvrs) {
+          for (final CountyContestResult r : my_results) {
+            r.addCVR(cvr);
+          }
+          pending.add(cvr);
+          my_record_count = my_record_count + 1;
+          logProgress();
+          if (pending.size() == my_transaction_size) {
+            CastVoteRecordCopyQueries.copyIn(pending);
+            pending.clear();
+            if (my_multi_transaction) {
+              commitCVRsAndUpdateCountyDashboard();
+            }
+          }
+        }
+        if (batch.failure != null) {
+          return batch.failure;
+        }
+        next = batches.take();
+      }
+      CastVoteRecordCopyQueries.copyIn(pending);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PersistenceException("CVR import for county " + my_county.id() +
+                                     " was interrupted", e);
+    } finally {
+      reader.interrupt();
+      workers.shutdownNow();
+    }
+
+    result.success = true;
+    return result;
+  }
+
+  /**
+   * Saves a batch's IRV ballot interpretations and evicts them once they are
+   * written, so that they do not accumulate in the session during a large
+   * import.
+   *
+   * @param the_interpretations The interpretations.
+   */
+  private void saveInterpretations(final List<IRVBallotInterpretation> the_interpretations) {
+    if (the_interpretations.isEmpty()) {
+      return;
+    }
+    for (final IRVBallotInterpretation interpretation : the_interpretations) {
+      Persistence.save(interpretation);
+    }
+    Persistence.flush();
+    for (final IRVBallotInterpretation interpretation : the_interpretations) {
+      Persistence.evict(interpretation);
+    }
+  }
+
+  /**
+   * Waits for a converted batch from the pipeline.
+   *
+   * @param the_future The future holding the batch.
+   * @return the batch.
+   * @exception RuntimeException if the batch could not be produced; runtime
+   * exceptions thrown while reading the CSV are rethrown unchanged.
+   */
+  private ConvertedBatch convertedBatch(final Future<ConvertedBatch> the_future)
+      throws InterruptedException {
+    try {
+      return the_future.get();
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Converts a batch of consecutive CVR lines; runs on a pipeline worker.
+   *
+   * @param the_lines The lines.
+   * @param the_first_sequence_number The sequence number of the first line.
+   * @return the converted batch.
+   */
+  private ConvertedBatch convertBatch(final List<CSVRecord> the_lines,
+                                      final int the_first_sequence_number) {
+    final ConvertedBatch batch = new ConvertedBatch();
+    int sequence_number = the_first_sequence_number;
+    for (final CSVRecord line : the_lines) {
+      try {
+        batch.cvrs.add(buildCVR(line, sequence_number, batch.interpretations));
+      } catch (final Exception e) {
+        batch.failure = lineError(line, e);
+        break;
+      }
+      sequence_number = sequence_number + 1;
+    }
+    return batch;
+  }
+
+  /**
+   * A batch of consecutive CVR lines converted by a pipeline worker. If a
+   * line could not be converted, the CVRs before it are present, the failure
+   * is recorded, and the lines after it are not converted.
+   */
+  private static class ConvertedBatch {
+    /**
+     * The converted CVRs, in file order.
+     */
+    private final List<CastVoteRecord> cvrs = new ArrayList<>();
+
+    /**
+     * The interpretations of invalid IRV votes in this batch.
+     */
+    private final List<IRVBallotInterpretation> interpretations = new ArrayList<>();
+
+    /**
+     * The failure, if a line could not be converted.
+     */
+    private Result failure;
+  }
+
+  /**
+   * The reader stage of the pipeline: reads batches of lines, hands each to
+   * the worker pool, and queues the pending results in file order.
+   */
+  private class BatchReader implements Runnable {
+    /**
+     * The iterator over the CVR lines.
+     */
+    private final Iterator<CSVRecord> my_records;
+
+    /**
+     * The worker pool.
+     */
+    private final ExecutorService my_workers;
+
+    /**
+     * The queue of pending batches.
+     */
+    private final BlockingQueue<Future<ConvertedBatch>> my_batches;
+
+    /**
+     * Constructs a new BatchReader.
+     *
+     * @param the_records The iterator over the CVR lines.
+     * @param the_workers The worker pool.
+     * @param the_batches The queue of pending batches.
+     */
+    BatchReader(final Iterator<CSVRecord> the_records, final ExecutorService the_workers,
+                final BlockingQueue<Future<ConvertedBatch>> the_batches) {
+      my_records = the_records;
+      my_workers = the_workers;
+      my_batches = the_batches;
+    }
+
+    /**
+     * Reads the lines until they are exhausted or the import is abandoned.
+     */
+    @Override
+    public void run() {
+      int sequence_number = 0;
+      try {
+        try {
+          while (my_records.hasNext()) {
+            final List<CSVRecord> lines = new ArrayList<>(my_batch_size);
+            while (lines.size() < my_batch_size && my_records.hasNext()) {
+              lines.add(my_records.next());
+            }
+            final int first = sequence_number;
+            sequence_number = sequence_number + lines.size();
+            my_batches.put(my_workers.submit(() -> convertBatch(lines, first)));
+          }
+          my_batches.put(END_OF_RECORDS);
+        } catch (final RuntimeException e) {
+          // the CSV itself could not be read; pass the failure along in order
+          my_batches.put(CompletableFuture.failedFuture(e));
+        }
+      } catch (final InterruptedException e) {
+        // the import has been abandoned
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * @return the number of CVRs parsed so far, or -1 if parsing has not
+   * started.
+   */
+  public int recordCount() {
+    return my_record_count;
+  }
+
   /**
    * Parse the supplied data export. If it has already been parsed, this
    * method returns immediately.
@@ -897,30 +1267,15 @@ public class DominionCVRExportParser {
         
 
       // subsequent lines contain cast vote records
-      while (records.hasNext()) {
-        final CSVRecord cvr_line = records.next();
-        try {
-          extractCVR(cvr_line);
-        } catch (final Exception e) {
-          LOGGER.error(e.getClass());
-          LOGGER.error(e.getMessage());
-          result.success = false;
-          // we don't know what went wrong
-          result.errorMessage = e.getClass().toString() + " - "+ e.getMessage();
-          result.errorRowNum = Long.valueOf( cvr_line.getRecordNumber()).intValue();
-          List<String> values = new ArrayList<>();
-          cvr_line.iterator().forEachRemaining(values::add);
-          result.errorRowContent = String.join(",", values);
-          // get out of here now! break and return
-          return result;
-        }
-
-        my_record_count = my_record_count + 1;
-        if (my_record_count % PROGRESS_INTERVAL == 0) {
-          LOGGER.info("parsed " + my_record_count +
-                      " CVRs for county " + my_county.id());
-        }
-        checkForFlush();
+      final Result recordsResult;
+      if (my_pipeline) {
+        recordsResult = parseRecordsPipelined(records);
+      } else {
+        recordsResult = parseRecords(records);
+      }
+      if (!recordsResult.success) {
+        // get out of here now!
+        return recordsResult;
       }
 
       for (final CountyContestResult r : my_results) {
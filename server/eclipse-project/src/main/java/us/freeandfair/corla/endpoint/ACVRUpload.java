@@ -77,6 +77,14 @@ public class ACVRUpload extends AbstractAuditBoardDashboardEndpoint {
     return "/upload-audit-cvr";
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean invalidatesReports() {
+    return true;
+  }
+
   /**
    * {@inheritDoc}
    */
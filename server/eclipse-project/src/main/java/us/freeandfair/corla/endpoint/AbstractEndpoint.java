@@ -37,9 +37,11 @@ import us.freeandfair.corla.auth.AuthenticationInterface;
 import us.freeandfair.corla.json.Result;
 import us.freeandfair.corla.model.Administrator;
 import us.freeandfair.corla.model.LogEntry;
+import us.freeandfair.corla.persistence.LogChainAppender;
 import us.freeandfair.corla.persistence.Persistence;
-import us.freeandfair.corla.query.LogEntryQueries;
+import us.freeandfair.corla.report.ReportSnapshot;
 import us.freeandfair.corla.util.DBExceptionUtil;
+import us.freeandfair.corla.util.DashboardCache;
 import us.freeandfair.corla.util.SuppressFBWarnings;
 
 /**
@@ -64,11 +66,6 @@ public abstract class AbstractEndpoint implements Endpoint {
    */
   public static final boolean DISABLE_ASM = false;
   
-  /**
-   * The number of times to retry committing logs for failed transactions.
-   */
-  public static final int LOG_COMMIT_RETRIES = 5;
-  
   /**
    * The "Retry-After" value for a transaction failure response, in seconds.
    */
@@ -240,6 +237,39 @@ public abstract class AbstractEndpoint implements Endpoint {
     my_endpoint_result.set(the_json);
   }
   
+  /**
+   * Sends a cached dashboard response, or 304 Not Modified if the client
+   * already has it, with the response's ETag.
+   *
+   * @param the_request The HTTP request.
+   * @param the_response The HTTP response.
+   * @param the_entry The cached response.
+   */
+  public void okCachedJSON(final Request the_request, final Response the_response,
+                           final DashboardCache.Entry the_entry) {
+    the_response.header("ETag", the_entry.etag());
+    // clients must check with us before reusing the response
+    the_response.header("Cache-Control", "no-cache");
+    if (the_entry.matches(the_request.headers("If-None-Match"))) {
+      notModified(the_response);
+    } else {
+      okJSON(the_response, the_entry.json());
+    }
+  }
+
+  /**
+   * Indicate and log that the client's copy of the requested data is current,
+   * so no body is sent.
+   *
+   * @param the_response The HTTP response.
+   */
+  public void notModified(final Response the_response) {
+    my_log_entries.get().add(new LogEntry(HttpStatus.NOT_MODIFIED_304, endpointName(),
+                                          Instant.now()));
+    my_status.set(HttpStatus.NOT_MODIFIED_304);
+    my_endpoint_result.set("");
+  }
+
   /**
    * Indicate the client has violated an invariant or precondition relating data
    * to the endpoint in question. E.g., a digest is incorrect with regards to
@@ -506,33 +536,16 @@ public abstract class AbstractEndpoint implements Endpoint {
   }
   
   /**
-   * Persists, and logs to the system logger, all accumulated log entries for
-   * this endpoint.
+   * Appends to the log chain, and logs to the system logger, all accumulated
+   * log entries for this endpoint.
    * 
    * @param the_request The request (used to get the hostname of the client 
    * and the authentication data for the log).
    */
-  private void sendToLogger(final LogEntry the_log_entry) {
-    if (the_log_entry.resultCode() == null) {
-      Main.LOGGER.log(logLevel(), 
-                      the_log_entry.information() + " by " + 
-                      the_log_entry.authenticationData() + " from " + 
-                      the_log_entry.clientHost());
-    } else if (HttpStatus.isSuccess(the_log_entry.resultCode())) {
-      Main.LOGGER.log(logLevel(), 
-                      "successful " + the_log_entry.information() + " by " + 
-                      the_log_entry.authenticationData() + " from " + 
-                      the_log_entry.clientHost());
-    } else {
-      Main.LOGGER.error("error " + the_log_entry.resultCode() + " " + 
-                        the_log_entry.information() + " by " + 
-                        the_log_entry.authenticationData() + " from " + 
-                        the_log_entry.clientHost());
+  private void appendLogEntries(final Request the_request) {
+    if (my_log_entries.get().isEmpty()) {
+      return;
     }
-  }
-
-  private void persistLogEntries(final Request the_request) {
-    LogEntry previous_entry = LogEntryQueries.last();
     final Object admin_attribute = 
         the_request.session().attribute(AuthenticationInterface.ADMIN);
     final String admin_data;
@@ -543,49 +556,54 @@ public abstract class AbstractEndpoint implements Endpoint {
     }
     
     for (final LogEntry entry : my_log_entries.get()) {
-      // create and persist a new hash-chained log entry for each log entry
-      final LogEntry real_entry =
-          new LogEntry(entry.resultCode(), entry.information(), 
-                       admin_data, the_request.host(),
-                       entry.timestamp(), previous_entry);
-      Persistence.save(real_entry);
-      sendToLogger(real_entry);
-      previous_entry = real_entry;
+      sendToLogger(entry, admin_data, the_request.host());
     }
+    LogChainAppender.instance().append(my_log_entries.get(), admin_data,
+                                       the_request.host());
+    my_log_entries.get().clear();
   }
   
   /**
-   * @returns true if the current set of log entries indicates a successful
-   * request, false otherwise.
+   * Logs a log entry to the system logger.
+   * 
+   * @param the_log_entry The log entry.
+   * @param the_authentication_data The authentication data for the entry.
+   * @param the_client_host The client host for the entry.
    */
-  private boolean successful() {
-    return !my_log_entries.get().isEmpty() &&
-           HttpStatus.isSuccess(my_log_entries.
-                                get().get(my_log_entries.get().size() - 1).resultCode());
+  private void sendToLogger(final LogEntry the_log_entry,
+                            final String the_authentication_data,
+                            final String the_client_host) {
+    if (the_log_entry.resultCode() == null) {
+      Main.LOGGER.log(logLevel(), 
+                      the_log_entry.information() + " by " + 
+                      the_authentication_data + " from " + 
+                      the_client_host);
+    } else if (HttpStatus.isSuccess(the_log_entry.resultCode())) {
+      Main.LOGGER.log(logLevel(), 
+                      "successful " + the_log_entry.information() + " by " + 
+                      the_authentication_data + " from " + 
+                      the_client_host);
+    } else {
+      Main.LOGGER.error("error " + the_log_entry.resultCode() + " " + 
+                        the_log_entry.information() + " by " + 
+                        the_authentication_data + " from " + 
+                        the_client_host);
+    }
   }
   
   /**
-   * Attempts to commit, in a separate transaction, any straggling log entries that
-   * could not be committed due to error.
-   * 
-   * @param the_request The request (used for log data).
+   * @returns true if the current set of log entries indicates a successful
+   * request, false otherwise.
    */
-  private void finalizeLogs(final Request the_request) {
-    int log_commit_retries = 0;
-    if (!my_log_entries.get().isEmpty() && log_commit_retries < LOG_COMMIT_RETRIES) {
-      try {
-        log_commit_retries = log_commit_retries + 1;
-        Persistence.beginTransaction();
-        persistLogEntries(the_request);
-        Persistence.commitTransaction();
-        my_log_entries.get().clear();
-      } catch (final PersistenceException e) {
-        Main.LOGGER.error("could not persist log entries for error response after " + 
-                          log_commit_retries + " attempt(s)");
-      }
-    } else if (!my_log_entries.get().isEmpty()) {
-      Main.LOGGER.error("maximum number of log entry commit attempts reached, aborting");
+  private boolean successful() {
+    if (my_log_entries.get().isEmpty()) {
+      return false;
     }
+    final Integer result_code =
+        my_log_entries.get().get(my_log_entries.get().size() - 1).resultCode();
+    return result_code != null
+           && (HttpStatus.isSuccess(result_code)
+               || result_code == HttpStatus.NOT_MODIFIED_304);
   }
   
   /**
@@ -601,10 +619,7 @@ public abstract class AbstractEndpoint implements Endpoint {
         transitionAndSaveASM(the_response) && 
         Persistence.isTransactionActive()) {
       try {
-        // since the transition finished, let's log all the log entries and commit
-        persistLogEntries(the_request);
         Persistence.commitTransaction();
-        my_log_entries.get().clear();
       } catch (final PersistenceException e) {
         // this is an internal server error because we don't know what didn't
         // get committed
@@ -623,8 +638,16 @@ public abstract class AbstractEndpoint implements Endpoint {
         Main.LOGGER.error("could not roll back transaction for error response");
       }
     }
-    // if there are still log entries left, we need to persist them and print them
-    finalizeLogs(the_request);
+    // the log entries record what happened, so they go to the log chain
+    // whether or not the transaction committed
+    appendLogEntries(the_request);
+    // whether or not it committed, the endpoint's changes are settled now
+    if (invalidatesReports()) {
+      ReportSnapshot.invalidate();
+    }
+    if (changesDashboards()) {
+      DashboardCache.changed();
+    }
     Integer status = my_status.get();
     String endpoint_result = my_endpoint_result.get();
     if (status == null) {
@@ -654,6 +677,25 @@ public abstract class AbstractEndpoint implements Endpoint {
     return Level.INFO;
   }
   
+  /**
+   * @return true if this endpoint changes the results of the audit, so that
+   * the report snapshot must be invalidated once it has finished. The default
+   * is false.
+   */
+  protected boolean invalidatesReports() {
+    return false;
+  }
+  
+  /**
+   * @return true if this endpoint may change what the dashboards show, so
+   * that the cached dashboard responses must be dropped once it has finished.
+   * The default is true for endpoints that are not GETs or that trigger an
+   * ASM event.
+   */
+  protected boolean changesDashboards() {
+    return endpointType() != EndpointType.GET || endpointEvent() != null;
+  }
+  
   /**
    * Validates the parameters of a request. The default behavior is to
    * return 'true'.
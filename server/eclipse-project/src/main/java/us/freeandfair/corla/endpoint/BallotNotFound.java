@@ -68,6 +68,14 @@ public class BallotNotFound extends AbstractAuditBoardDashboardEndpoint {
     return "/ballot-not-found";
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean invalidatesReports() {
+    return true;
+  }
+
   /**
    * {@inheritDoc}
    */
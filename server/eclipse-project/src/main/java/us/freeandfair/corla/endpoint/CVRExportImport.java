@@ -17,18 +17,23 @@ import java.io.InputStreamReader;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 import com.google.gson.JsonParseException;
 
+import org.eclipse.jetty.http.HttpStatus;
+
 import spark.Request;
 import spark.Response;
 
 import us.freeandfair.corla.Main;
 import us.freeandfair.corla.asm.ASMEvent;
 import us.freeandfair.corla.controller.ImportFileController;
+import us.freeandfair.corla.controller.ImportJob;
+import us.freeandfair.corla.controller.ImportService;
 import us.freeandfair.corla.json.UploadedFileDTO;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.CountyDashboard;
@@ -44,7 +49,6 @@ import us.freeandfair.corla.query.UploadedFileQueries;
  * @author Daniel M. Zimmerman <dmz@freeandfair.us>
  * @version 1.0.0
  */
-@SuppressWarnings({"PMD.DoNotUseThreads"})
 public class CVRExportImport extends AbstractCountyDashboardEndpoint {
 
   /**
@@ -53,6 +57,12 @@ public class CVRExportImport extends AbstractCountyDashboardEndpoint {
   public static final Logger LOGGER =
     LogManager.getLogger(CVRExportImport.class);
 
+  /**
+   * The import submitted by this request, which starts once the request's
+   * transaction has committed.
+   */
+  private final ThreadLocal<ImportJob> my_import_job = new ThreadLocal<ImportJob>();
+
   /**
    * {@inheritDoc}
    */
@@ -77,6 +87,14 @@ public class CVRExportImport extends AbstractCountyDashboardEndpoint {
     return IMPORT_CVRS_EVENT;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void reset() {
+    my_import_job.set(null);
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -93,7 +111,7 @@ public class CVRExportImport extends AbstractCountyDashboardEndpoint {
 
     final CountyDashboard cdb = Persistence.getByID(county.id(), CountyDashboard.class);
     UploadedFileDTO upF = null;
-    final Map<String, Instant> responseBody = new HashMap<>();
+    final Map<String, Object> responseBody = new HashMap<>();
 
 
     // check valid json
@@ -134,14 +152,43 @@ public class CVRExportImport extends AbstractCountyDashboardEndpoint {
       upF.setCountyId(county.id());
       UploadedFileQueries.updateStatus(upF);
       cdb.setCVRImportStatus(new ImportStatus(ImportState.IN_PROGRESS));
-      // spawn a thread to do the import; this endpoint always immediately
-      // returns a successful result if we get to this point
-      (new Thread(new ImportFileController(upF))).start();
+      // queue the import, which starts once our transaction has committed;
+      // if too many imports are already waiting, the county must try again
+      final ImportJob job;
+      try {
+        job = ImportService.instance().submit(county.id(), upF.getFileId(),
+                                              uploadedFileAttrs.getSize(),
+                                              new ImportFileController(upF)::run);
+      } catch (final RejectedExecutionException e) {
+        serverUnavailable(the_response, "too many imports waiting, please try again later");
+        return my_endpoint_result.get();
+      }
+      my_import_job.set(job);
 
       responseBody.put("import_start_time", Instant.now());
+      responseBody.put("import_job_id", job.id());
       okJSON(the_response, Main.GSON.toJson(responseBody));
     }
 
     return my_endpoint_result.get();
   }
+
+  /**
+   * Commits the transaction as usual, then starts the submitted import if
+   * the request succeeded, or gives up its place if it did not.
+   */
+  @Override
+  public void afterAfter(final Request the_request, final Response the_response) {
+    super.afterAfter(the_request, the_response);
+    final ImportJob job = my_import_job.get();
+    my_import_job.set(null);
+    if (job != null) {
+      final Integer status = my_status.get();
+      if (status != null && HttpStatus.isSuccess(status)) {
+        ImportService.instance().start(job);
+      } else {
+        ImportService.instance().discard(job);
+      }
+    }
+  }
 }
@@ -0,0 +1,64 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.endpoint;
+
+import org.apache.log4j.Level;
+
+import spark.Request;
+import spark.Response;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.json.CacheStatisticsResponse;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * The endpoint for the hit ratios of the Hibernate second-level and query
+ * caches.
+ */
+// endpoints don't need constructors
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class CacheStatistics extends AbstractDoSDashboardEndpoint {
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EndpointType endpointType() {
+    return EndpointType.GET;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointName() {
+    return "/cache-statistics";
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Level logLevel() {
+    return Level.DEBUG;
+  }
+
+  /**
+   * Provides the cache statistics.
+   *
+   * @param the_request The request.
+   * @param the_response The response.
+   */
+  @Override
+  public String endpointBody(final Request the_request, final Response the_response) {
+    okJSON(the_response, Main.GSON.toJson(
+        CacheStatisticsResponse.createResponse(Persistence.statistics())));
+    return my_endpoint_result.get();
+  }
+}
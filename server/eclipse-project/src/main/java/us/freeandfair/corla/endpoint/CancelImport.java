@@ -0,0 +1,119 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.endpoint;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import spark.Request;
+import spark.Response;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.asm.AbstractStateMachine;
+import us.freeandfair.corla.controller.ImportJob;
+import us.freeandfair.corla.controller.ImportService;
+import us.freeandfair.corla.json.ImportJobResponse;
+import us.freeandfair.corla.model.County;
+
+/**
+ * The endpoint for cancelling an import. The import rolls back whatever it
+ * has imported and fails with the message "import cancelled", leaving the
+ * county free to import again. A county can cancel its own imports; the
+ * state can cancel any.
+ */
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class CancelImport extends AbstractEndpoint {
+  /**
+   * Type information for the request body.
+   */
+  private static final Type TYPE_TOKEN =
+      new TypeToken<Map<String, Long>>() { }.getType();
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EndpointType endpointType() {
+    return EndpointType.POST;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointName() {
+    return "/cancel-import";
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected String asmIdentity(final Request the_request) {
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Class<AbstractStateMachine> asmClass() {
+    return null;
+  }
+
+  /**
+   * This endpoint requires any kind of authentication.
+   */
+  @Override
+  public AuthorizationType requiredAuthorization() {
+    return AuthorizationType.EITHER;
+  }
+
+  /**
+   * Cancels the import with the specified "job_id".
+   *
+   * @param the_request The request.
+   * @param the_response The response.
+   */
+  @Override
+  public String endpointBody(final Request the_request, final Response the_response) {
+    final Map<String, Long> input;
+    try {
+      input = Main.GSON.fromJson(the_request.body(), TYPE_TOKEN);
+    } catch (final JsonParseException e) {
+      badDataContents(the_response, "malformed request: " + e.getMessage());
+      return my_endpoint_result.get();
+    }
+    if (input == null || input.get("job_id") == null) {
+      badDataContents(the_response, "missing job_id attribute");
+      return my_endpoint_result.get();
+    }
+
+    // this will be null for state authentication
+    final County county = Main.authentication().authenticatedCounty(the_request);
+    final ImportService service = ImportService.instance();
+    final long job_id = input.get("job_id");
+    final Optional<ImportJob> job = service.job(job_id);
+
+    if (!job.isPresent() || county != null && !county.id().equals(job.get().countyID())) {
+      dataNotFound(the_response, "no import " + job_id);
+    } else if (job.get().state().isFinished()) {
+      badDataContents(the_response, "import " + job_id + " has already finished");
+    } else {
+      service.cancel(job_id);
+      okJSON(the_response, Main.GSON.toJson(new ImportJobResponse(job.get())));
+    }
+    return my_endpoint_result.get();
+  }
+}
@@ -23,6 +23,7 @@ import us.freeandfair.corla.json.CountyDashboardRefreshResponse;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.CountyDashboard;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.util.DashboardCache;
 
 /**
  * The endpoint for refreshing the county dashboard status.
@@ -68,9 +69,10 @@ public class CountyDashboardRefresh extends AbstractCountyDashboardEndpoint {
     try {
       final County county = Main.authentication().authenticatedCounty(the_request);
 
-      okJSON(the_response, 
-             Main.GSON.toJson(CountyDashboardRefreshResponse.createResponse
-                              (Persistence.getByID(county.id(), CountyDashboard.class))));
+      okCachedJSON(the_request, the_response,
+                   DashboardCache.get("county-" + county.id(), "", () ->
+                       Main.GSON.toJson(CountyDashboardRefreshResponse.createResponse
+                           (Persistence.getByID(county.id(), CountyDashboard.class)))));
     } catch (final PersistenceException e) {
       serverError(the_response, "could not obtain dashboard state");
     }
@@ -137,21 +137,14 @@ public class CountyReportDownload extends AbstractEndpoint {
 
     final boolean pdf = "pdf".equalsIgnoreCase(the_request.queryParams("file_type"));
     final CountyReport cr = new CountyReport(county);
-    byte[] file = new byte[0];
     String filename = "";
     
     if (pdf) {
       the_response.type("application/pdf");
       filename = cr.filenamePDF();
-      file = cr.generatePDF();
     } else {
       the_response.type("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
       filename = cr.filenameExcel();
-      try {
-        file = cr.generateExcel();
-      } catch (final IOException e) {
-        serverError(the_response, "Unable to generate Excel file");
-      }
     }
     
     try {
@@ -161,9 +154,14 @@ public class CountyReportDownload extends AbstractEndpoint {
       serverError(the_response, "UTF-8 is unsupported (this should never happen)");
     }
     
+    // the Excel file is streamed to the response as it is generated
     try (OutputStream os = SparkHelper.getRaw(the_response).getOutputStream();
          BufferedOutputStream bos = new BufferedOutputStream(os)) {
-      bos.write(file);
+      if (pdf) {
+        bos.write(cr.generatePDF());
+      } else {
+        cr.generateExcel(bos);
+      }
       bos.flush();
       ok(the_response);
     } catch (final IOException | PersistenceException e) {
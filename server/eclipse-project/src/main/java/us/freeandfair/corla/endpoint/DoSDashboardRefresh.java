@@ -24,6 +24,9 @@ import us.freeandfair.corla.Main;
 import us.freeandfair.corla.json.DoSDashboardRefreshResponse;
 import us.freeandfair.corla.model.DoSDashboard;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.util.DashboardCache;
+
+import static au.org.democracydevelopers.corla.endpoint.AbstractAllIrvEndpoint.pingRaireService;
 
 /**
  * The endpoint for refreshing the Department of State dashboard status.
@@ -39,6 +42,22 @@ public class DoSDashboardRefresh extends AbstractDoSDashboardEndpoint {
    */
   public static final Logger LOGGER =
     LogManager.getLogger(DoSDashboardRefresh.class);
+
+  /**
+   * How long, in milliseconds, a ping of the raire service is trusted.
+   */
+  private static final long RAIRE_STATUS_TTL = 10000L;
+
+  /**
+   * The most recent status of the raire service.
+   */
+  private static volatile String raireStatus;
+
+  /**
+   * When the raire service was last pinged.
+   */
+  private static volatile long raireStatusTime;
+
   /**
    * {@inheritDoc}
    */
@@ -72,9 +91,12 @@ public class DoSDashboardRefresh extends AbstractDoSDashboardEndpoint {
   @Override
   public String endpointBody(final Request the_request, final Response the_response) {
     try {
-      okJSON(the_response,
-             Main.GSON.toJson(DoSDashboardRefreshResponse.createResponse
-                              (Persistence.getByID(DoSDashboard.ID, DoSDashboard.class))));
+      final String raire_status = raireStatus();
+      okCachedJSON(the_request, the_response,
+                   DashboardCache.get("dos", raire_status, () ->
+                       Main.GSON.toJson(DoSDashboardRefreshResponse.createResponse
+                           (Persistence.getByID(DoSDashboard.ID, DoSDashboard.class),
+                            raire_status))));
 
       LOGGER.debug("dos-dashboard:\n   "
           + my_endpoint_result.get());
@@ -85,6 +107,21 @@ public class DoSDashboardRefresh extends AbstractDoSDashboardEndpoint {
     return my_endpoint_result.get();
   }
 
+  /**
+   * @return the status of the raire service, pinging it if we have not done
+   * so recently.
+   */
+  private static String raireStatus() {
+    final long now = System.currentTimeMillis();
+    String result = raireStatus;
+    if (result == null || now - raireStatusTime > RAIRE_STATUS_TTL) {
+      result = pingRaireService();
+      raireStatus = result;
+      raireStatusTime = now;
+    }
+    return result;
+  }
+
   /**
    * This endpoint requires STATE authorization.
    */
@@ -11,21 +11,22 @@
 
 package us.freeandfair.corla.endpoint;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.LineNumberReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Blob;
+import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.Date;
@@ -47,18 +48,21 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 import org.apache.log4j.LogManager;
 
+import org.postgresql.largeobject.LargeObject;
+
 import spark.Request;
 import spark.Response;
 
 import us.freeandfair.corla.Main;
-import us.freeandfair.corla.crypto.HashChecker;
 import us.freeandfair.corla.csv.Result;
 import us.freeandfair.corla.json.UploadedFileDTO;
 import us.freeandfair.corla.model.County;
 import us.freeandfair.corla.model.UploadedFile;
 import us.freeandfair.corla.model.UploadedFile.FileStatus;
 import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.UploadedFileQueries;
 import us.freeandfair.corla.util.FileHelper;
+import us.freeandfair.corla.util.IngestOutputStream;
 import us.freeandfair.corla.util.SparkHelper;
 import us.freeandfair.corla.util.SuppressFBWarnings;
 
@@ -124,15 +128,16 @@ public class FileUpload extends AbstractEndpoint {
   }
 
   /**
-   * Attempts to save the specified file in the database.
+   * Attempts to save the specified file in the database. The file's contents
+   * are already in a large object, written as the file was uploaded; the
+   * entity is saved with an empty blob, which is then replaced by that
+   * large object.
    *
    * @param the_response The response object (for error reporting).
    * @param the_info The upload info about the file and hash.
    * @param the_county The county that uploaded the file.
    * @return the resulting entity if successful, null otherwise
    */
-  // we are deliberately ignoring the return value of lnr.skip()
-  @SuppressFBWarnings("SR_NOT_CHECKED")
   private UploadedFile attemptFilePersistence(final Response the_response,
                                               final UploadInformation the_info,
                                               final County the_county) {
@@ -140,15 +145,8 @@ public class FileUpload extends AbstractEndpoint {
     FileStatus file_status = null;
     Result result = new Result();
 
-    try (FileInputStream is = new FileInputStream(the_info.my_file);
-         LineNumberReader lnr =
-             new LineNumberReader(new InputStreamReader(new FileInputStream(the_info.my_file),
-                                                        "UTF-8"))) {
-      final Blob blob = Persistence.blobFor(is, the_info.my_file.length());
-
-      // first, compute the approximate number of records in the file
-      lnr.skip(Integer.MAX_VALUE);
-      final int approx_records = lnr.getLineNumber();
+    try {
+      final Blob blob = Persistence.blobFor(new ByteArrayInputStream(new byte[0]), 0);
 
       if (the_info.my_computed_hash.equals(the_info.my_uploaded_hash)) {
         file_status = FileStatus.HASH_VERIFIED;
@@ -164,15 +162,16 @@ public class FileUpload extends AbstractEndpoint {
                                 the_info.my_computed_hash,
                                 the_info.my_uploaded_hash,
                                 blob,
-                                the_info.my_file.length(),
-                                approx_records);
+                                the_info.my_size,
+                                the_info.my_approximate_records);
       uploadedFile.setResult(result);
       Persistence.save(uploadedFile);
       Persistence.flush();
-    } catch (final PersistenceException | IOException e) {
+      UploadedFileQueries.setFileObject(uploadedFile.id(), the_info.my_file_object);
+    } catch (final PersistenceException e) {
       LOGGER.error("could not persist file of size " + e.getMessage());
       badDataType(the_response, "could not persist file of size " +
-                                the_info.my_file.length());
+                                the_info.my_size);
       the_info.my_ok = false;
     }
     return uploadedFile;
@@ -180,7 +179,9 @@ public class FileUpload extends AbstractEndpoint {
 
   /**
    * Handles the upload of the file, updating the provided UploadInformation.
-   * sets the_info.my_file to a tempfile and writes to it
+   * The file is read once: as it arrives it is written to a new large object
+   * and to the archive, and hashed and counted, so the_info gets the large
+   * object and the file's size, hash and approximate number of records.
    *
    * @param the_request The request to use.
    * @param the_info The upload information to update.
@@ -209,10 +210,24 @@ public class FileUpload extends AbstractEndpoint {
           } else if (FILE.equals(name)) {
             // save the file
             the_info.my_filename = item.getName();
-            the_info.my_file = File.createTempFile("upload", ".csv");
-            final OutputStream os = new FileOutputStream(the_info.my_file);
-            final int total =
-                FileHelper.bufferedCopy(stream, os, BUFFER_SIZE, MAX_UPLOAD_SIZE);
+            final LargeObject file_object = UploadedFileQueries.createFileObject();
+            the_info.my_file_object = file_object.getLongOID();
+            final IngestOutputStream ingest = new IngestOutputStream(
+                new BufferedOutputStream(file_object.getOutputStream(), BUFFER_SIZE),
+                openArchive(the_info));
+            final int total;
+            try {
+              total = FileHelper.bufferedCopy(stream, ingest, BUFFER_SIZE, MAX_UPLOAD_SIZE);
+            } finally {
+              ingest.close();
+            }
+            the_info.my_size = ingest.byteCount();
+            the_info.my_computed_hash = ingest.hash();
+            the_info.my_approximate_records = ingest.lineCount();
+            if (ingest.copyFailed()) {
+              LOGGER.info("Error archiving file (" + the_info.my_archive_file + ").");
+              the_info.my_archive_file = null;
+            }
 
             if (total >= MAX_UPLOAD_SIZE) {
               LOGGER.info("attempt to upload file greater than max size from " +
@@ -223,12 +238,11 @@ public class FileUpload extends AbstractEndpoint {
               LOGGER.info("successfully saved file of size " + total + " from " +
                                raw.getRemoteHost());
             }
-            os.close();
           }
         }
       }
 
-      if (the_info.my_file == null) {
+      if (the_info.my_file_object == null) {
         // no file was actually uploaded
         the_info.my_ok = false;
         badDataContents(the_response, "No file was uploaded");
@@ -237,31 +251,32 @@ public class FileUpload extends AbstractEndpoint {
         the_info.my_ok = false;
         badDataContents(the_response, "No hash was provided with the uploaded file");
       }
-    } catch (final IOException | FileUploadException e) {
+    } catch (final IOException | FileUploadException | SQLException
+                   | NoSuchAlgorithmException | PersistenceException e) {
+      LOGGER.error("Upload Failed " + e.getMessage());
       the_info.my_ok = false;
       badDataContents(the_response, "Upload Failed");
     }
   }
 
   /**
-   * Copies uploaded file which is in a temporary location and its hash into
-   * an archival location
+   * Opens the archival copy of the uploaded file, which is written as the
+   * file is uploaded.
    *
    * Steps:
    *  1. Based on operating system, fetches archival file path from property file
    *  2. Creates the file path if not existing
-   *  3. Appends timestamp to file and archives it by making a copy of the
-   *     temporary file.
-   *  4. Appends the same timestamp to create a new file that would contain the
-   *     hash value and archives it.
+   *  3. Appends timestamp to file name and opens the archive file, and
+   *     appends the same timestamp to name the file that will contain the
+   *     hash value.
    *
    * @param the_upload_information contains all the specifices of the uploaded
-   *                               file that is in temporary location along with
-   *                               its hash value.
+   *                               file; gets the archive file names.
+   * @return the archive file, or null if it could not be opened.
    */
   // we are deliberately ignoring the return value of archive_file_dir.mkdirs()
   @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
-  private void archive(final UploadInformation the_upload_information) {
+  private OutputStream openArchive(final UploadInformation the_upload_information) {
     // name of file that was uploaded
     final String uploaded_file_name = the_upload_information.my_filename;
 
@@ -304,39 +319,40 @@ public class FileUpload extends AbstractEndpoint {
     final File archive_file_dir = new File(archive_file_path);
     archive_file_dir.mkdirs();
 
-    // archive file by copying it to destination
-    archiveFile(archive_file_path + archive_file_name,
-                the_upload_information.my_file.toPath());
-    // create corresponding hash text file with hash value in it
-    archiveHashFile(archive_file_path + archive_hash_file_name,
-                    the_upload_information.my_uploaded_hash);
-  }
-
-  /**
-   * Copies passed in temporary file into archive destination, also renames it
-   * to its original name.
-   *
-   * @param the_file_path_and_name path and file name of the file to be archived
-   * @param the_source_path path and file name of the temporary file created by
-   *                        the server
-   */
-  private void archiveFile(final String the_file_path_and_name,
-                           final Path the_source_path) {
+    the_upload_information.my_archive_file = archive_file_path + archive_file_name;
+    the_upload_information.my_archive_hash_file =
+        archive_file_path + archive_hash_file_name;
     try {
-      // copy the temp file into archive destination
-      final Path path = Files.copy(the_source_path,
-                                   Paths.get(the_file_path_and_name));
-
-      if (path == null) {
-        LOGGER.info("Error archiving file (" + the_file_path_and_name + ").");
-      } else {
-        LOGGER.info("Successfully archived file (" + the_file_path_and_name + ").");
-      }
+      // the archive file must not already exist
+      return Files.newOutputStream(Paths.get(the_upload_information.my_archive_file),
+                                   StandardOpenOption.CREATE_NEW,
+                                   StandardOpenOption.WRITE);
     } catch (final IOException e) {
       LOGGER.info("Encountered exception while archiving file (" +
-                       the_file_path_and_name +
+                       the_upload_information.my_archive_file +
                        ")",
                        e);
+      the_upload_information.my_archive_file = null;
+      return null;
+    }
+  }
+
+  /**
+   * Finishes archiving the uploaded file, whose copy was written as it was
+   * uploaded, by archiving its hash.
+   *
+   * @param the_upload_information contains all the specifices of the uploaded
+   *                               file along with its hash value.
+   */
+  private void archive(final UploadInformation the_upload_information) {
+    if (the_upload_information.my_archive_file != null) {
+      LOGGER.info("Successfully archived file (" +
+                  the_upload_information.my_archive_file + ").");
+    }
+    // create corresponding hash text file with hash value in it
+    if (the_upload_information.my_uploaded_hash != null) {
+      archiveHashFile(the_upload_information.my_archive_hash_file,
+                      the_upload_information.my_uploaded_hash);
     }
   }
 
@@ -403,45 +419,27 @@ public class FileUpload extends AbstractEndpoint {
       return my_endpoint_result.get();
     }
 
-    // we can exit in several different ways, so let's make sure we delete
-    // the temp file even if we exit exceptionally
+    // we can exit in several different ways, so let's make sure we finish
+    // archiving the file even if we exit exceptionally
     try {
       handleUpload(the_request, the_response, info);
 
-      // now process the temp file, putting it in the database
+      // now record the file, which is already in the database
       UploadedFile uploaded_file = null;
 
       if (info.my_ok) {
-        try {
-
-          info.my_computed_hash = HashChecker.hashFile(info.my_file);
-
-          info.my_uploaded_hash =
-            info.my_form_fields.get(HASH).toUpperCase(Locale.US).trim();
-          uploaded_file = attemptFilePersistence(the_response, info, county);
-          if (uploaded_file != null) {
-            LOGGER.info("Upload File " + uploaded_file.toString());
-            UploadedFileDTO upF = new UploadedFileDTO(uploaded_file);
-            okJSON(the_response, Main.GSON.toJson(upF));
-          } // else another result code has already been set
-        } catch (final java.io.IOException | java.security.NoSuchAlgorithmException e) {
-          info.my_ok = false;
-          LOGGER.error("Upload Failed " + e.getMessage());
-          badDataContents(the_response, "Upload Failed");
-        }
+        info.my_uploaded_hash =
+          info.my_form_fields.get(HASH).toUpperCase(Locale.US).trim();
+        uploaded_file = attemptFilePersistence(the_response, info, county);
+        if (uploaded_file != null) {
+          LOGGER.info("Upload File " + uploaded_file.toString());
+          UploadedFileDTO upF = new UploadedFileDTO(uploaded_file);
+          okJSON(the_response, Main.GSON.toJson(upF));
+        } // else another result code has already been set
       }
     } finally {
-      // delete the temp file, if it exists
-      if (info.my_file != null) {
-        try {
-          // archive file before deleting
-          archive(info);
-          if (!info.my_file.delete()) {
-            LOGGER.error("Unable to delete temp file " + info.my_file);
-          }
-        } catch (final SecurityException e) {
-          // ignored - should never happen
-        }
+      if (info.my_archive_hash_file != null) {
+        archive(info);
       }
     }
     return my_endpoint_result.get();
@@ -452,9 +450,29 @@ public class FileUpload extends AbstractEndpoint {
    */
   private static class UploadInformation {
     /**
-     * The uploaded file.
+     * The OID of the large object holding the uploaded file.
+     */
+    protected Long my_file_object;
+
+    /**
+     * The size of the uploaded file, in bytes.
+     */
+    protected long my_size;
+
+    /**
+     * The approximate number of records in the uploaded file.
+     */
+    protected int my_approximate_records;
+
+    /**
+     * The archive file, or null if the file is not archived.
+     */
+    protected String my_archive_file;
+
+    /**
+     * The archive hash file.
      */
-    protected File my_file;
+    protected String my_archive_hash_file;
 
     /**
      * The original name of the uploaded file.
@@ -0,0 +1,126 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.endpoint;
+
+import org.apache.log4j.Level;
+
+import spark.Request;
+import spark.Response;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.asm.AbstractStateMachine;
+import us.freeandfair.corla.controller.ImportService;
+import us.freeandfair.corla.json.ImportJobResponse;
+import us.freeandfair.corla.model.County;
+
+/**
+ * The endpoint for polling the progress of imports. A county sees its own
+ * imports; the state sees every county's, or one county's if the "county"
+ * parameter is given.
+ */
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class ImportJobs extends AbstractEndpoint {
+  /**
+   * The "county" parameter.
+   */
+  public static final String COUNTY = "county";
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EndpointType endpointType() {
+    return EndpointType.GET;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String endpointName() {
+    return "/import-jobs";
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Level logLevel() {
+    return Level.DEBUG;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected String asmIdentity(final Request the_request) {
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Class<AbstractStateMachine> asmClass() {
+    return null;
+  }
+
+  /**
+   * This endpoint requires any kind of authentication.
+   */
+  @Override
+  public AuthorizationType requiredAuthorization() {
+    return AuthorizationType.EITHER;
+  }
+
+  /**
+   * Validate the request parameters. In this case, if the county
+   * parameter exists, it must be parseable as a long.
+   *
+   * @param the_request The request.
+   */
+  @Override
+  protected boolean validateParameters(final Request the_request) {
+    final String county = the_request.queryParams(COUNTY);
+    try {
+      if (county != null) {
+        Long.parseLong(county);
+      }
+      return true;
+    } catch (final NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Provides the imports.
+   *
+   * @param the_request The request.
+   * @param the_response The response.
+   */
+  @Override
+  public String endpointBody(final Request the_request, final Response the_response) {
+    // this will be null for state authentication
+    final County county = Main.authentication().authenticatedCounty(the_request);
+    final ImportService service = ImportService.instance();
+    final String county_param = the_request.queryParams(COUNTY);
+
+    if (county != null) {
+      okJSON(the_response,
+             Main.GSON.toJson(ImportJobResponse.of(service.jobs(county.id()))));
+    } else if (county_param == null) {
+      okJSON(the_response, Main.GSON.toJson(ImportJobResponse.of(service.jobs())));
+    } else {
+      okJSON(the_response, Main.GSON.toJson(
+          ImportJobResponse.of(service.jobs(Long.valueOf(county_param)))));
+    }
+    return my_endpoint_result.get();
+  }
+}
@@ -64,6 +64,14 @@ public class IndicateHandCount extends AbstractDoSDashboardEndpoint {
     return "/hand-count";
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean invalidatesReports() {
+    return true;
+  }
+
   /**
    * @return STATE authorization is necessary for this endpoint.
    */
@@ -96,16 +96,14 @@ public class PublishAuditReport extends AbstractDoSDashboardEndpoint {
     }
     // todo ensure reportType is present
 
-    byte[] reportBytes;
     try {
 
       final OutputStream os = SparkHelper.getRaw(response).getOutputStream();
       switch (contentType) {
       case "xlsx": case "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet":
-        reportBytes = AuditReport.generate("xlsx", reportType, contestName);
         response.header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.header("Content-Disposition", "attachment; filename*=UTF-8''" + fileName(reportType, "xlsx"));
-        os.write(reportBytes);
+        AuditReport.generate(os, "xlsx", reportType, contestName);
         os.close();
         break;
       case "zip": case "application/zip":
@@ -58,6 +58,14 @@ public class ResetAudit extends AbstractEndpoint {
     return "/reset-audit";
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean invalidatesReports() {
+    return true;
+  }
+
   /** 
    * {@inheritDoc}
    */
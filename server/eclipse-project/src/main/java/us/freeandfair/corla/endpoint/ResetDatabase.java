@@ -55,6 +55,14 @@ public class ResetDatabase extends AbstractEndpoint {
     return "/reset-database";
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean invalidatesReports() {
+    return true;
+  }
+
   /** 
    * {@inheritDoc}
    */
@@ -87,6 +95,7 @@ public class ResetDatabase extends AbstractEndpoint {
     // delete everything
     
     DatabaseResetQueries.resetDatabase();
+    Persistence.evictCaches();
     
     // create new dashboards
     final DoSDashboard dosdb = new DoSDashboard();
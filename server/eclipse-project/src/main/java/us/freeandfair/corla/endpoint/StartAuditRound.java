@@ -57,7 +57,7 @@ import us.freeandfair.corla.model.ContestToAudit;
 import us.freeandfair.corla.model.CountyDashboard;
 import us.freeandfair.corla.model.DoSDashboard;
 import us.freeandfair.corla.persistence.Persistence;
-import us.freeandfair.corla.report.ReportRows;
+import us.freeandfair.corla.report.ReportSnapshot;
 import us.freeandfair.corla.util.PhantomBallots;
 
 /**
@@ -96,6 +96,14 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
     return "/start-audit-round";
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean invalidatesReports() {
+    return true;
+  }
+
   /**
    * @return STATE authorization is necessary for this endpoint.
    */
@@ -266,12 +274,14 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
 
   /**
    * sets selection on each contestResult, the results of
-   * BallotSelection.randomSelection
+   * BallotSelection.randomSelections; the contests are drawn in parallel
+   * but recorded in order
    */
   public List<Selection> makeSelections(final List<ComparisonAudit> comparisonAudits,
                                         final String seed, final BigDecimal riskLimit) {
 
-    final List<Selection> selections = new ArrayList<>();
+    final List<ComparisonAudit> targeted = new ArrayList<>();
+    final List<BallotSelection.Draw> draws = new ArrayList<>();
 
     for (final ComparisonAudit comparisonAudit : comparisonAudits) {
       final ContestResult contestResult = comparisonAudit.contestResult();
@@ -281,27 +291,35 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
             BallotSelection.auditedPrefixLength(comparisonAudit.getContestCVRIds());
         final Integer endIndex = comparisonAudit.optimisticSamplesToAudit();
 
-        final Selection selection =
-            BallotSelection.randomSelection(contestResult, seed, startIndex, endIndex);
-
-        LOGGER.debug(String.format("[makeSelections for ContestResult: contestName=%s, " +
-                                   "contestResult.contestCVRIds=%s, selection=%s, " +
-                                   "selection.contestCVRIds=%s, startIndex=%d, endIndex=%d]",
-                                   contestResult.getContestName(),
-                                   comparisonAudit.getContestCVRIds(), selection,
-                                   selection.contestCVRIds(), startIndex, endIndex));
-
-        LOGGER.info(String.format("[makeSelections for ContestResult: contestName=%s, " +
-                                  "contestResult.contestCVRIds=%s, selection=%s, " +
-                                  "selection.contestCVRIds=%s, startIndex=%d, endIndex=%d]",
-                                  contestResult.getContestName(),
-                                  comparisonAudit.getContestCVRIds(), selection,
-                                  selection.contestCVRIds(), startIndex, endIndex));
+        targeted.add(comparisonAudit);
+        draws.add(new BallotSelection.Draw(contestResult, startIndex, endIndex));
+      }
+    }
 
-        comparisonAudit.addContestCVRIds(selection.contestCVRIds());
+    final List<Selection> selections = BallotSelection.randomSelections(draws, seed);
 
-        selections.add(selection);
-      }
+    for (int i = 0; i < selections.size(); i++) {
+      final ComparisonAudit comparisonAudit = targeted.get(i);
+      final ContestResult contestResult = comparisonAudit.contestResult();
+      final Selection selection = selections.get(i);
+      final Integer startIndex = draws.get(i).minIndex;
+      final Integer endIndex = draws.get(i).maxIndex;
+
+      LOGGER.debug(String.format("[makeSelections for ContestResult: contestName=%s, " +
+                                 "contestResult.contestCVRIds=%s, selection=%s, " +
+                                 "selection.contestCVRIds=%s, startIndex=%d, endIndex=%d]",
+                                 contestResult.getContestName(),
+                                 comparisonAudit.getContestCVRIds(), selection,
+                                 selection.contestCVRIds(), startIndex, endIndex));
+
+      LOGGER.info(String.format("[makeSelections for ContestResult: contestName=%s, " +
+                                "contestResult.contestCVRIds=%s, selection=%s, " +
+                                "selection.contestCVRIds=%s, startIndex=%d, endIndex=%d]",
+                                contestResult.getContestName(),
+                                comparisonAudit.getContestCVRIds(), selection,
+                                selection.contestCVRIds(), startIndex, endIndex));
+
+      comparisonAudit.addContestCVRIds(selection.contestCVRIds());
     }
     return selections;
   }
@@ -330,6 +348,9 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
 
     List<Selection> selections = makeSelections(comparisonAudits, seed, riskLimit);
 
+    // the summary report as the previous round left it, shared by every county
+    final ReportSnapshot snapshot = ReportSnapshot.refresh();
+
     // Nothing in this try-block should know about HTTP requests / responses
     try {
       // this flag starts off true if we're going to conjoin it with all
@@ -343,7 +364,7 @@ public class StartAuditRound extends AbstractDoSDashboardEndpoint {
         try {
           final CountyDashboardASM countyDashboardASM =
               ASMUtilities.asmFor(CountyDashboardASM.class, String.valueOf(cdb.id()));
-          List<List<String>> resultReports = ReportRows.genSumResultsReport();
+          final List<List<String>> resultReports = snapshot.summaryRows();
           Set<ComparisonAudit> audits = cdb.getAudits();
           Set<String> contestStrs = new HashSet<>();
           for (ComparisonAudit audit : audits) {
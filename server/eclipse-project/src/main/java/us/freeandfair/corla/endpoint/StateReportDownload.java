@@ -90,23 +90,16 @@ public class StateReportDownload extends AbstractEndpoint {
     
     final boolean pdf = "pdf".equalsIgnoreCase(the_request.queryParams("file_type"));
     final StateReport sr = new StateReport();
-    byte[] file = new byte[0];
     String filename = "";
     
     if (pdf) {
       the_response.type("application/pdf");
       filename = sr.filenamePDF();
-      file = sr.generatePDF();
     } else {
       the_response.type("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
       // the file name should be constructed from the election type and date, and
       // the county name and round
       filename = sr.filenameExcel();
-      try {
-        file = sr.generateExcel();
-      } catch (final IOException e) {
-        serverError(the_response, "Unable to generate Excel file");
-      }
     }
     
     try {
@@ -116,9 +109,14 @@ public class StateReportDownload extends AbstractEndpoint {
       serverError(the_response, "UTF-8 is unsupported (this should never happen)");
     }
     
+    // the Excel file is streamed to the response as it is generated
     try (OutputStream os = SparkHelper.getRaw(the_response).getOutputStream();
          BufferedOutputStream bos = new BufferedOutputStream(os)) {
-      bos.write(file);
+      if (pdf) {
+        bos.write(sr.generatePDF());
+      } else {
+        sr.generateExcel(bos);
+      }
       bos.flush();
       ok(the_response);
     } catch (final IOException | PersistenceException e) {
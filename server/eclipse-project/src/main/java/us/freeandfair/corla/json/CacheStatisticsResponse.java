@@ -0,0 +1,146 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.json;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * The hit ratios of the Hibernate second-level and query caches, overall
+ * and for each cache region.
+ */
+public class CacheStatisticsResponse {
+  /**
+   * Whether statistics are being collected; if not, every count is 0.
+   */
+  private final boolean my_statistics_enabled;
+
+  /**
+   * The second-level cache counts, over all regions.
+   */
+  private final Counts my_second_level;
+
+  /**
+   * The query cache counts.
+   */
+  private final Counts my_query;
+
+  /**
+   * The counts for each region, by region name.
+   */
+  private final SortedMap<String, Counts> my_regions;
+
+  /**
+   * Constructs a new CacheStatisticsResponse.
+   *
+   * @param the_statistics_enabled Whether statistics are being collected.
+   * @param the_second_level The second-level cache counts.
+   * @param the_query The query cache counts.
+   * @param the_regions The counts for each region.
+   */
+  protected CacheStatisticsResponse(final boolean the_statistics_enabled,
+                                    final Counts the_second_level,
+                                    final Counts the_query,
+                                    final SortedMap<String, Counts> the_regions) {
+    my_statistics_enabled = the_statistics_enabled;
+    my_second_level = the_second_level;
+    my_query = the_query;
+    my_regions = the_regions;
+  }
+
+  /**
+   * Gets the CacheStatisticsResponse for the specified statistics.
+   *
+   * @param the_statistics The Hibernate statistics.
+   * @return the response.
+   */
+  public static CacheStatisticsResponse createResponse(final Statistics the_statistics) {
+    final SortedMap<String, Counts> regions = new TreeMap<>();
+    for (final String name : the_statistics.getSecondLevelCacheRegionNames()) {
+      final CacheRegionStatistics region = the_statistics.getCacheRegionStatistics(name);
+      if (region != null) {
+        regions.put(name, new Counts(region.getHitCount(), region.getMissCount(),
+                                     region.getPutCount(),
+                                     region.getElementCountInMemory()));
+      }
+    }
+    return new CacheStatisticsResponse(
+        the_statistics.isStatisticsEnabled(),
+        new Counts(the_statistics.getSecondLevelCacheHitCount(),
+                   the_statistics.getSecondLevelCacheMissCount(),
+                   the_statistics.getSecondLevelCachePutCount(), null),
+        new Counts(the_statistics.getQueryCacheHitCount(),
+                   the_statistics.getQueryCacheMissCount(),
+                   the_statistics.getQueryCachePutCount(), null),
+        regions);
+  }
+
+  /**
+   * The counts for a cache.
+   */
+  public static class Counts {
+    /**
+     * The number of lookups that found an entry.
+     */
+    private final long my_hits;
+
+    /**
+     * The number of lookups that did not.
+     */
+    private final long my_misses;
+
+    /**
+     * The number of entries added.
+     */
+    private final long my_puts;
+
+    /**
+     * The number of entries in memory, or null if it is not known.
+     */
+    private final Long my_elements;
+
+    /**
+     * The fraction of lookups that found an entry, or null if there have
+     * been none.
+     */
+    private final Double my_hit_ratio;
+
+    /**
+     * Constructs new counts.
+     *
+     * @param the_hits The number of hits.
+     * @param the_misses The number of misses.
+     * @param the_puts The number of puts.
+     * @param the_elements The number of entries in memory, or null.
+     */
+    public Counts(final long the_hits, final long the_misses, final long the_puts,
+                  final Long the_elements) {
+      my_hits = the_hits;
+      my_misses = the_misses;
+      my_puts = the_puts;
+      my_elements = the_elements;
+      if (the_hits + the_misses == 0) {
+        my_hit_ratio = null;
+      } else {
+        my_hit_ratio = (double) the_hits / (the_hits + the_misses);
+      }
+    }
+
+    /**
+     * @return the hit ratio, or null if there have been no lookups.
+     */
+    public Double hitRatio() {
+      return my_hit_ratio;
+    }
+  }
+}
@@ -171,8 +171,23 @@ public class DoSDashboardRefreshResponse {
    * @exception NullPointerException if necessary information to construct the
    *              response does not exist.
    */
-  @SuppressWarnings("checkstyle:magicnumber")
   public static DoSDashboardRefreshResponse createResponse(final DoSDashboard dashboard) {
+    return createResponse(dashboard, pingRaireService());
+  }
+
+  /**
+   * Gets the DoSDashboardRefreshResponse for the specified DoS dashboard,
+   * with an already known status of the raire service.
+   *
+   * @param dashboard The dashboard.
+   * @param raireServiceStatus The status of the raire service.
+   * @return the response.
+   * @exception NullPointerException if necessary information to construct the
+   *              response does not exist.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  public static DoSDashboardRefreshResponse createResponse(final DoSDashboard dashboard,
+                                                           final String raireServiceStatus) {
     // construct the various audit info from the contests to audit in the
     // dashboard
     final SortedMap<Long, AuditReason> audited_contests = new TreeMap<Long, AuditReason>();
@@ -237,8 +252,6 @@ public class DoSDashboardRefreshResponse {
     final DoSDashboardASM asm =
         ASMUtilities.asmFor(DoSDashboardASM.class, DoSDashboardASM.IDENTITY);
 
-    final String raireServiceStatus = pingRaireService();
-
     return new DoSDashboardRefreshResponse(asm.currentState(), audited_contests,
                                            estimated_ballots_to_audit,
                                            optimistic_ballots_to_audit, discrepancy_count,
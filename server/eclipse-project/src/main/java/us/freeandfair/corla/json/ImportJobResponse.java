@@ -0,0 +1,121 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.json;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import us.freeandfair.corla.controller.ImportJob;
+
+/**
+ * The status and progress of an import job.
+ */
+@SuppressWarnings({"PMD.UnusedPrivateField", "PMD.SingularField"})
+public class ImportJobResponse {
+  /**
+   * The job ID.
+   */
+  private final long my_job_id;
+
+  /**
+   * The county ID.
+   */
+  private final Long my_county_id;
+
+  /**
+   * The uploaded file ID.
+   */
+  private final Long my_file_id;
+
+  /**
+   * The state.
+   */
+  private final ImportJob.State my_state;
+
+  /**
+   * When the job was submitted.
+   */
+  private final Instant my_submitted;
+
+  /**
+   * When the job started running, or null.
+   */
+  private final Instant my_started;
+
+  /**
+   * When the job finished, or null.
+   */
+  private final Instant my_finished;
+
+  /**
+   * The number of rows processed.
+   */
+  private final int my_rows_processed;
+
+  /**
+   * The number of bytes of the file read.
+   */
+  private final long my_bytes_read;
+
+  /**
+   * The size of the file in bytes, or null.
+   */
+  private final Long my_file_size;
+
+  /**
+   * The estimated number of seconds until the job finishes, or null.
+   */
+  private final Long my_eta_seconds;
+
+  /**
+   * True if cancellation has been requested.
+   */
+  private final boolean my_cancel_requested;
+
+  /**
+   * The reason the job failed, or null.
+   */
+  private final String my_failure;
+
+  /**
+   * Constructs a new ImportJobResponse from the current state of a job.
+   *
+   * @param the_job The job.
+   */
+  public ImportJobResponse(final ImportJob the_job) {
+    my_job_id = the_job.id();
+    my_county_id = the_job.countyID();
+    my_file_id = the_job.fileID();
+    my_state = the_job.state();
+    my_submitted = the_job.submitted();
+    my_started = the_job.started();
+    my_finished = the_job.finished();
+    my_rows_processed = the_job.rowsProcessed();
+    my_bytes_read = the_job.bytesRead();
+    my_file_size = the_job.fileSize();
+    my_eta_seconds = the_job.eta().map(Duration::getSeconds).orElse(null);
+    my_cancel_requested = the_job.cancelRequested();
+    my_failure = the_job.failure();
+  }
+
+  /**
+   * @param the_jobs Some jobs.
+   * @return responses for the jobs, in the same order.
+   */
+  public static List<ImportJobResponse> of(final List<ImportJob> the_jobs) {
+    final List<ImportJobResponse> result = new ArrayList<>(the_jobs.size());
+    for (final ImportJob job : the_jobs) {
+      result.add(new ImportJobResponse(job));
+    }
+    return result;
+  }
+}
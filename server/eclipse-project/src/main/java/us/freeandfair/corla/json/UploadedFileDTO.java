@@ -55,4 +55,12 @@ public class UploadedFileDTO {
   public void setCountyId(final Long countyId) {
     this.countyId = countyId;
   }
+
+  public Long getSize() {
+    return this.size;
+  }
+
+  public void setSize(final Long size) {
+    this.size = size;
+  }
 }
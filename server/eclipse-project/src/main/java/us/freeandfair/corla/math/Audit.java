@@ -8,6 +8,8 @@ import static java.math.BigDecimal.*;
 
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static ch.obermuhlner.math.big.BigDecimalMath.pow;
 import static ch.obermuhlner.math.big.BigDecimalMath.log;
@@ -24,6 +26,29 @@ public final class Audit {
    */
   public static final BigDecimal GAMMA = valueOf(1.03905);
 
+  /**
+   * The relative error allowed for in the double precision evaluation of
+   * optimistic; far more than the doubles can actually accumulate.
+   */
+  private static final double FAST_PATH_TOLERANCE = 1e-12;
+
+  /**
+   * The largest sample size that optimistic evaluates in double precision.
+   */
+  private static final double FAST_PATH_LIMIT = 1e12;
+
+  /**
+   * The constants for each gamma we have seen.
+   */
+  private static final Map<BigDecimal, GammaConstants> GAMMA_CONSTANTS =
+      new ConcurrentHashMap<>();
+
+  /**
+   * The natural log of each risk limit we have seen.
+   */
+  private static final Map<BigDecimal, BigDecimal> LOG_RISK_LIMITS =
+      new ConcurrentHashMap<>();
+
   private Audit() {
   }
 
@@ -93,6 +118,12 @@ public final class Audit {
    * Computes the expected number of ballots to audit overall given the
    * specified numbers of over- and understatements.
    *
+   * The result is first evaluated in double precision, which is exact
+   * whenever the value being rounded up is far enough from an integer that
+   * the rounding error of the doubles cannot move it across one; otherwise
+   * (and for values too large for doubles to be trusted) it is evaluated in
+   * BigDecimal arithmetic.
+   *
    * @param the_two_under The two-vote understatements.
    * @param the_one_under The one-vote understatements.
    * @param the_one_over The one-vote overstatements.
@@ -116,11 +147,59 @@ public final class Audit {
       return ZERO;
     }
 
+    final GammaConstants constants = constants(gamma);
+    final Logs logs = constants.logs();
+    final double log_risk_limit = logRiskLimit(riskLimit).doubleValue();
+    final double margin = dilutedMargin.doubleValue();
+
+    // the terms of the numerator, and a bound on the size of its rounding
+    // error: each double is within 1 ulp of its BigDecimal and the
+    // arithmetic adds a few more, so 1e-12 of the magnitude is very generous
+    final double sum = log_risk_limit + twoUnder * logs.my_two_under_d
+                       + oneUnder * logs.my_one_under_d + oneOver * logs.my_one_over_d
+                       + twoOver * logs.my_two_over_d;
+    final double magnitude = Math.abs(log_risk_limit)
+                             + Math.abs(twoUnder * logs.my_two_under_d)
+                             + Math.abs(oneUnder * logs.my_one_under_d)
+                             + Math.abs(oneOver * logs.my_one_over_d)
+                             + Math.abs(twoOver * logs.my_two_over_d);
+    final double x = -constants.my_two_gamma_d * sum / margin;
+    final double tolerance =
+        FAST_PATH_TOLERANCE * constants.my_two_gamma_d * magnitude / Math.abs(margin);
+
+    if (Double.isFinite(x) && Double.isFinite(tolerance)
+        && Math.abs(x) + tolerance < FAST_PATH_LIMIT) {
+      final double ceil = Math.ceil(x - tolerance);
+      if (ceil == Math.ceil(x + tolerance)) {
+        final long over_under_sum = (long) twoUnder + oneUnder + oneOver + twoOver;
+        return valueOf(Math.max((long) ceil, over_under_sum));
+      }
+    }
+
+    return optimisticExact(riskLimit, dilutedMargin, gamma,
+                           twoUnder, oneUnder, oneOver, twoOver);
+  }
+
+  /**
+   * Computes optimistic entirely in BigDecimal arithmetic.
+   *
+   * @see #optimistic(BigDecimal, BigDecimal, BigDecimal, int, int, int, int)
+   */
+  static BigDecimal optimisticExact(final BigDecimal riskLimit,
+                                    final BigDecimal dilutedMargin,
+                                    final BigDecimal gamma,
+                                    final int twoUnder,
+                                    final int oneUnder,
+                                    final int oneOver,
+                                    final int twoOver) {
+
+    if (dilutedMargin.compareTo(ZERO) == 0) {
+      return ZERO;
+    }
+
     final BigDecimal result;
-    final BigDecimal invgamma = ONE.divide(gamma, DECIMAL128);
-    final BigDecimal twogamma = valueOf(2).multiply(gamma);
-    final BigDecimal invtwogamma =
-      ONE.divide(twogamma, DECIMAL128);
+    final GammaConstants constants = constants(gamma);
+    final Logs logs = constants.logs();
     final BigDecimal two_under_bd = valueOf(twoUnder);
     final BigDecimal one_under_bd = valueOf(oneUnder);
     final BigDecimal one_over_bd = valueOf(oneOver);
@@ -128,21 +207,13 @@ public final class Audit {
 
     final BigDecimal over_under_sum =
       two_under_bd.add(one_under_bd).add(one_over_bd).add(two_over_bd);
-    final BigDecimal two_under =
-      two_under_bd.multiply(log(ONE.add(invgamma),
-                                               DECIMAL128));
-    final BigDecimal one_under =
-      one_under_bd.multiply(log(ONE.add(invtwogamma),
-                                               DECIMAL128));
-    final BigDecimal one_over =
-      one_over_bd.multiply(log(ONE.subtract(invtwogamma),
-                                              DECIMAL128));
-    final BigDecimal two_over =
-      two_over_bd.multiply(log(ONE.subtract(invgamma),
-                                              DECIMAL128));
+    final BigDecimal two_under = two_under_bd.multiply(logs.my_two_under);
+    final BigDecimal one_under = one_under_bd.multiply(logs.my_one_under);
+    final BigDecimal one_over = one_over_bd.multiply(logs.my_one_over);
+    final BigDecimal two_over = two_over_bd.multiply(logs.my_two_over);
     final BigDecimal numerator =
-      twogamma.negate().
-      multiply(log(riskLimit, DECIMAL128).
+      constants.my_two_gamma.negate().
+      multiply(logRiskLimit(riskLimit).
                add(two_under.add(one_under).add(one_over).add(two_over)));
       final BigDecimal ceil =
         numerator.divide(dilutedMargin, DECIMAL128).setScale(0, RoundingMode.CEILING);
@@ -191,6 +262,7 @@ public final class Audit {
                                                final int oneOver,
                                                final int twoOver) {
     final BigDecimal totalErrorBound = totalErrorBound(dilutedMargin, gamma);
+    final GammaConstants constants = constants(gamma);
 
     return ONE.min(
         pow(
@@ -200,52 +272,157 @@ public final class Audit {
             auditedBallots,
             DECIMAL128
         )
-        .multiply(
-            pow(
-                ONE.subtract(
-                    ONE.divide(
-                        gamma.multiply(valueOf(2), DECIMAL128),
-                        DECIMAL128
-                    )
-                ),
-                -1 * oneOver,
-                DECIMAL128
-            ),
-            DECIMAL128
-        )
-        .multiply(
-            pow(
-                ONE.subtract(
-                    ONE.divide(gamma, DECIMAL128)
-                ),
-                -1 * twoOver,
-                DECIMAL128
-            ),
-            DECIMAL128
-        )
-        .multiply(
-            pow(
-                ONE.add(
-                    ONE.divide(
-                        gamma.multiply(valueOf(2), DECIMAL128),
-                        DECIMAL128
-                    )
-                ),
-                -1 * oneUnder,
-                DECIMAL128
-            ),
-            DECIMAL128
-        )
-        .multiply(
-            pow(
-                ONE.add(
-                    ONE.divide(gamma, DECIMAL128)
-                ),
-                -1 * twoUnder,
-                DECIMAL128
-            ),
-            DECIMAL128
-        )
+        .multiply(pow(constants.my_one_over_base, -1 * oneOver, DECIMAL128), DECIMAL128)
+        .multiply(pow(constants.my_two_over_base, -1 * twoOver, DECIMAL128), DECIMAL128)
+        .multiply(pow(constants.my_one_under_base, -1 * oneUnder, DECIMAL128), DECIMAL128)
+        .multiply(pow(constants.my_two_under_base, -1 * twoUnder, DECIMAL128), DECIMAL128)
     );
   }
+
+  /**
+   * @return the constants for the specified gamma, computing them the first
+   * time they are needed.
+   */
+  private static GammaConstants constants(final BigDecimal the_gamma) {
+    return GAMMA_CONSTANTS.computeIfAbsent(the_gamma, GammaConstants::new);
+  }
+
+  /**
+   * @return the natural log of the specified risk limit, computing it the
+   * first time it is needed.
+   */
+  private static BigDecimal logRiskLimit(final BigDecimal the_risk_limit) {
+    return LOG_RISK_LIMITS.computeIfAbsent(the_risk_limit, r -> log(r, DECIMAL128));
+  }
+
+  /**
+   * The quantities that depend only on gamma.
+   */
+  private static final class GammaConstants {
+    /**
+     * 2γ.
+     */
+    private final BigDecimal my_two_gamma;
+
+    /**
+     * 2γ as a double.
+     */
+    private final double my_two_gamma_d;
+
+    /**
+     * 1 - 1/2γ, the factor for a one-vote overstatement.
+     */
+    private final BigDecimal my_one_over_base;
+
+    /**
+     * 1 - 1/γ, the factor for a two-vote overstatement.
+     */
+    private final BigDecimal my_two_over_base;
+
+    /**
+     * 1 + 1/2γ, the factor for a one-vote understatement.
+     */
+    private final BigDecimal my_one_under_base;
+
+    /**
+     * 1 + 1/γ, the factor for a two-vote understatement.
+     */
+    private final BigDecimal my_two_under_base;
+
+    /**
+     * The logs of the factors; computed on first use, since they are only
+     * defined for γ > 1.
+     */
+    private volatile Logs my_logs;
+
+    /**
+     * Computes the constants for the specified gamma.
+     *
+     * @param the_gamma The gamma.
+     */
+    GammaConstants(final BigDecimal the_gamma) {
+      final BigDecimal invgamma = ONE.divide(the_gamma, DECIMAL128);
+      my_two_gamma = valueOf(2).multiply(the_gamma);
+      my_two_gamma_d = my_two_gamma.doubleValue();
+      final BigDecimal invtwogamma =
+          ONE.divide(the_gamma.multiply(valueOf(2), DECIMAL128), DECIMAL128);
+      my_one_over_base = ONE.subtract(invtwogamma);
+      my_two_over_base = ONE.subtract(invgamma);
+      my_one_under_base = ONE.add(invtwogamma);
+      my_two_under_base = ONE.add(invgamma);
+    }
+
+    /**
+     * @return the logs of the factors.
+     */
+    Logs logs() {
+      Logs result = my_logs;
+      if (result == null) {
+        result = new Logs(this);
+        my_logs = result;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The natural logs of the over- and understatement factors for a gamma.
+   */
+  private static final class Logs {
+    /**
+     * log(1 + 1/γ).
+     */
+    private final BigDecimal my_two_under;
+
+    /**
+     * log(1 + 1/2γ).
+     */
+    private final BigDecimal my_one_under;
+
+    /**
+     * log(1 - 1/2γ).
+     */
+    private final BigDecimal my_one_over;
+
+    /**
+     * log(1 - 1/γ).
+     */
+    private final BigDecimal my_two_over;
+
+    /**
+     * log(1 + 1/γ) as a double.
+     */
+    private final double my_two_under_d;
+
+    /**
+     * log(1 + 1/2γ) as a double.
+     */
+    private final double my_one_under_d;
+
+    /**
+     * log(1 - 1/2γ) as a double.
+     */
+    private final double my_one_over_d;
+
+    /**
+     * log(1 - 1/γ) as a double.
+     */
+    private final double my_two_over_d;
+
+    /**
+     * Computes the logs for the specified constants.
+     *
+     * @param the_constants The constants.
+     */
+    Logs(final GammaConstants the_constants) {
+      my_two_under = log(the_constants.my_two_under_base, DECIMAL128);
+      my_one_under = log(the_constants.my_one_under_base, DECIMAL128);
+      my_one_over = log(the_constants.my_one_over_base, DECIMAL128);
+      my_two_over = log(the_constants.my_two_over_base, DECIMAL128);
+      my_two_under_d = my_two_under.doubleValue();
+      my_one_under_d = my_one_under.doubleValue();
+      my_one_over_d = my_one_over.doubleValue();
+      my_two_over_d = my_two_over.doubleValue();
+    }
+  }
 }
@@ -26,6 +26,8 @@ import javax.persistence.Index;
 import javax.persistence.Table;
 import javax.persistence.Version;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Immutable;
 
 import us.freeandfair.corla.persistence.PersistentEntity;
@@ -41,6 +43,7 @@ import us.freeandfair.corla.persistence.PersistentEntity;
 @Entity
 @Immutable // this is a Hibernate-specific annotation, but there is no JPA alternative
 @Cacheable(true)
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @Table(name = "ballot_manifest_info",
        indexes = { @Index(name = "idx_bmi_county", columnList = "county_id"),
                    @Index(name = "idx_bmi_seqs", columnList = "sequence_start,sequence_end")})
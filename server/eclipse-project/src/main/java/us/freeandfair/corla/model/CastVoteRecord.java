@@ -532,8 +532,15 @@ final public class CastVoteRecord implements Comparable<CastVoteRecord>,
    * or null if none were made for the specified contest.
    */
   public CVRContestInfo contestInfoForContest(final Contest the_contest) {
+    if (the_contest == null) {
+      return null;
+    }
     for (final CVRContestInfo info : my_contest_info) {
-      if (info.contest().equals(the_contest)) {
+      final Contest contest = info.contest();
+      // equal contests have equal names, and comparing those first avoids
+      // comparing every field (and choice) of every other contest
+      if (contest == the_contest ||
+          nullableEquals(contest.name(), the_contest.name()) && contest.equals(the_contest)) {
         return info;
       }
     }
@@ -26,7 +26,6 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.Convert;
@@ -48,6 +47,7 @@ import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.MapKeyJoinColumn;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.Version;
 
 import org.apache.log4j.LogManager;
@@ -65,7 +65,6 @@ import us.freeandfair.corla.persistence.LongListConverter;
  *
  */
 @Entity
-@Cacheable(true)
 @Table(name = "comparison_audit")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "audit_type")
@@ -245,6 +244,21 @@ public class ComparisonAudit implements PersistentEntity {
   @Convert(converter = LongListConverter.class)
   private List<Long> contestCVRIds = new ArrayList<Long>();
 
+  /**
+   * The number of times each CastVoteRecord id appears in contestCVRIds, so
+   * that isCovering and multiplicity need not scan the list. This is built
+   * lazily, and rebuilt whenever contestCVRIds is replaced (as it is when
+   * Hibernate loads it through LongListConverter); it is not persisted.
+   */
+  @Transient
+  private Map<Long, Integer> my_contest_cvr_id_counts;
+
+  /**
+   * The list that my_contest_cvr_id_counts counts.
+   */
+  @Transient
+  private List<Long> my_counted_contest_cvr_ids;
+
   /**
    * A map from CVRAuditInfo objects to their discrepancy values for this
    * audited contest.
@@ -757,7 +771,7 @@ public class ComparisonAudit implements PersistentEntity {
 
   /** was the given cvrid selected for this contest? **/
   public boolean isCovering(final Long cvrId) {
-    return getContestCVRIds().contains(cvrId);
+    return contestCVRIdCounts().containsKey(cvrId);
   }
 
   /**
@@ -765,14 +779,36 @@ public class ComparisonAudit implements PersistentEntity {
    * @param contestCVRIds a list
    */
   public void addContestCVRIds (final List<Long> contestCVRIds) {
+    // count against the current list before it changes
+    final Map<Long, Integer> counts = contestCVRIdCounts();
     this.contestCVRIds.addAll(contestCVRIds);
+    for (final Long cvrId : contestCVRIds) {
+      counts.merge(cvrId, 1, Integer::sum);
+    }
   }
 
   /**
    * getter
    */
   public List<Long> getContestCVRIds() {
-    return this.contestCVRIds;
+    return Collections.unmodifiableList(this.contestCVRIds);
+  }
+
+  /**
+   * @return the number of times each CastVoteRecord id appears in
+   * contestCVRIds, counting them first if necessary.
+   */
+  private Map<Long, Integer> contestCVRIdCounts() {
+    if (my_contest_cvr_id_counts == null
+        || my_counted_contest_cvr_ids != contestCVRIds) {
+      final Map<Long, Integer> counts = new HashMap<>();
+      for (final Long cvrId : contestCVRIds) {
+        counts.merge(cvrId, 1, Integer::sum);
+      }
+      my_contest_cvr_id_counts = counts;
+      my_counted_contest_cvr_ids = contestCVRIds;
+    }
+    return my_contest_cvr_id_counts;
   }
 
   /**
@@ -803,7 +839,7 @@ public class ComparisonAudit implements PersistentEntity {
    * (across all rounds)
    **/
   public int multiplicity(final Long cvrId) {
-    return Collections.frequency(getContestCVRIds(), cvrId);
+    return contestCVRIdCounts().getOrDefault(cvrId, 0);
   }
 
   /**
@@ -39,6 +39,9 @@ import javax.persistence.Version;
 
 import com.google.gson.annotations.JsonAdapter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import us.freeandfair.corla.json.ContestJsonAdapter;
 import us.freeandfair.corla.persistence.PersistentEntity;
 
@@ -104,6 +107,7 @@ public class Contest implements PersistentEntity, Serializable {
    * The contest choices.
    */
   @ElementCollection(fetch = FetchType.EAGER)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   @OrderColumn(name = "index")
   @CollectionTable(name = "contest_choice",
                    uniqueConstraints= @UniqueConstraint(columnNames={"contest_id","my_name"}),
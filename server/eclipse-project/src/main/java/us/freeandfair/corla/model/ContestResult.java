@@ -11,7 +11,6 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.Convert;
@@ -44,7 +43,6 @@ import us.freeandfair.corla.persistence.StringSetConverter;
  * initialized for IRV. These are generally not used unless set after assertion generation.
  */
 @Entity
-@Cacheable(true)
 @Table(name = "contest_result",
        uniqueConstraints = {
          @UniqueConstraint(columnNames = {"contest_name"}) },
@@ -20,7 +20,6 @@ import java.util.Map;
 import java.util.OptionalInt;
 import java.util.Set;
 
-import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
@@ -53,7 +52,6 @@ import us.freeandfair.corla.persistence.PersistentEntity;
  * @version 1.0.0
  */
 @Entity
-@Cacheable(true)
 @Table(name = "county_contest_comparison_audit",
        indexes = { @Index(name = "idx_ccca_dashboard", columnList = "dashboard_id") })
 @SuppressWarnings({"PMD.ImmutableField", "PMD.CyclomaticComplexity", "PMD.GodClass",
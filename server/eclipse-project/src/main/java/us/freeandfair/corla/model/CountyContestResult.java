@@ -30,7 +30,6 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
-import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.Convert;
@@ -61,7 +60,6 @@ import us.freeandfair.corla.util.SuppressFBWarnings;
  * @version 1.0.0
  */
 @Entity
-@Cacheable(true)
 @Table(name = "county_contest_result",
        uniqueConstraints = {
          @UniqueConstraint(columnNames = {"county_id", "contest_id"}) },
@@ -166,6 +164,34 @@ public class CountyContestResult implements PersistentEntity, Serializable {
    * The total number of ballots cast in this county that contain this contest.
    */
   private Integer my_contest_ballot_count = 0;
+
+  /**
+   * The position of each choice in my_tally.
+   */
+  private transient Map<String, Integer> my_choice_ordinals;
+
+  /**
+   * The choices, by position in my_tally.
+   */
+  private transient String[] my_choice_names;
+
+  /**
+   * The votes added by addCVR and not yet in my_vote_totals, by choice
+   * position, or null if there are none.
+   */
+  private transient int[] my_tally;
+
+  /**
+   * The choices in descending order by number of votes, or null if they
+   * have not been ranked since the vote totals last changed.
+   */
+  private transient List<String> my_ranked_choices;
+
+  /**
+   * The margin of each choice to its nearest loser, for the current vote
+   * totals, winners and losers, or null if none have been computed.
+   */
+  private transient Map<String, OptionalInt> my_loser_margins;
   
   /**
    * Constructs a new empty CountyContestResult (solely for persistence).
@@ -249,16 +275,32 @@ public class CountyContestResult implements PersistentEntity, Serializable {
    * @return a map from choices to vote totals.
    */
   public Map<String, Integer> voteTotals() {
+    materializeVoteTotals();
     return Collections.unmodifiableMap(my_vote_totals);
   }
   
   /**
    * @return a list of the choices in descending order by number of votes
    * received. This is a plurality tally with no connection to ranked-choice voting.
+   * The list is unmodifiable, and is kept until the vote totals change.
    */
   public List<String> rankedChoices() {
-    final List<String> result = new ArrayList<String>();
-    
+    materializeVoteTotals();
+    if (my_ranked_choices == null) {
+      final List<String> result = new ArrayList<String>();
+      for (final List<String> choices : sortedTotals().values()) {
+        result.addAll(choices);
+      }
+      my_ranked_choices = Collections.unmodifiableList(result);
+    }
+    return my_ranked_choices;
+  }
+
+  /**
+   * @return the choices grouped by number of votes received, in descending
+   * order by number of votes.
+   */
+  private SortedMap<Integer, List<String>> sortedTotals() {
     final SortedMap<Integer, List<String>> sorted_totals = 
         new TreeMap<Integer, List<String>>(new ReverseIntegerComparator());
     for (final Entry<String, Integer> e : my_vote_totals.entrySet()) {
@@ -268,14 +310,7 @@ public class CountyContestResult implements PersistentEntity, Serializable {
       }
       sorted_totals.get(e.getValue()).add(e.getKey());
     }
-    
-    final Iterator<Entry<Integer, List<String>>> iterator = 
-        sorted_totals.entrySet().iterator();
-    while (iterator.hasNext()) {
-      final Entry<Integer, List<String>> entry = iterator.next();
-      result.addAll(entry.getValue());
-    }
-    return result;
+    return sorted_totals;
   }
 
   /**
@@ -283,8 +318,10 @@ public class CountyContestResult implements PersistentEntity, Serializable {
    */
   public void updateChoiceName(final String oldName,
                                final String newName) {
+    materializeVoteTotals();
     final Integer vote_total = my_vote_totals.remove(oldName);
     my_vote_totals.put(newName, vote_total);
+    forgetTally();
   }
 
   /**
@@ -301,6 +338,7 @@ public class CountyContestResult implements PersistentEntity, Serializable {
    */
   public OptionalInt pairwiseMargin(final String the_first_choice,
                                     final String the_second_choice) {
+    materializeVoteTotals();
     final Integer first_votes = my_vote_totals.get(the_first_choice);
     final Integer second_votes = my_vote_totals.get(the_second_choice);
     final OptionalInt result;
@@ -323,8 +361,14 @@ public class CountyContestResult implements PersistentEntity, Serializable {
    * @return the margin.
    */
   public OptionalInt marginToNearestLoser(final String the_choice) {
-    final OptionalInt result;
     final List<String> choices = rankedChoices();
+    if (my_loser_margins == null) {
+      my_loser_margins = new HashMap<>();
+    }
+    OptionalInt result = my_loser_margins.get(the_choice);
+    if (result != null) {
+      return result;
+    }
     int index = choices.indexOf(the_choice);
     
     if (index < 0 || index == choices.size() - 1) {
@@ -346,6 +390,7 @@ public class CountyContestResult implements PersistentEntity, Serializable {
       }
     }
     
+    my_loser_margins.put(the_choice, result);
     return result;
   }
   
@@ -479,6 +524,7 @@ public class CountyContestResult implements PersistentEntity, Serializable {
    * Reset the vote totals and all related data in this CountyContestResult.
    */
   public void reset() {
+    forgetTally();
     my_winners.clear();
     my_losers.clear();
     for (final String s : my_vote_totals.keySet()) {
@@ -488,35 +534,92 @@ public class CountyContestResult implements PersistentEntity, Serializable {
   }
   
   /**
-   * Update the vote totals using the data from the specified CVR.
+   * Update the vote totals using the data from the specified CVR. The votes
+   * are tallied by choice position and added to the vote totals when they
+   * are next read, or by materializeVoteTotals().
    * 
    * @param the_cvr The CVR.
    */
   public void addCVR(final CastVoteRecord the_cvr) {
     final CVRContestInfo ci = the_cvr.contestInfoForContest(my_contest);
     if (ci != null) {
+      if (my_tally == null) {
+        startTally();
+      }
       for (final String s : ci.choices()) {
-        my_vote_totals.put(s, my_vote_totals.get(s) + 1);
+        final Integer ordinal = my_choice_ordinals.get(s);
+        if (ordinal == null) {
+          // not a choice we know; this fails as it always has
+          my_vote_totals.put(s, my_vote_totals.get(s) + 1);
+        } else {
+          my_tally[ordinal] = my_tally[ordinal] + 1;
+        }
       }
       my_contest_ballot_count = Integer.valueOf(my_contest_ballot_count + 1);
     }
     my_county_ballot_count = Integer.valueOf(my_county_ballot_count + 1);
   }
+
+  /**
+   * Adds the votes tallied by addCVR to the vote totals, so that they are
+   * persisted; this must be called before the vote totals are committed.
+   */
+  public void materializeVoteTotals() {
+    if (my_tally == null) {
+      return;
+    }
+    for (int i = 0; i < my_tally.length; i++) {
+      if (my_tally[i] != 0) {
+        final String choice = my_choice_names[i];
+        my_vote_totals.put(choice, my_vote_totals.get(choice) + my_tally[i]);
+      }
+    }
+    my_tally = null;
+    forgetRanking();
+  }
+
+  /**
+   * Starts a tally over the choices that are in the vote totals.
+   */
+  private void startTally() {
+    if (my_choice_ordinals == null) {
+      my_choice_names = my_vote_totals.keySet().toArray(new String[0]);
+      my_choice_ordinals = new HashMap<>();
+      for (int i = 0; i < my_choice_names.length; i++) {
+        my_choice_ordinals.put(my_choice_names[i], i);
+      }
+    }
+    my_tally = new int[my_choice_names.length];
+  }
+
+  /**
+   * Forgets the choice positions, the tally and the ranking, after the
+   * choices in the vote totals change.
+   */
+  private void forgetTally() {
+    materializeVoteTotals();
+    my_choice_ordinals = null;
+    my_choice_names = null;
+    forgetRanking();
+  }
+
+  /**
+   * Forgets the ranking and margins, after the vote totals, winners or
+   * losers change.
+   */
+  private void forgetRanking() {
+    my_ranked_choices = null;
+    my_loser_margins = null;
+  }
   
   /**
    * Updates the stored results.
    */
   public void updateResults() {
+    materializeVoteTotals();
+    forgetRanking();
     // first, sort the vote totals
-    final SortedMap<Integer, List<String>> sorted_totals = 
-        new TreeMap<Integer, List<String>>(new ReverseIntegerComparator());
-    for (final Entry<String, Integer> e : my_vote_totals.entrySet()) {
-      final List<String> list = sorted_totals.get(e.getValue());
-      if (list == null) {
-        sorted_totals.put(e.getValue(), new ArrayList<>());
-      }
-      sorted_totals.get(e.getValue()).add(e.getKey());
-    }
+    final SortedMap<Integer, List<String>> sorted_totals = sortedTotals();
     // next, get the winners and losers
     final Iterator<Entry<Integer, List<String>>> vote_total_iterator = 
         sorted_totals.entrySet().iterator();
@@ -29,7 +29,6 @@ import java.util.stream.Collectors;
 
 import javax.persistence.AttributeOverride;
 import javax.persistence.AttributeOverrides;
-import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.Convert;
@@ -63,7 +62,6 @@ import us.freeandfair.corla.persistence.StringSetConverter;
  * @version 1.0.0
  */
 @Entity
-@Cacheable(true)
 @Table(name = "county_dashboard")
 @SuppressWarnings({"PMD.ImmutableField", "PMD.TooManyMethods", "PMD.TooManyFields",
     "PMD.GodClass", "PMD.ExcessiveImports", "checkstyle:methodcount",
@@ -21,7 +21,6 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.ElementCollection;
 import javax.persistence.Embedded;
@@ -43,7 +42,6 @@ import us.freeandfair.corla.persistence.PersistentEntity;
 // this is an unusual entity, in that it is a singleton; it thus has only one
 // possible id (0).
 @Entity
-@Cacheable(true)
 @Table(name = "dos_dashboard")
 // this class has many fields that would normally be declared final, but
 // cannot be for compatibility with Hibernate and JPA.
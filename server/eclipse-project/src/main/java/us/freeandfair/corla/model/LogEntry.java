@@ -32,6 +32,8 @@ import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import javax.persistence.Version;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Immutable;
 
 import us.freeandfair.corla.Main;
@@ -46,6 +48,7 @@ import us.freeandfair.corla.persistence.PersistentEntity;
 @Entity
 @Immutable // this is a Hibernate-specific annotation, but there is no JPA alternative
 @Cacheable(true)
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @Table(name = "log")
 //this class has many fields that would normally be declared final, but
 //cannot be for compatibility with Hibernate and JPA.
@@ -205,13 +208,28 @@ public class LogEntry implements PersistentEntity, Serializable {
    * returns the root hash.
    */
   private String calculateHash(final LogEntry the_previous_entry) {
-    String result = ROOT_HASH;
-    final StringBuilder hash_input = new StringBuilder(hashString());
     if (the_previous_entry == null) {
-      hash_input.append(ROOT_HASH);
+      return chainHash(hashString(), ROOT_HASH);
     } else {
-      hash_input.append(the_previous_entry.hash());
+      return chainHash(hashString(), the_previous_entry.hash());
     }
+  }
+  
+  /**
+   * Generates the hash chain entry for a log entry from its hash string
+   * and the hash of the previous entry (or the root hash, if it is the
+   * first).
+   * 
+   * @param the_hash_string The log entry's hash string.
+   * @param the_previous_hash The previous entry's hash.
+   * @return the hash. If the hash cannot be calculated, this method
+   * returns the root hash.
+   */
+  public static String chainHash(final String the_hash_string,
+                                 final String the_previous_hash) {
+    String result = ROOT_HASH;
+    final StringBuilder hash_input = new StringBuilder(the_hash_string);
+    hash_input.append(the_previous_hash);
     try {      
       final MessageDigest md = MessageDigest.getInstance("SHA-256");
       final BigInteger bi = 
@@ -280,10 +298,25 @@ public class LogEntry implements PersistentEntity, Serializable {
    * @return the String.
    */
   public final String hashString() {
+    return hashString(my_result_code, my_information, my_timestamp);
+  }
+  
+  /**
+   * Returns the String used as part of the hash computation for a log
+   * entry with the specified data.
+   * 
+   * @param the_result_code The result code.
+   * @param the_information The information.
+   * @param the_timestamp The timestamp.
+   * @return the String.
+   */
+  public static String hashString(final Integer the_result_code,
+                                  final String the_information,
+                                  final Instant the_timestamp) {
     final StringBuilder hash_input = new StringBuilder();
-    hash_input.append(my_result_code.toString());
-    hash_input.append(my_information);
-    hash_input.append(my_timestamp.toString());
+    hash_input.append(the_result_code.toString());
+    hash_input.append(the_information);
+    hash_input.append(the_timestamp.toString());
     return hash_input.toString();
   }
   
@@ -0,0 +1,409 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.persistence;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import us.freeandfair.corla.Main;
+import us.freeandfair.corla.model.LogEntry;
+import us.freeandfair.corla.query.LogEntryQueries;
+
+/**
+ * The single writer of the hash-chained log. Requests hand their log
+ * entries to the appender, which queues them; one thread takes them from the
+ * queue in order, chains each to the one before it, and saves them a batch
+ * per transaction. The head of the chain is kept in memory, and is read from
+ * the database when the writer starts (or after a batch fails).
+ *
+ * Because nothing else writes the log, requests no longer look up its last
+ * entry or contend for it, and the chain is in ID order.
+ *
+ * A batch that cannot be written is retried a few times, with backoff, and
+ * then written an entry at a time, so that one bad entry does not hold up
+ * the rest; an entry that still cannot be written is logged, with its
+ * contents, and dropped. Requests wait once the queue is full; if the writer
+ * thread has died, appending fails rather than waiting.
+ */
+public final class LogChainAppender {
+  /**
+   * The number of entries that may wait to be written; requests wait for
+   * room beyond this.
+   */
+  public static final int QUEUE_CAPACITY = 10000;
+
+  /**
+   * The largest number of entries written in one transaction.
+   */
+  public static final int BATCH_SIZE = 500;
+
+  /**
+   * The number of times to try writing a batch before writing its entries
+   * one at a time.
+   */
+  public static final int COMMIT_RETRIES = 5;
+
+  /**
+   * How long, in milliseconds, to wait before retrying a batch the first
+   * time; the wait doubles with each failure.
+   */
+  public static final long RETRY_DELAY = 100L;
+
+  /**
+   * How long, in milliseconds, a request waits for room in the queue before
+   * checking that the writer is still running.
+   */
+  private static final long APPEND_WAIT = 1000L;
+
+  /**
+   * How long, in milliseconds, shutdown waits for waiting entries.
+   */
+  private static final long SHUTDOWN_FLUSH_TIMEOUT = 5000L;
+
+  /**
+   * The appender.
+   */
+  private static final LogChainAppender INSTANCE = new LogChainAppender();
+
+  /**
+   * The entries waiting to be written.
+   */
+  private final BlockingQueue<Pending> my_queue =
+      new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+  /**
+   * The number of entries appended.
+   */
+  private final AtomicLong my_appended = new AtomicLong();
+
+  /**
+   * The number of entries written (or dropped).
+   */
+  private final AtomicLong my_processed = new AtomicLong();
+
+  /**
+   * The monitor on which flush() waits.
+   */
+  private final Object my_flush_lock = new Object();
+
+  /**
+   * The writer thread, once started.
+   */
+  private volatile Thread my_writer;
+
+  /**
+   * The last entry written, if it is known; only used by the writer thread.
+   */
+  private LogEntry my_head;
+
+  /**
+   * True if my_head is known; only used by the writer thread.
+   */
+  private boolean my_head_known;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private LogChainAppender() {
+    // do nothing
+  }
+
+  /**
+   * @return the appender.
+   */
+  public static LogChainAppender instance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Appends entries to the log. Their hashes are computed, and they are
+   * saved, after this method returns; it only waits if too many entries are
+   * already waiting.
+   *
+   * @param the_entries The (unhashed) entries, in order.
+   * @param the_authentication_data The authentication data for the entries.
+   * @param the_client_host The client host for the entries.
+   * @exception IllegalStateException if the writer thread has stopped, or
+   * this thread is interrupted while waiting; entries not yet appended are
+   * not written.
+   */
+  public void append(final List<LogEntry> the_entries,
+                     final String the_authentication_data,
+                     final String the_client_host) {
+    start();
+    for (final LogEntry entry : the_entries) {
+      final Pending pending = new Pending(entry, the_authentication_data, the_client_host);
+      try {
+        checkWriter(entry);
+        while (!my_queue.offer(pending, APPEND_WAIT, TimeUnit.MILLISECONDS)) {
+          checkWriter(entry);
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("interrupted, could not append log entry " + entry, e);
+      }
+      my_appended.incrementAndGet();
+    }
+  }
+
+  /**
+   * Checks that the writer thread is still running.
+   *
+   * @param the_entry The entry being appended.
+   * @exception IllegalStateException if it is not.
+   */
+  private void checkWriter(final LogEntry the_entry) {
+    if (!my_writer.isAlive()) {
+      throw new IllegalStateException("log chain writer has stopped with " +
+                                      my_queue.size() + " log entries not written; " +
+                                      "could not append log entry " + the_entry);
+    }
+  }
+
+  /**
+   * Waits until every entry appended before this call has been written (or
+   * dropped).
+   *
+   * @param the_timeout The longest time to wait, in milliseconds.
+   * @return true if the entries were written, false if the time ran out.
+   * @exception InterruptedException if the wait is interrupted.
+   */
+  public boolean flush(final long the_timeout) throws InterruptedException {
+    final long target = my_appended.get();
+    final long deadline = System.currentTimeMillis() + the_timeout;
+    synchronized (my_flush_lock) {
+      while (my_processed.get() < target) {
+        final long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        my_flush_lock.wait(remaining);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Starts the writer thread, if it is not already running.
+   */
+  private synchronized void start() {
+    if (my_writer == null) {
+      my_writer = new Thread(this::run, "log-chain-appender");
+      my_writer.setDaemon(true);
+      my_writer.start();
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          if (!flush(SHUTDOWN_FLUSH_TIMEOUT)) {
+            Main.LOGGER.error("log entries were still waiting at shutdown");
+          }
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }, "log-chain-appender-shutdown"));
+    }
+  }
+
+  /**
+   * The writer thread's loop: takes the waiting entries, up to a batch at a
+   * time, and writes them. A batch stays until it has been written or its
+   * failed entries dropped, whatever is thrown.
+   */
+  // the writer must survive anything, or requests would wait forever
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  private void run() {
+    final List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+    while (true) {
+      try {
+        if (batch.isEmpty()) {
+          batch.add(my_queue.take());
+        }
+        my_queue.drainTo(batch, BATCH_SIZE - batch.size());
+        write(batch);
+        processed(batch.size());
+        batch.clear();
+      } catch (final InterruptedException e) {
+        Main.LOGGER.error("log chain appender interrupted, continuing");
+      } catch (final Throwable e) {
+        Main.LOGGER.error("log chain appender failed, " + batch.size() +
+                          " log entries will be retried: " + e);
+      }
+    }
+  }
+
+  /**
+   * Chains and saves a batch of entries, retrying with backoff if the
+   * transaction fails. If it keeps failing, the entries are written one at
+   * a time, and any entry that cannot be written is logged and dropped.
+   *
+   * @param the_batch The batch.
+   */
+  private void write(final List<Pending> the_batch) {
+    if (commit(the_batch, COMMIT_RETRIES)) {
+      return;
+    }
+    if (the_batch.size() > 1) {
+      for (final Pending pending : the_batch) {
+        if (!commit(List.of(pending), 1)) {
+          drop(pending);
+        }
+      }
+    } else {
+      drop(the_batch.get(0));
+    }
+  }
+
+  /**
+   * Chains and saves entries in one transaction.
+   *
+   * @param the_entries The entries.
+   * @param the_attempts The number of times to try, with backoff between
+   * attempts.
+   * @return true if the entries were saved, false otherwise.
+   */
+  // the writer must survive anything a batch throws
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  private boolean commit(final List<Pending> the_entries, final int the_attempts) {
+    long delay = RETRY_DELAY;
+    for (int attempt = 1; attempt <= the_attempts; attempt++) {
+      try {
+        Persistence.beginTransaction();
+        if (!my_head_known) {
+          my_head = LogEntryQueries.last();
+          my_head_known = true;
+        }
+        LogEntry previous = my_head;
+        for (final Pending pending : the_entries) {
+          final LogEntry entry = pending.chainTo(previous);
+          Persistence.save(entry);
+          previous = entry;
+        }
+        Persistence.commitTransaction();
+        my_head = previous;
+        return true;
+      } catch (final Throwable e) {
+        Main.LOGGER.error("could not write " + the_entries.size() + " log entries (attempt " +
+                          attempt + " of " + the_attempts + "): " + e);
+        rollback();
+        // read the head again, in case it was written after all
+        my_head_known = false;
+        if (attempt < the_attempts) {
+          try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+          } catch (final InterruptedException ex) {
+            Main.LOGGER.error("log chain appender interrupted, retrying now");
+          }
+          delay = delay * 2;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Logs, with its contents, an entry that could not be written.
+   *
+   * @param the_pending The entry.
+   */
+  private void drop(final Pending the_pending) {
+    Main.LOGGER.error("dropped log entry that could not be written: " + the_pending);
+  }
+
+  /**
+   * Rolls back the writer's transaction, if there is one to roll back.
+   */
+  // a failed rollback must not stop the retries
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private void rollback() {
+    try {
+      if (Persistence.isSessionOpen() && Persistence.canTransactionRollback()) {
+        Persistence.rollbackTransaction();
+      }
+    } catch (final RuntimeException e) {
+      Main.LOGGER.error("could not roll back log entries: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Records that entries have been written or dropped.
+   *
+   * @param the_count The number of entries.
+   */
+  private void processed(final int the_count) {
+    my_processed.addAndGet(the_count);
+    synchronized (my_flush_lock) {
+      my_flush_lock.notifyAll();
+    }
+  }
+
+  /**
+   * A log entry waiting to be written.
+   */
+  private static final class Pending {
+    /**
+     * The unhashed entry.
+     */
+    private final LogEntry my_entry;
+
+    /**
+     * The authentication data.
+     */
+    private final String my_authentication_data;
+
+    /**
+     * The client host.
+     */
+    private final String my_client_host;
+
+    /**
+     * Constructs a waiting entry.
+     *
+     * @param the_entry The unhashed entry.
+     * @param the_authentication_data The authentication data.
+     * @param the_client_host The client host.
+     */
+    Pending(final LogEntry the_entry, final String the_authentication_data,
+            final String the_client_host) {
+      my_entry = the_entry;
+      my_authentication_data = the_authentication_data;
+      my_client_host = the_client_host;
+    }
+
+    /**
+     * @return the entry's contents, for the system log.
+     */
+    @Override
+    public String toString() {
+      return "[result code=" + my_entry.resultCode() + ", information=" +
+             my_entry.information() + ", timestamp=" + my_entry.timestamp() +
+             ", authentication data=" + my_authentication_data + ", client host=" +
+             my_client_host + "]";
+    }
+
+    /**
+     * Creates the hash-chained entry to save.
+     *
+     * @param the_previous The previous entry, or null if this is the first.
+     * @return the entry.
+     */
+    LogEntry chainTo(final LogEntry the_previous) {
+      // the database keeps microseconds, and the hash must survive a reload
+      final Instant timestamp = my_entry.timestamp().truncatedTo(ChronoUnit.MICROS);
+      return new LogEntry(my_entry.resultCode(), my_entry.information(),
+                          my_authentication_data, my_client_host, timestamp,
+                          the_previous);
+    }
+  }
+}
@@ -36,13 +36,16 @@ import org.hibernate.ObjectNotFoundException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Environment;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.query.Query;
 import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.hibernate.stat.Statistics;
 
 import us.freeandfair.corla.Main;
 
@@ -91,9 +94,10 @@ public final class Persistence {
   private static StandardServiceRegistry service_registry;
 
   /**
-   * The session factory for Hibernate.
+   * The session factory for Hibernate, once it has been created. It is only
+   * written while holding the class lock, but is read without it.
    */
-  private static SessionFactory session_factory;
+  private static volatile SessionFactory session_factory;
 
   /**
    * A thread-local containing the active session on this thread.
@@ -103,7 +107,7 @@ public final class Persistence {
   /**
    * A flag indicating whether persistence has failed to start or not.
    */
-  private static boolean failed;
+  private static volatile boolean failed;
 
   /**
    * Private constructor to prevent instantiation.
@@ -115,7 +119,7 @@ public final class Persistence {
   /**
    * @return true if database persistence is enabled, false otherwise.
    */
-  public static synchronized boolean hasDB() {
+  public static boolean hasDB() {
     return !failed && (session_info.get() != null || openSession() != null);
   }
 
@@ -132,8 +136,13 @@ public final class Persistence {
       system_properties.setProperty("hibernate.url", env.get("HIBERNATE_URL"));
     }
 
-    // Properties have changed, we need to reinitialize our DB connectors
+    // Properties have changed, we need to reinitialize our DB connectors; the
+    // old session factory is closed so that its connections and its cache
+    // manager (of which there can only be one per configuration) are released
     session_info.remove();
+    if (session_factory != null && session_factory.isOpen()) {
+      session_factory.close();
+    }
     session_factory = null;
   }
 
@@ -144,22 +153,17 @@ public final class Persistence {
    * @return the new Session.
    * @exception IllegalStateException if a Session is already open on this thread.
    */
-  public static synchronized Session openSession() {
+  public static Session openSession() {
     Session session = session_info.get();
     if (session != null && session.isOpen()) {
       throw new IllegalStateException("session is already open on this thread");
     }
 
     if (!failed && session == null) {
-      if (session_factory == null) {
-        setupSessionFactory();
-      }
-
-      if (session_factory == null) {
-        failed = true;
-      } else {
+      final SessionFactory factory = sessionFactory();
+      if (factory != null) {
         try {
-          session = session_factory.openSession();
+          session = factory.openSession();
           session_info.set(session);
         } catch (final HibernateException e) {
           Main.LOGGER.error("Exception getting Hibernate session: " + e);
@@ -170,6 +174,45 @@ public final class Persistence {
     return session;
   }
 
+  /**
+   * Creates a new Session that is not bound to the calling thread, for work
+   * that must keep its own transaction while the thread's session commits
+   * and begins others. The caller is responsible for closing it.
+   *
+   * @return the new Session.
+   * @exception PersistenceException if there is no database.
+   */
+  public static Session openUnboundSession() {
+    final SessionFactory factory = failed ? null : sessionFactory();
+    if (factory == null) {
+      throw new PersistenceException("no database");
+    }
+    return factory.openSession();
+  }
+
+  /**
+   * Gets the session factory, creating it if necessary. Once it exists, this
+   * method takes no lock.
+   *
+   * @return the session factory, or null if it could not be created.
+   */
+  private static SessionFactory sessionFactory() {
+    SessionFactory result = session_factory;
+    if (result == null) {
+      synchronized (Persistence.class) {
+        result = session_factory;
+        if (result == null && !failed) {
+          setupSessionFactory();
+          result = session_factory;
+          if (result == null) {
+            failed = true;
+          }
+        }
+      }
+    }
+    return result;
+  }
+
   /**
    * @return the currently open session.
    * @exception PersistenceException if there is no currently open session.
@@ -245,11 +288,14 @@ public final class Persistence {
 
       // caching
       settings.put(Environment.JPA_SHARED_CACHE_MODE, "ENABLE_SELECTIVE");
-      settings.put(Environment.CACHE_PROVIDER_CONFIG, "org.hibernate.cache.EhCacheProvider");
       settings.put(Environment.CACHE_REGION_FACTORY,
                    "org.hibernate.cache.ehcache.EhCacheRegionFactory");
-      settings.put(Environment.USE_SECOND_LEVEL_CACHE, FALSE);
-      settings.put(Environment.USE_QUERY_CACHE, FALSE);
+      settings.put("net.sf.ehcache.configurationResourceName", "/ehcache.xml");
+      settings.put(Environment.USE_SECOND_LEVEL_CACHE,
+                   system_properties.getProperty("hibernate.cache.use_second_level_cache",
+                                                 TRUE));
+      settings.put(Environment.USE_QUERY_CACHE,
+                   system_properties.getProperty("hibernate.cache.use_query_cache", FALSE));
       // IMPORTANT: the USE_DIRECT_REFERENCE_CACHE_ENTRIES setting is FALSE to address
       // Hibernate bug HHH-11169, and must not be changed until/unless that bug is
       // resolved
@@ -271,7 +317,8 @@ public final class Persistence {
       settings.put(Environment.CREATE_EMPTY_COMPOSITES_ENABLED, TRUE);
 
       // statistics
-      settings.put(Environment.GENERATE_STATISTICS, FALSE);
+      settings.put(Environment.GENERATE_STATISTICS,
+                   system_properties.getProperty("hibernate.generate_statistics", FALSE));
 
       // apply settings
       rb.applySettings(settings);
@@ -447,6 +494,35 @@ public final class Persistence {
     }
   }
 
+  /**
+   * Rolls back any transaction still open on this thread and closes its
+   * session, so that a reused thread does not join the transaction of work
+   * that failed before committing. A thread without a session is left alone.
+   *
+   * @return true if a transaction was rolled back, false otherwise.
+   * @exception PersistenceException if there is a problem with persistent storage.
+   */
+  public static boolean rollbackAbandonedTransaction()
+      throws PersistenceException {
+    final Session session = session_info.get();
+    if (session == null) {
+      return false;
+    }
+    boolean result = false;
+    try {
+      if (session.isOpen() && canTransactionRollback()) {
+        rollbackTransaction();
+        result = true;
+      }
+    } finally {
+      if (session.isOpen()) {
+        session.close();
+      }
+      session_info.remove();
+    }
+    return result;
+  }
+
   /**
    * Saves or updates the specified object in persistent storage. This
    * method must be called within a transaction.
@@ -712,6 +788,37 @@ public final class Persistence {
     }
   }
 
+  /**
+   * Evicts everything from the second-level cache, both now and when the
+   * current transaction (if any) completes, so that entities removed or
+   * replaced in bulk are not served from the cache by this or any other
+   * session. If there is no session factory, this method is equivalent to a
+   * skip.
+   */
+  public static void evictCaches() {
+    final SessionFactory factory = session_factory;
+    if (factory == null) {
+      return;
+    }
+    factory.getCache().evictAllRegions();
+    final Session session = session_info.get();
+    if (session != null && session.isOpen()) {
+      ((SessionImplementor) session).getActionQueue().registerProcess(
+          (AfterTransactionCompletionProcess) (the_success, the_session) ->
+              factory.getCache().evictAllRegions());
+    }
+  }
+
+  /**
+   * @return the Hibernate statistics, including those of the second-level
+   * cache.
+   * @exception IllegalStateException if the database isn't running.
+   */
+  public static Statistics statistics() {
+    checkForDatabase();
+    return session_factory.getStatistics();
+  }
+
   /**
    * Gets a streaming Blob for the specified input stream and file size. This method
    * must be called within a running transaction.
@@ -13,8 +13,10 @@ package us.freeandfair.corla.query;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.Set;
@@ -183,6 +185,8 @@ public final class BallotManifestInfoQueries {
 
   /**
      Find the batch(bmi) that would hold the sequence number given.
+     Callers looking up many positions in one county should index the
+     county's manifest once, with ManifestIndex.ofCountySequence.
    */
   public static Optional<BallotManifestInfo>
       holdingSequencePosition(final Long rand, final Long countyId) {
@@ -259,4 +263,25 @@ public final class BallotManifestInfoQueries {
     }
 
   }
+
+  /**
+   * The number of ballots in each county's manifest, for every county that
+   * has uploaded one, in one query; totalBallots of a set of counties is the
+   * sum of these over the counties.
+   *
+   * @return a map from county ID to number of ballots.
+   */
+  public static Map<Long, Long> totalBallotsByCounty() {
+    final Session s = Persistence.currentSession();
+    final Query<?> q =
+      s.createNativeQuery("select county_id, max(sequence_end) " +
+                          "from ballot_manifest_info " +
+                          "group by county_id");
+    final Map<Long, Long> result = new HashMap<>();
+    for (final Object o : q.list()) {
+      final Object[] row = (Object[]) o;
+      result.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+    }
+    return result;
+  }
 }
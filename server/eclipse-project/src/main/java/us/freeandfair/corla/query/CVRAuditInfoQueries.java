@@ -0,0 +1,72 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.PersistenceException;
+
+import us.freeandfair.corla.model.CVRAuditInfo;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Queries having to do with CVRAuditInfo entities.
+ */
+public final class CVRAuditInfoQueries {
+  /**
+   * The number of ids loaded by each query.
+   */
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private CVRAuditInfoQueries() {
+    // do nothing
+  }
+
+  /**
+   * Loads the CVRAuditInfo objects with the specified ids (which are the ids
+   * of their CVRs), a batch at a time rather than one query per id. Objects
+   * already in the session are not queried again. This method must be called
+   * within a transaction.
+   *
+   * @param the_ids The ids, which may contain duplicates.
+   * @return a map from each id that has a CVRAuditInfo to that CVRAuditInfo;
+   * ids without one are absent.
+   * @exception PersistenceException if the CVRAuditInfo objects cannot be
+   * loaded; callers must not take that to mean there are none.
+   */
+  public static Map<Long, CVRAuditInfo> byIds(final Collection<Long> the_ids) {
+    final List<Long> ids = new ArrayList<>(new LinkedHashSet<>(the_ids));
+    final Map<Long, CVRAuditInfo> result = new HashMap<>(ids.size() * 2);
+    if (ids.isEmpty()) {
+      return result;
+    }
+
+    final List<CVRAuditInfo> infos =
+        Persistence.currentSession().byMultipleIds(CVRAuditInfo.class)
+        .withBatchSize(BATCH_SIZE)
+        .enableSessionCheck(true)
+        .multiLoad(ids);
+    for (final CVRAuditInfo info : infos) {
+      if (info != null) {
+        result.put(info.id(), info);
+      }
+    }
+
+    return result;
+  }
+}
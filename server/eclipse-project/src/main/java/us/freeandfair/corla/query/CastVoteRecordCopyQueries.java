@@ -0,0 +1,220 @@
+package us.freeandfair.corla.query;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.hibernate.jdbc.Work;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.persistence.StringListConverter;
+
+/**
+ * Bulk insertion of imported cast vote records through the PostgreSQL COPY
+ * protocol. The rows written are the same rows Hibernate would write for the
+ * same CastVoteRecord entities, but they are streamed to the server in a single
+ * COPY per table instead of one INSERT per CVR and contest.
+ */
+public final class CastVoteRecordCopyQueries {
+  /**
+   * Class-wide logger
+   */
+  public static final Logger LOGGER = LogManager.getLogger(CastVoteRecordCopyQueries.class);
+
+  /**
+   * The COPY statement for the cast_vote_record table.
+   */
+  private static final String CVR_COPY =
+      "COPY cast_vote_record (id, version, record_type, county_id, cvr_number, "
+      + "sequence_number, scanner_id, batch_id, record_id, imprinted_id, uri, "
+      + "ballot_type) FROM STDIN";
+
+  /**
+   * The COPY statement for the cvr_contest_info table.
+   */
+  private static final String CONTEST_INFO_COPY =
+      "COPY cvr_contest_info (cvr_id, \"index\", contest_id, county_id, comment, "
+      + "consensus, choices) FROM STDIN";
+
+  /**
+   * The query that allocates IDs from the sequence Hibernate uses for entities.
+   */
+  private static final String ALLOCATE_IDS =
+      "SELECT nextval('hibernate_sequence') FROM generate_series(1, ?)";
+
+  /**
+   * The COPY text-format representation of NULL.
+   */
+  private static final String NULL = "\\N";
+
+  /**
+   * The converter used for the choices column, shared with Hibernate's mapping.
+   */
+  private static final StringListConverter CHOICES_CONVERTER = new StringListConverter();
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private CastVoteRecordCopyQueries() {
+    // do nothing
+  }
+
+  /**
+   * Writes the specified CVRs, and their contest information, to the database
+   * within the current transaction. Each CVR is assigned its ID from the
+   * Hibernate sequence. The CVRs are not attached to the current session.
+   *
+   * @param the_cvrs The CVRs to write.
+   * @exception IllegalStateException if no transaction is running.
+   * @exception javax.persistence.PersistenceException if the COPY fails.
+   */
+  public static void copyIn(final List<CastVoteRecord> the_cvrs) {
+    if (the_cvrs.isEmpty()) {
+      return;
+    }
+    // anything Hibernate is holding (e.g. the contests these CVRs refer to)
+    // must reach the database before the COPY does
+    Persistence.flush();
+    Persistence.currentSession().doWork(new CopyWork(the_cvrs));
+  }
+
+  /**
+   * Escapes a value for the COPY text format.
+   *
+   * @param the_value The value, which may be null.
+   * @return the escaped value.
+   */
+  static String escape(final Object the_value) {
+    if (the_value == null) {
+      return NULL;
+    }
+    final String s = the_value.toString();
+    final StringBuilder sb = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      final char c = s.charAt(i);
+      switch (c) {
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        default:
+          sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  /** to use the hibernate jdbc connection **/
+  private static class CopyWork implements Work {
+    /** the CVRs to write **/
+    private final List<CastVoteRecord> cvrs;
+
+    /** instantiation **/
+    CopyWork(final List<CastVoteRecord> the_cvrs) {
+      this.cvrs = the_cvrs;
+    }
+
+    /** do the work **/
+    @Override
+    public void execute(final Connection conn) throws SQLException {
+      allocateIDs(conn);
+      final CopyManager cm = new CopyManager(conn.unwrap(BaseConnection.class));
+      final StringBuilder row = new StringBuilder();
+
+      final CopyIn cvr_copy = cm.copyIn(CVR_COPY);
+      try {
+        for (final CastVoteRecord cvr : cvrs) {
+          row.setLength(0);
+          row.append(cvr.id()).append('\t')
+             .append(0).append('\t')
+             .append(escape(cvr.recordType())).append('\t')
+             .append(escape(cvr.countyID())).append('\t')
+             .append(escape(cvr.cvrNumber())).append('\t')
+             .append(escape(cvr.sequenceNumber())).append('\t')
+             .append(escape(cvr.scannerID())).append('\t')
+             .append(escape(cvr.batchID())).append('\t')
+             .append(escape(cvr.recordID())).append('\t')
+             .append(escape(cvr.imprintedID())).append('\t')
+             .append(escape(cvr.getUri())).append('\t')
+             .append(escape(cvr.ballotType())).append('\n');
+          writeRow(cvr_copy, row);
+        }
+        cvr_copy.endCopy();
+      } finally {
+        if (cvr_copy.isActive()) {
+          cvr_copy.cancelCopy();
+        }
+      }
+
+      final CopyIn info_copy = cm.copyIn(CONTEST_INFO_COPY);
+      try {
+        for (final CastVoteRecord cvr : cvrs) {
+          final List<CVRContestInfo> infos = cvr.contestInfo();
+          for (int i = 0; i < infos.size(); i++) {
+            final CVRContestInfo ci = infos.get(i);
+            row.setLength(0);
+            row.append(cvr.id()).append('\t')
+               .append(i).append('\t')
+               .append(ci.contest().id()).append('\t')
+               .append(escape(cvr.countyID())).append('\t')
+               .append(escape(ci.comment())).append('\t')
+               .append(escape(ci.consensus())).append('\t')
+               .append(escape(CHOICES_CONVERTER.convertToDatabaseColumn(ci.choices())))
+               .append('\n');
+            writeRow(info_copy, row);
+          }
+        }
+        info_copy.endCopy();
+      } finally {
+        if (info_copy.isActive()) {
+          info_copy.cancelCopy();
+        }
+      }
+      LOGGER.debug("copied " + cvrs.size() + " CVRs");
+    }
+
+    /**
+     * Assigns an ID from the Hibernate sequence to every CVR.
+     */
+    private void allocateIDs(final Connection conn) throws SQLException {
+      try (PreparedStatement ps = conn.prepareStatement(ALLOCATE_IDS)) {
+        ps.setInt(1, cvrs.size());
+        try (ResultSet rs = ps.executeQuery()) {
+          for (final CastVoteRecord cvr : cvrs) {
+            if (!rs.next()) {
+              throw new SQLException("could not allocate IDs for " + cvrs.size() + " CVRs");
+            }
+            cvr.setID(rs.getLong(1));
+          }
+        }
+      }
+    }
+
+    /**
+     * Writes a single row to a COPY in progress.
+     */
+    private void writeRow(final CopyIn the_copy, final StringBuilder the_row)
+        throws SQLException {
+      final byte[] bytes = the_row.toString().getBytes(StandardCharsets.UTF_8);
+      the_copy.writeToCopy(bytes, 0, bytes.length);
+    }
+  }
+}
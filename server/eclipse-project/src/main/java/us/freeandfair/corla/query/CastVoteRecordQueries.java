@@ -230,6 +230,36 @@ public final class CastVoteRecordQueries {
     return result;
   }
 
+  /**
+   * Counts the CastVoteRecord objects of the specified type in every county,
+   * in one query rather than one per county.
+   *
+   * @param the_type The type.
+   * @return a map from county ID to count; counties with no such records
+   * are absent, and the map is empty if the query could not be completed
+   * successfully.
+   */
+  public static Map<Long, Long> countByCounty(final RecordType the_type) {
+    final Map<Long, Long> result = new HashMap<>();
+
+    try {
+      final Session s = Persistence.currentSession();
+      final CriteriaBuilder cb = s.getCriteriaBuilder();
+      final CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+      final Root<CastVoteRecord> root = cq.from(CastVoteRecord.class);
+      cq.multiselect(root.get(COUNTY_ID), cb.count(root));
+      cq.where(cb.equal(root.get(RECORD_TYPE), the_type));
+      cq.groupBy(root.get(COUNTY_ID));
+      final Query<Object[]> query = s.createQuery(cq);
+      for (final Object[] row : query.getResultList()) {
+        result.put((Long) row[0], (Long) row[1]);
+      }
+    } catch (final PersistenceException e) {
+      Main.LOGGER.error(COULD_NOT_QUERY_DATABASE);
+    }
+    return result;
+  }
+
   /**
    * change the votes from the export as if the cvr expost file headers had
    * contained the newChoice rather than the oldChoice
@@ -447,14 +477,57 @@ public final class CastVoteRecordQueries {
     final List<String> uris = tributes.stream().map(Persistence::persist).map(t -> t.getUri())
         .collect(Collectors.toList());
 
+    final Map<String, CastVoteRecord> cvrsByUri = byUris(uris);
+
+    // one phantom for each distinct uri that has no cvr, all written at once
+    final Set<String> phantomUris = new HashSet<>();
+    final List<CastVoteRecord> phantomRecords = new ArrayList<>();
+    for (final Tribute t : tributes) {
+      if (!cvrsByUri.containsKey(t.getUri()) && phantomUris.add(t.getUri())) {
+        phantomRecords.add(newPhantomRecord(t.countyId, t.scannerId, t.batchId,
+                                            t.ballotPosition));
+      }
+    }
+    if (!phantomRecords.isEmpty()) {
+      CastVoteRecordCopyQueries.copyIn(phantomRecords);
+      // read them back so that the session manages them, like the cvrs found above
+      cvrsByUri.putAll(byUris(new ArrayList<>(phantomUris)));
+    }
+
+    // line the cvrs back up into the random order
+    final List<CastVoteRecord> returnList = new ArrayList<>(uris.size());
+    for (final String uri : uris) {
+      final CastVoteRecord cvr = cvrsByUri.get(uri);
+      if (cvr != null) {
+        returnList.add(cvr);
+      }
+    }
+    if (returnList.size() != uris.size()) {
+      // we got a problem here
+      Main.LOGGER
+          .error("something went wrong with atPosition - returnList.size() != uris.size()");
+    }
+
+    return returnList;
+  }
+
+  /**
+   * Find the CVRs (uploaded or phantom) with the specified URIs, querying
+   * them in chunks of 1000.
+   *
+   * @param uris The URIs, which may contain duplicates.
+   * @return a map from each URI that has a CVR to that CVR.
+   */
+  private static Map<String, CastVoteRecord> byUris(final List<String> uris) {
     final Session s = Persistence.currentSession();
     final Query<CastVoteRecord> q =
-        s.createQuery("select cvr from CastVoteRecord cvr " + " where uri in (:uris) ");
+        s.createQuery("select cvr from CastVoteRecord cvr " + " where uri in (:uris) ",
+                      CastVoteRecord.class);
 
     java.util.Spliterator<String> split = uris.stream().spliterator();
-   
-    final List<CastVoteRecord> results = new ArrayList<>(uris.size());
-    
+
+    final Map<String, CastVoteRecord> results = new HashMap<>(uris.size() * 2);
+
     while (true) {
 
       List<String> chunk = new ArrayList<>(_chunkOf1000);
@@ -464,52 +537,15 @@ public final class CastVoteRecordQueries {
         break;
       q.setParameter("uris", chunk);
       final List<CastVoteRecord> tempResults = q.getResultList();
-      results.addAll(tempResults);
+      for (final CastVoteRecord cvr : tempResults) {
+        results.putIfAbsent(cvr.getUri(), cvr);
+      }
       Main.LOGGER.info(MessageFormat
           .format("Total URIs {0} chunk size {1} tempResults size {2} results size {3}",
                   uris.size(), chunk.size(), tempResults.size(), results.size()));
     }
 
-    final Set<String> foundUris =
-        results.stream().map(cvr -> (String) cvr.getUri()).collect(Collectors.toSet());
-
-    final Set<CastVoteRecord> phantomRecords =
-        tributes.stream().filter(distinctByKey((Tribute t) -> {
-          return t.getUri();
-        }))
-            // is it faster to let the db do this with an except query?
-            .filter(t -> !foundUris.contains(t.getUri())).map(CastVoteRecordQueries::phantomRecord)
-            .map(Persistence::persist).collect(Collectors.toSet());
-
-    results.addAll(phantomRecords);
-
-    // this is a dummy list so we can add a cvr at a particular position(that of
-    // the tributes uris)
-    final List<CastVoteRecord> randomOrder =
-        new ArrayList<CastVoteRecord>(Collections.nCopies(uris.size(), null));
-
-    // line the cvrs back up into the random order
-    for (final CastVoteRecord cvr : results) {
-      int index = 0;
-      for (final String uri : uris) {
-        if (uri.equals(cvr.getUri())) {
-          randomOrder.add(index, cvr);
-        }
-        index++;
-      }
-    }
-
-    final List<CastVoteRecord> returnList =
-        randomOrder.stream().filter(Objects::nonNull).collect(Collectors.toList());
-    if (returnList.size() != uris.size()) {
-      // TODO: I'm pretty sure this code is unreachable, since any time |URIs| < |return|, we
-      // TODO: make phantoms until they equal. Maybe take this out?
-      // we got a problem here
-      Main.LOGGER
-          .error("something went wrong with atPosition - returnList.size() != uris.size()");
-    }
-
-    return returnList;
+    return results;
   }
 
   /**
@@ -551,17 +587,22 @@ public final class CastVoteRecordQueries {
   /** PHANTOM_RECORD conspiracy theory time **/
   public static CastVoteRecord phantomRecord(final Long county_id, final Integer scanner_id,
                                              final String batch_id, final Integer position) {
-    final String imprintedID = String.format("%d-%s-%d", scanner_id, batch_id, position);
-    final CastVoteRecord cvr =
-        new CastVoteRecord(CastVoteRecord.RecordType.PHANTOM_RECORD, null, county_id, 0, // cvrNumber
-                                                                                         // N/A
-                           0, // sequenceNumber N/A
-                           scanner_id, batch_id, position, imprintedID, "PHANTOM RECORD",
-                           null);
+    final CastVoteRecord cvr = newPhantomRecord(county_id, scanner_id, batch_id, position);
     Persistence.save(cvr);
     return cvr;
   }
 
+  /** a PHANTOM_RECORD that has not been saved **/
+  private static CastVoteRecord newPhantomRecord(final Long county_id, final Integer scanner_id,
+                                                 final String batch_id, final Integer position) {
+    final String imprintedID = String.format("%d-%s-%d", scanner_id, batch_id, position);
+    return new CastVoteRecord(CastVoteRecord.RecordType.PHANTOM_RECORD, null, county_id, 0, // cvrNumber
+                                                                                            // N/A
+                              0, // sequenceNumber N/A
+                              scanner_id, batch_id, position, imprintedID, "PHANTOM RECORD",
+                              null);
+  }
+
   /**
    * Find max revision looks for RCVRs that are old versions of a given CVR or
    * ACVR
@@ -2,6 +2,9 @@
 
 package us.freeandfair.corla.query;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import org.hibernate.query.Query;
@@ -37,6 +40,33 @@ public final class ContestResultQueries {
     }
   }
 
+  /**
+   * Return the ContestResults with the contestNames given, creating a new
+   * ContestResult for each name that has none, with one query rather than
+   * one per name.
+   **/
+  public static Map<String, ContestResult> findOrCreate(final Collection<String> contestNames) {
+    final Map<String, ContestResult> result = new HashMap<>();
+    if (contestNames.isEmpty()) {
+      return result;
+    }
+    final Session s = Persistence.currentSession();
+    final Query<ContestResult> q = s.createQuery("select cr from ContestResult cr " +
+        "where cr.contestName in (:contestNames)", ContestResult.class);
+    q.setParameter("contestNames", contestNames);
+    for (final ContestResult cr : q.list()) {
+      result.put(cr.getContestName(), cr);
+    }
+    for (final String contestName : contestNames) {
+      if (!result.containsKey(contestName)) {
+        final ContestResult cr = new ContestResult(contestName);
+        Persistence.save(cr);
+        result.put(contestName, cr);
+      }
+    }
+    return result;
+  }
+
   /**
    * Return an Optional ContestResult, which is Present if a contest of the requested name is in
    * the database.
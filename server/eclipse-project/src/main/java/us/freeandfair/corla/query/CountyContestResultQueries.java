@@ -12,8 +12,10 @@
 package us.freeandfair.corla.query;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.PersistenceException;
@@ -97,6 +99,92 @@ public final class CountyContestResultQueries {
     return result;
   }
 
+  /**
+   * The county contest results of one contest, gathered across the
+   * counties that have reported it.
+   */
+  public static class ContestTotals {
+    /**
+     * The contest name.
+     */
+    public final String contestName;
+
+    /**
+     * The votes for each choice, summed across the counties.
+     */
+    public final Map<String, Integer> voteTotals = new HashMap<>();
+
+    /**
+     * The numbers of winners allowed by the counties' results.
+     */
+    public final Set<Integer> winnersAllowed = new HashSet<>();
+
+    /**
+     * The counties' contests.
+     */
+    public final Set<Contest> contests = new HashSet<>();
+
+    /**
+     * The counties.
+     */
+    public final Set<County> counties = new HashSet<>();
+
+    /**
+     * Constructs an empty ContestTotals.
+     *
+     * @param the_contest_name The contest name.
+     */
+    public ContestTotals(final String the_contest_name) {
+      contestName = the_contest_name;
+    }
+  }
+
+  /**
+   * Gathers the county contest results of every contest, by contest name,
+   * with the vote totals summed by the database: one query for the results
+   * (with their contests and counties) and one for the totals, rather than
+   * loading every result and its vote totals separately.
+   *
+   * @return a map from each contest name to its totals.
+   */
+  public static Map<String, ContestTotals> totalsByContest() {
+    final Session s = Persistence.currentSession();
+    final Map<String, ContestTotals> result = new HashMap<>();
+
+    final Query<Object[]> results =
+        s.createQuery("select c, co, ccr.my_winners_allowed " +
+                      "from CountyContestResult ccr " +
+                      "inner join ccr.my_contest c " +
+                      "inner join ccr.my_county co", Object[].class);
+    for (final Object[] row : results.list()) {
+      final Contest contest = (Contest) row[0];
+      final ContestTotals totals =
+          result.computeIfAbsent(contest.name(), ContestTotals::new);
+      totals.contests.add(contest);
+      totals.counties.add((County) row[1]);
+      totals.winnersAllowed.add((Integer) row[2]);
+    }
+
+    final Query<?> votes =
+        s.createNativeQuery("select contest.name, county_contest_vote_total.choice, " +
+                            "sum(county_contest_vote_total.vote_total) " +
+                            "from county_contest_vote_total " +
+                            "inner join county_contest_result " +
+                            "on county_contest_vote_total.result_id = county_contest_result.id " +
+                            "inner join contest " +
+                            "on county_contest_result.contest_id = contest.id " +
+                            "group by contest.name, county_contest_vote_total.choice");
+    for (final Object o : votes.list()) {
+      final Object[] row = (Object[]) o;
+      final ContestTotals totals = result.get((String) row[0]);
+      if (totals != null && row[2] != null) {
+        totals.voteTotals.put((String) row[1], ((Number) row[2]).intValue());
+      }
+    }
+
+    return result;
+  }
+
   /**
    * Gets CountyContestResults that have the contestName.
    *
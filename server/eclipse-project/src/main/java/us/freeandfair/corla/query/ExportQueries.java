@@ -7,7 +7,6 @@ import java.io.InputStreamReader;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
 import java.util.*;
@@ -74,6 +73,16 @@ public class ExportQueries {
     }
   }
 
+  /**
+   * The separator between json objects in an exported array.
+   */
+  private static final byte[] JSON_SEPARATOR = ",\n".getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * The contents of the sql resource files, read once.
+   */
+  private static volatile Map<String, String> sql_files;
+
   /** no instantiation **/
   private ExportQueries() {
   };
@@ -90,33 +99,7 @@ public class ExportQueries {
         String.format("SELECT cast(row_to_json(r) as text)" + " FROM (%s) r", withoutSemi);
     final Query q = s.createNativeQuery(jsonQuery).setReadOnly(true).setFetchSize(1000);
 
-    // interleave an object separator (the comma and line break) into the stream
-    // of json objects to create valid json thx!
-    // https://stackoverflow.com/a/25624818
-    final Stream<Object[]> results =
-        q.stream().flatMap(i -> Stream.of(new String[] {",\n"}, i)).skip(1); // remove
-                                                                             // the
-                                                                             // first
-                                                                             // separator
-
-    // write json by hand to preserve streaming writes in case of big data
-    try {
-      os.write("[".getBytes(StandardCharsets.UTF_8));
-      results.forEach(line -> {
-        try {
-          // the object array is the columns, but in this case there is only
-          // one, so we take it at index 0
-          os.write(line[0].toString().getBytes(StandardCharsets.UTF_8));
-        } catch (java.io.IOException e) {
-          LOGGER.error(e.getMessage());
-        }
-      });
-
-      os.write("]".getBytes(StandardCharsets.UTF_8));
-    } catch (java.io.IOException e) {
-      // log it
-      LOGGER.error(e.getMessage());
-    }
+    writeJsonRows(q, os);
   }
 
   /**
@@ -134,27 +117,32 @@ public class ExportQueries {
         String.format("SELECT cast(row_to_json(r) as text)" + " FROM (%s) r", withoutSemi);
     final Query q = s.createNativeQuery(jsonQuery).setReadOnly(true).setFetchSize(1000);
 
-    // interleave an object separator (the comma and line break) into the stream
-    // of json objects to create valid json thx!
-    // https://stackoverflow.com/a/25624818
-    // call .skip() to remove the first separator
-    final Stream<Object[]> results =
-            q.stream().flatMap(i -> Stream.of(",\n", i)).skip(1);
-
-    try {
-      os.write("[".getBytes(StandardCharsets.UTF_8));
+    writeJsonRows(q, os);
+  }
 
-      for(final Object line : results.toArray()) {
-        try {
-          os.write(line.toString().getBytes(StandardCharsets.UTF_8));
-        } catch (java.io.IOException e) {
-          LOGGER.error(e.getMessage());
+  /**
+   * Writes the rows of a query, each a single json text column, to the
+   * OutputStream as a json array with one object per line. The rows are read
+   * through a database cursor, fetch size rows at a time, and written as
+   * they arrive, so the result set is never held in memory.
+   *
+   * @param q The query.
+   * @param os The output stream.
+   */
+  private static void writeJsonRows(final Query<?> q, final OutputStream os) {
+    try (Stream<?> results = q.stream()) {
+      os.write('[');
+      boolean first = true;
+      for (final Iterator<?> i = results.iterator(); i.hasNext();) {
+        if (!first) {
+          os.write(JSON_SEPARATOR);
         }
+        os.write(i.next().toString().getBytes(StandardCharsets.UTF_8));
+        first = false;
       }
-
-      os.write("]".getBytes(StandardCharsets.UTF_8));
+      os.write(']');
     } catch (java.io.IOException e) {
-      // log it
+      // log it; the client has gone, so there is no point reading further
       LOGGER.error(e.getMessage());
     }
   }
@@ -216,52 +204,41 @@ public class ExportQueries {
 
   /**
    * read files from resources/sql/ and return map with keys as file names
-   * without extension and value as the file contents
+   * without extension and value as the file contents; the files are read
+   * from the classpath the first time, and the same unmodifiable map is
+   * returned thereafter
    **/
   public static Map<String, String> sqlFiles() throws java.io.IOException {
-    final Map files = new HashMap<String, String>();
-    List<String> paths = getSqlFolderFiles();
-    for (final String path : paths) {
-      if (path.endsWith(".sql")) {
-        files.put(fileName(path), fileContents(path));
+    Map<String, String> files = sql_files;
+    if (files == null) {
+      final Map<String, String> read = new HashMap<String, String>();
+      for (final String path : getSqlFolderFiles()) {
+        if (path.endsWith(".sql")) {
+          read.put(fileName(path), fileContents(path));
+        }
       }
+      files = Collections.unmodifiableMap(read);
+      sql_files = files;
     }
     return files;
   }
 
-  public static long custCopyOut(final String sql, OutputStream to, CopyManager cm)
+  /**
+   * Runs a COPY ... TO STDOUT and writes its rows to the output stream as
+   * they arrive, without copying them. A row that contains an escaped double
+   * quote has all its backslashes removed, in place, before it is written.
+   *
+   * @return the number of rows copied.
+   */
+  public static long custCopyOut(final String sql, final OutputStream to, final CopyManager cm)
       throws SQLException, IOException {
     byte[] buf;
-    CopyOut cp = cm.copyOut(sql);
+    final CopyOut cp = cm.copyOut(sql);
     try {
-      while ((buf = cp.readFromCopy()) != null) {
-        String s = new String(buf,Charset.forName("ASCII"));
-        if (s.contains("\\\"")) {
-          List<Byte> newBuf = new ArrayList<>();
-          for (int i = 0; i < buf.length; i++) {
-            byte b1 = buf[i];
-            Character ch = (char) b1;
-            if (!ch.equals('\\')) {
-              newBuf.add(b1);
-            }
-          }
-          byte[] result = new byte[newBuf.size()];
-          for (int i = 0; i < newBuf.size(); i++) {
-            result[i] = newBuf.get(i).byteValue();
-          }
-          to.write(result);
-        } else {
-          List<Byte> newBuf = new ArrayList<>();
-          for (int i = 0; i < buf.length; i++) {
-            byte b1 = buf[i];
-            newBuf.add(b1);
-          }
-          byte[] result = new byte[newBuf.size()];
-          for (int i = 0; i < newBuf.size(); i++) {
-            result[i] = newBuf.get(i).byteValue();
-          }
-          to.write(result);
-        }
+      buf = cp.readFromCopy();
+      while (buf != null) {
+        to.write(buf, 0, unescapeQuotes(buf));
+        buf = cp.readFromCopy();
       }
       return cp.getHandledRowCount();
     } catch (IOException ioEX) {
@@ -282,6 +259,31 @@ public class ExportQueries {
     }
   }
 
+  /**
+   * If a row contains an escaped double quote, removes every backslash from
+   * it by moving the remaining bytes down.
+   *
+   * @param row The row, which is modified.
+   * @return the length of the row after the backslashes are removed.
+   */
+  private static int unescapeQuotes(final byte[] row) {
+    boolean escaped = false;
+    for (int i = 0; i + 1 < row.length && !escaped; i++) {
+      escaped = row[i] == '\\' && row[i + 1] == '"';
+    }
+    if (!escaped) {
+      return row.length;
+    }
+    int length = 0;
+    for (final byte b : row) {
+      if (b != '\\') {
+        row[length] = b;
+        length = length + 1;
+      }
+    }
+    return length;
+  }
+
   /**
    * This function deals, somewhat inelegantly, with the problem that the ContestResult data structure
    * used in most queries does not have correct values for things like winners, losers, margin, and
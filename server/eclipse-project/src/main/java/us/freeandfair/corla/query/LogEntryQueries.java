@@ -11,7 +11,9 @@
 
 package us.freeandfair.corla.query;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 import javax.persistence.PersistenceException;
 import javax.persistence.TypedQuery;
@@ -84,4 +86,75 @@ public final class LogEntryQueries {
     
     return result;
   }
+
+  /**
+   * Walks the log hash chain in ID order, checking that each entry follows
+   * the one before it and that its hash is the hash of its contents and the
+   * previous entry's hash (the root hash, for the first entry). The walk uses
+   * its own session, so it sees only committed entries and leaves the
+   * caller's session alone.
+   *
+   * @return the ID of the first entry that breaks the chain, or an empty
+   * Optional if the chain is valid.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  public static Optional<Long> firstBrokenLink() {
+    try (Session s = Persistence.openUnboundSession()) {
+      s.beginTransaction();
+      try {
+        return firstBrokenLink(s);
+      } finally {
+        s.getTransaction().rollback();
+      }
+    }
+  }
+
+  /**
+   * Walks the log hash chain in the specified session, clearing it after
+   * each page of entries.
+   *
+   * @param the_session The session.
+   * @return the ID of the first entry that breaks the chain, or an empty
+   * Optional if the chain is valid.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static Optional<Long> firstBrokenLink(final Session the_session) {
+    final TypedQuery<Object[]> query =
+        the_session.createQuery("select e.my_id, e.my_result_code, e.my_information, "
+                                + "e.my_timestamp, e.my_hash, p.my_id, p.my_hash from LogEntry e "
+                                + "left join e.my_previous_entry p where e.my_id > :after "
+                                + "order by e.my_id", Object[].class)
+        .setMaxResults(1000);
+
+    Long previous_id = null;
+    long after = Long.MIN_VALUE;
+    List<Object[]> rows = query.setParameter("after", after).getResultList();
+    while (!rows.isEmpty()) {
+      for (final Object[] row : rows) {
+        final Long id = (Long) row[0];
+        final Long linked_id = (Long) row[5];
+        final String linked_hash;
+        if (linked_id == null) {
+          linked_hash = LogEntry.ROOT_HASH;
+        } else {
+          linked_hash = (String) row[6];
+        }
+        final String expected =
+            LogEntry.chainHash(LogEntry.hashString((Integer) row[1], (String) row[2],
+                                                   (Instant) row[3]),
+                               linked_hash);
+        final boolean linked = previous_id == null ? linked_id == null
+                                                   : previous_id.equals(linked_id);
+        if (!linked || !expected.equals(row[4])) {
+          Main.LOGGER.error("log hash chain broken at entry " + id);
+          return Optional.of(id);
+        }
+        previous_id = id;
+      }
+      after = previous_id;
+      the_session.clear();
+      rows = query.setParameter("after", after).getResultList();
+    }
+    return Optional.empty();
+  }
 }
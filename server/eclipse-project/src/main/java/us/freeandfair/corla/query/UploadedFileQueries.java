@@ -26,6 +26,9 @@ import com.google.gson.Gson;
 
 import org.hibernate.Session;
 import org.hibernate.query.Query;
+import org.postgresql.PGConnection;
+import org.postgresql.largeobject.LargeObject;
+import org.postgresql.largeobject.LargeObjectManager;
 
 
 import us.freeandfair.corla.Main;
@@ -138,7 +141,7 @@ public final class UploadedFileQueries {
   public static UploadedFileDTO getAttrs(final UploadedFileDTO upF) {
     final Session s = Persistence.currentSession();
     final Query q =
-      s.createNativeQuery("select id, status, county_id "
+      s.createNativeQuery("select id, status, county_id, size "
                           + " from uploaded_file up "
                           + " where up.id = :id ");
 
@@ -150,6 +153,7 @@ public final class UploadedFileQueries {
     } else {
       upF.setStatus((String)row[1]);
       upF.setCountyId(((java.math.BigInteger)row[2]).longValue());
+      upF.setSize(((Number)row[3]).longValue());
       return upF;
     }
   }
@@ -199,7 +203,46 @@ public final class UploadedFileQueries {
     return q.executeUpdate();
   }
 
+  /**
+   * Creates a large object to hold an uploaded file, in the current
+   * transaction, and opens it for writing.
+   *
+   * @return the large object.
+   * @exception PersistenceException if it cannot be created.
+   */
+  public static LargeObject createFileObject() {
+    final Session s = Persistence.currentSession();
+    return s.doReturningWork(connection -> {
+      final LargeObjectManager manager =
+          connection.unwrap(PGConnection.class).getLargeObjectAPI();
+      return manager.open(manager.createLO(), LargeObjectManager.WRITE);
+    });
+  }
 
+  /**
+   * Makes the large object with the specified OID the contents of an
+   * uploaded file, deleting the large object that held them before.
+   *
+   * @param the_file_id The uploaded file ID.
+   * @param the_oid The OID of the large object.
+   * @return the number of files updated.
+   */
+  public static int setFileObject(final Long the_file_id, final long the_oid) {
+    final Session s = Persistence.currentSession();
+    final Query unlink =
+      s.createNativeQuery("select lo_unlink(up.file) "
+                          + " from uploaded_file up "
+                          + " where up.id = :id");
+    unlink.setParameter("id", the_file_id);
+    unlink.getResultList();
 
+    final Query q =
+      s.createNativeQuery("update uploaded_file up "
+                          + " set file = :oid "
+                          + " where up.id = :id");
+    q.setParameter("id", the_file_id);
+    q.setParameter("oid", the_oid);
 
+    return q.executeUpdate();
+  }
 }
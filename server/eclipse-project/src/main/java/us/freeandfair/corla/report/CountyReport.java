@@ -13,8 +13,8 @@ package us.freeandfair.corla.report;
 
 import static us.freeandfair.corla.util.PrettyPrinter.booleanYesNo;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -43,7 +43,6 @@ import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellUtil;
 import org.apache.poi.ss.util.RegionUtil;
 
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import us.freeandfair.corla.controller.ComparisonAuditController;
 import us.freeandfair.corla.model.AuditSelection;
@@ -213,17 +212,14 @@ public class CountyReport {
   }
 
   /**
-   * @return the Excel representation of this report, as a byte array.
+   * Writes the Excel representation of this report to a stream, which is
+   * left open, as the workbook is streamed.
+   *
+   * @param the_stream The stream.
    * @exception IOException if the report cannot be generated.
    */
-  public byte[] generateExcel() throws IOException {
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    final Workbook workbook = generateExcelWorkbook();
-    workbook.write(baos);
-    baos.flush();
-    baos.close();
-    workbook.close();
-    return baos.toByteArray();
+  public void generateExcel(final OutputStream the_stream) throws IOException {
+    WorkbookWriter.write(generateExcelWorkbook(), the_stream);
   }
 
   /**
@@ -233,7 +229,7 @@ public class CountyReport {
       "checkstyle:methodlength", "PMD.ExcessiveMethodLength", "PMD.NcssMethodCount",
       "PMD.NPathComplexity", "PMD.AvoidLiteralsInIfCondition"})
   public Workbook generateExcelWorkbook() {
-    final Workbook workbook = new XSSFWorkbook();
+    final Workbook workbook = WorkbookWriter.newWorkbook();
 
     // data format
     final DataFormat format = workbook.createDataFormat();
@@ -275,7 +271,7 @@ public class CountyReport {
     box_style.setBorderRight(BorderStyle.THICK);
 
     // the summary sheet
-    final Sheet summary_sheet = workbook.createSheet("Summary");
+    final Sheet summary_sheet = WorkbookWriter.createSheet(workbook, "Summary");
     int row_number = 0;
     Row row = summary_sheet.createRow(row_number++);
     int cell_number = 0;
@@ -563,7 +559,7 @@ public class CountyReport {
     // round sheets
 
     for (final Round round : my_rounds) {
-      final Sheet round_sheet = workbook.createSheet("Round " + round.number());
+      final Sheet round_sheet = WorkbookWriter.createSheet(workbook, "Round " + round.number());
       row_number = 0;
       row = round_sheet.createRow(row_number++);
       cell_number = 0;
@@ -722,7 +718,7 @@ public class CountyReport {
     }
 
     // affirmation sheet
-    final Sheet affirmation_sheet = workbook.createSheet("Affirmation");
+    final Sheet affirmation_sheet = WorkbookWriter.createSheet(workbook, "Affirmation");
     final float affirmationRowHeight = affirmation_sheet.getDefaultRowHeightInPoints();
     row_number = 0;
     row = affirmation_sheet.createRow(row_number++);
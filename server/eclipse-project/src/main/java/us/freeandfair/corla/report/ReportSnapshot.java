@@ -0,0 +1,132 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The statewide summary results report as of some point in the audit, so
+ * that it is computed once rather than by every report or dashboard that
+ * needs it.
+ *
+ * The most recent snapshot is kept until it is invalidated, which endpoints
+ * that change audit results (starting rounds, submitting ACVRs, resetting)
+ * do once their transactions have finished.
+ */
+public final class ReportSnapshot {
+  /**
+   * The number of times snapshots have been invalidated.
+   */
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  /**
+   * The most recently computed snapshot.
+   */
+  private static final AtomicReference<ReportSnapshot> CURRENT =
+      new AtomicReference<>();
+
+  /**
+   * The generation in which this snapshot was computed.
+   */
+  private final long my_generation;
+
+  /**
+   * The rows of the summary results report, including the header row.
+   */
+  private final List<List<String>> my_summary_rows;
+
+  /**
+   * Constructs a snapshot.
+   *
+   * @param the_generation The generation in which it was computed.
+   * @param the_summary_rows The summary results report rows.
+   */
+  private ReportSnapshot(final long the_generation,
+                         final List<List<String>> the_summary_rows) {
+    my_generation = the_generation;
+    final List<List<String>> rows = new ArrayList<>(the_summary_rows.size());
+    for (final List<String> row : the_summary_rows) {
+      rows.add(Collections.unmodifiableList(new ArrayList<>(row)));
+    }
+    my_summary_rows = Collections.unmodifiableList(rows);
+  }
+
+  /**
+   * Gets the current snapshot, computing it if it has been invalidated
+   * since it was last computed. This must be called within a transaction.
+   *
+   * @return the snapshot.
+   */
+  public static ReportSnapshot current() {
+    return current(ReportRows::genSumResultsReport);
+  }
+
+  /**
+   * Gets the current snapshot, computing it with the specified supplier if
+   * it has been invalidated since it was last computed.
+   *
+   * @param the_summary The supplier of the summary results report.
+   * @return the snapshot.
+   */
+  static ReportSnapshot current(final Supplier<List<List<String>>> the_summary) {
+    final ReportSnapshot snapshot = CURRENT.get();
+    if (snapshot != null && snapshot.my_generation == GENERATION.get()) {
+      return snapshot;
+    }
+    return refresh(the_summary);
+  }
+
+  /**
+   * Computes a new snapshot regardless of whether the current one has been
+   * invalidated, and makes it current. This must be called within a
+   * transaction.
+   *
+   * @return the snapshot.
+   */
+  public static ReportSnapshot refresh() {
+    return refresh(ReportRows::genSumResultsReport);
+  }
+
+  /**
+   * Computes a new snapshot with the specified supplier and makes it
+   * current.
+   *
+   * @param the_summary The supplier of the summary results report.
+   * @return the snapshot.
+   */
+  static ReportSnapshot refresh(final Supplier<List<List<String>>> the_summary) {
+    // if the snapshot is invalidated while we compute it, it stays stale
+    final ReportSnapshot result =
+        new ReportSnapshot(GENERATION.get(), the_summary.get());
+    CURRENT.set(result);
+    return result;
+  }
+
+  /**
+   * Invalidates the current snapshot, so that the next one requested is
+   * computed afresh.
+   */
+  public static void invalidate() {
+    GENERATION.incrementAndGet();
+  }
+
+  /**
+   * @return the rows of the summary results report, including the header
+   * row. The rows cannot be modified.
+   */
+  public List<List<String>> summaryRows() {
+    return my_summary_rows;
+  }
+}
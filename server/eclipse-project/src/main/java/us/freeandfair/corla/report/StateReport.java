@@ -13,8 +13,8 @@ package us.freeandfair.corla.report;
 
 import static us.freeandfair.corla.util.PrettyPrinter.booleanYesNo;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -43,7 +43,6 @@ import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import us.freeandfair.corla.model.AuditSelection;
 import us.freeandfair.corla.model.CVRAuditInfo;
@@ -136,17 +135,14 @@ public class StateReport {
   
   
   /**
-   * @return the Excel representation of this report, as a byte array.
+   * Writes the Excel representation of this report to a stream, which is
+   * left open, as the workbook is streamed.
+   *
+   * @param the_stream The stream.
    * @exception IOException if the report cannot be generated.
    */
-  public byte[] generateExcel() throws IOException {
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    final Workbook workbook = generateExcelWorkbook();
-    workbook.write(baos);
-    baos.flush();
-    baos.close();
-    workbook.close();
-    return baos.toByteArray();
+  public void generateExcel(final OutputStream the_stream) throws IOException {
+    WorkbookWriter.write(generateExcelWorkbook(), the_stream);
   }
   
   /**
@@ -156,7 +152,7 @@ public class StateReport {
       "checkstyle:methodlength", "PMD.ExcessiveMethodLength", "PMD.NcssMethodCount",
       "PMD.NPathComplexity", "PMD.AvoidLiteralsInIfCondition"})
   public Workbook generateExcelWorkbook() {
-    final Workbook workbook = new XSSFWorkbook();
+    final Workbook workbook = WorkbookWriter.newWorkbook();
 
     // data format
     final DataFormat format = workbook.createDataFormat();
@@ -194,7 +190,7 @@ public class StateReport {
     box_style.setBorderRight(BorderStyle.THICK);
     
     // the summary sheet
-    final Sheet summary_sheet = workbook.createSheet("Summary");
+    final Sheet summary_sheet = WorkbookWriter.createSheet(workbook, "Summary");
     int row_number = 0;
     Row row = summary_sheet.createRow(row_number++);
     int cell_number = 0;
@@ -507,7 +503,7 @@ public class StateReport {
         // don't generate empty sheets
         continue;
       }
-      final Sheet county_sheet = workbook.createSheet(e.getKey().name() + " County");
+      final Sheet county_sheet = WorkbookWriter.createSheet(workbook, e.getKey().name() + " County");
       row_number = 0;
       row = county_sheet.createRow(row_number++);
       cell_number = 0;
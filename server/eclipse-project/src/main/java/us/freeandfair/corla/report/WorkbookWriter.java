@@ -5,7 +5,9 @@
 package us.freeandfair.corla.report;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import java.util.List;
 
@@ -16,7 +18,8 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import us.freeandfair.corla.Main;
 
@@ -26,18 +29,26 @@ import us.freeandfair.corla.Main;
  * Sheets include:
  *
  * - Summary
+ *
+ * Workbooks are streamed: only the last few rows of each sheet (the row
+ * window) are kept in memory, earlier ones going to a temporary file, so
+ * a report's heap usage does not grow with its size.
  */
 public class WorkbookWriter {
   /**
-   * Font size to use for all cells.
+   * The property for the number of rows of each sheet kept in memory.
    */
-  private static final Short FONT_SIZE = 12;
+  public static final String ROW_WINDOW_PROPERTY = "report_row_window";
 
   /**
-   * Internal output stream required for writing out the workbook.
+   * The default number of rows of each sheet kept in memory.
    */
-  private final ByteArrayOutputStream baos;
+  public static final int DEFAULT_ROW_WINDOW = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
 
+  /**
+   * Font size to use for all cells.
+   */
+  private static final Short FONT_SIZE = 12;
 
   /**
    * one workbook to hold multiple sheets, another way to say Excel file, xlsx
@@ -54,8 +65,7 @@ public class WorkbookWriter {
    * Initializes the AuditReport
    */
   public WorkbookWriter() {
-    this.baos = new ByteArrayOutputStream();
-    this.workbook = new XSSFWorkbook();
+    this.workbook = newWorkbook();
     this.boldStyle = this.workbook.createCellStyle();
     this.regStyle = this.workbook.createCellStyle();
 
@@ -82,7 +92,7 @@ public class WorkbookWriter {
    */
   public void addSheet(final String sheetname, final List<List<String>> rows) {
     Sheet sheet = null;
-    sheet = workbook.createSheet(sheetname);
+    sheet = createSheet(workbook, sheetname);
 
     for (int i = 0; i < rows.size(); i++) {
       final Row poiRow = sheet.createRow(i);
@@ -108,9 +118,81 @@ public class WorkbookWriter {
    * @exception IOException if the report cannot be generated.
    */
   public byte[] write() throws IOException {
-    this.workbook.write(this.baos);
-    this.workbook.close();
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    write(baos);
+    return baos.toByteArray();
+  }
+
+  /**
+   * Write this POI workbook to a stream, which is left open.
+   *
+   * @param the_stream the stream
+   * @exception IOException if the report cannot be written.
+   */
+  public void write(final OutputStream the_stream) throws IOException {
+    write(this.workbook, the_stream);
+  }
+
+  /**
+   * @return a new streaming workbook, with the configured row window.
+   */
+  public static SXSSFWorkbook newWorkbook() {
+    int window = DEFAULT_ROW_WINDOW;
+    try {
+      window = Integer.parseInt(Main.properties().getProperty(ROW_WINDOW_PROPERTY,
+                                                              String.valueOf(window)).trim());
+    } catch (final NumberFormatException e) {
+      Main.LOGGER.error("invalid " + ROW_WINDOW_PROPERTY + ", using " + window);
+    }
+    return new SXSSFWorkbook(window > 0 ? window : DEFAULT_ROW_WINDOW);
+  }
+
+  /**
+   * Create a sheet in a workbook. The columns of a streamed sheet are
+   * tracked as rows are added, so that they can be auto-sized after earlier
+   * rows have left memory.
+   *
+   * @param the_workbook the workbook
+   * @param the_name the sheet name
+   * @return the sheet
+   */
+  public static Sheet createSheet(final Workbook the_workbook, final String the_name) {
+    final Sheet sheet = the_workbook.createSheet(the_name);
+    if (sheet instanceof SXSSFSheet) {
+      ((SXSSFSheet) sheet).trackAllColumnsForAutoSizing();
+    }
+    return sheet;
+  }
 
-    return this.baos.toByteArray();
+  /**
+   * Write a workbook to a stream, which is left open, and close the workbook,
+   * deleting any temporary files it used.
+   *
+   * @param the_workbook the workbook
+   * @param the_stream the stream
+   * @exception IOException if the workbook cannot be written.
+   */
+  public static void write(final Workbook the_workbook, final OutputStream the_stream)
+      throws IOException {
+    try {
+      the_workbook.write(new FilterOutputStream(the_stream) {
+        @Override
+        public void write(final byte[] the_bytes, final int the_offset, final int the_length)
+            throws IOException {
+          out.write(the_bytes, the_offset, the_length);
+        }
+
+        @Override
+        public void close() throws IOException {
+          // leave the stream open for whatever follows the workbook
+          flush();
+        }
+      });
+    } finally {
+      if (the_workbook instanceof SXSSFWorkbook) {
+        ((SXSSFWorkbook) the_workbook).dispose();
+      }
+      the_workbook.close();
+    }
   }
 }
@@ -0,0 +1,163 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.util;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The serialized responses of the dashboard refresh endpoints, which every
+ * browser polls, kept until anything changes.
+ *
+ * There is a single dashboard version for the whole system, which changes
+ * whenever an endpoint that can change state (any non-GET endpoint, or any
+ * endpoint with an ASM event) finishes. A response is computed at most once
+ * per version, and its ETag identifies the version so that clients polling
+ * with If-None-Match can be answered with 304 Not Modified.
+ */
+public final class DashboardCache {
+  /**
+   * Distinguishes the versions of this server process from those of any
+   * earlier one, whose ETags clients may still hold.
+   */
+  private static final String EPOCH =
+      Long.toString(Instant.now().toEpochMilli(), Character.MAX_RADIX);
+
+  /**
+   * The dashboard version.
+   */
+  private static final AtomicLong VERSION = new AtomicLong();
+
+  /**
+   * The most recent response for each dashboard.
+   */
+  private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+  /**
+   * A lock for each dashboard, so that concurrent polls after a change
+   * compute its response once.
+   */
+  private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private DashboardCache() {
+    // do nothing
+  }
+
+  /**
+   * @return the current dashboard version.
+   */
+  public static long version() {
+    return VERSION.get();
+  }
+
+  /**
+   * Records that state the dashboards show may have changed.
+   */
+  public static void changed() {
+    VERSION.incrementAndGet();
+  }
+
+  /**
+   * Gets the response for a dashboard at the current version, computing it
+   * if it is not already cached.
+   *
+   * @param the_key The dashboard, for example "dos" or "county-7".
+   * @param the_variant Anything else the response depends on that does not
+   * change the dashboard version, or the empty string.
+   * @param the_json The supplier of the serialized response.
+   * @return the cached response.
+   */
+  public static Entry get(final String the_key, final String the_variant,
+                          final Supplier<String> the_json) {
+    // read the version before computing, so that a change made while we
+    // compute leaves the result stale rather than labelled current
+    final String etag = "\"" + EPOCH + "-" + VERSION.get() + "-" + the_key + "-"
+                        + the_variant + "\"";
+    Entry result = ENTRIES.get(the_key);
+    if (result != null && result.etag().equals(etag)) {
+      return result;
+    }
+
+    synchronized (LOCKS.computeIfAbsent(the_key, k -> new Object())) {
+      result = ENTRIES.get(the_key);
+      if (result == null || !result.etag().equals(etag)) {
+        result = new Entry(etag, the_json.get());
+        ENTRIES.put(the_key, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * A serialized dashboard response and its ETag.
+   */
+  public static final class Entry {
+    /**
+     * The ETag, quoted.
+     */
+    private final String my_etag;
+
+    /**
+     * The serialized response.
+     */
+    private final String my_json;
+
+    /**
+     * Constructs an entry.
+     *
+     * @param the_etag The ETag.
+     * @param the_json The serialized response.
+     */
+    Entry(final String the_etag, final String the_json) {
+      my_etag = the_etag;
+      my_json = the_json;
+    }
+
+    /**
+     * @return the ETag, quoted.
+     */
+    public String etag() {
+      return my_etag;
+    }
+
+    /**
+     * @return the serialized response.
+     */
+    public String json() {
+      return my_json;
+    }
+
+    /**
+     * Checks whether a client already has this response.
+     *
+     * @param the_if_none_match The client's If-None-Match header, or null.
+     * @return true if the header names this entry's ETag.
+     */
+    public boolean matches(final String the_if_none_match) {
+      if (the_if_none_match == null) {
+        return false;
+      }
+      for (final String tag : the_if_none_match.split(",")) {
+        final String trimmed = tag.trim();
+        if ("*".equals(trimmed) || my_etag.equals(trimmed)
+            || ("W/" + my_etag).equals(trimmed)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import us.freeandfair.corla.crypto.HashChecker;
+
+/**
+ * An output stream that takes in an uploaded file in a single pass: as the
+ * bytes are written it hashes them, counts their lines and bytes, and writes
+ * them on to a sink and, optionally, to a copy.
+ *
+ * The hash is the one HashChecker.hashFile() computes, and the line count is
+ * the one a LineNumberReader reaches on skipping the whole file: a line ends
+ * at a line feed, a carriage return, a carriage return and line feed, or the
+ * end of the file. A failure to write the copy does not fail the stream; the
+ * copy is abandoned and copyFailed() reports it.
+ */
+public class IngestOutputStream extends OutputStream {
+  /**
+   * Class-wide logger
+   */
+  public static final Logger LOGGER = LogManager.getLogger(IngestOutputStream.class);
+
+  /**
+   * The line feed character.
+   */
+  private static final byte LF = '\n';
+
+  /**
+   * The carriage return character.
+   */
+  private static final byte CR = '\r';
+
+  /**
+   * The digest of the bytes written.
+   */
+  private final MessageDigest my_digest;
+
+  /**
+   * The sink.
+   */
+  private final OutputStream my_sink;
+
+  /**
+   * The copy, or null if there is none or it has failed.
+   */
+  private OutputStream my_copy;
+
+  /**
+   * True if writing the copy has failed.
+   */
+  private boolean my_copy_failed;
+
+  /**
+   * The number of bytes written.
+   */
+  private long my_byte_count;
+
+  /**
+   * The number of line terminators written.
+   */
+  private int my_terminator_count;
+
+  /**
+   * The last byte written.
+   */
+  private byte my_last;
+
+  /**
+   * Constructs a new IngestOutputStream.
+   *
+   * @param the_sink The sink.
+   * @param the_copy The copy, or null.
+   * @exception NoSuchAlgorithmException if the hash cannot be computed.
+   */
+  public IngestOutputStream(final OutputStream the_sink, final OutputStream the_copy)
+      throws NoSuchAlgorithmException {
+    super();
+    my_digest = MessageDigest.getInstance(HashChecker.ALGORITHM);
+    my_sink = the_sink;
+    my_copy = the_copy;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final int the_byte) throws IOException {
+    write(new byte[] {(byte) the_byte}, 0, 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final byte[] the_bytes, final int the_offset, final int the_length)
+      throws IOException {
+    if (the_length == 0) {
+      return;
+    }
+    my_sink.write(the_bytes, the_offset, the_length);
+    if (my_copy != null) {
+      try {
+        my_copy.write(the_bytes, the_offset, the_length);
+      } catch (final IOException e) {
+        abandonCopy(e);
+      }
+    }
+    my_digest.update(the_bytes, the_offset, the_length);
+    byte last = my_last;
+    int terminators = my_terminator_count;
+    for (int i = the_offset; i < the_offset + the_length; i++) {
+      final byte b = the_bytes[i];
+      if (b == CR || b == LF && last != CR) {
+        terminators = terminators + 1;
+      }
+      last = b;
+    }
+    my_last = last;
+    my_terminator_count = terminators;
+    my_byte_count = my_byte_count + the_length;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void flush() throws IOException {
+    my_sink.flush();
+    if (my_copy != null) {
+      try {
+        my_copy.flush();
+      } catch (final IOException e) {
+        abandonCopy(e);
+      }
+    }
+  }
+
+  /**
+   * Closes the sink and the copy.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      my_sink.close();
+    } finally {
+      if (my_copy != null) {
+        try {
+          my_copy.close();
+        } catch (final IOException e) {
+          abandonCopy(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of bytes written.
+   */
+  public long byteCount() {
+    return my_byte_count;
+  }
+
+  /**
+   * @return the number of lines written, counting a last line without a
+   * terminator.
+   */
+  public int lineCount() {
+    if (my_byte_count > 0 && my_last != CR && my_last != LF) {
+      return my_terminator_count + 1;
+    }
+    return my_terminator_count;
+  }
+
+  /**
+   * @return the hash of the bytes written, encoded as an uppercase
+   * hexadecimal string. This can be called only once, after all the bytes
+   * are written.
+   */
+  public String hash() {
+    return HashChecker.toHex(my_digest.digest());
+  }
+
+  /**
+   * @return true if writing the copy has failed.
+   */
+  public boolean copyFailed() {
+    return my_copy_failed;
+  }
+
+  /**
+   * Stops writing the copy after a failure.
+   *
+   * @param the_exception The failure.
+   */
+  private void abandonCopy(final IOException the_exception) {
+    LOGGER.error("abandoning copy of upload after " + my_byte_count + " bytes", the_exception);
+    my_copy_failed = true;
+    final OutputStream copy = my_copy;
+    my_copy = null;
+    try {
+      copy.close();
+    } catch (final IOException e) {
+      // ignored, since the copy has already failed
+    }
+  }
+}
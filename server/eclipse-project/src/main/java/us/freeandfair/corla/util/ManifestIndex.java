@@ -0,0 +1,140 @@
+/*
+ * Colorado RLA System
+ *
+ * @title ColoradoRLA
+ * @copyright 2018 Colorado Department of State
+ * @license SPDX-License-Identifier: AGPL-3.0-or-later
+ * @description A system to assist in conducting statewide risk-limiting audits.
+ */
+
+package us.freeandfair.corla.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import us.freeandfair.corla.controller.BallotSelection;
+import us.freeandfair.corla.model.BallotManifestInfo;
+
+/**
+ * An index for finding the ballot manifest entry (batch) that holds a
+ * sequence number, by binary search over the sorted starts of the batches'
+ * sequence ranges rather than by scanning every batch.
+ *
+ * An index is built over either the ultimate sequence (the projection of a
+ * set of county manifests onto one sequence, as used to select a contest's
+ * sample) or a single county's own sequence. It finds the same entry as
+ * testing each entry in turn, in the order given, and taking the first that
+ * holds the sequence number.
+ */
+public final class ManifestIndex {
+  /**
+   * The entries with non-empty ranges, in the order given.
+   */
+  private final BallotManifestInfo[] my_entries;
+
+  /**
+   * The (inclusive) start of each entry's range.
+   */
+  private final long[] my_starts;
+
+  /**
+   * The (inclusive) end of each entry's range.
+   */
+  private final long[] my_ends;
+
+  /**
+   * True if the ranges are disjoint and in increasing order, so that the
+   * starts can be binary searched; false if we have to scan them.
+   */
+  private final boolean my_sorted;
+
+  /**
+   * Constructs an index over the specified entries.
+   *
+   * @param the_bmis The entries, in the order they would be scanned.
+   * @param the_start The start of an entry's range.
+   * @param the_end The end of an entry's range.
+   */
+  private ManifestIndex(final Collection<BallotManifestInfo> the_bmis,
+                        final Function<BallotManifestInfo, Long> the_start,
+                        final Function<BallotManifestInfo, Long> the_end) {
+    final List<BallotManifestInfo> entries = new ArrayList<>(the_bmis.size());
+    final long[] starts = new long[the_bmis.size()];
+    final long[] ends = new long[the_bmis.size()];
+    boolean sorted = true;
+    int count = 0;
+    for (final BallotManifestInfo bmi : the_bmis) {
+      final long start = the_start.apply(bmi);
+      final long end = the_end.apply(bmi);
+      // an empty batch can never hold anything
+      if (start <= end) {
+        sorted &= count == 0 || ends[count - 1] < start;
+        entries.add(bmi);
+        starts[count] = start;
+        ends[count] = end;
+        count = count + 1;
+      }
+    }
+    my_entries = entries.toArray(new BallotManifestInfo[count]);
+    my_starts = Arrays.copyOf(starts, count);
+    my_ends = Arrays.copyOf(ends, count);
+    my_sorted = sorted;
+  }
+
+  /**
+   * Projects a set of manifest entries onto one ultimate sequence (see
+   * BallotSelection.projectUltimateSequence) and indexes that sequence.
+   *
+   * @param the_bmis The manifest entries, for example those of all the
+   * counties in a contest.
+   * @return the index.
+   */
+  public static ManifestIndex ofUltimateSequence(final Set<BallotManifestInfo> the_bmis) {
+    return new ManifestIndex(BallotSelection.projectUltimateSequence(the_bmis),
+                             bmi -> bmi.ultimateSequenceStart,
+                             bmi -> bmi.ultimateSequenceEnd);
+  }
+
+  /**
+   * Indexes the sequence of a single county's manifest entries.
+   *
+   * @param the_bmis The county's manifest entries.
+   * @return the index.
+   */
+  public static ManifestIndex ofCountySequence(final Collection<BallotManifestInfo> the_bmis) {
+    return new ManifestIndex(the_bmis, BallotManifestInfo::sequenceStart,
+                             BallotManifestInfo::sequenceEnd);
+  }
+
+  /**
+   * Finds the manifest entry holding a sequence number.
+   *
+   * @param the_sequence_number The sequence number.
+   * @return the entry, or an empty Optional if no entry holds it.
+   */
+  public Optional<BallotManifestInfo> holding(final long the_sequence_number) {
+    if (!my_sorted) {
+      for (int i = 0; i < my_entries.length; i++) {
+        if (my_starts[i] <= the_sequence_number && the_sequence_number <= my_ends[i]) {
+          return Optional.of(my_entries[i]);
+        }
+      }
+      return Optional.empty();
+    }
+
+    // the last entry starting at or before the sequence number
+    int index = Arrays.binarySearch(my_starts, the_sequence_number);
+    if (index < 0) {
+      index = -index - 2;
+    }
+    if (index >= 0 && the_sequence_number <= my_ends[index]) {
+      return Optional.of(my_entries[index]);
+    }
+    return Optional.empty();
+  }
+}
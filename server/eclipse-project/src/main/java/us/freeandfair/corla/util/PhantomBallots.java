@@ -8,6 +8,7 @@ import java.time.Instant;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import java.util.stream.Collectors;
@@ -22,6 +23,7 @@ import us.freeandfair.corla.model.CountyDashboard;
 
 import us.freeandfair.corla.persistence.Persistence;
 
+import us.freeandfair.corla.query.CVRAuditInfoQueries;
 import us.freeandfair.corla.query.ContestQueries;
 
 /**
@@ -40,10 +42,15 @@ public final class PhantomBallots {
   public static List<CastVoteRecord> auditPhantomRecords(
       final CountyDashboard cdb,
       final List<CastVoteRecord> cvrs) {
+    final Map<Long, CVRAuditInfo> infos =
+        CVRAuditInfoQueries.byIds(cvrs.stream()
+                                  .filter(PhantomBallots::isPhantomRecord)
+                                  .map(CastVoteRecord::id)
+                                  .collect(Collectors.toList()));
     return cvrs.stream()
         .map(cvr -> {
             return isPhantomRecord(cvr)
-                ? auditPhantomRecord(cdb, cvr)
+                ? auditPhantomRecord(cdb, cvr, infos)
                 : cvr;
         })
         .collect(Collectors.toList());
@@ -67,12 +74,14 @@ public final class PhantomBallots {
   }
 
   /**
-   * Audit a phantom record as if by an audit board.
+   * Audit a phantom record as if by an audit board, given the audit
+   * information already loaded for phantom records (to which any audit
+   * information created here is added).
    */
   private static CastVoteRecord auditPhantomRecord(final CountyDashboard cdb,
-                                                   final CastVoteRecord cvr) {
-    CVRAuditInfo cvrAuditInfo =
-        Persistence.getByID(cvr.id(), CVRAuditInfo.class);
+                                                   final CastVoteRecord cvr,
+                                                   final Map<Long, CVRAuditInfo> infos) {
+    CVRAuditInfo cvrAuditInfo = infos.get(cvr.id());
 
     if (null != cvrAuditInfo && null != cvrAuditInfo.acvr()) {
       // CVR has already been audited.
@@ -99,6 +108,7 @@ public final class PhantomBallots {
     if (null == cvrAuditInfo) {
       cvrAuditInfo = new CVRAuditInfo(cvr);
       Persistence.save(cvrAuditInfo);
+      infos.put(cvr.id(), cvrAuditInfo);
     }
 
     final CastVoteRecord acvr = new CastVoteRecord(
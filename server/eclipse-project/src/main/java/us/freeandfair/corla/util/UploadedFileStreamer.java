@@ -1,6 +1,6 @@
 /*
  * Free & Fair Colorado RLA System
- * 
+ *
  * @title ColoradoRLA
  * @created Aug 30, 2017
  * @copyright 2017 Colorado Department of State
@@ -11,116 +11,205 @@
 
 package us.freeandfair.corla.util;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import javax.persistence.PersistenceException;
 
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.largeobject.LargeObject;
+import org.postgresql.largeobject.LargeObjectManager;
+
 import us.freeandfair.corla.json.UploadedFileDTO;
 import us.freeandfair.corla.model.UploadedFile;
 import us.freeandfair.corla.persistence.Persistence;
 
 /**
- * A Runnable class that provides streaming read access to an UploadedFile.
- * 
+ * Provides streaming read access to an UploadedFile, reading the PostgreSQL
+ * large object that holds it directly, in large chunks, on the calling thread.
+ *
+ * The large object is read through its own session and transaction, so the
+ * calling thread's transactions can commit (as the CVR import does, in
+ * batches) while the file is being read; that transaction only reads, and is
+ * rolled back when the streamer is closed.
+ *
  * @author Daniel M. Zimmerman <dmz@freeandfair.us>
  * @version 1.0.0
  */
-@SuppressWarnings("PMD.DoNotUseThreads")
-public class UploadedFileStreamer implements Runnable {
+public class UploadedFileStreamer implements AutoCloseable {
   /**
-   * The uploaded file.
+   * Class-wide logger
    */
-  private UploadedFile my_file;
+  public static final Logger LOGGER = LogManager.getLogger(UploadedFileStreamer.class);
 
+  /**
+   * The number of bytes fetched from the database at a time.
+   */
+  public static final int BUFFER_SIZE = 1 << 20;
 
-  private UploadedFileDTO uploadedFileDTO;
+  /**
+   * The query for the large object holding a file.
+   */
+  private static final String FILE_OID_QUERY =
+      "SELECT file FROM uploaded_file WHERE id = ?";
 
   /**
-   * The input stream from the blob.
+   * The session through which the file is read.
    */
-  private InputStream my_stream;
-  
+  private final Session my_session;
+
   /**
-   * The running flag.
+   * The large object holding the file.
    */
-  @SuppressWarnings("PMD.AvoidUsingVolatile")
-  private volatile boolean my_running;
-  
+  private final LargeObject my_object;
+
+  /**
+   * The input stream.
+   */
+  private final InputStream my_stream;
+
   /**
    * Constructs a new streamer for the specified file.
-   * 
+   *
    * @param the_file The file.
+   * @exception PersistenceException if the file cannot be opened.
    */
   public UploadedFileStreamer(final UploadedFile the_file) {
-    my_file = the_file;
+    this(the_file.id());
   }
 
-  public UploadedFileStreamer(final UploadedFileDTO uploadedFileDTO) {
-    this.uploadedFileDTO = uploadedFileDTO;
+  /**
+   * Constructs a new streamer for the specified file.
+   *
+   * @param the_file The file.
+   * @exception PersistenceException if the file cannot be opened.
+   */
+  public UploadedFileStreamer(final UploadedFileDTO the_file) {
+    this(the_file.getFileId());
   }
 
   /**
-   * The run method. This opens up a new persistence session and database
-   * transaction, and sets up the stream for reading. This method should 
-   * only be called as a result of Thread.start(), in a fresh thread; any
-   * other use may have unpredictable consequences due to the persistence 
-   * subsystem's handling of threads.
-   * 
-   * @exception PersistenceException if there is a problem during the
-   * execution.
+   * Constructs a new streamer for the file with the specified ID.
+   *
+   * @param the_file_id The file ID.
+   * @exception PersistenceException if the file cannot be opened.
    */
-  @Override
-  public synchronized void run() throws PersistenceException {
-    my_running = true;
-    Persistence.beginTransaction();
-    // get a session-local reference to the file
-    my_file = Persistence.getByID(this.uploadedFileDTO.getFileId(), UploadedFile.class);
-    // get the blob stream
+  public UploadedFileStreamer(final Long the_file_id) {
+    my_session = Persistence.openUnboundSession();
     try {
-      my_stream = my_file.file().getBinaryStream();
-      notifyAll();
-    } catch (final SQLException e) {
-      throw new PersistenceException(e);
-    }
-    while (my_running) {
-      try {
-        wait();
-      } catch (final InterruptedException e) {
-        // ignored, since we don't care if we were interrupted
-      }
+      my_session.beginTransaction();
+      my_object = my_session.doReturningWork(connection -> {
+        final long oid;
+        try (PreparedStatement statement = connection.prepareStatement(FILE_OID_QUERY)) {
+          statement.setLong(1, the_file_id);
+          try (ResultSet rs = statement.executeQuery()) {
+            if (!rs.next()) {
+              throw new SQLException("no uploaded file " + the_file_id);
+            }
+            oid = rs.getLong(1);
+          }
+        }
+        final LargeObjectManager manager =
+            connection.unwrap(PGConnection.class).getLargeObjectAPI();
+        return manager.open(oid, LargeObjectManager.READ);
+      });
+    } catch (final PersistenceException e) {
+      endSession();
+      throw new PersistenceException("could not open uploaded file " + the_file_id, e);
     }
+    my_stream = new BufferedInputStream(new LargeObjectInputStream(my_object), BUFFER_SIZE);
+  }
+
+  /**
+   * @return the binary stream. This stream can only be used once; to read
+   * the same uploaded file again, a new UploadedFileStreamer is required.
+   */
+  public InputStream inputStream() {
+    return my_stream;
+  }
+
+  /**
+   * Closes the file, rolling back and closing the session through which it
+   * was read.
+   */
+  @Override
+  public void close() {
     try {
-      my_stream.close();
-    } catch (final IOException e) {
+      my_object.close();
+    } catch (final SQLException e) {
       // ignored, since we're already done with it
+      LOGGER.debug("could not close large object: " + e.getMessage());
     }
-    Persistence.rollbackTransaction();
+    endSession();
   }
-  
+
   /**
-   * Stops this thread, closing the persistence session and the transaction. 
-   * The transactions is rolled back, so as to not interfere with any other 
-   * transactions, since we have already read all the data we needed.
+   * Rolls back and closes the session.
    */
-  public synchronized void stop() {
-    my_running = false;
-    notifyAll();
+  private void endSession() {
+    try {
+      if (my_session.getTransaction().isActive()) {
+        my_session.getTransaction().rollback();
+      }
+    } finally {
+      my_session.close();
+    }
   }
-  
+
   /**
-   * @return the open binary stream. This stream can only be used once; to
-   * read the same uploaded file again, a new UploadedFileStreamer is required. 
+   * An input stream over a large object. Every read is a round trip to the
+   * database, so this is meant to be read through a large buffer.
    */
-  public synchronized InputStream inputStream() {
-    while (my_stream == null) {
+  private static class LargeObjectInputStream extends InputStream {
+    /**
+     * The large object.
+     */
+    private final LargeObject my_object;
+
+    /**
+     * Constructs a new LargeObjectInputStream.
+     *
+     * @param the_object The large object.
+     */
+    LargeObjectInputStream(final LargeObject the_object) {
+      super();
+      my_object = the_object;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+      final byte[] one = new byte[1];
+      if (read(one, 0, 1) < 0) {
+        return -1;
+      }
+      return one[0] & 0xff;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(final byte[] the_bytes, final int the_offset, final int the_length)
+        throws IOException {
+      if (the_length == 0) {
+        return 0;
+      }
       try {
-        wait();
-      } catch (final InterruptedException e) {
-        // ignored, since we don't care if we're interrupted
+        final int result = my_object.read(the_bytes, the_offset, the_length);
+        return result > 0 ? result : -1;
+      } catch (final SQLException e) {
+        throw new IOException(e);
       }
     }
-    return my_stream;
   }
 }
@@ -0,0 +1,179 @@
+/*
+Democracy Developers IRV extensions to colorado-rla.
+
+@copyright 2024 Colorado Department of State
+
+These IRV extensions are designed to connect to a running instance of the raire 
+service (https://github.com/DemocracyDevelopers/raire-service), in order to 
+generate assertions that can be audited using colorado-rla.
+
+The colorado-rla IRV extensions are free software: you can redistribute it and/or modify it under the terms
+of the GNU Affero General Public License as published by the Free Software Foundation, either
+version 3 of the License, or (at your option) any later version.
+
+The colorado-rla IRV extensions are distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+See the GNU Affero General Public License for more details.
+
+You should have received a copy of the GNU Affero General Public License along with
+raire-service. If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package au.org.democracydevelopers.corla.csv;
+
+import au.org.democracydevelopers.corla.model.vote.IRVChoices;
+import au.org.democracydevelopers.corla.model.vote.IRVParsingException;
+import au.org.democracydevelopers.corla.util.testUtils;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.testng.annotations.Test;
+import us.freeandfair.corla.model.Choice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static au.org.democracydevelopers.corla.csv.IRVHeadersParser.generateAllIRVPreferences;
+import static au.org.democracydevelopers.corla.util.testUtils.alice;
+import static au.org.democracydevelopers.corla.util.testUtils.bob;
+import static au.org.democracydevelopers.corla.util.testUtils.chuan;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests that the IRVChoices built from an IRVColumnLayout are the same as the IRVChoices built by
+ * parsing the name(rank) strings of the marked columns, which is how DominionCVRExportParser used
+ * to interpret every IRV vote. Also includes a simple timing comparison of the two.
+ */
+public class IRVColumnLayoutTests {
+
+  /**
+   * Class-wide logger
+   */
+  private static final Logger LOGGER = LogManager.getLogger(IRVColumnLayoutTests.class);
+
+  /**
+   * A fictitious write-in choice; marks against it are not votes.
+   */
+  private static final Choice writeIn = new Choice("Write-in", "", false, true);
+
+  /**
+   * Choices including a fictitious one, as addContests would build them from a header.
+   */
+  private static final List<Choice> choices = List.of(alice, bob, writeIn, chuan);
+
+  /**
+   * The number of ranks allowed.
+   */
+  private static final int maxRank = 3;
+
+  /**
+   * The layout has one column per choice per rank, and ignores marks for fictitious choices.
+   */
+  @Test
+  public void layoutHasOneColumnPerChoicePerRank() {
+    testUtils.log(LOGGER, "layoutHasOneColumnPerChoicePerRank");
+    final IRVColumnLayout layout = new IRVColumnLayout(choices, maxRank);
+
+    assertEquals(layout.columnCount(), choices.size() * maxRank);
+    for (int offset = 0; offset < layout.columnCount(); offset++) {
+      assertEquals(layout.counts(offset), offset % choices.size() != 2);
+    }
+  }
+
+  /**
+   * Raw choices are the name(rank) strings of the marked columns, in column order.
+   */
+  @Test
+  public void rawChoicesAreNameRankStrings() {
+    testUtils.log(LOGGER, "rawChoicesAreNameRankStrings");
+    final IRVColumnLayout layout = new IRVColumnLayout(choices, maxRank);
+
+    // Bob(1), Alice(2), Chuan(2), Chuan(3)
+    final int[] marked = {1, 4, 7, 11};
+    assertEquals(layout.rawChoices(marked, marked.length),
+        List.of("Bob(1)", "Alice(2)", "Chuan(2)", "Chuan(3)"));
+    assertEquals(layout.rawChoices(marked, 2), List.of("Bob(1)", "Alice(2)"));
+  }
+
+  /**
+   * For every possible set of marks, the layout gives the same validity, valid interpretation and
+   * candidate list as parsing the name(rank) strings.
+   * @throws IRVParsingException never.
+   */
+  @Test
+  public void layoutChoicesMatchParsedChoicesForAllMarks() throws IRVParsingException {
+    testUtils.log(LOGGER, "layoutChoicesMatchParsedChoicesForAllMarks");
+    final IRVColumnLayout layout = new IRVColumnLayout(choices, maxRank);
+    final List<Choice> allPrefs = generateAllIRVPreferences(choices, maxRank);
+    final int columns = layout.columnCount();
+    final int[] marked = new int[columns];
+
+    int invalid = 0;
+    for (int marks = 0; marks < 1 << columns; marks++) {
+      int count = 0;
+      final List<String> votes = new ArrayList<>();
+      for (int offset = 0; offset < columns; offset++) {
+        if ((marks & (1 << offset)) != 0 && layout.counts(offset)) {
+          marked[count++] = offset;
+          votes.add(allPrefs.get(offset).name());
+        }
+      }
+
+      final IRVChoices parsed = new IRVChoices(votes);
+      final IRVChoices fromLayout = layout.choices(marked, count);
+
+      assertEquals(fromLayout.isValid(), parsed.isValid(), votes.toString());
+      assertEquals(fromLayout.getValidIntentAsOrderedList(), parsed.getValidIntentAsOrderedList(),
+          votes.toString());
+      assertEquals(fromLayout.getCandidateNames(), parsed.getCandidateNames(), votes.toString());
+      assertEquals(fromLayout.toString(), parsed.toString());
+      assertEquals(layout.rawChoices(marked, count), votes);
+      if (!parsed.isValid()) {
+        invalid++;
+      }
+    }
+    // Make sure the invalid cases were actually exercised.
+    assertTrue(invalid > 0);
+  }
+
+  /**
+   * A simple timing comparison of interpreting votes through the layout and through parsing
+   * name(rank) strings, as the CVR import used to do for every IRV contest on every line. This is
+   * only a rough guide (there is no warmup control or forking, as a real benchmark harness would
+   * have), so it asserts nothing about the timings and just logs them.
+   * @throws IRVParsingException never.
+   */
+  @Test
+  public void timeLayoutAgainstParsing() throws IRVParsingException {
+    testUtils.log(LOGGER, "timeLayoutAgainstParsing");
+    final IRVColumnLayout layout = new IRVColumnLayout(choices, maxRank);
+    final int iterations = 20000;
+    // Alice(1), Bob(2), Chuan(3) - a typical valid vote.
+    final int[] marked = {0, 5, 11};
+    final int count = marked.length;
+
+    long checksum = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      final List<Choice> allPrefs = generateAllIRVPreferences(choices, maxRank);
+      final List<String> votes = new ArrayList<>();
+      for (int m = 0; m < count; m++) {
+        votes.add(allPrefs.get(marked[m]).name());
+      }
+      checksum += new IRVChoices(votes).getValidIntentAsOrderedList().size();
+    }
+    final long parsingNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      checksum -= layout.choices(marked, count).getValidIntentAsOrderedList().size();
+    }
+    final long layoutNanos = System.nanoTime() - start;
+
+    assertEquals(checksum, 0);
+    assertFalse(parsingNanos < 0 || layoutNanos < 0);
+    LOGGER.info(String.format("[timeLayoutAgainstParsing] %d votes: parsing %d ms, layout %d ms.",
+        iterations, parsingNanos / 1000000, layoutNanos / 1000000));
+  }
+}
@@ -0,0 +1,297 @@
+/*
+Democracy Developers IRV extensions to colorado-rla.
+
+@copyright 2024 Colorado Department of State
+
+These IRV extensions are designed to connect to a running instance of the raire
+service (https://github.com/DemocracyDevelopers/raire-service), in order to
+generate assertions that can be audited using colorado-rla.
+
+The colorado-rla IRV extensions are free software: you can redistribute it and/or modify it under the terms
+of the GNU Affero General Public License as published by the Free Software Foundation, either
+version 3 of the License, or (at your option) any later version.
+
+The colorado-rla IRV extensions are distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+See the GNU Affero General Public License for more details.
+
+You should have received a copy of the GNU Affero General Public License along with
+raire-service. If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package au.org.democracydevelopers.corla.endpoint;
+
+import au.org.democracydevelopers.corla.communication.responseFromRaire.GenerateAssertionsResponse;
+import au.org.democracydevelopers.corla.model.ContestType;
+import au.org.democracydevelopers.corla.util.testUtils;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.google.gson.Gson;
+import org.apache.http.HttpStatus;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.ContestResult;
+import us.freeandfair.corla.model.County;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static au.org.democracydevelopers.corla.util.testUtils.tinyIRVCandidates;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test that GenerateAssertions::generateAllAssertions sends its requests to raire concurrently,
+ * retries requests that time out or get a server error, and records the contests whose requests
+ * never succeed, against a mock raire that is slow and sometimes fails.
+ */
+public class GenerateAssertionsConcurrencyTests {
+
+  /**
+   * Class-wide logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger(GenerateAssertionsConcurrencyTests.class);
+
+  /**
+   * Raire endpoint for generating assertions.
+   */
+  private final static String raireGenerateAssertionsEndpoint = "/raire/generate-assertions";
+
+  /**
+   * The time the mock raire takes to respond, in milliseconds.
+   */
+  private final static int latency = 400;
+
+  /**
+   * The number of slow but successful contests.
+   */
+  private final static int slowContests = 8;
+
+  /**
+   * GSON for json serialization.
+   */
+  private final static Gson gson = new Gson();
+
+  /**
+   * The mock raire server.
+   */
+  private WireMockServer raire;
+
+  /**
+   * The url of the mock raire generate-assertions endpoint.
+   */
+  private String raireUrl;
+
+  /**
+   * Makes an IRV contest result with the tiny example's candidates.
+   */
+  private static ContestResult contestResult(final String name) {
+    final ContestResult cr = new ContestResult(name);
+    cr.setBallotCount(10L);
+    cr.addContests(Set.of(new Contest(name, new County("Ouray", 46L),
+        ContestType.IRV.toString(), tinyIRVCandidates, 3, 1, 0)));
+    return cr;
+  }
+
+  /**
+   * The slow but successful contests.
+   */
+  private static List<ContestResult> slowContestResults() {
+    final List<ContestResult> results = new ArrayList<>();
+    for (int i = 0; i < slowContests; i++) {
+      results.add(contestResult("Slow" + i));
+    }
+    return results;
+  }
+
+  /**
+   * Stubs a successful response for the named contest, after the_delay milliseconds.
+   */
+  private void stubSuccess(final String name, final int the_delay) {
+    raire.stubFor(post(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo(name)))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.SC_OK)
+            .withHeader("Content-Type", "application/json")
+            .withFixedDelay(the_delay)
+            .withBody(gson.toJson(new GenerateAssertionsResponse(name, true, false)))));
+  }
+
+  /**
+   * Start the mock raire server.
+   */
+  @BeforeClass
+  public void initMocks() {
+    raire = new WireMockServer(options().dynamicPort());
+    raire.start();
+    raireUrl = raire.baseUrl() + raireGenerateAssertionsEndpoint;
+  }
+
+  /**
+   * Mock a slow raire, in which one contest's request is once unavailable, one is always
+   * unavailable, one gets an internal server error, one always takes too long, and one is not
+   * found.
+   */
+  @BeforeMethod
+  public void resetMocks() {
+    raire.resetAll();
+    for (int i = 0; i < slowContests; i++) {
+      stubSuccess("Slow" + i, latency);
+    }
+
+    raire.stubFor(post(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo("Flaky")))
+        .inScenario("flaky").whenScenarioStateIs(STARTED)
+        .willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE))
+        .willSetStateTo("recovered"));
+    raire.stubFor(post(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo("Flaky")))
+        .inScenario("flaky").whenScenarioStateIs("recovered")
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.SC_OK)
+            .withHeader("Content-Type", "application/json")
+            .withBody(gson.toJson(new GenerateAssertionsResponse("Flaky", true, false)))));
+
+    raire.stubFor(post(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo("Down")))
+        .willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+
+    raire.stubFor(post(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo("Broken")))
+        .willReturn(aResponse().withStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR)));
+
+    stubSuccess("Stuck", 5000);
+
+    raire.stubFor(post(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo("Missing")))
+        .willReturn(aResponse().withStatus(HttpStatus.SC_NOT_FOUND)));
+  }
+
+  @AfterClass
+  public void closeMocks() {
+    raire.stop();
+  }
+
+  /**
+   * Generating for several slow contests at once takes a fraction of the time it takes one at a
+   * time, and gives the same responses in the same order.
+   */
+  @Test
+  public void concurrentGenerationIsFaster() {
+    testUtils.log(LOGGER, "concurrentGenerationIsFaster");
+    final List<ContestResult> contests = slowContestResults();
+
+    long start = System.nanoTime();
+    final List<GenerateAssertionsResponse> sequential
+        = new GenerateAssertions(1, Duration.ofSeconds(10), 0)
+        .generateAllAssertions(contests, 1, raireUrl);
+    final long sequentialMillis = (System.nanoTime() - start) / 1_000_000;
+
+    start = System.nanoTime();
+    final List<GenerateAssertionsResponse> concurrent
+        = new GenerateAssertions(slowContests, Duration.ofSeconds(10), 0)
+        .generateAllAssertions(contests, 1, raireUrl);
+    final long concurrentMillis = (System.nanoTime() - start) / 1_000_000;
+
+    LOGGER.info(String.format("%d contests took %d ms one at a time and %d ms concurrently",
+        slowContests, sequentialMillis, concurrentMillis));
+    assertTrue(sequentialMillis >= (long) slowContests * latency);
+    assertTrue(concurrentMillis < sequentialMillis / 2);
+
+    assertEquals(concurrent.size(), slowContests);
+    for (int i = 0; i < slowContests; i++) {
+      assertEquals(sequential.get(i).contestName, "Slow" + i);
+      assertEquals(concurrent.get(i).contestName, "Slow" + i);
+      assertTrue(concurrent.get(i).succeeded);
+      assertFalse(concurrent.get(i).retry);
+    }
+  }
+
+  /**
+   * No more requests than the parallelism limit are outstanding at once.
+   */
+  @Test
+  public void parallelismIsBounded() {
+    testUtils.log(LOGGER, "parallelismIsBounded");
+
+    final long start = System.nanoTime();
+    new GenerateAssertions(2, Duration.ofSeconds(10), 0)
+        .generateAllAssertions(slowContestResults(), 1, raireUrl);
+    final long millis = (System.nanoTime() - start) / 1_000_000;
+
+    assertTrue(millis >= (long) (slowContests / 2) * latency);
+  }
+
+  /**
+   * An unavailable raire is retried, but a request that raire may have started on (one that
+   * timed out or got an internal server error) is not resent; a contest whose request fails
+   * either way is recorded as failed with retry recommended, without affecting the other
+   * contests.
+   */
+  @Test
+  public void failuresAreRecordedPerContest() {
+    testUtils.log(LOGGER, "failuresAreRecordedPerContest");
+    final List<ContestResult> contests = new ArrayList<>(slowContestResults());
+    contests.add(1, contestResult("Flaky"));
+    contests.add(3, contestResult("Down"));
+    contests.add(5, contestResult("Stuck"));
+    contests.add(7, contestResult("Broken"));
+
+    final List<GenerateAssertionsResponse> results
+        = new GenerateAssertions(4, Duration.ofMillis(500), 1)
+        .generateAllAssertions(contests, 0.5, raireUrl);
+
+    assertEquals(results.size(), contests.size());
+    for (int i = 0; i < contests.size(); i++) {
+      final GenerateAssertionsResponse result = results.get(i);
+      final String name = contests.get(i).getContestName();
+      assertEquals(result.contestName, name);
+      if (name.equals("Down") || name.equals("Stuck") || name.equals("Broken")) {
+        assertFalse(result.succeeded, name);
+        assertTrue(result.retry, name);
+      } else {
+        assertTrue(result.succeeded, name);
+        assertFalse(result.retry, name);
+      }
+    }
+
+    // One retry each for the flaky and unavailable contests, and none for the others.
+    raire.verify(2, postRequestedFor(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo("Flaky"))));
+    raire.verify(2, postRequestedFor(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo("Down"))));
+    raire.verify(1, postRequestedFor(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo("Stuck"))));
+    raire.verify(1, postRequestedFor(urlEqualTo(raireGenerateAssertionsEndpoint))
+        .withRequestBody(matchingJsonPath("$.contestName", equalTo("Broken"))));
+  }
+
+  /**
+   * A client error is not retried, and fails the whole request once the other contests finish.
+   */
+  @Test(expectedExceptions = RuntimeException.class,
+      expectedExceptionsMessageRegExp = ".*Connection failure.*Raire service url.*")
+  public void clientErrorFailsEverything() {
+    testUtils.log(LOGGER, "clientErrorFailsEverything");
+    final List<ContestResult> contests = new ArrayList<>(slowContestResults());
+    contests.add(2, contestResult("Missing"));
+
+    try {
+      new GenerateAssertions(4, Duration.ofSeconds(10), 2)
+          .generateAllAssertions(contests, 1, raireUrl);
+    } finally {
+      raire.verify(1, postRequestedFor(urlEqualTo(raireGenerateAssertionsEndpoint))
+          .withRequestBody(matchingJsonPath("$.contestName", equalTo("Missing"))));
+    }
+  }
+}
@@ -0,0 +1,307 @@
+/*
+Democracy Developers IRV extensions to colorado-rla.
+
+@copyright 2024 Colorado Department of State
+
+These IRV extensions are designed to connect to a running instance of the raire
+service (https://github.com/DemocracyDevelopers/raire-service), in order to
+generate assertions that can be audited using colorado-rla.
+
+The colorado-rla IRV extensions are free software: you can redistribute it and/or modify it under the terms
+of the GNU Affero General Public License as published by the Free Software Foundation, either
+version 3 of the License, or (at your option) any later version.
+
+The colorado-rla IRV extensions are distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+See the GNU Affero General Public License for more details.
+
+You should have received a copy of the GNU Affero General Public License along with
+raire-service. If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package au.org.democracydevelopers.corla.endpoint;
+
+import au.org.democracydevelopers.corla.communication.responseFromRaire.RaireServiceErrors;
+import au.org.democracydevelopers.corla.model.ContestType;
+import au.org.democracydevelopers.corla.util.testUtils;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.apache.http.HttpStatus;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.ContestResult;
+import us.freeandfair.corla.model.County;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static au.org.democracydevelopers.corla.endpoint.GetAssertions.CSV_SUFFIX;
+import static au.org.democracydevelopers.corla.endpoint.GetAssertions.JSON_SUFFIX;
+import static au.org.democracydevelopers.corla.util.testUtils.tinyIRVCandidates;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test that GetAssertions::writeAssertions streams raire's responses into the zip without holding
+ * them in memory: the assertions are exported in a separate JVM whose heap is smaller than the
+ * largest response, and the resulting zip is checked entry by entry.
+ */
+public class GetAssertionsStreamingTests {
+
+  /**
+   * Class-wide logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger(GetAssertionsStreamingTests.class);
+
+  /**
+   * Raire endpoint for getting assertions.
+   */
+  private final static String raireGetAssertionsEndpoint = "/raire/get-assertions";
+
+  /**
+   * The heap the assertions are exported in, smaller than the largest response.
+   */
+  private static final String HEAP = "-Xmx32m";
+
+  /**
+   * The error code raire returns for the contest without assertions.
+   */
+  private static final String NO_ASSERTIONS = "NO_ASSERTIONS_PRESENT";
+
+  /**
+   * The contest without assertions.
+   */
+  private static final String noAssertionsContest = "Charlie";
+
+  /**
+   * The size, in MB, of each contest's json response; the contest without assertions has none.
+   */
+  private static final Map<String, Integer> jsonSizes = new LinkedHashMap<>();
+
+  /**
+   * The size, in MB, of each contest's csv response; the contest without assertions has none.
+   */
+  private static final Map<String, Integer> csvSizes = new LinkedHashMap<>();
+
+  static {
+    jsonSizes.put("Alpha", 2);
+    jsonSizes.put("Bravo Mayoral", 48);
+    jsonSizes.put(noAssertionsContest, 0);
+    jsonSizes.put("Delta", 3);
+    jsonSizes.put("Echo", 0);
+    csvSizes.put("Alpha", 16);
+    csvSizes.put("Bravo Mayoral", 16);
+    csvSizes.put(noAssertionsContest, 0);
+    csvSizes.put("Delta", 16);
+    csvSizes.put("Echo", 1);
+  }
+
+  /**
+   * The mock raire server.
+   */
+  private WireMockServer raire;
+
+  /**
+   * Makes an IRV contest result with the tiny example's candidates.
+   */
+  private static ContestResult contestResult(final String name) {
+    final ContestResult cr = new ContestResult(name);
+    cr.setBallotCount(10L);
+    cr.addContests(Set.of(new Contest(name, new County("Ouray", 46L),
+        ContestType.IRV.toString(), tinyIRVCandidates, 3, 1, 0)));
+    return cr;
+  }
+
+  /**
+   * A response of about the given number of MB, different for each contest and format; zero MB
+   * gives a short response.
+   */
+  private static byte[] body(final String name, final String suffix, final int megabytes) {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    final byte[] line = String.format("%s,%s,assertion,%s%n", name, suffix,
+        "x".repeat(40)).getBytes(StandardCharsets.UTF_8);
+    int i = 0;
+    do {
+      body.writeBytes(Integer.toString(i).getBytes(StandardCharsets.UTF_8));
+      body.writeBytes(line);
+      i++;
+    } while (body.size() < megabytes * 1024 * 1024);
+    return body.toByteArray();
+  }
+
+  /**
+   * Exports the assertions for the named contests from raire to a zip file; run in a separate JVM,
+   * with a capped heap, by the tests.
+   */
+  public static final class Exporter {
+    private Exporter() {};
+
+    /**
+     * @param args the zip file, the raire url, the suffix, the parallelism and the contest names.
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+      final List<ContestResult> contests = new ArrayList<>();
+      for (final String name : Arrays.copyOfRange(args, 4, args.length)) {
+        contests.add(contestResult(name));
+      }
+      try (OutputStream os = Files.newOutputStream(Paths.get(args[0]));
+           ZipOutputStream zos = new ZipOutputStream(os)) {
+        GetAssertions.writeAssertions(zos, "assertions", args[2], contests, BigDecimal.ONE,
+            args[1], Integer.parseInt(args[3]));
+      }
+    }
+  }
+
+  /**
+   * Start the mock raire server, with a response for each contest in each format.
+   */
+  @BeforeClass
+  public void initMocks() {
+    raire = new WireMockServer(options().dynamicPort());
+    raire.start();
+
+    for (final Map.Entry<String, Map<String, Integer>> format
+        : Map.of(JSON_SUFFIX, jsonSizes, CSV_SUFFIX, csvSizes).entrySet()) {
+      for (final Map.Entry<String, Integer> contest : format.getValue().entrySet()) {
+        if (contest.getKey().equals(noAssertionsContest)) {
+          raire.stubFor(post(urlEqualTo(raireGetAssertionsEndpoint + "-" + format.getKey()))
+              .withRequestBody(matchingJsonPath("$.contestName", equalTo(contest.getKey())))
+              .willReturn(aResponse()
+                  .withStatus(HttpStatus.SC_NOT_FOUND)
+                  .withHeader(RaireServiceErrors.ERROR_CODE_KEY, NO_ASSERTIONS)));
+        } else {
+          raire.stubFor(post(urlEqualTo(raireGetAssertionsEndpoint + "-" + format.getKey()))
+              .withRequestBody(matchingJsonPath("$.contestName", equalTo(contest.getKey())))
+              .willReturn(aResponse()
+                  .withStatus(HttpStatus.SC_OK)
+                  .withFixedDelay(200)
+                  .withBody(body(contest.getKey(), format.getKey(), contest.getValue()))));
+        }
+      }
+    }
+  }
+
+  @AfterClass
+  public void closeMocks() {
+    raire.stop();
+  }
+
+  /**
+   * Exports the assertions in a separate JVM with a capped heap and an empty temporary directory,
+   * then checks that the zip holds each contest's response, in order, and that the temporary
+   * directory is empty again.
+   */
+  private void exportAndCheck(final String suffix, final Map<String, Integer> sizes)
+      throws Exception {
+    final Path tmp = Files.createTempDirectory("assertions-tmp");
+    final File zip = File.createTempFile("assertions", ".zip");
+    try {
+      final List<String> command = new ArrayList<>(List.of(
+          Paths.get(System.getProperty("java.home"), "bin", "java").toString(), HEAP,
+          "-Djava.io.tmpdir=" + tmp, "-cp", System.getProperty("java.class.path"),
+          Exporter.class.getName(), zip.getPath(),
+          raire.baseUrl() + raireGetAssertionsEndpoint, suffix, "3"));
+      command.addAll(sizes.keySet());
+      final long start = System.nanoTime();
+      final Process process = new ProcessBuilder(command).inheritIO().start();
+      assertTrue(process.waitFor(5, TimeUnit.MINUTES), "assertion export timed out");
+      assertEquals(process.exitValue(), 0, "assertion export failed with " + HEAP);
+      LOGGER.info(String.format("exported %s assertions in %d ms", suffix,
+          (System.nanoTime() - start) / 1_000_000));
+
+      try (Stream<Path> left = Files.list(tmp)) {
+        assertEquals(left.count(), 0L, "temporary files left behind");
+      }
+
+      try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip.toPath()))) {
+        for (final Map.Entry<String, Integer> contest : sizes.entrySet()) {
+          final ZipEntry entry = in.getNextEntry();
+          assertEquals(entry.getName(), "assertions/"
+              + contest.getKey().replaceAll("[\\W]", "") + "_assertions." + suffix);
+          final byte[] expected = contest.getKey().equals(noAssertionsContest)
+              ? NO_ASSERTIONS.getBytes(StandardCharsets.UTF_8)
+              : body(contest.getKey(), suffix, contest.getValue());
+          assertEquals(digest(in), MessageDigest.getInstance("SHA-256").digest(expected),
+              entry.getName());
+        }
+        assertNull(in.getNextEntry());
+      }
+    } finally {
+      Files.deleteIfExists(zip.toPath());
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * @return the SHA-256 digest of the rest of a stream.
+   */
+  private static byte[] digest(final InputStream in) throws Exception {
+    final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    final byte[] buffer = new byte[8192];
+    int n = in.read(buffer);
+    while (n >= 0) {
+      digest.update(buffer, 0, n);
+      n = in.read(buffer);
+    }
+    return digest.digest();
+  }
+
+  /**
+   * Json responses, one far larger than the heap, are streamed into the zip intact.
+   */
+  @Test
+  public void largeJsonResponsesAreStreamed() throws Exception {
+    testUtils.log(LOGGER, "largeJsonResponsesAreStreamed");
+    exportAndCheck(JSON_SUFFIX, jsonSizes);
+  }
+
+  /**
+   * Csv responses that together are far larger than the heap are streamed into the zip intact.
+   */
+  @Test
+  public void largeCsvResponsesAreStreamed() throws Exception {
+    testUtils.log(LOGGER, "largeCsvResponsesAreStreamed");
+    exportAndCheck(CSV_SUFFIX, csvSizes);
+  }
+
+  /**
+   * A bad response from raire for one contest fails the export.
+   */
+  @Test(expectedExceptions = RuntimeException.class,
+      expectedExceptionsMessageRegExp = ".*Bad response from Raire service for contest Foxtrot.*")
+  public void badResponseThrowsRuntimeException() throws Exception {
+    testUtils.log(LOGGER, "badResponseThrowsRuntimeException");
+    final List<ContestResult> contests
+        = List.of(contestResult("Alpha"), contestResult("Foxtrot"), contestResult("Echo"));
+    try (ZipOutputStream zos = new ZipOutputStream(new ByteArrayOutputStream())) {
+      GetAssertions.writeAssertions(zos, "", JSON_SUFFIX, contests, BigDecimal.ONE,
+          raire.baseUrl() + raireGetAssertionsEndpoint, 3);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package us.freeandfair.corla.controller;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.AuditReason;
+import us.freeandfair.corla.model.CVRContestInfo;
+import us.freeandfair.corla.model.CVRContestInfo.ConsensusValue;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.Choice;
+import us.freeandfair.corla.model.ComparisonAudit;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.ContestResult;
+
+/**
+ * Checks that the audits AuditIndex leaves out for a CVR/ACVR pair are ones
+ * the pair cannot affect: the CVR was not selected for them and there is no
+ * discrepancy or disagreement in their contests.
+ */
+public class AuditIndexTest {
+  private static final String[] CONTESTS = {"Mayor", "Council", "Sheriff", "Measure 1", "Measure 2"};
+
+  private static final List<String> CHOICES = Arrays.asList("Alice", "Bob", "Carol");
+
+  private List<Contest> contests;
+
+  private List<ComparisonAudit> audits;
+
+  private long next_id;
+
+  @BeforeMethod
+  public void setUp() {
+    contests = new ArrayList<>();
+    audits = new ArrayList<>();
+    next_id = 1;
+    final List<Choice> choices = new ArrayList<>();
+    for (final String choice : CHOICES) {
+      choices.add(new Choice(choice, "", false, false));
+    }
+    for (int i = 0; i < CONTESTS.length; i++) {
+      contests.add(new Contest(CONTESTS[i], null, "", choices, 1, 1, i));
+    }
+    // not in contest order, so that the index has to keep the given order
+    for (final int i : new int[] {3, 0, 4, 1}) {
+      final ContestResult cr = new ContestResult(CONTESTS[i]);
+      cr.setWinnersAllowed(1);
+      cr.setWinners(Set.of("Alice"));
+      cr.setLosers(Set.of("Bob", "Carol"));
+      cr.setDilutedMargin(BigDecimal.valueOf(0.1));
+      audits.add(new ComparisonAudit(cr, BigDecimal.valueOf(0.03), BigDecimal.valueOf(0.1),
+                                     BigDecimal.valueOf(1.03905),
+                                     AuditReason.COUNTY_WIDE_CONTEST));
+    }
+  }
+
+  private CastVoteRecord record(final RecordType the_type, final List<CVRContestInfo> the_info) {
+    final CastVoteRecord cvr =
+        new CastVoteRecord(the_type, Instant.now(), 1L, 1, 1, 1, "Batch1", 1, "1-Batch1-1",
+                           "paper", the_info);
+    cvr.setID(next_id);
+    next_id = next_id + 1;
+    return cvr;
+  }
+
+  private List<CVRContestInfo> randomInfo(final Random the_random, final boolean the_audited) {
+    final List<CVRContestInfo> result = new ArrayList<>();
+    for (final Contest contest : contests) {
+      if (the_random.nextInt(3) == 0) {
+        final ConsensusValue consensus;
+        if (the_audited) {
+          consensus = the_random.nextInt(4) == 0 ? ConsensusValue.NO : ConsensusValue.YES;
+        } else {
+          consensus = null;
+        }
+        result.add(new CVRContestInfo(contest, null, consensus,
+                                      List.of(CHOICES.get(the_random.nextInt(CHOICES.size())))));
+      }
+    }
+    return result;
+  }
+
+  private static boolean hasContest(final CastVoteRecord the_record, final ComparisonAudit the_audit) {
+    return the_record.contestInfoForContestResult(the_audit.contestResult()).isPresent();
+  }
+
+  @Test()
+  public void skippedAuditsAreUnaffected() {
+    final Random random = new Random(1L);
+    final List<CastVoteRecord> cvrs = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      cvrs.add(record(RecordType.UPLOADED, randomInfo(random, false)));
+    }
+    for (final ComparisonAudit audit : audits) {
+      final List<Long> selected = new ArrayList<>();
+      for (int i = 0; i < 30; i++) {
+        selected.add(cvrs.get(random.nextInt(cvrs.size())).id());
+      }
+      audit.addContestCVRIds(selected);
+    }
+
+    final AuditIndex index = new AuditIndex(audits);
+    assertEquals(index.all(), audits);
+    int skipped = 0;
+    for (final CastVoteRecord cvr : cvrs) {
+      final CastVoteRecord acvr = record(RecordType.AUDITOR_ENTERED, randomInfo(random, true));
+      final List<ComparisonAudit> found = index.auditsFor(cvr, acvr);
+
+      final List<ComparisonAudit> in_order = new ArrayList<>(audits);
+      in_order.retainAll(found);
+      assertEquals(found, in_order);
+
+      for (final ComparisonAudit audit : audits) {
+        if (!found.contains(audit)) {
+          skipped = skipped + 1;
+          assertEquals(audit.multiplicity(cvr.id()), 0);
+          assertFalse(audit.computeDiscrepancy(cvr, acvr).isPresent());
+          assertFalse(hasContest(acvr, audit));
+        }
+      }
+      assertEquals(index.auditsFor(cvr, null).isEmpty(),
+                   audits.stream().noneMatch(a -> a.multiplicity(cvr.id()) > 0 ||
+                                                  hasContest(cvr, a)));
+    }
+    assertTrue(skipped > 0);
+  }
+
+  @Test()
+  public void laterSelectionsAreSeen() {
+    final AuditIndex index = new AuditIndex(audits);
+    final CastVoteRecord cvr = record(RecordType.UPLOADED, new ArrayList<>());
+    assertTrue(index.auditsFor(cvr, null).isEmpty());
+
+    // a new round selects the CVR for one audit
+    audits.get(2).addContestCVRIds(List.of(cvr.id()));
+    assertEquals(index.auditsFor(cvr, null), List.of(audits.get(2)));
+  }
+
+  @Test()
+  public void phantomsAffectEveryAudit() {
+    final AuditIndex index = new AuditIndex(audits);
+    final CastVoteRecord cvr = record(RecordType.UPLOADED, new ArrayList<>());
+    final CastVoteRecord phantom_ballot = record(RecordType.PHANTOM_BALLOT, new ArrayList<>());
+    final CastVoteRecord phantom_record = record(RecordType.PHANTOM_RECORD, new ArrayList<>());
+    final CastVoteRecord acvr = record(RecordType.AUDITOR_ENTERED, new ArrayList<>());
+
+    assertTrue(index.auditsFor(cvr, acvr).isEmpty());
+    assertEquals(index.auditsFor(cvr, phantom_ballot), audits);
+    assertEquals(index.auditsFor(phantom_record, acvr), audits);
+    for (final ComparisonAudit audit : audits) {
+      assertTrue(audit.computeDiscrepancy(cvr, phantom_ballot).isPresent());
+      assertTrue(audit.computeDiscrepancy(phantom_record, acvr).isPresent());
+    }
+  }
+}
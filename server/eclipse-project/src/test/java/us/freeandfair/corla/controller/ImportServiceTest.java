@@ -0,0 +1,185 @@
+package us.freeandfair.corla.controller;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ImportServiceTest {
+
+  private ImportService service;
+
+  @BeforeMethod
+  public void setUp() {
+    service = new ImportService(2, 5);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    service.shutdown();
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(10, TimeUnit.SECONDS), "timed out");
+    } catch (final InterruptedException e) {
+      fail("interrupted");
+    }
+  }
+
+  private static void awaitFinished(final ImportJob job) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + 10000;
+    while (!job.state().isFinished()) {
+      assertTrue(System.currentTimeMillis() < deadline, "job did not finish");
+      Thread.sleep(5);
+    }
+  }
+
+  @Test()
+  public void runsNoMoreThanThreadsAtOnce() throws InterruptedException {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger most = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(2);
+    final List<ImportJob> jobs = new ArrayList<>();
+    for (long county = 1; county <= 4; county++) {
+      final ImportJob job = service.submit(county, county, null, j -> {
+        most.accumulateAndGet(running.incrementAndGet(), Math::max);
+        started.countDown();
+        await(release);
+        running.decrementAndGet();
+      });
+      service.start(job);
+      jobs.add(job);
+    }
+    await(started);
+    Thread.sleep(50);
+    assertEquals(running.get(), 2);
+    release.countDown();
+    for (final ImportJob job : jobs) {
+      awaitFinished(job);
+      assertEquals(job.state(), ImportJob.State.SUCCEEDED);
+    }
+    assertEquals(most.get(), 2);
+  }
+
+  @Test()
+  public void runsOneCountyInOrder() throws InterruptedException {
+    final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<ImportJob> jobs = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final int n = i;
+      final ImportJob job = service.submit(7L, (long) i, null, j -> {
+        if (n == 0) {
+          await(release);
+        }
+        order.add(n);
+      });
+      service.start(job);
+      jobs.add(job);
+    }
+    Thread.sleep(50);
+    assertEquals(jobs.get(0).state(), ImportJob.State.RUNNING);
+    assertEquals(jobs.get(1).state(), ImportJob.State.QUEUED);
+    assertEquals(jobs.get(2).state(), ImportJob.State.QUEUED);
+    release.countDown();
+    awaitFinished(jobs.get(2));
+    assertEquals(order, List.of(0, 1, 2));
+  }
+
+  @Test()
+  public void refusesBeyondCapacity() throws InterruptedException {
+    final List<ImportJob> jobs = new ArrayList<>();
+    for (long i = 0; i < 5; i++) {
+      jobs.add(service.submit(i, i, null, j -> { }));
+    }
+    try {
+      service.submit(9L, 9L, null, j -> { });
+      fail("capacity exceeded");
+    } catch (final RejectedExecutionException e) {
+      // expected
+    }
+
+    // a discarded job gives up its place
+    service.discard(jobs.get(4));
+    assertEquals(jobs.get(4).state(), ImportJob.State.CANCELLED);
+    assertFalse(service.job(jobs.get(4).id()).isPresent());
+    service.discard(jobs.get(4));
+    service.submit(9L, 9L, null, j -> { });
+
+    // and a finished one gives up its place
+    service.start(jobs.get(0));
+    awaitFinished(jobs.get(0));
+    service.submit(10L, 10L, null, j -> { });
+  }
+
+  @Test()
+  public void cancelledJobFailsAndNextRuns() throws InterruptedException {
+    final CountDownLatch started = new CountDownLatch(1);
+    final ImportJob first = service.submit(3L, 1L, 100L, j -> {
+      j.addBytesRead(10);
+      started.countDown();
+      while (!j.cancelRequested()) {
+        Thread.onSpinWait();
+      }
+      j.fail("import cancelled");
+    });
+    final ImportJob second = service.submit(3L, 2L, null, j -> { });
+    service.start(first);
+    service.start(second);
+    await(started);
+    assertEquals(first.bytesRead(), 10L);
+    assertTrue(service.cancel(first.id()).isPresent());
+    assertFalse(service.cancel(999L).isPresent());
+    awaitFinished(second);
+    assertEquals(first.state(), ImportJob.State.CANCELLED);
+    assertEquals(first.failure(), "import cancelled");
+    assertEquals(second.state(), ImportJob.State.SUCCEEDED);
+    assertEquals(service.jobs(3L).size(), 2);
+  }
+
+  @Test()
+  public void throwingTaskFails() throws InterruptedException {
+    final ImportJob job = service.submit(4L, 1L, null, j -> {
+      j.trackRows(() -> 12);
+      throw new IllegalStateException("broken");
+    });
+    service.start(job);
+    awaitFinished(job);
+    assertEquals(job.state(), ImportJob.State.FAILED);
+    assertEquals(job.rowsProcessed(), 12);
+    assertTrue(job.failure().contains("broken"));
+  }
+
+  @Test()
+  public void erroringTaskFailsAndNextRuns() throws InterruptedException {
+    final ImportJob first = service.submit(5L, 1L, null, j -> {
+      throw new OutOfMemoryError("no room");
+    });
+    final ImportJob second = service.submit(5L, 2L, null, j -> { });
+    service.start(first);
+    service.start(second);
+    awaitFinished(second);
+    assertEquals(first.state(), ImportJob.State.FAILED);
+    assertTrue(first.failure().contains("no room"));
+    assertEquals(second.state(), ImportJob.State.SUCCEEDED);
+
+    // both places have been given up
+    for (long i = 0; i < 5; i++) {
+      service.submit(i, i, null, j -> { });
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package us.freeandfair.corla.controller;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.Test;
+
+import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
+import us.freeandfair.corla.model.LogEntry;
+import us.freeandfair.corla.persistence.Persistence;
+
+/**
+ * Checks that an import that dies with its transaction open does not leave
+ * that transaction for the next import on the same thread to commit.
+ */
+@Test(groups = {"integration"})
+public class ImportServiceTransactionTest extends TestClassWithDatabase {
+
+  @Test()
+  public void abandonedTransactionIsRolledBack() throws InterruptedException {
+    final String information = "abandoned by import " + System.nanoTime();
+    final AtomicBoolean joined = new AtomicBoolean(true);
+    final ImportService service = new ImportService(1, 5);
+    try {
+      final ImportJob first = service.submit(1L, 1L, null, j -> {
+        Persistence.beginTransaction();
+        Persistence.save(new LogEntry(200, information, "test", "localhost", Instant.now(), null));
+        throw new OutOfMemoryError("no room");
+      });
+      final ImportJob second = service.submit(2L, 2L, null, j -> {
+        joined.set(!Persistence.beginTransaction());
+        Persistence.commitTransaction();
+      });
+      service.start(first);
+      service.start(second);
+
+      final long deadline = System.currentTimeMillis() + 10000;
+      while (!second.state().isFinished()) {
+        assertTrue(System.currentTimeMillis() < deadline, "job did not finish");
+        Thread.sleep(5);
+      }
+      assertEquals(first.state(), ImportJob.State.FAILED);
+      assertEquals(second.state(), ImportJob.State.SUCCEEDED);
+    } finally {
+      service.shutdown();
+    }
+
+    assertFalse(joined.get());
+    final long saved = Persistence.currentSession()
+        .createQuery("select count(e) from LogEntry e where e.my_information = :info", Long.class)
+        .setParameter("info", information).getSingleResult();
+    assertEquals(saved, 0L);
+  }
+}
@@ -0,0 +1,196 @@
+package us.freeandfair.corla.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.controller.BallotSelection.Draw;
+import us.freeandfair.corla.controller.BallotSelection.Selection;
+import us.freeandfair.corla.crypto.PseudoRandomNumberGenerator;
+import us.freeandfair.corla.model.BallotManifestInfo;
+import us.freeandfair.corla.model.ContestResult;
+import us.freeandfair.corla.model.Tribute;
+
+/**
+ * Checks that drawing several contests' selections in parallel gives the
+ * selections that drawing them one at a time, as randomSelection used to,
+ * gives.
+ */
+public class ParallelSelectionTest {
+  /**
+   * Class-wide logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger(ParallelSelectionTest.class);
+
+  /**
+   * A seed for the PRNG.
+   */
+  private static final String SEED = "24681357913578642097";
+
+  /**
+   * The manifests of all the counties; the entries are shared by every
+   * contest, as the entities of one session are.
+   */
+  private static Set<BallotManifestInfo> manifests(final Random the_random,
+                                                   final int the_counties) {
+    final Set<BallotManifestInfo> result = new TreeSet<>(new BallotManifestInfo.Sort());
+    for (long county = 1; county <= the_counties; county++) {
+      long sequence = 1;
+      for (int batch = 0; batch < 50 + the_random.nextInt(50); batch++) {
+        final int size = 1 + the_random.nextInt(400);
+        result.add(new BallotManifestInfo(county, 1 + batch % 3, String.valueOf(batch), size,
+                                          "bin-" + batch, sequence, sequence + size - 1));
+        sequence = sequence + size;
+      }
+    }
+    return result;
+  }
+
+  private static Set<BallotManifestInfo> inCounties(final Set<BallotManifestInfo> the_bmis,
+                                                    final Set<Long> the_county_ids) {
+    final Set<BallotManifestInfo> result = new TreeSet<>(new BallotManifestInfo.Sort());
+    for (final BallotManifestInfo bmi : the_bmis) {
+      if (the_county_ids.contains(bmi.countyID())) {
+        result.add(bmi);
+      }
+    }
+    return result;
+  }
+
+  /** The contests, each in a random subset of the counties. */
+  private static List<Draw> draws(final Random the_random, final Set<BallotManifestInfo> the_bmis,
+                                  final int the_counties, final int the_contests,
+                                  final int the_samples) {
+    final List<Draw> result = new ArrayList<>();
+    for (int contest = 0; contest < the_contests; contest++) {
+      final Set<Long> county_ids = new TreeSet<>();
+      county_ids.add(1L + the_random.nextInt(the_counties));
+      for (long county = 1; county <= the_counties; county++) {
+        if (the_random.nextInt(3) == 0) {
+          county_ids.add(county);
+        }
+      }
+      final int start = the_random.nextInt(the_samples);
+      final Draw draw = new Draw(new ContestResult("Contest " + contest), start,
+                                 contest == 0 ? start - 1 : start + the_samples);
+      draw.contestName = draw.contestResult.getContestName();
+      draw.countyIds = county_ids;
+      draw.bmis = inCounties(the_bmis, county_ids);
+      draw.domainSize =
+          (int) draw.bmis.stream().mapToLong(bmi -> bmi.rangeSize() + 1L).sum();
+      result.add(draw);
+    }
+    return result;
+  }
+
+  /** A selection as randomSelection used to make it, on the shared entries. */
+  private static Selection sequentialSelection(final Draw the_draw) {
+    final Selection selection = new Selection();
+    selection.contestResult = the_draw.contestResult;
+    if (the_draw.minIndex > the_draw.maxIndex) {
+      return selection;
+    }
+    final PseudoRandomNumberGenerator gen =
+        new PseudoRandomNumberGenerator(SEED, true, 1, the_draw.domainSize);
+    selection.contestName = the_draw.contestName;
+    selection.domainSize = the_draw.domainSize;
+    selection.generatedNumbers = gen.getRandomNumbers(the_draw.minIndex, the_draw.maxIndex);
+    BallotSelection.selectTributes(selection, the_draw.countyIds, the_draw.bmis);
+    return selection;
+  }
+
+  private static void assertSameSelection(final Selection the_actual,
+                                          final Selection the_expected) {
+    assertSame(the_actual.contestResult, the_expected.contestResult);
+    assertEquals(the_actual.contestName, the_expected.contestName);
+    assertEquals(the_actual.domainSize, the_expected.domainSize);
+    assertEquals(the_actual.generatedNumbers, the_expected.generatedNumbers);
+    assertEquals(the_actual.segments.keySet(), the_expected.segments.keySet());
+    for (final Long county_id : the_expected.segments.keySet()) {
+      final List<Tribute> actual = the_actual.forCounty(county_id).tributes;
+      final List<Tribute> expected = the_expected.forCounty(county_id).tributes;
+      assertEquals(actual.size(), expected.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(actual.get(i).countyId, expected.get(i).countyId);
+        assertEquals(actual.get(i).scannerId, expected.get(i).scannerId);
+        assertEquals(actual.get(i).batchId, expected.get(i).batchId);
+        assertEquals(actual.get(i).ballotPosition, expected.get(i).ballotPosition);
+        assertEquals(actual.get(i).rand, expected.get(i).rand);
+        assertEquals(actual.get(i).randSequencePosition, expected.get(i).randSequencePosition);
+        assertEquals(actual.get(i).contestName, expected.get(i).contestName);
+        assertEquals(actual.get(i).uri, expected.get(i).uri);
+      }
+    }
+  }
+
+  @Test()
+  public void parallelSelectionsMatchSequential() {
+    final Random random = new Random(1L);
+    for (int fixture = 0; fixture < 5; fixture++) {
+      final int counties = 2 + random.nextInt(8);
+      final Set<BallotManifestInfo> bmis = manifests(random, counties);
+      final List<Draw> draws = draws(random, bmis, counties, 12, 300);
+
+      final List<Selection> expected = new ArrayList<>();
+      for (final Draw draw : draws) {
+        expected.add(sequentialSelection(draw));
+      }
+      // as gather does, each draw gets its own copy of the shared entries
+      for (final Draw draw : draws) {
+        draw.bmis = BallotSelection.copyManifests(draw.bmis);
+      }
+      final List<Selection> actual = BallotSelection.drawSelections(draws, SEED);
+
+      assertEquals(actual.size(), expected.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertSameSelection(actual.get(i), expected.get(i));
+      }
+    }
+  }
+
+  @Test()
+  public void copiesLeaveTheOriginalsAlone() {
+    final Set<BallotManifestInfo> bmis = manifests(new Random(2L), 3);
+    final Set<BallotManifestInfo> copies = BallotSelection.copyManifests(bmis);
+    BallotSelection.projectUltimateSequence(copies);
+
+    assertEquals(new ArrayList<>(copies), new ArrayList<>(bmis));
+    for (final BallotManifestInfo bmi : bmis) {
+      assertNull(bmi.ultimateSequenceStart);
+    }
+  }
+
+  @Test()
+  public void parallelSelectionTiming() {
+    final Random random = new Random(3L);
+    final int counties = 8;
+    final Set<BallotManifestInfo> bmis = manifests(random, counties);
+    final List<Draw> draws = draws(random, bmis, counties, 16, 20000);
+
+    final long sequential_start = System.nanoTime();
+    for (final Draw draw : draws) {
+      sequentialSelection(draw);
+    }
+    final long sequential = System.nanoTime() - sequential_start;
+
+    for (final Draw draw : draws) {
+      draw.bmis = BallotSelection.copyManifests(draw.bmis);
+    }
+    final long parallel_start = System.nanoTime();
+    BallotSelection.drawSelections(draws, SEED);
+    final long parallel = System.nanoTime() - parallel_start;
+
+    LOGGER.info(String.format("%d contests: sequential %d ms, parallel %d ms (%.1fx) on %d cores",
+                              draws.size(), sequential / 1000000, parallel / 1000000,
+                              (double) sequential / parallel,
+                              Runtime.getRuntime().availableProcessors()));
+  }
+}
@@ -0,0 +1,104 @@
+package us.freeandfair.corla.controller;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.Round;
+
+/**
+ * Checks that the previously audited flags ballotsToAudit sets from the
+ * previous rounds' ballot sequences are the ones it used to set by fetching
+ * the previous rounds' CVRs.
+ */
+public class PreviousBallotIDsTest {
+  private static final Instant NOW = Instant.now();
+
+  private static CastVoteRecord cvr(final long the_id) {
+    final CastVoteRecord cvr =
+        new CastVoteRecord(RecordType.UPLOADED, NOW, 1L, (int) the_id, (int) the_id, 1,
+                           "Batch1", (int) the_id, "1-Batch1-" + the_id, "paper", null);
+    cvr.setID(the_id);
+    return cvr;
+  }
+
+  private static Round round(final int the_number, final List<Long> the_sequence) {
+    return new Round(the_number, NOW, the_sequence.size(), 0, 0, 0,
+                     the_sequence, new ArrayList<>(the_sequence));
+  }
+
+  /** The flags as ballotsToAudit used to compute them. */
+  private static Map<Long, Boolean> referenceFlags(final List<Round> the_rounds,
+                                                   final int the_round_number,
+                                                   final Map<Long, CastVoteRecord> the_cvrs) {
+    final Set<CastVoteRecord> previousCvrs = new HashSet<>();
+    for (int i = 1; i < the_round_number; i++) {
+      for (final Long id : the_rounds.get(i - 1).ballotSequence()) {
+        previousCvrs.add(the_cvrs.get(id));
+      }
+    }
+    final Map<Long, Boolean> result = new HashMap<>();
+    for (final Long id : the_rounds.get(the_round_number - 1).ballotSequence()) {
+      result.put(id, previousCvrs.contains(the_cvrs.get(id)));
+    }
+    return result;
+  }
+
+  private static Map<Long, Boolean> flags(final List<Round> the_rounds,
+                                          final int the_round_number) {
+    final Set<Long> previous =
+        ComparisonAuditController.previousBallotIDs(the_rounds, the_round_number);
+    final Map<Long, Boolean> result = new HashMap<>();
+    for (final Long id : the_rounds.get(the_round_number - 1).ballotSequence()) {
+      result.put(id, previous.contains(id));
+    }
+    return result;
+  }
+
+  @Test()
+  public void multiRoundFlagsMatch() {
+    final Random random = new Random(1L);
+    final Map<Long, CastVoteRecord> cvrs = new HashMap<>();
+    for (long id = 1; id <= 400; id++) {
+      cvrs.put(id, cvr(id));
+    }
+
+    for (int scenario = 0; scenario < 20; scenario++) {
+      final List<Round> rounds = new ArrayList<>();
+      final int round_count = 1 + random.nextInt(5);
+      for (int r = 1; r <= round_count; r++) {
+        final Set<Long> sequence = new HashSet<>();
+        final int size = random.nextInt(60);
+        for (int i = 0; i < size; i++) {
+          sequence.add(1L + random.nextInt(cvrs.size()));
+        }
+        rounds.add(round(r, new ArrayList<>(sequence)));
+      }
+      for (int r = 1; r <= round_count; r++) {
+        assertEquals(flags(rounds, r), referenceFlags(rounds, r, cvrs));
+      }
+    }
+  }
+
+  @Test()
+  public void firstRoundHasNoPreviousBallots() {
+    final List<Round> rounds = new ArrayList<>();
+    rounds.add(round(1, List.of(1L, 2L)));
+    rounds.add(round(2, List.of(2L, 3L)));
+
+    assertTrue(ComparisonAuditController.previousBallotIDs(rounds, 1).isEmpty());
+    assertEquals(ComparisonAuditController.previousBallotIDs(rounds, 2), Set.of(1L, 2L));
+    assertEquals(ComparisonAuditController.previousBallotIDs(rounds, 3), Set.of(1L, 2L, 3L));
+  }
+}
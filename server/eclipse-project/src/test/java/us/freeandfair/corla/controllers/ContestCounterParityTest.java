@@ -0,0 +1,92 @@
+package us.freeandfair.corla.controllers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.controller.ContestCounter;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.ContestResult;
+import us.freeandfair.corla.model.CountyContestResult;
+import us.freeandfair.corla.persistence.Persistence;
+import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
+
+/**
+ * Checks that countAllContests, which has the database sum the votes and
+ * count the ballots, gives the contest results that counting each contest
+ * from its loaded county results gives.
+ */
+@Test(groups = {"integration"})
+public class ContestCounterParityTest extends TestClassWithDatabase {
+
+  @BeforeClass
+  public void beforeAllThisClass() {
+    runSQLSetupScript("SQL/co-counties.sql");
+    runSQLSetupScript("SQL/corla-three-candidates-ten-votes-plus-plurality.sql");
+  }
+
+  /** What counting sets on a contest result, copied so later counts can't change it. */
+  private static List<Object> snapshot(final ContestResult the_result) {
+    final List<Object> result = new ArrayList<>();
+    result.add(the_result.getContestName());
+    result.add(new HashMap<>(the_result.getVoteTotals()));
+    result.add(the_result.winnersAllowed());
+    result.add(new TreeSet<>(the_result.getWinners()));
+    result.add(new TreeSet<>(the_result.getLosers()));
+    result.add(the_result.getMinMargin());
+    result.add(the_result.getMaxMargin());
+    result.add(the_result.getBallotCount());
+    result.add(the_result.getDilutedMargin());
+    result.add(the_result.getContests().stream().map(Contest::id)
+               .collect(Collectors.toCollection(TreeSet::new)));
+    result.add(new TreeSet<>(the_result.countyIDs()));
+    return result;
+  }
+
+  /** The contests as countAllContests used to count them. */
+  private static List<List<Object>> referenceCount(final boolean the_use_manifests) {
+    return Persistence.getAll(CountyContestResult.class)
+      .stream()
+      .collect(Collectors.groupingBy(x -> x.contest().name()))
+      .entrySet()
+      .stream()
+      .map((Entry<String, List<CountyContestResult>> ccrs) ->
+           snapshot(ContestCounter.countContest(ccrs, the_use_manifests)))
+      .collect(Collectors.toList());
+  }
+
+  private static Map<Object, List<Object>> byName(final List<List<Object>> the_snapshots) {
+    final Map<Object, List<Object>> result = new HashMap<>();
+    the_snapshots.forEach(s -> result.put(s.get(0), s));
+    return result;
+  }
+
+  @Test()
+  public void countsMatchWithManifests() {
+    final List<List<Object>> expected = referenceCount(true);
+    final List<List<Object>> actual = ContestCounter.countAllContests(true).stream()
+      .map(ContestCounterParityTest::snapshot).collect(Collectors.toList());
+
+    assertFalse(expected.isEmpty());
+    assertEquals(byName(actual), byName(expected));
+  }
+
+  @Test()
+  public void countsMatchWithCVRs() {
+    final List<List<Object>> expected = referenceCount(false);
+    final List<List<Object>> actual = ContestCounter.countAllContests(false).stream()
+      .map(ContestCounterParityTest::snapshot).collect(Collectors.toList());
+
+    assertFalse(expected.isEmpty());
+    assertEquals(byName(actual), byName(expected));
+  }
+}
@@ -11,10 +11,14 @@
 
 package us.freeandfair.corla.crypto;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.List;
 
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 /**
@@ -56,4 +60,87 @@ public class PseudoRandomNumberGeneratorTest {
     Assert.assertEquals((Long)violations, (Long)0L);
 
   }
+
+  /**
+   * Golden vectors, recorded from the original LinkedList-based generator:
+   * the seed, replacement, minimum and maximum, the range of indices drawn,
+   * the first five numbers drawn, and the SHA-256 of all the numbers drawn,
+   * each followed by a comma.
+   */
+  @DataProvider(name = "golden")
+  public Object[][] golden() {
+    return new Object[][] {
+      {"3546311556112163624615351222", true, 1, 876, 0, 999999,
+       Arrays.asList(740, 180, 264, 789, 238),
+       "b83e2060692c5ea1c7bc25737e74a3a5bb08a6e4b5291e79392e17ecdaf69e99"},
+      {"12345678901234567890", true, 1, 1000000, 0, 999999,
+       Arrays.asList(729426, 940921, 282929, 264056, 191438),
+       "7cce220d4b177c504e8a0df45b010d649b6344619da6b883a09c059cef46a45c"},
+      {"314159265358979323846264338327950288419716939937510", true, 1, Integer.MAX_VALUE,
+       0, 99999,
+       Arrays.asList(557996229, 669704194, 900954981, 588986765, 2125493029),
+       "bea28d303bd608fb5fb81f40d599b8df8cb2ab6893a206ff2911dade5cb241c0"},
+      {"98765432109876543210123", false, 1, 100000, 0, 9999,
+       Arrays.asList(74145, 92480, 46827, 58015, 22424),
+       "3eb012c601e2ee4ba7d6c8171cd8d964b140294ddb6106170491dc5b227fb894"},
+      {"27182818284590452353602874713527", false, 1, 50000, 0, 19999,
+       Arrays.asList(47130, 1245, 22524, 20629, 20560),
+       "70235435bbc5c19440d0c5b8163b333ad8222f4f2cf88b8f4eb4f6d1061db868"},
+      {"11111111112222222222", false, 17, 20000, 1000, 3999,
+       Arrays.asList(18179, 4727, 17808, 5405, 3871),
+       "bdc8c38c1c0eb3cbb8bec9ab043ccc9efd5c55d8a494ddf192cadc1298ce6b2a"},
+    };
+  }
+
+  /**
+   * The generator draws exactly the numbers the original generator drew.
+   */
+  @Test(dataProvider = "golden")
+  public void testGoldenVectors(final String seed, final boolean withReplacement,
+                                final int min, final int max, final int from, final int to,
+                                final List<Integer> first, final String sha256)
+      throws NoSuchAlgorithmException {
+    final PseudoRandomNumberGenerator gen =
+        new PseudoRandomNumberGenerator(seed, withReplacement, min, max);
+    final List<Integer> numbers = gen.getRandomNumbers(from, to);
+
+    Assert.assertEquals(numbers.size(), to - from + 1);
+    Assert.assertEquals(numbers.subList(0, first.size()), first);
+    Assert.assertEquals(sha256(numbers), sha256);
+  }
+
+  /**
+   * Drawing in several overlapping requests gives the same numbers as
+   * drawing them all at once, and without replacement never repeats.
+   */
+  @Test()
+  public void testIncrementalDraws() {
+    final String seed = "98765432109876543210123";
+    final List<Integer> all =
+        new PseudoRandomNumberGenerator(seed, false, 1, 1000).getRandomNumbers(0, 499);
+
+    final PseudoRandomNumberGenerator gen =
+        new PseudoRandomNumberGenerator(seed, false, 1, 1000);
+    Assert.assertEquals(gen.getRandomNumbers(10, 19), all.subList(10, 20));
+    Assert.assertEquals(gen.getRandomNumbers(0, 99), all.subList(0, 100));
+    Assert.assertEquals(gen.getRandomNumbers(90, 499), all.subList(90, 500));
+    Assert.assertEquals(all.stream().distinct().count(), (long) all.size());
+  }
+
+  /**
+   * @return the hex SHA-256 of the numbers, each followed by a comma.
+   */
+  private String sha256(final List<Integer> numbers) throws NoSuchAlgorithmException {
+    final StringBuilder input = new StringBuilder();
+    for (final Integer n : numbers) {
+      input.append(n).append(',');
+    }
+    final byte[] hash = MessageDigest.getInstance("SHA-256")
+        .digest(input.toString().getBytes(StandardCharsets.UTF_8));
+    final StringBuilder hex = new StringBuilder();
+    for (final byte b : hash) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
 }
@@ -0,0 +1,115 @@
+package us.freeandfair.corla.csv;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static us.freeandfair.corla.query.CountyQueries.fromString;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.CountyDashboard;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.util.DashboardCache;
+
+/**
+ * Checks that a dashboard poll made while a CVR import is still running
+ * sees the import's progress, rather than the response cached before it.
+ */
+@Test(groups = {"integration"})
+public class DominionCVRExportParserDashboardTest extends TestClassWithDatabase {
+
+  @BeforeClass
+  public void beforeAllThisClass() {
+    runSQLSetupScript("SQL/co-counties.sql");
+  }
+
+  /**
+   * Every dashboard commit during the import changes the county dashboard's
+   * ETag, so polls made part way through get fresh responses.
+   */
+  @Test
+  public void midImportPollGetsNewETag() throws IOException {
+    final County county = fromString("Gilpin");
+    final String key = "county-" + county.id();
+    final List<String> etags = new ArrayList<>();
+    final List<Integer> imported = new ArrayList<>();
+
+    final Properties properties = new Properties();
+    properties.setProperty(DominionCVRExportParser.PIPELINE_PROPERTY, "false");
+    properties.setProperty(DominionCVRExportParser.BATCH_SIZE_PROPERTY, "7");
+    properties.setProperty(DominionCVRExportParser.TRANSACTION_SIZE_PROPERTY, "20");
+
+    final Result result;
+    try (Reader file = Files.newBufferedReader(Paths.get(
+             "src/test/resources/CSVs/PluralityOnly/Plurality100votes2And10Margins.csv"));
+         Reader reader = new PollingReader(file, () -> {
+           // poll as the county dashboard refresh does
+           final DashboardCache.Entry entry = DashboardCache.get(key, "", () -> {
+             final CountyDashboard cdb = Persistence.getByID(county.id(), CountyDashboard.class);
+             return String.valueOf(cdb.cvrsImported());
+           });
+           if (etags.isEmpty() || !etags.get(etags.size() - 1).equals(entry.etag())) {
+             etags.add(entry.etag());
+             imported.add(Integer.valueOf(entry.json()));
+           }
+         })) {
+      result = new DominionCVRExportParser(reader, county, properties, true).parse();
+    }
+
+    assertTrue(result.success);
+    assertEquals(result.importedCount.intValue(), 100);
+    // one ETag from before the first commit, and a new one after each of the
+    // dashboard commits at 20, 40, 60 and 80 CVRs
+    final Set<String> distinct = new LinkedHashSet<>(etags);
+    assertEquals(distinct.size(), etags.size());
+    assertTrue(etags.size() >= 5, "ETags seen during the import: " + etags);
+    assertTrue(imported.get(imported.size() - 1) > 0, "progress seen: " + imported);
+  }
+
+  /**
+   * A reader that hands out a few characters at a time, polling before each
+   * read, so that the polls are spread through the import.
+   */
+  private static final class PollingReader extends FilterReader {
+    /**
+     * The most characters handed out by one read.
+     */
+    private static final int CHUNK = 32;
+
+    /**
+     * The poll.
+     */
+    private final Runnable my_poll;
+
+    PollingReader(final Reader the_reader, final Runnable the_poll) {
+      super(the_reader);
+      my_poll = the_poll;
+    }
+
+    @Override
+    public int read(final char[] the_buffer, final int the_offset, final int the_length)
+        throws IOException {
+      my_poll.run();
+      return super.read(the_buffer, the_offset, Math.min(the_length, CHUNK));
+    }
+
+    @Override
+    public int read() throws IOException {
+      my_poll.run();
+      return super.read();
+    }
+  }
+}
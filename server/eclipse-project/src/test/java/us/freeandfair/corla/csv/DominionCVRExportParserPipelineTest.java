@@ -0,0 +1,192 @@
+package us.freeandfair.corla.csv;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static us.freeandfair.corla.query.CountyQueries.fromString;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.CountyContestResult;
+import us.freeandfair.corla.persistence.Persistence;
+import us.freeandfair.corla.query.CountyContestResultQueries;
+
+/**
+ * Checks that the pipelined (reader/worker/COPY) CVR import writes exactly
+ * what the one-CVR-at-a-time Hibernate import writes, for the Dominion
+ * fixtures. Each fixture is imported into two different counties, once
+ * through each path, and the county-independent contents of the CVR tables
+ * and the county contest results are compared.
+ */
+@Test(groups = {"integration"})
+public class DominionCVRExportParserPipelineTest extends TestClassWithDatabase {
+
+  /**
+   * The CVR rows for a county, without database IDs or the county itself.
+   */
+  private static final String CVR_ROWS =
+      "SELECT cvr.cvr_number, cvr.sequence_number, cvr.scanner_id, cvr.batch_id, "
+      + "cvr.record_id, cvr.imprinted_id, cvr.ballot_type, cvr.record_type, cvr.version, "
+      + "replace(cvr.uri, ':' || cvr.county_id || ':', ':'), ci.index, co.name, ci.choices, "
+      + "ci.comment, ci.consensus, ci.county_id = cvr.county_id "
+      + "FROM cast_vote_record cvr "
+      + "LEFT JOIN cvr_contest_info ci ON ci.cvr_id = cvr.id "
+      + "LEFT JOIN contest co ON co.id = ci.contest_id "
+      + "WHERE cvr.county_id = :county "
+      + "ORDER BY cvr.sequence_number, ci.index";
+
+  /**
+   * The IRV ballot interpretation rows for a county, without database IDs.
+   */
+  private static final String INTERPRETATION_ROWS =
+      "SELECT co.name, i.cvr_number, i.imprinted_id, i.record_type, i.raw_choices, "
+      + "i.interpretation FROM irv_ballot_interpretation i "
+      + "JOIN contest co ON co.id = i.contest_id "
+      + "WHERE co.county_id = :county "
+      + "ORDER BY i.cvr_number, co.name";
+
+  @BeforeClass
+  public void beforeAllThisClass() {
+    runSQLSetupScript("SQL/co-counties.sql");
+  }
+
+  /**
+   * @return the fixtures, each with the county to import it into through
+   * Hibernate and the county to import it into through the pipeline.
+   */
+  @DataProvider(name = "fixtures")
+  public Object[][] fixtures() {
+    return new Object[][] {
+      {"../../test/dominion-2017-CVR_Export_20170310104116.csv", "Adams", "Alamosa"},
+      {"../../test/Denver2016Test/CVR_Export_20170804111144.csv", "Arapahoe", "Archuleta"},
+      {"src/test/resources/CSVs/PluralityOnly/Plurality100votes2And10Margins.csv",
+       "Baca", "Bent"},
+      {"src/test/resources/CSVs/Tiny-IRV-Examples/ThreeCandidatesTenInvalidVotes.csv",
+       "Boulder", "Broomfield"},
+      {"src/test/resources/CSVs/Tiny-IRV-Examples/ThreeCandidatesTenVotesPlusPluralityPlusSTV.csv",
+       "Chaffee", "Cheyenne"},
+    };
+  }
+
+  /**
+   * The pipelined import writes the same CVRs, contest information, IRV
+   * interpretations and county contest results as the Hibernate import.
+   */
+  @Test(dataProvider = "fixtures")
+  public void pipelineMatchesHibernateImport(final String the_path,
+                                             final String the_hibernate_county,
+                                             final String the_pipeline_county)
+      throws IOException {
+    final County hibernate_county = fromString(the_hibernate_county);
+    final County pipeline_county = fromString(the_pipeline_county);
+
+    final Result hibernate_result = importFile(the_path, hibernate_county, false);
+    final Result pipeline_result = importFile(the_path, pipeline_county, true);
+
+    assertTrue(hibernate_result.success);
+    assertTrue(pipeline_result.success);
+    assertEquals(pipeline_result.importedCount, hibernate_result.importedCount);
+
+    final List<String> hibernate_rows = rows(CVR_ROWS, hibernate_county);
+    assertFalse(hibernate_rows.isEmpty());
+    assertEquals(rows(CVR_ROWS, pipeline_county), hibernate_rows);
+    assertEquals(rows(INTERPRETATION_ROWS, pipeline_county),
+                 rows(INTERPRETATION_ROWS, hibernate_county));
+    assertEquals(results(pipeline_county), results(hibernate_county));
+  }
+
+  /**
+   * A bad line stops the pipelined import with the same error the Hibernate
+   * import reports.
+   */
+  @Test
+  public void pipelineReportsBadLineLikeHibernateImport() throws IOException {
+    final List<String> lines = Files.readAllLines(
+        Paths.get("src/test/resources/CSVs/Tiny-IRV-Examples/ThreeCandidatesTenVotes.csv"));
+    // a non-numeric CVR number on the 6th CVR
+    lines.set(9, "X" + lines.get(9));
+    final String csv = String.join("\n", lines);
+
+    final Result hibernate_result =
+        importReader(new StringReader(csv), fromString("Clear Creek"), false);
+    final Result pipeline_result =
+        importReader(new StringReader(csv), fromString("Conejos"), true);
+
+    assertFalse(hibernate_result.success);
+    assertFalse(pipeline_result.success);
+    assertEquals(pipeline_result.errorMessage, hibernate_result.errorMessage);
+    assertEquals(pipeline_result.errorRowNum, hibernate_result.errorRowNum);
+    assertEquals(pipeline_result.errorRowContent, hibernate_result.errorRowContent);
+  }
+
+  /**
+   * Imports a CVR file into a county, leaving the final transaction open.
+   */
+  private Result importFile(final String the_path, final County the_county,
+                            final boolean the_pipeline) throws IOException {
+    try (Reader reader = Files.newBufferedReader(Paths.get(the_path))) {
+      return importReader(reader, the_county, the_pipeline);
+    }
+  }
+
+  /**
+   * Imports CVRs from a reader into a county, leaving the final transaction open.
+   */
+  private Result importReader(final Reader the_reader, final County the_county,
+                              final boolean the_pipeline) throws IOException {
+    final Properties properties = new Properties();
+    properties.setProperty(DominionCVRExportParser.PIPELINE_PROPERTY,
+                           String.valueOf(the_pipeline));
+    // small sizes so that batches, COPYs and commits all cross boundaries
+    properties.setProperty(DominionCVRExportParser.BATCH_SIZE_PROPERTY, "7");
+    properties.setProperty(DominionCVRExportParser.TRANSACTION_SIZE_PROPERTY, "20");
+    properties.setProperty(DominionCVRExportParser.WORKER_THREADS_PROPERTY, "3");
+    return new DominionCVRExportParser(the_reader, the_county, properties, true).parse();
+  }
+
+  /**
+   * Runs a native query for a county and renders each row as a string.
+   */
+  @SuppressWarnings("unchecked")
+  private List<String> rows(final String the_query, final County the_county) {
+    final List<Object[]> rows = Persistence.currentSession().createNativeQuery(the_query)
+        .setParameter("county", the_county.id()).getResultList();
+    final List<String> result = new ArrayList<>();
+    for (final Object[] row : rows) {
+      result.add(Arrays.toString(row));
+    }
+    return result;
+  }
+
+  /**
+   * Renders the county contest results for a county, keyed by contest name.
+   */
+  private TreeMap<String, String> results(final County the_county) {
+    final TreeMap<String, String> result = new TreeMap<>();
+    for (final CountyContestResult ccr : CountyContestResultQueries.forCounty(the_county)) {
+      result.put(ccr.contest().name(),
+                 new TreeMap<>(ccr.voteTotals()) + " winners=" +
+                 ccr.winners().stream().sorted().collect(Collectors.toList()) + " losers=" +
+                 ccr.losers().stream().sorted().collect(Collectors.toList()) + " min=" +
+                 ccr.minMargin() + " max=" + ccr.maxMargin() + " county=" +
+                 ccr.countyBallotCount() + " contest=" + ccr.contestBallotCount());
+    }
+    return result;
+  }
+}
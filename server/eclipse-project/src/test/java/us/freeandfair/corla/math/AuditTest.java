@@ -2,9 +2,13 @@ package us.freeandfair.corla.math;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.util.Random;
 
 import org.testng.annotations.Test;
 
+import static ch.obermuhlner.math.big.BigDecimalMath.log;
+import static ch.obermuhlner.math.big.BigDecimalMath.pow;
+import static java.math.MathContext.DECIMAL128;
 import static org.testng.Assert.*;
 
 public final class AuditTest {
@@ -111,4 +115,78 @@ public final class AuditTest {
         BigDecimal.valueOf(1.000).setScale(3)
     );
   }
+
+  @Test()
+  public void testOptimisticMatchesExactMath() {
+    final Random random = new Random(7L);
+    final BigDecimal[] gammas = {Audit.GAMMA, BigDecimal.valueOf(1.1),
+                                 BigDecimal.valueOf(1.2), BigDecimal.valueOf(1.01)};
+    for (int i = 0; i < 20000; i++) {
+      final BigDecimal riskLimit = BigDecimal.valueOf(1 + random.nextInt(500), 3);
+      final long ballots = 1 + random.nextInt(1000000);
+      final BigDecimal dilutedMargin =
+          Audit.dilutedMargin(1 + random.nextInt((int) Math.min(ballots, 100000)), ballots);
+      final BigDecimal gamma = gammas[random.nextInt(gammas.length)];
+      final int twoUnder = random.nextInt(4) == 0 ? random.nextInt(50) : 0;
+      final int oneUnder = random.nextInt(4) == 0 ? random.nextInt(50) : 0;
+      final int oneOver = random.nextInt(4) == 0 ? random.nextInt(50) : 0;
+      final int twoOver = random.nextInt(4) == 0 ? random.nextInt(50) : 0;
+
+      assertEquals(Audit.optimistic(riskLimit, dilutedMargin, gamma,
+                                    twoUnder, oneUnder, oneOver, twoOver),
+                   Audit.optimisticExact(riskLimit, dilutedMargin, gamma,
+                                         twoUnder, oneUnder, oneOver, twoOver),
+                   riskLimit + " " + dilutedMargin + " " + gamma + " " + twoUnder + " "
+                   + oneUnder + " " + oneOver + " " + twoOver);
+    }
+  }
+
+  @Test()
+  public void testOptimisticNearIntegers() {
+    // a diluted margin for which the unrounded sample size is (to within
+    // DECIMAL128) an integer, so only the exact math can round it correctly
+    final BigDecimal riskLimit = BigDecimal.valueOf(0.05);
+    final BigDecimal gamma = Audit.GAMMA;
+    final BigDecimal numerator = BigDecimal.valueOf(2).multiply(gamma).negate()
+        .multiply(log(riskLimit, DECIMAL128));
+    for (int size = 10; size < 2000; size = size + 37) {
+      final BigDecimal dilutedMargin = numerator.divide(BigDecimal.valueOf(size), DECIMAL128);
+      assertEquals(Audit.optimistic(riskLimit, dilutedMargin, gamma, 0, 0, 0, 0),
+                   Audit.optimisticExact(riskLimit, dilutedMargin, gamma, 0, 0, 0, 0));
+    }
+  }
+
+  @Test()
+  public void testPValueApproximationMatchesDirectEvaluation() {
+    final Random random = new Random(11L);
+    final BigDecimal[] gammas = {Audit.GAMMA, BigDecimal.valueOf(1.1), BigDecimal.valueOf(1.01)};
+    for (int i = 0; i < 500; i++) {
+      final int auditedBallots = random.nextInt(2000);
+      final BigDecimal dilutedMargin = BigDecimal.valueOf(1 + random.nextInt(999), 3);
+      final BigDecimal gamma = gammas[random.nextInt(gammas.length)];
+      final int oneUnder = random.nextInt(5);
+      final int twoUnder = random.nextInt(5);
+      final int oneOver = random.nextInt(5);
+      final int twoOver = random.nextInt(5);
+
+      final BigDecimal two = BigDecimal.valueOf(2);
+      final BigDecimal twoGamma = gamma.multiply(two, DECIMAL128);
+      final BigDecimal expected = BigDecimal.ONE.min(
+          pow(BigDecimal.ONE.subtract(BigDecimal.ONE.divide(
+                  Audit.totalErrorBound(dilutedMargin, gamma), DECIMAL128)),
+              auditedBallots, DECIMAL128)
+          .multiply(pow(BigDecimal.ONE.subtract(BigDecimal.ONE.divide(twoGamma, DECIMAL128)),
+                        -oneOver, DECIMAL128), DECIMAL128)
+          .multiply(pow(BigDecimal.ONE.subtract(BigDecimal.ONE.divide(gamma, DECIMAL128)),
+                        -twoOver, DECIMAL128), DECIMAL128)
+          .multiply(pow(BigDecimal.ONE.add(BigDecimal.ONE.divide(twoGamma, DECIMAL128)),
+                        -oneUnder, DECIMAL128), DECIMAL128)
+          .multiply(pow(BigDecimal.ONE.add(BigDecimal.ONE.divide(gamma, DECIMAL128)),
+                        -twoUnder, DECIMAL128), DECIMAL128));
+
+      assertEquals(Audit.pValueApproximation(auditedBallots, dilutedMargin, gamma,
+                                             oneUnder, twoUnder, oneOver, twoOver),
+                   expected);
+    }
+  }
 }
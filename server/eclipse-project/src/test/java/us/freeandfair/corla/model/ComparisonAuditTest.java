@@ -0,0 +1,115 @@
+package us.freeandfair.corla.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Checks the counts of contest CVR ids that ComparisonAudit keeps for
+ * isCovering and multiplicity, including ids sampled more than once.
+ */
+public class ComparisonAuditTest {
+  /**
+   * Class-wide logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger(ComparisonAuditTest.class);
+
+  @Test()
+  public void duplicateIdsAreCounted() {
+    final ComparisonAudit audit = new ComparisonAudit();
+    audit.addContestCVRIds(Arrays.asList(3L, 1L, 3L, 2L, 3L));
+
+    assertEquals(audit.multiplicity(3L), 3);
+    assertEquals(audit.multiplicity(1L), 1);
+    assertEquals(audit.multiplicity(4L), 0);
+    assertTrue(audit.isCovering(2L));
+    assertFalse(audit.isCovering(4L));
+    assertEquals(audit.getContestCVRIds(), Arrays.asList(3L, 1L, 3L, 2L, 3L));
+  }
+
+  @Test()
+  public void countsFollowLaterRounds() {
+    final ComparisonAudit audit = new ComparisonAudit();
+    assertFalse(audit.isCovering(1L));
+    assertEquals(audit.multiplicity(1L), 0);
+
+    audit.addContestCVRIds(Arrays.asList(1L, 2L));
+    assertEquals(audit.multiplicity(1L), 1);
+
+    // the next round samples 1 again, and 5 for the first time
+    audit.addContestCVRIds(Arrays.asList(5L, 1L));
+    assertEquals(audit.multiplicity(1L), 2);
+    assertEquals(audit.multiplicity(5L), 1);
+    assertTrue(audit.isCovering(5L));
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void idsCannotBeChangedBehindTheCounts() {
+    final ComparisonAudit audit = new ComparisonAudit();
+    audit.addContestCVRIds(Arrays.asList(1L));
+    audit.getContestCVRIds().add(1L);
+  }
+
+  @Test()
+  public void countsMatchFrequency() {
+    final Random random = new Random(1L);
+    final ComparisonAudit audit = new ComparisonAudit();
+    final List<Long> all = new ArrayList<>();
+    for (int round = 0; round < 3; round++) {
+      final List<Long> ids = randomIds(random, 2000, 500);
+      audit.addContestCVRIds(ids);
+      all.addAll(ids);
+      for (long id = 0; id <= 500; id++) {
+        assertEquals(audit.multiplicity(id), Collections.frequency(all, id));
+        assertEquals(audit.isCovering(id), all.contains(id));
+      }
+    }
+  }
+
+  @Test()
+  public void multiplicityTiming() {
+    final Random random = new Random(2L);
+    final List<Long> ids = randomIds(random, 20000, 1000000);
+    final ComparisonAudit audit = new ComparisonAudit();
+    audit.addContestCVRIds(ids);
+
+    // one lookup per sampled ballot, as when discrepancies are recomputed
+    long start = System.nanoTime();
+    long total = 0;
+    for (final Long id : ids) {
+      total = total + audit.multiplicity(id);
+    }
+    final long counted = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    long expected = 0;
+    for (final Long id : ids) {
+      expected = expected + Collections.frequency(ids, id);
+    }
+    final long scanned = System.nanoTime() - start;
+
+    assertEquals(total, expected);
+    LOGGER.info(String.format("multiplicity of %d ids: %d ms counted, %d ms scanned",
+                              ids.size(), counted / 1000000, scanned / 1000000));
+  }
+
+  /**
+   * @return the_size ids drawn with replacement from 1 to the_range.
+   */
+  private List<Long> randomIds(final Random the_random, final int the_size,
+                               final int the_range) {
+    final List<Long> result = new ArrayList<>(the_size);
+    for (int i = 0; i < the_size; i++) {
+      result.add(1L + the_random.nextInt(the_range));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,252 @@
+package us.freeandfair.corla.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.CastVoteRecord.RecordType;
+import us.freeandfair.corla.model.CountyContestResult.ReverseIntegerComparator;
+
+/**
+ * Checks the vote totals, ranking and margins that CountyContestResult keeps
+ * as CVRs are added, including ties, against the boxed tally and the ranking
+ * recomputed on every call.
+ */
+public class CountyContestResultTest {
+  /**
+   * Class-wide logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger(CountyContestResultTest.class);
+
+  private static final County COUNTY = new County("Test", 1L);
+
+  private static Contest contest(final String the_name, final int the_choices,
+                                 final int the_winners) {
+    final List<Choice> choices = new ArrayList<>();
+    for (int i = 0; i < the_choices; i++) {
+      choices.add(new Choice(the_name + " choice " + i, "", false, false));
+    }
+    choices.add(new Choice("Write-in", "", false, true));
+    return new Contest(the_name, COUNTY, "PLURALITY", choices, the_winners, the_winners, 0);
+  }
+
+  private static CastVoteRecord cvr(final List<CVRContestInfo> the_info) {
+    return new CastVoteRecord(RecordType.UPLOADED, Instant.now(), 1L, 1, 1, 1, "Batch1", 1,
+                              "1-Batch1-1", "paper", the_info);
+  }
+
+  /** A CVR voting for the specified choices of a contest. */
+  private static CastVoteRecord vote(final Contest the_contest, final int... the_choices) {
+    final List<String> choices = new ArrayList<>();
+    for (final int choice : the_choices) {
+      choices.add(the_contest.choices().get(choice).name());
+    }
+    final List<CVRContestInfo> info = new ArrayList<>();
+    info.add(new CVRContestInfo(the_contest, null, null, choices));
+    return cvr(info);
+  }
+
+  /** The ranking as rankedChoices used to compute it. */
+  private static List<String> referenceRanking(final Map<String, Integer> the_totals) {
+    final SortedMap<Integer, List<String>> sorted =
+        new TreeMap<Integer, List<String>>(new ReverseIntegerComparator());
+    for (final Entry<String, Integer> e : the_totals.entrySet()) {
+      sorted.computeIfAbsent(e.getValue(), v -> new ArrayList<>()).add(e.getKey());
+    }
+    final List<String> result = new ArrayList<>();
+    sorted.values().forEach(result::addAll);
+    return result;
+  }
+
+  /** The margin as marginToNearestLoser used to compute it. */
+  private static OptionalInt referenceMargin(final CountyContestResult the_result,
+                                             final String the_choice) {
+    final List<String> choices = referenceRanking(the_result.voteTotals());
+    int index = choices.indexOf(the_choice);
+    if (index < 0 || index == choices.size() - 1) {
+      return OptionalInt.empty();
+    }
+    String loser = "";
+    index = index + 1;
+    while (index < choices.size() && !the_result.losers().contains(loser)) {
+      loser = choices.get(index);
+      index = index + 1;
+    }
+    if (the_result.losers().contains(loser)) {
+      return OptionalInt.of(the_result.voteTotals().get(the_choice) -
+                            the_result.voteTotals().get(loser));
+    }
+    return OptionalInt.empty();
+  }
+
+  private static List<Integer> totalsOf(final List<String> the_choices,
+                                        final Map<String, Integer> the_totals) {
+    final List<Integer> result = new ArrayList<>();
+    the_choices.forEach(c -> result.add(the_totals.get(c)));
+    return result;
+  }
+
+  private static void assertMatchesReference(final CountyContestResult the_result,
+                                             final Map<String, Integer> the_expected) {
+    assertEquals(the_result.voteTotals(), the_expected);
+    assertEquals(the_result.rankedChoices(), referenceRanking(the_result.voteTotals()));
+    for (final String choice : the_expected.keySet()) {
+      assertEquals(the_result.marginToNearestLoser(choice),
+                   referenceMargin(the_result, choice), choice);
+    }
+    assertEquals(the_result.marginToNearestLoser("nobody"), OptionalInt.empty());
+  }
+
+  @Test()
+  public void totalsRankingAndMarginsMatchReference() {
+    final Random random = new Random(1L);
+    for (int round = 0; round < 20; round++) {
+      final Contest contest = contest("Contest " + round, 2 + random.nextInt(6),
+                                      1 + random.nextInt(2));
+      final Contest other = contest("Other " + round, 3, 1);
+      final CountyContestResult result = new CountyContestResult(COUNTY, contest);
+      final Map<String, Integer> expected = new HashMap<>(result.voteTotals());
+      final int real_choices = expected.size();
+
+      // few ballots, so that there are plenty of ties
+      final int ballots = random.nextInt(12);
+      for (int b = 0; b < ballots; b++) {
+        final CastVoteRecord cvr;
+        if (random.nextInt(5) == 0) {
+          cvr = vote(other, random.nextInt(3));
+        } else {
+          final int choice = random.nextInt(real_choices);
+          cvr = vote(contest, choice);
+          expected.merge(contest.choices().get(choice).name(), 1, Integer::sum);
+        }
+        result.addCVR(cvr);
+        if (random.nextBoolean()) {
+          // the ranking is dropped when later CVRs change the totals; tied
+          // choices may come in either order
+          final List<String> ranked = result.rankedChoices();
+          assertEquals(new HashSet<>(ranked), expected.keySet());
+          assertEquals(totalsOf(ranked, expected), totalsOf(referenceRanking(expected), expected));
+        }
+      }
+      result.updateResults();
+      assertMatchesReference(result, expected);
+      assertEquals(result.countyBallotCount().intValue(), ballots);
+    }
+  }
+
+  @Test()
+  public void tiesKeepTheirOrder() {
+    final Contest contest = contest("Tied", 4, 2);
+    final CountyContestResult result = new CountyContestResult(COUNTY, contest);
+    for (final int choice : new int[] {0, 1, 2, 3, 0, 1, 2}) {
+      result.addCVR(vote(contest, choice));
+    }
+    result.updateResults();
+
+    final Map<String, Integer> expected = new HashMap<>();
+    expected.put("Tied choice 0", 2);
+    expected.put("Tied choice 1", 2);
+    expected.put("Tied choice 2", 2);
+    expected.put("Tied choice 3", 1);
+    assertMatchesReference(result, expected);
+    assertEquals(result.winners().size(), 2);
+    assertEquals(result.losers().size(), 2);
+    assertEquals(result.minMargin().intValue(), 0);
+    assertEquals(result.maxMargin().intValue(), 1);
+  }
+
+  @Test()
+  public void renamedChoicesKeepTheirVotes() {
+    final Contest contest = contest("Renamed", 2, 1);
+    final CountyContestResult result = new CountyContestResult(COUNTY, contest);
+    result.addCVR(vote(contest, 0));
+    result.addCVR(vote(contest, 0));
+    result.updateChoiceName("Renamed choice 0", "Alice");
+    result.addCVR(vote(contest, 1));
+
+    final Map<String, Integer> expected = new HashMap<>();
+    expected.put("Alice", 2);
+    expected.put("Renamed choice 1", 1);
+    assertEquals(result.voteTotals(), expected);
+
+    result.reset();
+    assertEquals(Collections.max(result.voteTotals().values()).intValue(), 0);
+  }
+
+  @Test()
+  public void importLoopTiming() {
+    final Random random = new Random(2L);
+    final List<Contest> contests = new ArrayList<>();
+    for (int c = 0; c < 20; c++) {
+      contests.add(contest("Contest " + c, 2 + random.nextInt(5), 1));
+    }
+    final List<CastVoteRecord> cvrs = new ArrayList<>();
+    for (int b = 0; b < 50000; b++) {
+      final List<CVRContestInfo> info = new ArrayList<>();
+      for (final Contest contest : contests) {
+        if (random.nextInt(4) != 0) {
+          final String choice =
+              contest.choices().get(random.nextInt(contest.choices().size() - 1)).name();
+          info.add(new CVRContestInfo(contest, null, null, List.of(choice)));
+        }
+      }
+      cvrs.add(cvr(info));
+    }
+
+    // the loop as it was: a full comparison of each contest, and boxed totals
+    final List<Map<String, Integer>> boxed = new ArrayList<>();
+    for (final Contest contest : contests) {
+      boxed.add(new HashMap<>(new CountyContestResult(COUNTY, contest).voteTotals()));
+    }
+    final long boxed_start = System.nanoTime();
+    for (final CastVoteRecord cvr : cvrs) {
+      for (int c = 0; c < contests.size(); c++) {
+        for (final CVRContestInfo ci : cvr.contestInfo()) {
+          if (ci.contest().equals(contests.get(c))) {
+            final Map<String, Integer> totals = boxed.get(c);
+            for (final String s : ci.choices()) {
+              totals.put(s, totals.get(s) + 1);
+            }
+            break;
+          }
+        }
+      }
+    }
+    final long boxed_time = System.nanoTime() - boxed_start;
+
+    final List<CountyContestResult> results = new ArrayList<>();
+    for (final Contest contest : contests) {
+      results.add(new CountyContestResult(COUNTY, contest));
+    }
+    final long tally_start = System.nanoTime();
+    for (final CastVoteRecord cvr : cvrs) {
+      for (final CountyContestResult result : results) {
+        result.addCVR(cvr);
+      }
+    }
+    results.forEach(CountyContestResult::updateResults);
+    final long tally_time = System.nanoTime() - tally_start;
+
+    for (int c = 0; c < contests.size(); c++) {
+      assertEquals(results.get(c).voteTotals(), boxed.get(c));
+    }
+    LOGGER.info(String.format("%d CVRs x %d contests: boxed %d ms, tallied %d ms (%.1fx)",
+                              cvrs.size(), contests.size(), boxed_time / 1000000,
+                              tally_time / 1000000, (double) boxed_time / tally_time));
+  }
+}
@@ -0,0 +1,126 @@
+package us.freeandfair.corla.persistence;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.LogEntry;
+import us.freeandfair.corla.query.LogEntryQueries;
+import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
+
+@Test(groups = {"integration"})
+public class LogChainAppenderTest extends TestClassWithDatabase {
+
+  /**
+   * 100 requests appending at once all get into one valid chain.
+   */
+  @Test()
+  public void parallelRequestsMakeOneChain() throws Exception {
+    final int requests = 100;
+    final int entries_per_request = 3;
+    final LogChainAppender appender = LogChainAppender.instance();
+    final ExecutorService executor = Executors.newFixedThreadPool(requests);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int r = 0; r < requests; r++) {
+        final int request = r;
+        futures.add(executor.submit(() -> {
+          start.await();
+          final List<LogEntry> entries = new ArrayList<>();
+          for (int e = 0; e < entries_per_request; e++) {
+            entries.add(new LogEntry(200, "request " + request + " entry " + e,
+                                     Instant.now()));
+          }
+          appender.append(entries, "user" + request, "host" + request);
+          return null;
+        }));
+      }
+      start.countDown();
+      for (final Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(appender.flush(30000L));
+
+    // a fresh transaction sees everything the appender committed
+    Persistence.rollbackTransaction();
+    Persistence.beginTransaction();
+
+    final List<LogEntry> log = Persistence.getAll(LogEntry.class);
+    final Set<String> information = new HashSet<>();
+    for (final LogEntry entry : log) {
+      information.add(entry.information());
+    }
+    for (int r = 0; r < requests; r++) {
+      for (int e = 0; e < entries_per_request; e++) {
+        assertTrue(information.contains("request " + r + " entry " + e));
+      }
+    }
+    assertEquals(LogEntryQueries.firstBrokenLink(), Optional.empty());
+  }
+
+  /**
+   * An entry that cannot be saved is dropped, and the entries around it are
+   * still written, in one valid chain.
+   */
+  @Test(dependsOnMethods = "parallelRequestsMakeOneChain")
+  public void badEntryIsDroppedAndOthersWritten() throws Exception {
+    final List<LogEntry> entries = new ArrayList<>();
+    entries.add(new LogEntry(200, "before the bad entry", Instant.now()));
+    // information may not be null
+    entries.add(new LogEntry(200, null, Instant.now()));
+    entries.add(new LogEntry(200, "after the bad entry", Instant.now()));
+    LogChainAppender.instance().append(entries, "user", "host");
+    assertTrue(LogChainAppender.instance().flush(60000L));
+
+    Persistence.rollbackTransaction();
+    Persistence.beginTransaction();
+    final List<String> information = new ArrayList<>();
+    for (final LogEntry entry : Persistence.getAll(LogEntry.class)) {
+      information.add(entry.information());
+    }
+    assertTrue(information.contains("before the bad entry"));
+    assertTrue(information.contains("after the bad entry"));
+    assertFalse(information.contains(null));
+    assertEquals(LogEntryQueries.firstBrokenLink(), Optional.empty());
+  }
+
+  /**
+   * The verifier finds an entry whose contents no longer match its hash.
+   */
+  @Test(dependsOnMethods = "badEntryIsDroppedAndOthersWritten")
+  public void verifierFindsTampering() throws Exception {
+    final List<LogEntry> entries = new ArrayList<>();
+    entries.add(new LogEntry(200, "before tampering", Instant.now()));
+    LogChainAppender.instance().append(entries, "user", "host");
+    assertTrue(LogChainAppender.instance().flush(30000L));
+
+    Persistence.rollbackTransaction();
+    Persistence.beginTransaction();
+    final LogEntry last = LogEntryQueries.last();
+    Persistence.currentSession()
+        .createNativeQuery("update log set information = 'tampered' where id = :id")
+        .setParameter("id", last.id())
+        .executeUpdate();
+    // the verifier reads only what has been committed
+    Persistence.commitTransaction();
+    Persistence.beginTransaction();
+
+    assertEquals(LogEntryQueries.firstBrokenLink(), Optional.of(last.id()));
+  }
+}
@@ -0,0 +1,101 @@
+package us.freeandfair.corla.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.hibernate.Session;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.County;
+import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
+
+@Test(groups = {"integration"})
+public class PersistenceConcurrencyTest extends TestClassWithDatabase {
+
+  private static final Logger LOGGER = LogManager.getLogger(PersistenceConcurrencyTest.class);
+
+  private static final int THREADS = 64;
+
+  /**
+   * Runs a task on THREADS threads at once.
+   */
+  private void onAllThreads(final Runnable the_task) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          the_task.run();
+          return null;
+        }));
+      }
+      start.countDown();
+      for (final Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Every transaction on every thread gets its own session, which stays the
+   * current session on that thread until the transaction ends.
+   */
+  @Test()
+  public void sessionsStayThreadLocal() throws Exception {
+    final int transactions = 50;
+    final Set<Session> sessions = Collections.synchronizedSet(
+        Collections.newSetFromMap(new IdentityHashMap<>()));
+    onAllThreads(() -> {
+      for (int i = 0; i < transactions; i++) {
+        Persistence.beginTransaction();
+        final Session session = Persistence.currentSession();
+        assertTrue(Persistence.hasDB());
+        Persistence.getByID(1L, County.class);
+        assertSame(Persistence.currentSession(), session);
+        assertTrue(Persistence.isTransactionActive());
+        sessions.add(session);
+        Persistence.rollbackTransaction();
+      }
+    });
+    assertEquals(sessions.size(), THREADS * transactions);
+  }
+
+  /**
+   * Many threads asking whether there is a database, as every request does,
+   * do not wait for each other.
+   */
+  @Test()
+  public void hasDBUnderContention() throws Exception {
+    final int calls = 100000;
+    final long start = System.nanoTime();
+    onAllThreads(() -> {
+      Persistence.beginTransaction();
+      try {
+        for (int i = 0; i < calls; i++) {
+          assertTrue(Persistence.hasDB());
+        }
+      } finally {
+        Persistence.rollbackTransaction();
+      }
+    });
+    final long elapsed = System.nanoTime() - start;
+    LOGGER.info(String.format("%d threads made %d hasDB() calls in %d ms",
+                              THREADS, THREADS * calls, elapsed / 1000000));
+  }
+}
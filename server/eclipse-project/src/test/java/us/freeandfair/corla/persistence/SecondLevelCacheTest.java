@@ -0,0 +1,124 @@
+package us.freeandfair.corla.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.BallotManifestInfo;
+import us.freeandfair.corla.model.Choice;
+import us.freeandfair.corla.model.Contest;
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.CountyDashboard;
+import us.freeandfair.corla.query.BallotManifestInfoQueries;
+import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
+
+@Test(groups = {"integration"})
+public class SecondLevelCacheTest extends TestClassWithDatabase {
+
+  /**
+   * Ends the test's transaction and starts another, with a fresh session.
+   */
+  private void nextTransaction() {
+    Persistence.commitTransaction();
+    Persistence.beginTransaction();
+  }
+
+  /**
+   * Loads a contest by ID, with its county and choices, as the audit does
+   * for every contest it touches.
+   *
+   * @return the number of statements prepared to do it.
+   */
+  private long load(final Long the_contest_id) {
+    final Statistics statistics = Persistence.statistics();
+    statistics.clear();
+    final Contest contest = Persistence.getByID(the_contest_id, Contest.class);
+    assertEquals(contest.county().name(), "Cached");
+    assertEquals(contest.choices().size(), 2);
+    return statistics.getPrepareStatementCount();
+  }
+
+  @Test()
+  public void repeatedLoadsUseTheCache() {
+    final County county = new County("Cached", 2001L);
+    Persistence.save(county);
+    final List<Choice> choices = new ArrayList<>();
+    choices.add(new Choice("Alice", "", false, false));
+    choices.add(new Choice("Bob", "", false, false));
+    final Contest contest = new Contest("Cached Contest", county, "", choices, 1, 1, 0);
+    Persistence.save(contest);
+    nextTransaction();
+    // start cold, as after a restart; the statistics are off by default
+    Persistence.currentSession().getSessionFactory().getCache().evictAllRegions();
+    Persistence.statistics().setStatisticsEnabled(true);
+
+    final long first = load(contest.id());
+    nextTransaction();
+    final long second = load(contest.id());
+
+    assertTrue(first > 0, first + " statements");
+    assertEquals(second, 0L);
+    // the contest, its choices and its county
+    assertTrue(Persistence.statistics().getSecondLevelCacheHitCount() >= 3);
+    assertEquals(Persistence.statistics().getSecondLevelCacheMissCount(), 0L);
+  }
+
+  @Test()
+  public void dashboardsAreNotCached() {
+    final County county = new County("Uncached", 2003L);
+    Persistence.save(county);
+    Persistence.save(new CountyDashboard(county));
+    nextTransaction();
+    Persistence.statistics().setStatisticsEnabled(true);
+
+    Persistence.getByID(2003L, CountyDashboard.class);
+    nextTransaction();
+    Persistence.statistics().clear();
+    Persistence.getByID(2003L, CountyDashboard.class);
+
+    // a dashboard changes on every upload and audit step, so is always read
+    // from the database
+    assertTrue(Persistence.statistics().getPrepareStatementCount() > 0);
+    assertFalse(Persistence.currentSession().getSessionFactory().getCache()
+                .containsEntity(CountyDashboard.class, 2003L));
+  }
+
+  @Test()
+  public void reuploadedManifestIsNotStale() {
+    final Long county_id = 2002L;
+    final List<Long> old_ids = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final BallotManifestInfo bmi =
+          new BallotManifestInfo(county_id, 1, "old-" + i, 10, "box", 10L * i, 10L * i + 9);
+      Persistence.save(bmi);
+      old_ids.add(bmi.id());
+    }
+    nextTransaction();
+
+    // cache the old manifest
+    for (final Long id : old_ids) {
+      assertNotNull(Persistence.getByID(id, BallotManifestInfo.class));
+    }
+    nextTransaction();
+
+    // the county uploads a new manifest
+    assertEquals(BallotManifestInfoQueries.deleteMatching(county_id), 3);
+    Persistence.evictCaches();
+    final BallotManifestInfo replacement =
+        new BallotManifestInfo(county_id, 2, "new", 25, "shelf", 0L, 24L);
+    Persistence.save(replacement);
+    nextTransaction();
+
+    for (final Long id : old_ids) {
+      assertNull(Persistence.getByID(id, BallotManifestInfo.class));
+    }
+    final BallotManifestInfo reloaded =
+        Persistence.getByID(replacement.id(), BallotManifestInfo.class);
+    assertEquals(reloaded.batchID(), "new");
+    assertEquals(reloaded.batchSize(), Integer.valueOf(25));
+  }
+}
@@ -0,0 +1,90 @@
+package us.freeandfair.corla.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.stat.Statistics;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.CVRAuditInfo;
+import us.freeandfair.corla.model.CastVoteRecord;
+import us.freeandfair.corla.persistence.Persistence;
+import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
+
+@Test(groups = {"integration"})
+public class CVRAuditInfoQueriesTest extends TestClassWithDatabase {
+
+  /**
+   * Saves a CVR with no contests.
+   */
+  private CastVoteRecord cvrSetup(final Integer position) {
+    final CastVoteRecord cvr = new CastVoteRecord(CastVoteRecord.RecordType.UPLOADED,
+                                                  null,
+                                                  1L,
+                                                  position,
+                                                  position,
+                                                  1,
+                                                  "1",
+                                                  position,
+                                                  "1-1-" + position,
+                                                  "a",
+                                                  new ArrayList<>());
+    Persistence.save(cvr);
+    return cvr;
+  }
+
+  @Test()
+  public void byIdsLoadsInBatches() {
+    final List<Long> ids = new ArrayList<>();
+    for (int i = 1; i <= 2500; i++) {
+      final CastVoteRecord cvr = cvrSetup(i);
+      ids.add(cvr.id());
+      // every third CVR has no audit info
+      if (i % 3 != 0) {
+        Persistence.save(new CVRAuditInfo(cvr));
+      }
+    }
+    Persistence.flush();
+    Persistence.currentSession().clear();
+
+    // duplicates and an id with no CVR at all
+    final List<Long> wanted = new ArrayList<>(ids);
+    wanted.addAll(ids.subList(0, 100));
+    wanted.add(-1L);
+
+    final Statistics statistics =
+        Persistence.currentSession().getSessionFactory().getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+    final Map<Long, CVRAuditInfo> result = CVRAuditInfoQueries.byIds(wanted);
+    final long statements = statistics.getPrepareStatementCount();
+    statistics.setStatisticsEnabled(false);
+
+    // 2500 distinct ids plus one, in batches of 1000
+    assertTrue(statements <= 3, statements + " statements");
+    assertEquals(result.size(), 2500 - 2500 / 3);
+    for (int i = 1; i <= 2500; i++) {
+      final Long id = ids.get(i - 1);
+      assertEquals(result.containsKey(id), i % 3 != 0);
+      if (i % 3 != 0) {
+        assertEquals(result.get(id).id(), id);
+      }
+    }
+    assertFalse(result.containsKey(-1L));
+  }
+
+  @Test()
+  public void byIdsUsesTheSession() {
+    final CastVoteRecord cvr = cvrSetup(1);
+    final CVRAuditInfo info = new CVRAuditInfo(cvr);
+    Persistence.save(info);
+    Persistence.flush();
+
+    final Map<Long, CVRAuditInfo> result = CVRAuditInfoQueries.byIds(List.of(cvr.id()));
+    assertSame(result.get(cvr.id()), info);
+    assertTrue(CVRAuditInfoQueries.byIds(new ArrayList<>()).isEmpty());
+  }
+}
@@ -478,6 +478,57 @@ public class CastVoteRecordQueriesTest extends TestClassWithDatabase {
     assertEquals(CastVoteRecordQueries.atPosition(tributes), expected);
   }
 
+  @Test
+  public void testAtPositionManyTributesWithPhantoms() {
+    // CVRs exist at even positions only; odd positions become phantoms
+    final int positions = 30000;
+    final List<CastVoteRecord> cvrs = new ArrayList<>();
+    for (int i = 0; i < positions; i = i + 2) {
+      cvrs.add(new CastVoteRecord(CastVoteRecord.RecordType.UPLOADED,
+                                  null, 1L, i, i, 1, "1", i, "1-1-" + i, "a", null));
+    }
+    CastVoteRecordCopyQueries.copyIn(cvrs);
+
+    // a random sample of 50k, with replacement, so some positions repeat
+    final Random random = new Random(1L);
+    final List<Tribute> tributes = new ArrayList<>();
+    final Set<Integer> phantomPositions = new HashSet<>();
+    for (int i = 0; i < 50000; i++) {
+      final Tribute tribute = new Tribute();
+      tribute.countyId = 1L;
+      tribute.scannerId = 1;
+      tribute.batchId = "1";
+      tribute.ballotPosition = random.nextInt(positions);
+      tribute.setUri();
+      tributes.add(tribute);
+      if (tribute.ballotPosition % 2 == 1) {
+        phantomPositions.add(tribute.ballotPosition);
+      }
+    }
+
+    final List<CastVoteRecord> result = CastVoteRecordQueries.atPosition(tributes);
+
+    assertEquals(result.size(), tributes.size());
+    final Map<String, CastVoteRecord> seen = new HashMap<>();
+    for (int i = 0; i < tributes.size(); i++) {
+      final Tribute tribute = tributes.get(i);
+      final CastVoteRecord cvr = result.get(i);
+      assertEquals(cvr.getUri(), tribute.getUri());
+      assertEquals(cvr.recordID(), tribute.ballotPosition);
+      assertEquals(cvr.recordType(),
+                   tribute.ballotPosition % 2 == 1 ? CastVoteRecord.RecordType.PHANTOM_RECORD
+                                                   : CastVoteRecord.RecordType.UPLOADED);
+      // a repeated position gets the same record, not a second phantom
+      final CastVoteRecord previous = seen.putIfAbsent(cvr.getUri(), cvr);
+      if (previous != null) {
+        assertSame(cvr, previous);
+      }
+    }
+    assertEquals(CastVoteRecordQueries.countMatching(1L,
+                     CastVoteRecord.RecordType.PHANTOM_RECORD).getAsLong(),
+                 phantomPositions.size());
+  }
+
   @Test
   public void testAtPositionRawData() {
     CastVoteRecord expected = noisyCVRSetup();
@@ -1,6 +1,9 @@
 package us.freeandfair.corla.query;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
 
 import java.util.*;
 
@@ -14,6 +17,9 @@ import us.freeandfair.corla.persistence.Persistence;
 
 
 import org.hibernate.Session;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
+import org.postgresql.core.BaseConnection;
 import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
 
 
@@ -57,4 +63,86 @@ public class ExportQueriesTest extends TestClassWithDatabase {
     Map<String,String> files = ExportQueries.sqlFiles();
     assertTrue(files.get("seed").contains("SELECT seed FROM dos_dashboard"));
   }
+
+  /** The COPY loop the csv export used before it wrote rows in place. */
+  private static void referenceCopyOut(final String sql, final OutputStream to,
+                                       final CopyManager cm)
+      throws SQLException, IOException {
+    final CopyOut cp = cm.copyOut(sql);
+    byte[] buf = cp.readFromCopy();
+    while (buf != null) {
+      final String s = new String(buf, java.nio.charset.StandardCharsets.US_ASCII);
+      final ByteArrayOutputStream row = new ByteArrayOutputStream();
+      for (final byte b : buf) {
+        if (!s.contains("\\\"") || b != '\\') {
+          row.write(b);
+        }
+      }
+      to.write(row.toByteArray());
+      buf = cp.readFromCopy();
+    }
+  }
+
+  private static byte[] referenceCsv(final String query) {
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Persistence.currentSession().doWork(conn -> {
+      try {
+        referenceCopyOut(String.format("COPY (%s) TO STDOUT WITH CSV HEADER",
+                                       query.replace(";", "")),
+                         os, new CopyManager(conn.unwrap(BaseConnection.class)));
+      } catch (IOException e) {
+        throw new SQLException(e);
+      }
+    });
+    return os.toByteArray();
+  }
+
+  @Test()
+  public void csvOutMatchesReferenceOnAllExports() throws IOException {
+    for (final Map.Entry<String, String> entry : ExportQueries.sqlFiles().entrySet()) {
+      final ByteArrayOutputStream os = new ByteArrayOutputStream();
+      ExportQueries.csvOut(entry.getValue(), os);
+      assertEquals(os.toByteArray(), referenceCsv(entry.getValue()), entry.getKey());
+    }
+  }
+
+  @Test()
+  public void csvOutRemovesBackslashesFromEscapedQuotes() {
+    final String q = "SELECT * FROM (VALUES ('a\\\"b\\c'), ('d\\e')) v(x)";
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+    ExportQueries.csvOut(q, os);
+
+    assertEquals(os.toString(), "x\n\"a\"\"bc\"\nd\\e\n");
+    assertEquals(os.toByteArray(), referenceCsv(q));
+  }
+
+  @Test()
+  public void jsonOutStreamsManyRows() {
+    final String q = "SELECT n FROM generate_series(1, 2500) n";
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+    ExportQueries.jsonOut(q, os);
+
+    final StringBuilder expected = new StringBuilder("[");
+    for (int n = 1; n <= 2500; n++) {
+      expected.append(n > 1 ? ",\n" : "").append("{\"n\":").append(n).append('}');
+    }
+    expected.append(']');
+    assertEquals(os.toString(), expected.toString());
+  }
+
+  @Test()
+  public void jsonOutEmptyResult() {
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+    ExportQueries.jsonOut("SELECT seed FROM dos_dashboard WHERE id = -1", os);
+
+    assertEquals(os.toString(), "[]");
+  }
+
+  @Test()
+  public void sqlFilesAreReadOnce() throws IOException {
+    assertSame(ExportQueries.sqlFiles(), ExportQueries.sqlFiles());
+  }
 }
@@ -0,0 +1,81 @@
+package us.freeandfair.corla.report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+@Test
+public class ReportSnapshotTest {
+
+  /**
+   * A summary report that counts how often it is generated and changes
+   * each time.
+   */
+  private static final class CountingSummary implements Supplier<List<List<String>>> {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public List<List<String>> get() {
+      final int n = count.incrementAndGet();
+      final List<List<String>> rows = new ArrayList<>();
+      rows.add(Arrays.asList(ReportRows.SummaryReport.HEADERS));
+      rows.add(new ArrayList<>(Arrays.asList("Contest " + n, "Yes", "Winner")));
+      return rows;
+    }
+  }
+
+  @Test
+  public void computedOnceUntilInvalidated() {
+    final CountingSummary summary = new CountingSummary();
+    ReportSnapshot.invalidate();
+
+    final ReportSnapshot first = ReportSnapshot.current(summary);
+    // one round start reads it once per county dashboard
+    for (int county = 0; county < 64; county++) {
+      assertSame(ReportSnapshot.current(summary), first);
+    }
+    assertEquals(summary.count.get(), 1);
+    assertEquals(first.summaryRows(), new CountingSummary().get());
+
+    // an ACVR submission
+    ReportSnapshot.invalidate();
+    final ReportSnapshot second = ReportSnapshot.current(summary);
+    assertNotSame(second, first);
+    assertEquals(summary.count.get(), 2);
+    assertEquals(second.summaryRows().get(1).get(0), "Contest 2");
+    assertSame(ReportSnapshot.current(summary), second);
+  }
+
+  @Test
+  public void refreshAlwaysComputes() {
+    final CountingSummary summary = new CountingSummary();
+    final ReportSnapshot first = ReportSnapshot.refresh(summary);
+    final ReportSnapshot second = ReportSnapshot.refresh(summary);
+    assertEquals(summary.count.get(), 2);
+    assertNotSame(second, first);
+    assertSame(ReportSnapshot.current(summary), second);
+    assertEquals(summary.count.get(), 2);
+  }
+
+  @Test
+  public void invalidatedWhileComputingStaysStale() {
+    final CountingSummary summary = new CountingSummary();
+    ReportSnapshot.refresh(() -> {
+        ReportSnapshot.invalidate();
+        return summary.get();
+      });
+    ReportSnapshot.current(summary);
+    assertEquals(summary.count.get(), 2);
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void rowsCannotBeChanged() {
+    final List<String> row = ReportSnapshot.refresh(new CountingSummary()).summaryRows().get(1);
+    row.set(0, "changed");
+  }
+}
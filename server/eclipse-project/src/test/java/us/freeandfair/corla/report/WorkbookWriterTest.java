@@ -7,12 +7,21 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import us.freeandfair.corla.controller.AuditReport;
 import us.freeandfair.corla.report.WorkbookWriter;
 
 import org.testng.annotations.Test;
@@ -23,6 +32,89 @@ public class WorkbookWriterTest {
 
   private WorkbookWriterTest() {};
 
+  /** The number of contests in the synthetic audit. */
+  private static final int CONTESTS = 200;
+
+  /** The number of audited ballots per contest in the synthetic audit. */
+  private static final int ROWS = 250;
+
+  /** The heap the report is generated in, far less than it needs unstreamed. */
+  private static final String HEAP = "-Xmx64m";
+
+  /**
+   * Writes an activity-all style report for a synthetic audit to a file; run
+   * in a separate JVM, with a capped heap, by largeReportTest.
+   */
+  public static final class Generator {
+    private Generator() {};
+
+    /**
+     * @param args the file, the number of contests and the rows per contest
+     */
+    public static void main(final String[] args) throws IOException {
+      final int contests = Integer.parseInt(args[1]);
+      final int rows = Integer.parseInt(args[2]);
+      final Map<String, String> contestMap = new LinkedHashMap<>();
+      for (int c = 0; c < contests; c++) {
+        contestMap.put("Synthetic Contest " + c + " for Some County", "Contest " + c);
+      }
+
+      final WorkbookWriter writer = new WorkbookWriter();
+      writer.addSheet("Contests to Sheets", AuditReport.getMappingSheet(contestMap));
+      for (final Map.Entry<String, String> entry : contestMap.entrySet()) {
+        final List<List<String>> sheet = new ArrayList<>();
+        sheet.add(Stream.of("dbID", "recordType", "county", "imprintedID", "auditBoard",
+                            "discrepancy", "consensus", "comment", "timestamp")
+                  .collect(Collectors.toList()));
+        for (int r = 1; r <= rows; r++) {
+          sheet.add(Stream.of(String.valueOf(r), "AUDITOR_ENTERED", "Some",
+                              "1-" + r + "-" + entry.getValue(), "Board " + (r % 3),
+                              String.valueOf(r % 5 == 0 ? 1 : 0), "YES",
+                              r % 7 == 0 ? "a comment on ballot " + r : "",
+                              "2024-11-0" + (1 + r % 9) + " 10:00:00")
+                    .collect(Collectors.toList()));
+        }
+        writer.addSheet(entry.getValue(), sheet);
+      }
+      try (OutputStream os = new FileOutputStream(args[0])) {
+        writer.write(os);
+      }
+    }
+  }
+
+  @Test
+  public void largeReportTest() throws Exception {
+    final File file = File.createTempFile("large-report", ".xlsx");
+    try {
+      final Process process = new ProcessBuilder(
+          Paths.get(System.getProperty("java.home"), "bin", "java").toString(), HEAP,
+          "-cp", System.getProperty("java.class.path"),
+          Generator.class.getName(), file.getPath(),
+          String.valueOf(CONTESTS), String.valueOf(ROWS)).inheritIO().start();
+      assertTrue(process.waitFor(5, TimeUnit.MINUTES), "report generation timed out");
+      assertEquals(process.exitValue(), 0, "report generation failed with " + HEAP);
+
+      try (Workbook wb = new XSSFWorkbook(file)) {
+        assertEquals(wb.getNumberOfSheets(), CONTESTS + 1);
+        assertEquals(wb.getSheetAt(0).getLastRowNum(), CONTESTS);
+        assertEquals(wb.getSheetAt(0).getRow(CONTESTS).getCell(1).getStringCellValue(),
+                     "Contest " + (CONTESTS - 1));
+        for (int c = 0; c < CONTESTS; c++) {
+          final Sheet sheet = wb.getSheet("Contest " + c);
+          assertEquals(sheet.getLastRowNum(), ROWS);
+          assertEquals(sheet.getRow(0).getCell(0).getStringCellValue(), "dbID");
+          assertTrue(wb.getFontAt(sheet.getRow(0).getCell(0).getCellStyle().getFontIndex())
+                     .getBold());
+          assertEquals(sheet.getRow(ROWS).getCell(3).getStringCellValue(),
+                       "1-" + ROWS + "-Contest " + c);
+          assertEquals(sheet.getRow(ROWS).getLastCellNum(), 9);
+        }
+      }
+    } finally {
+      assertTrue(file.delete());
+    }
+  }
+
   @Test
   public void generateTest() throws IOException {
     // log of audit calculation events for a contest
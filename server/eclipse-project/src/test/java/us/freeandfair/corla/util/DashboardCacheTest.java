@@ -0,0 +1,102 @@
+package us.freeandfair.corla.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+@Test
+public class DashboardCacheTest {
+
+  @Test
+  public void computedOncePerVersion() {
+    final AtomicInteger computed = new AtomicInteger();
+    final DashboardCache.Entry first =
+        DashboardCache.get("test-once", "", () -> "{\"n\":" + computed.incrementAndGet() + "}");
+    final DashboardCache.Entry again =
+        DashboardCache.get("test-once", "", () -> "{\"n\":" + computed.incrementAndGet() + "}");
+    assertSame(again, first);
+    assertEquals(computed.get(), 1);
+
+    DashboardCache.changed();
+    final DashboardCache.Entry changed =
+        DashboardCache.get("test-once", "", () -> "{\"n\":" + computed.incrementAndGet() + "}");
+    assertEquals(computed.get(), 2);
+    assertEquals(changed.json(), "{\"n\":2}");
+    assertNotEquals(changed.etag(), first.etag());
+  }
+
+  @Test
+  public void variantsAndKeysAreSeparate() {
+    final DashboardCache.Entry ok = DashboardCache.get("test-variant", "OK", () -> "ok");
+    final DashboardCache.Entry down =
+        DashboardCache.get("test-variant", "Unreachable", () -> "down");
+    assertEquals(down.json(), "down");
+    assertNotEquals(down.etag(), ok.etag());
+    assertEquals(DashboardCache.get("test-other", "OK", () -> "other").json(), "other");
+  }
+
+  @Test
+  public void matchesIfNoneMatch() {
+    final DashboardCache.Entry entry = DashboardCache.get("test-match", "", () -> "{}");
+    assertTrue(entry.matches(entry.etag()));
+    assertTrue(entry.matches("\"x\", " + entry.etag()));
+    assertTrue(entry.matches("W/" + entry.etag()));
+    assertTrue(entry.matches("*"));
+    assertFalse(entry.matches(null));
+    assertFalse(entry.matches("\"x\""));
+    assertTrue(entry.etag().startsWith("\"") && entry.etag().endsWith("\""));
+  }
+
+  @Test
+  public void manyPollersComputeOncePerChange() throws Exception {
+    final int pollers = 200;
+    final int polls = 50;
+    final int changes = 5;
+    final AtomicInteger computed = new AtomicInteger();
+    final AtomicInteger not_modified = new AtomicInteger();
+    final ExecutorService executor = Executors.newFixedThreadPool(pollers);
+    try {
+      for (int change = 0; change < changes; change++) {
+        DashboardCache.changed();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < pollers; p++) {
+          futures.add(executor.submit(() -> {
+            start.await();
+            String etag = null;
+            for (int i = 0; i < polls; i++) {
+              final DashboardCache.Entry entry = DashboardCache.get("test-poll", "", () -> {
+                computed.incrementAndGet();
+                return "{}";
+              });
+              if (entry.matches(etag)) {
+                not_modified.incrementAndGet();
+              }
+              etag = entry.etag();
+            }
+            return null;
+          }));
+        }
+        start.countDown();
+        for (final Future<?> future : futures) {
+          future.get(30, TimeUnit.SECONDS);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // one computation per version, however many polls
+    assertEquals(computed.get(), changes);
+    assertEquals(not_modified.get(), changes * pollers * (polls - 1));
+  }
+}
@@ -0,0 +1,121 @@
+package us.freeandfair.corla.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.crypto.HashChecker;
+
+public class IngestOutputStreamTest {
+
+  private static final Path FIXTURES = Paths.get("src", "test", "resources", "CSVs");
+
+  /** The line count the upload endpoint used to compute. */
+  private static int lineNumberReaderCount(final InputStream the_stream) throws IOException {
+    try (LineNumberReader lnr =
+             new LineNumberReader(new InputStreamReader(the_stream, StandardCharsets.UTF_8))) {
+      lnr.skip(Integer.MAX_VALUE);
+      return lnr.getLineNumber();
+    }
+  }
+
+  /** Copies a stream into an ingest stream in small, uneven pieces. */
+  private static IngestOutputStream ingest(final InputStream the_stream,
+                                           final OutputStream the_sink,
+                                           final OutputStream the_copy) throws Exception {
+    final IngestOutputStream ingest = new IngestOutputStream(the_sink, the_copy);
+    FileHelper.bufferedCopy(the_stream, ingest, 997, Integer.MAX_VALUE);
+    ingest.close();
+    return ingest;
+  }
+
+  @Test()
+  public void matchesHashCheckerAndLineNumberReaderOnFixtures() throws Exception {
+    final List<Path> fixtures;
+    try (Stream<Path> paths = Files.walk(FIXTURES)) {
+      fixtures = paths.filter(p -> p.toString().endsWith(".csv")).collect(Collectors.toList());
+    }
+    assertFalse(fixtures.isEmpty());
+
+    for (final Path fixture : fixtures) {
+      final File file = fixture.toFile();
+      final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+      final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+      final IngestOutputStream ingest;
+      try (InputStream in = Files.newInputStream(fixture)) {
+        ingest = ingest(in, sink, copy);
+      }
+      final byte[] contents = Files.readAllBytes(fixture);
+
+      assertEquals(ingest.hash(), HashChecker.hashFile(file), fixture.toString());
+      try (InputStream in = Files.newInputStream(fixture)) {
+        assertEquals(ingest.lineCount(), lineNumberReaderCount(in), fixture.toString());
+      }
+      assertEquals(ingest.byteCount(), file.length());
+      assertEquals(sink.toByteArray(), contents);
+      assertEquals(copy.toByteArray(), contents);
+      assertFalse(ingest.copyFailed());
+    }
+  }
+
+  @Test()
+  public void countsLinesLikeLineNumberReader() throws Exception {
+    final String[] cases = {"", "a", "a\n", "a\nb", "a\r\nb\r\n", "a\rb", "\r", "\r\n",
+                            "\n\n", "a\r", "a\r\r\n", "a\n\r", "é\nü\r\n∑"};
+    for (final String text : cases) {
+      final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+      // one byte at a time, so that CR LF pairs are split across writes
+      final IngestOutputStream ingest =
+          new IngestOutputStream(new ByteArrayOutputStream(), null);
+      for (final byte b : bytes) {
+        ingest.write(b);
+      }
+      final LineNumberReader lnr = new LineNumberReader(new StringReader(text));
+      lnr.skip(Integer.MAX_VALUE);
+      assertEquals(ingest.lineCount(), lnr.getLineNumber(), text);
+      assertEquals(ingest.byteCount(), bytes.length);
+    }
+  }
+
+  @Test()
+  public void failedCopyIsAbandoned() throws Exception {
+    final OutputStream broken = new OutputStream() {
+      private int written;
+
+      @Override
+      public void write(final int the_byte) throws IOException {
+        written = written + 1;
+        if (written > 10) {
+          throw new IOException("disk full");
+        }
+      }
+    };
+    final byte[] contents = "a,b,c\n1,2,3\n4,5,6\n".getBytes(StandardCharsets.UTF_8);
+    final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    final IngestOutputStream ingest =
+        ingest(new ByteArrayInputStream(contents), sink, broken);
+
+    assertTrue(ingest.copyFailed());
+    assertEquals(sink.toByteArray(), contents);
+    assertEquals(ingest.lineCount(), 3);
+  }
+}
@@ -0,0 +1,221 @@
+package us.freeandfair.corla.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.testng.annotations.Test;
+
+import us.freeandfair.corla.controller.BallotSelection;
+import us.freeandfair.corla.controller.BallotSelection.MissingBallotManifestException;
+import us.freeandfair.corla.controller.BallotSelection.Selection;
+import us.freeandfair.corla.crypto.PseudoRandomNumberGenerator;
+import us.freeandfair.corla.model.BallotManifestInfo;
+import us.freeandfair.corla.model.Tribute;
+
+import static org.testng.Assert.*;
+
+/**
+ * Checks that sample selection through a ManifestIndex picks exactly the
+ * manifest entries that the linear scan in BallotSelection.selectCountyId
+ * picks.
+ */
+public class ManifestIndexTest {
+  /**
+   * A seed for the PRNG.
+   */
+  private static final String SEED = "24681357913578642097";
+
+  @Test()
+  public void demoManifestSelectionsMatchLinearScan() throws IOException {
+    final Map<Long, String> manifests = new TreeMap<>();
+    manifests.put(1L, "src/test/resources/CSVs/Demo1/1-adams-plusByron-1-manifest.csv");
+    manifests.put(2L, "src/test/resources/CSVs/Demo1/2-alamosa-plusByron-2-manifest.csv");
+    manifests.put(7L, "src/test/resources/CSVs/Demo1/7-unredacted-Boulder-IRV-Manifest.csv");
+
+    final Set<BallotManifestInfo> bmis = new TreeSet<>(new BallotManifestInfo.Sort());
+    for (final Map.Entry<Long, String> manifest : manifests.entrySet()) {
+      bmis.addAll(parseManifest(manifest.getKey(), manifest.getValue()));
+    }
+
+    assertSelectionsMatch(bmis, 2000);
+    assertCountyLookupsMatch(bmis, manifests.keySet());
+  }
+
+  @Test()
+  public void syntheticManifestSelectionsMatchLinearScan() {
+    final Random random = new Random(1L);
+    final Set<BallotManifestInfo> bmis = new TreeSet<>(new BallotManifestInfo.Sort());
+    final Set<Long> countyIds = new TreeSet<>();
+    for (long county = 1; county <= 5; county++) {
+      countyIds.add(county);
+      long start = 1L;
+      for (int batch = 0; batch < 2000; batch++) {
+        final int size = 1 + random.nextInt(120);
+        bmis.add(new BallotManifestInfo(county, 1 + batch % 7, String.valueOf(batch), size,
+                                        "bin", start, start + size - 1L));
+        start = start + size;
+      }
+    }
+    assertEquals(bmis.size(), 10000);
+
+    assertSelectionsMatch(bmis, 5000);
+    assertCountyLookupsMatch(bmis, countyIds);
+
+    // the boundaries of every 20th batch in the ultimate sequence, and just
+    // outside the sequence
+    final ManifestIndex index = ManifestIndex.ofUltimateSequence(bmis);
+    long last = 0L;
+    int batch = 0;
+    for (final BallotManifestInfo bmi : bmis) {
+      if (batch % 20 == 0) {
+        assertSameHolder(bmi.ultimateSequenceStart, bmis, index);
+        assertSameHolder(bmi.ultimateSequenceEnd, bmis, index);
+      }
+      last = Math.max(last, bmi.ultimateSequenceEnd);
+      batch = batch + 1;
+    }
+    assertSameHolder(0L, bmis, index);
+    assertSameHolder(last + 1L, bmis, index);
+  }
+
+  @Test()
+  public void emptyBatchesHoldNothing() {
+    // a batch with no ballots ends just before it starts
+    final List<BallotManifestInfo> county = new ArrayList<>();
+    county.add(new BallotManifestInfo(1L, 1, "1", 3, "bin", 1L, 3L));
+    county.add(new BallotManifestInfo(1L, 1, "2", 0, "bin", 4L, 3L));
+    county.add(new BallotManifestInfo(1L, 1, "3", 2, "bin", 4L, 5L));
+    final ManifestIndex index = ManifestIndex.ofCountySequence(county);
+
+    assertSame(index.holding(3L).get(), county.get(0));
+    assertSame(index.holding(4L).get(), county.get(2));
+    assertSame(index.holding(5L).get(), county.get(2));
+    assertEquals(index.holding(6L), Optional.empty());
+  }
+
+  @Test()
+  public void emptyManifestHoldsNothing() {
+    final ManifestIndex index =
+        ManifestIndex.ofUltimateSequence(new TreeSet<>(new BallotManifestInfo.Sort()));
+    assertEquals(index.holding(1L), Optional.empty());
+    assertEquals(ManifestIndex.ofCountySequence(Collections.emptySet()).holding(1L),
+                 Optional.empty());
+  }
+
+  /**
+   * Selects a sample through selectTributes and checks each tribute against
+   * the linear scan.
+   */
+  private void assertSelectionsMatch(final Set<BallotManifestInfo> bmis, final int samples) {
+    final long total = bmis.stream().mapToLong(bmi -> bmi.rangeSize() + 1L).sum();
+    final PseudoRandomNumberGenerator gen =
+        new PseudoRandomNumberGenerator(SEED, true, 1, (int) total);
+
+    final Set<Long> countyIds = new TreeSet<>();
+    bmis.forEach(bmi -> countyIds.add(bmi.countyID()));
+
+    final Selection selection = new Selection();
+    selection.contestName = "test";
+    selection.generatedNumbers = gen.getRandomNumbers(0, samples - 1);
+    BallotSelection.selectTributes(selection, countyIds, bmis);
+
+    final List<Tribute> tributes = new ArrayList<>();
+    for (final Long countyId : countyIds) {
+      tributes.addAll(selection.forCounty(countyId).tributes);
+    }
+    tributes.sort((t1, t2) -> t1.randSequencePosition.compareTo(t2.randSequencePosition));
+    assertEquals(tributes.size(), samples);
+
+    for (int i = 0; i < samples; i++) {
+      final Integer rand = selection.generatedNumbers.get(i);
+      final BallotManifestInfo expected = BallotSelection.selectCountyId(Long.valueOf(rand), bmis);
+      final Tribute tribute = tributes.get(i);
+      assertEquals(tribute.rand, rand);
+      assertEquals(tribute.countyId, expected.countyID());
+      assertEquals(tribute.scannerId, expected.scannerID());
+      assertEquals(tribute.batchId, expected.batchID());
+      assertEquals(tribute.ballotPosition, expected.translateRand(rand));
+    }
+  }
+
+  /**
+   * Looks up the first and last sequence numbers of every batch of each
+   * county, and the numbers either side of them, in the county's own index
+   * and by scanning the county's entries.
+   */
+  private void assertCountyLookupsMatch(final Set<BallotManifestInfo> bmis,
+                                        final Set<Long> countyIds) {
+    for (final Long countyId : countyIds) {
+      final List<BallotManifestInfo> county = new ArrayList<>();
+      bmis.stream().filter(bmi -> bmi.countyID().equals(countyId)).forEach(county::add);
+      final ManifestIndex index = ManifestIndex.ofCountySequence(county);
+
+      for (final BallotManifestInfo batch : county) {
+        for (final long rand : new long[] {batch.sequenceStart() - 1L, batch.sequenceStart(),
+                                           batch.sequenceEnd(), batch.sequenceEnd() + 1L}) {
+          final Optional<BallotManifestInfo> expected = county.stream()
+              .filter(bmi -> bmi.sequenceStart() <= rand && rand <= bmi.sequenceEnd())
+              .findFirst();
+          assertEquals(index.holding(rand), expected);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks that the index and the linear scan agree on a sequence number,
+   * including when neither finds it.
+   */
+  private void assertSameHolder(final Long rand, final Set<BallotManifestInfo> bmis,
+                                final ManifestIndex index) {
+    BallotManifestInfo expected;
+    try {
+      expected = BallotSelection.selectCountyId(rand, bmis);
+    } catch (final MissingBallotManifestException e) {
+      expected = null;
+    }
+    BallotManifestInfo actual;
+    try {
+      actual = BallotSelection.selectCountyId(rand, index);
+    } catch (final MissingBallotManifestException e) {
+      actual = null;
+    }
+    assertSame(actual, expected, "rand " + rand);
+  }
+
+  /**
+   * Reads a manifest file into entries the way ColoradoBallotManifestParser
+   * numbers them, without the database.
+   */
+  private List<BallotManifestInfo> parseManifest(final Long countyId, final String path)
+      throws IOException {
+    final List<BallotManifestInfo> result = new ArrayList<>();
+    try (Reader reader = Files.newBufferedReader(Paths.get(path));
+         CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
+      long start = 1L;
+      for (final CSVRecord line : parser) {
+        // the header names vary between counties, so go by position
+        final int size = Integer.parseInt(line.get(3));
+        result.add(new BallotManifestInfo(countyId, Integer.parseInt(line.get(1)),
+                                          line.get(2), size, line.get(4), start,
+                                          start + size - 1L));
+        start = start + size;
+      }
+    }
+    return result;
+  }
+}
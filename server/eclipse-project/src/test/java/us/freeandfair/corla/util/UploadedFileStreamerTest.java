@@ -0,0 +1,200 @@
+package us.freeandfair.corla.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import us.freeandfair.corla.model.County;
+import us.freeandfair.corla.model.UploadedFile;
+import us.freeandfair.corla.model.UploadedFile.FileStatus;
+import us.freeandfair.corla.persistence.Persistence;
+import au.org.democracydevelopers.corla.util.TestClassWithDatabase;
+
+@Test(groups = {"integration"})
+public class UploadedFileStreamerTest extends TestClassWithDatabase {
+
+  private static final Logger LOGGER = LogManager.getLogger(UploadedFileStreamerTest.class);
+
+  /**
+   * The size of the synthetic CVR export, in MB; override with
+   * -Dcorla.test.streamer_mb=N.
+   */
+  private static final long SYNTHETIC_MB = Long.getLong("corla.test.streamer_mb", 300L);
+
+  /**
+   * A synthetic Dominion CVR export of exactly the_size bytes: the four
+   * header lines, then CVR rows, generated as they are read.
+   */
+  private static class SyntheticCVRStream extends InputStream {
+    private static final byte[] HEADER = (
+        "Synthetic,5.2.16.1,,,,,,,,,,,,\n" +
+        ",,,,,,,,Mayor,Mayor,Mayor,Council,Council\n" +
+        ",,,,,,,,Alice,Bob,Carol,Dave,Erin\n" +
+        "CvrNumber,TabulatorNum,BatchId,RecordId,ImprintedId,CountingGroup," +
+        "PrecinctPortion,BallotType,,,,,\n").getBytes(StandardCharsets.US_ASCII);
+
+    private final long my_size;
+    private long my_position;
+    private byte[] my_row = HEADER;
+    private int my_row_position;
+    private int my_rows;
+
+    SyntheticCVRStream(final long the_size) {
+      super();
+      my_size = the_size;
+    }
+
+    @Override
+    public int read() {
+      final byte[] one = new byte[1];
+      return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] the_bytes, final int the_offset, final int the_length) {
+      if (my_position >= my_size) {
+        return -1;
+      }
+      final int length = (int) Math.min(the_length, my_size - my_position);
+      int done = 0;
+      while (done < length) {
+        if (my_row_position == my_row.length) {
+          my_rows = my_rows + 1;
+          my_row = (my_rows + ",1," + (my_rows / 100) + "," + (my_rows % 100) +
+                    ",1-" + my_rows + ",Regular,Precinct " + (my_rows % 50) +
+                    ",Ballot 1,1,0,0," + (my_rows % 2) + "," + ((my_rows + 1) % 2) + "\n")
+              .getBytes(StandardCharsets.US_ASCII);
+          my_row_position = 0;
+        }
+        final int n = Math.min(length - done, my_row.length - my_row_position);
+        System.arraycopy(my_row, my_row_position, the_bytes, the_offset + done, n);
+        my_row_position = my_row_position + n;
+        done = done + n;
+      }
+      my_position = my_position + done;
+      return done;
+    }
+  }
+
+  /**
+   * Saves a file of the specified size, committing it so that other sessions
+   * can see it, and returns its ID; the_digest gets the file's contents.
+   */
+  private Long saveFile(final long the_size, final MessageDigest the_digest) {
+    final InputStream stream =
+        new DigestInputStream(new SyntheticCVRStream(the_size), the_digest);
+    final UploadedFile file =
+        new UploadedFile(Instant.now(), Persistence.getByID(1L, County.class),
+                         "synthetic.csv", FileStatus.HASH_VERIFIED, "", "",
+                         Persistence.blobFor(stream, the_size), the_size, 0);
+    Persistence.save(file);
+    Persistence.flush();
+    Persistence.commitTransaction();
+    Persistence.beginTransaction();
+    return file.id();
+  }
+
+  private void deleteFile(final Long the_id) {
+    Persistence.rollbackTransaction();
+    Persistence.beginTransaction();
+    Persistence.delete(UploadedFile.class, the_id);
+    Persistence.flush();
+    Persistence.commitTransaction();
+    Persistence.beginTransaction();
+  }
+
+  private static long usedHeap() {
+    final Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * A multi-hundred-MB file reads back exactly, while the reading thread's
+   * own transactions commit, as they do during an import; the throughput and
+   * heap growth are logged.
+   */
+  @Test()
+  public void readsLargeFileExactly() throws IOException, NoSuchAlgorithmException {
+    final long size = SYNTHETIC_MB * 1024 * 1024;
+    final MessageDigest written = MessageDigest.getInstance("SHA-256");
+    final Long id = saveFile(size, written);
+    try {
+      final MessageDigest read = MessageDigest.getInstance("SHA-256");
+      final byte[] buffer = new byte[8192];
+      long total = 0;
+      long most_heap = 0;
+      System.gc();
+      final long base_heap = usedHeap();
+      final long start = System.nanoTime();
+      try (UploadedFileStreamer streamer = new UploadedFileStreamer(id)) {
+        final InputStream stream = streamer.inputStream();
+        int n = stream.read(buffer);
+        while (n >= 0) {
+          read.update(buffer, 0, n);
+          total = total + n;
+          if (total % (64L * 1024 * 1024) < n) {
+            Persistence.commitTransaction();
+            Persistence.beginTransaction();
+            most_heap = Math.max(most_heap, usedHeap() - base_heap);
+          }
+          n = stream.read(buffer);
+        }
+      }
+      final double seconds = (System.nanoTime() - start) / 1e9;
+      LOGGER.info(String.format("read %d MB in %.2f s (%.1f MB/s), heap grew by at most %d MB",
+                                SYNTHETIC_MB, seconds, SYNTHETIC_MB / seconds,
+                                most_heap / (1024 * 1024)));
+
+      assertEquals(total, size);
+      assertTrue(Arrays.equals(read.digest(), written.digest()));
+    } finally {
+      deleteFile(id);
+    }
+  }
+
+  /**
+   * Small reads, including single bytes, see the same contents.
+   */
+  @Test()
+  public void readsByteByByte() throws IOException, NoSuchAlgorithmException {
+    final long size = 3 * UploadedFileStreamer.BUFFER_SIZE / 2 + 7;
+    final MessageDigest written = MessageDigest.getInstance("SHA-256");
+    final Long id = saveFile(size, written);
+    try (UploadedFileStreamer streamer = new UploadedFileStreamer(id)) {
+      final MessageDigest read = MessageDigest.getInstance("SHA-256");
+      final InputStream stream = streamer.inputStream();
+      long total = 0;
+      int b = stream.read();
+      while (b >= 0) {
+        read.update((byte) b);
+        total = total + 1;
+        b = stream.read();
+      }
+      assertEquals(total, size);
+      assertTrue(Arrays.equals(read.digest(), written.digest()));
+    } finally {
+      deleteFile(id);
+    }
+  }
+
+  /**
+   * A file that does not exist cannot be opened.
+   */
+  @Test(expectedExceptions = PersistenceException.class)
+  public void missingFileFails() {
+    new UploadedFileStreamer(-1L).close();
+  }
+}